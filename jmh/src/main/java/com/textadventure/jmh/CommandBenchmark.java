@@ -0,0 +1,115 @@
+package com.textadventure.jmh;
+
+import com.textadventure.engine.Command;
+import com.textadventure.engine.CommandParser;
+import com.textadventure.engine.WorldDefinition;
+import com.textadventure.engine.WorldGraph;
+import com.textadventure.game.Game;
+import com.textadventure.model.Condition;
+import com.textadventure.model.ConditionContext;
+import com.textadventure.model.ItemContainer;
+import com.textadventure.model.Room;
+import com.textadventure.tools.WorldGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing, the go / look / take / use commands and an exit-condition check on a generated world.
+ * Each benchmark gets a fresh game standing in the locked room, carrying that room's key.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandBenchmark {
+
+    @Param({"10000"})
+    public int rooms;
+
+    private GeneratedWorld generated;
+    private WorldDefinition world;
+    private Game game;
+    private Room lockedRoom;
+    private String item;
+    private String lockName;
+    private int turn;
+
+    private final CommandParser parser = new CommandParser();
+    private Condition lock;
+    private ConditionContext context;
+
+    @Setup
+    public void setUp() throws Exception {
+        generated = new GeneratedWorld(rooms);
+        world = generated.load();
+        game = new Game(new PrintStream(OutputStream.nullOutputStream()));
+        GeneratedWorld.reset(game, world);
+        game.getPlayer().takeItem(world.getItem(WorldGenerator.keyName(3)));
+        lockedRoom = world.getRoom(GeneratedWorld.START);
+        item = WorldGenerator.itemName(3, 0);
+        lockName = WorldGenerator.lockName(3);
+
+        WorldGraph graph = world.getGraph();
+        lock = graph.exitCondition(graph.findExit(lockedRoom.getId(), graph.directionId("east")));
+        ItemContainer inventory = new ItemContainer(true);
+        inventory.add(world.getItem(WorldGenerator.keyName(3)));
+        context = new ConditionContext() {
+            @Override public long inventoryWord(int wordIndex) { return inventory.idWord(wordIndex); }
+            @Override public boolean roomHasItem(int itemId) { return false; }
+            @Override public int counter(String name) { return 0; }
+        };
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        generated.delete();
+    }
+
+    @Benchmark
+    public Command parse() {
+        return parser.parse("use key card on rusted door");
+    }
+
+    @Benchmark
+    public boolean conditionLockedExit() {
+        return lock.test(context);
+    }
+
+    @Benchmark
+    public void go() {
+        game.processCommand((turn++ & 1) == 0 ? "go south" : "go north");
+    }
+
+    @Benchmark
+    public void look() {
+        game.processCommand("look");
+    }
+
+    @Benchmark
+    public void takeOrDrop() {
+        game.processCommand(((turn++ & 1) == 0 ? "take " : "drop ") + item);
+    }
+
+    // The lock is put back after each use, so every call removes it again.
+    @Benchmark
+    public void use() {
+        game.processCommand("use key 3 on lock 3");
+        game.getWorldState().addItem(lockedRoom, world.getItem(lockName));
+    }
+}
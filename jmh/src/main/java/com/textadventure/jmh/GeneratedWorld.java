@@ -0,0 +1,50 @@
+package com.textadventure.jmh;
+
+import com.textadventure.engine.GameLoader;
+import com.textadventure.engine.WorldDefinition;
+import com.textadventure.game.Game;
+import com.textadventure.tools.WorldGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A {@link WorldGenerator} world written to a temporary file, as {@code EngineBenchmark} uses:
+ * two items per room, seed 42. Room 3 is locked to the east and its key lies in room 2.
+ */
+final class GeneratedWorld {
+
+    static final String START = WorldGenerator.roomName(3);
+
+    private final Path dir;
+    private final Path file;
+
+    GeneratedWorld(int rooms) throws IOException {
+        dir = Files.createTempDirectory("engine-jmh");
+        file = dir.resolve("world-" + rooms + ".json");
+        new WorldGenerator(rooms, 2, 42L).write(file);
+    }
+
+    Path file() { return file; }
+    Path dir() { return dir; }
+
+    WorldDefinition load() throws Exception {
+        GameLoader loader = new GameLoader();
+        loader.loadGameData(file.toString());
+        return WorldDefinition.from(loader);
+    }
+
+    // Puts the game back at the start room with nothing carried.
+    static void reset(Game game, WorldDefinition world) throws Exception {
+        game.initialize(world);
+        game.getPlayer().setCurrentRoom(world.roomId(START), START);
+    }
+
+    void delete() throws IOException {
+        try (var files = Files.list(dir)) {
+            for (Path path : files.toList()) Files.delete(path);
+        }
+        Files.delete(dir);
+    }
+}
@@ -0,0 +1,49 @@
+package com.textadventure.jmh;
+
+import com.textadventure.engine.GameLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Loading a generated world file, from a handful of rooms up to a million. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LoaderBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int rooms;
+
+    private GeneratedWorld world;
+
+    @Setup
+    public void generate() throws Exception {
+        world = new GeneratedWorld(rooms);
+    }
+
+    @TearDown
+    public void delete() throws Exception {
+        world.delete();
+    }
+
+    @Benchmark
+    public GameLoader loadGameData() throws Exception {
+        GameLoader loader = new GameLoader();
+        loader.loadGameData(world.file().toString());
+        return loader;
+    }
+}
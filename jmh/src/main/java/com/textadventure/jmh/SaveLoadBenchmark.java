@@ -0,0 +1,63 @@
+package com.textadventure.jmh;
+
+import com.textadventure.engine.WorldDefinition;
+import com.textadventure.game.Game;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/** Saving after a move, and loading the save back, on a generated world. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SaveLoadBenchmark {
+
+    @Param({"10000"})
+    public int rooms;
+
+    private GeneratedWorld generated;
+    private Game game;
+    private int turn;
+
+    @Setup
+    public void setUp() throws Exception {
+        generated = new GeneratedWorld(rooms);
+        WorldDefinition world = generated.load();
+        game = new Game(new PrintStream(OutputStream.nullOutputStream()));
+        GeneratedWorld.reset(game, world);
+        game.setSaveFileName(generated.dir().resolve("bench.sav").toString());
+        game.processCommand("save");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        generated.delete();
+    }
+
+    @Benchmark
+    public void moveAndSave() {
+        game.processCommand((turn++ & 1) == 0 ? "go south" : "go north");
+        game.processCommand("save");
+    }
+
+    @Benchmark
+    public void load() {
+        game.processCommand("load");
+    }
+}
@@ -2,53 +2,51 @@ package com.textadventure;
 
 import com.textadventure.game.Game;
 import com.textadventure.model.Room;
-import com.textadventure.model.Item;
+import com.textadventure.engine.Command;
 import com.textadventure.engine.CommandParser;
 import com.textadventure.engine.GameLoader.GameDataException;
+import com.textadventure.metrics.MetricsExporter;
+import com.textadventure.utils.Log;
 import com.google.gson.JsonSyntaxException;
 import java.io.IOException;
-import java.util.stream.Collectors;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
 import java.util.Scanner;
-import java.util.Arrays;
 
 public class Main {
 
     private static final String ADVENTURE_DATA_PATH = "data/adventure.json";
 
     public static void main(String[] args) {
+        String dataPath = args.length > 0 ? args[0] : ADVENTURE_DATA_PATH;
         System.out.println("========================================");
         System.out.println(" Welcome to the Text Adventure Engine! ");
         System.out.println("========================================");
         System.out.println("Starting application...");
 
-        System.out.println("[Main] Creating Game instance...");
+        Log.GAME.debug("Creating Game instance...");
         Game game = new Game();
-        System.out.println("[Main] Game instance created.");
+        Log.GAME.debug("Game instance created.");
 
-        System.out.println("[Main] Attempting to initialize game data from: " + ADVENTURE_DATA_PATH);
+        Log.GAME.info(() -> "Attempting to initialize game data from: " + dataPath);
         try {
-            game.initialize(ADVENTURE_DATA_PATH);
-            System.out.println("[Main] Game initialization successful!");
+            game.initialize(dataPath);
+            Log.GAME.info("Game initialization successful!");
         } catch (IOException e) {
             System.err.println("[Main] FATAL ERROR during initialization: Cannot read game data file.");
-            System.err.println("       File Path Attempted: " + ADVENTURE_DATA_PATH);
+            System.err.println("       File Path Attempted: " + dataPath);
             System.err.println("       Error: " + e.getMessage());
             e.printStackTrace();
             return;
 
         } catch (JsonSyntaxException e) {
             System.err.println("[Main] FATAL ERROR during initialization: Invalid JSON syntax in game data file.");
-            System.err.println("       File Path: " + ADVENTURE_DATA_PATH);
+            System.err.println("       File Path: " + dataPath);
             System.err.println("       Error: " + e.getMessage());
             e.printStackTrace();
             return;
 
         } catch (GameDataException e) {
             System.err.println("[Main] FATAL ERROR during initialization: Invalid game data structure.");
-            System.err.println("       File Path: " + ADVENTURE_DATA_PATH);
+            System.err.println("       File Path: " + dataPath);
             System.err.println("       Error: " + e.getMessage());
             e.printStackTrace();
             return;
@@ -67,13 +65,12 @@ public class Main {
             return;
         }
 
-        CommandParser commandParser = new CommandParser();
-        System.out.println("[Main] CommandParser instance created.");
+        CommandParser commandParser = game.getCommands().newParser();
+        Log.PARSER.debug("CommandParser instance created.");
 
+        MetricsExporter metrics = MetricsExporter.startFromSystemProperties();
         Scanner scanner = new Scanner(System.in);
-        System.out.println("[Main] Input Scanner instance created.");
-
-        System.out.println("[Main] Entring main game loop...");
+        Log.GAME.debug("Input Scanner instance created; entering main game loop...");
         boolean gameRunning = true;
 
         while (gameRunning) {
@@ -86,57 +83,26 @@ public class Main {
                 break;
             }
 
-            System.out.println("\n========================================");
-            System.out.println("Location: " + currentRoom.getName());
-            System.out.println("----------------------------------------");
-            System.out.println(currentRoom.getDescription());
-
-            List<Item> itemsInRoom = currentRoom.getItems();
-
-            if (itemsInRoom != null && !itemsInRoom.isEmpty()) {
-                String itemNames = itemsInRoom.stream().map(Item::getName).collect(Collectors.joining(", "));
-
-                System.out.println("----------------------------------------");
-                System.out.println("You see: " + itemNames + ".");
-            }
-
-            Map<String, String> exits = currentRoom.getExits();
-
-            if (exits != null && !exits.isEmpty()) {
-                Set<String> directions = exits.keySet();
-
-                String exitDirections = directions.stream().sorted().collect(Collectors.joining(" "));
-
-                System.out.println("----------------------------------------");
-                System.out.println("Exits: " + exitDirections);
-            }
-
-            System.out.println("========================================");
-
-            System.out.print("> ");
+            game.printStatus();
 
             String userInput = scanner.nextLine();
 
-            System.out.println("[Debug] User entered: '" + userInput + "'");
-
-            String[] commandParts = commandParser.parse(userInput);
-            System.out.println("[Debug] Parsed command: " + Arrays.toString(commandParts));
+            Command command = commandParser.parse(userInput);
+            if (Log.PARSER.isDebugEnabled()) {
+                Log.PARSER.debug("User entered: '" + userInput + "', parsed command: " + command.verb() + " '" + command + "'");
+            }
 
-            if (commandParts.length > 0) {
-                String commandVerb = commandParts[0];
-                if (commandVerb.equals("quit") || commandVerb.equals("exit")) {
-                    gameRunning = false;
-                    System.out.println("Quitting game. Goodbye!");
-                } else
-                    game.processCommand(commandParts);
+            if (!command.isEmpty()) {
+                game.processCommand(command);
+                gameRunning = !game.isFinished();
             } else
                 System.out.println("Please enter a command.");
         }
 
-        System.out.println("\n[Main] Exited game loop.");
-
         scanner.close();
-        System.out.println("[Main] Input scanner closed");
+        game.close();
+        if (metrics != null) metrics.close();
+        Log.GAME.debug("Exited game loop; input scanner closed.");
 
         System.out.println("\n=========================================");
         System.out.println("      Thank you for playing!      ");
@@ -0,0 +1,86 @@
+package com.textadventure.engine;
+
+/**
+ * A parsed command: verb, optional direct object, optional preposition and optional indirect
+ * object ("use key on door" is USE / "key" / "on" / "door"). Parts are slices of the parser's
+ * lower-cased, whitespace-collapsed copy of the input; the String accessors materialize a part the
+ * first time it is asked for.
+ *
+ * <p>A parser reuses one Command for every call to {@link CommandParser#parse}, so a Command is only
+ * valid until the next parse on the same parser.
+ */
+public final class Command {
+
+    char[] text = new char[128];
+    int length;
+    Verb verb = Verb.UNKNOWN;
+    int verbId = -1;
+    int verbEnd;
+    int directStart, directEnd;
+    int prepositionStart, prepositionEnd;
+    int indirectStart, indirectEnd;
+
+    private String verbWord;
+    private String directObject;
+    private String preposition;
+    private String indirectObject;
+
+    Command() {
+    }
+
+    void reset() {
+        length = 0;
+        verb = Verb.UNKNOWN;
+        verbId = -1;
+        verbEnd = directStart = directEnd = 0;
+        prepositionStart = prepositionEnd = indirectStart = indirectEnd = 0;
+        verbWord = directObject = preposition = indirectObject = null;
+    }
+
+    public boolean isEmpty() { return length == 0; }
+    // Built-in verb, or UNKNOWN for unresolved words and verbs added through a VerbTable.
+    public Verb verb() { return verb; }
+    // Id of the verb in the parser's VerbTable, or -1 when the first word selects no verb.
+    public int verbId() { return verbId; }
+    public boolean hasDirectObject() { return directEnd > directStart; }
+    public boolean hasPreposition() { return prepositionEnd > prepositionStart; }
+    public boolean hasIndirectObject() { return indirectEnd > indirectStart; }
+
+    // The first word as typed (lower-cased), e.g. "inv" for Verb.INVENTORY.
+    public String verbWord() {
+        if (verbWord == null) verbWord = new String(text, 0, verbEnd);
+        return verbWord;
+    }
+
+    // Everything between the verb and the preposition, or null.
+    public String directObject() {
+        if (directObject == null && hasDirectObject())
+            directObject = new String(text, directStart, directEnd - directStart);
+        return directObject;
+    }
+
+    public String preposition() {
+        if (preposition == null && hasPreposition())
+            preposition = new String(text, prepositionStart, prepositionEnd - prepositionStart);
+        return preposition;
+    }
+
+    // Everything after the preposition, or null.
+    public String indirectObject() {
+        if (indirectObject == null && hasIndirectObject())
+            indirectObject = new String(text, indirectStart, indirectEnd - indirectStart);
+        return indirectObject;
+    }
+
+    public boolean hasArguments() { return length > verbEnd; }
+
+    // Everything after the verb as typed, e.g. "key on door"; empty when the verb stands alone.
+    public String arguments() {
+        return hasArguments() ? new String(text, verbEnd + 1, length - verbEnd - 1) : "";
+    }
+
+    @Override
+    public String toString() {
+        return new String(text, 0, length);
+    }
+}
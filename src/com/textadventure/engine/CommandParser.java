@@ -1,14 +1,90 @@
 package com.textadventure.engine;
 
+import com.textadventure.utils.Log;
+
+import java.util.Arrays;
+
+/**
+ * Tokenizes player input into a {@link Command}. The input is copied once into the command's char
+ * buffer, lower-cased and with whitespace runs collapsed to single spaces; verbs and prepositions
+ * are then resolved through tries over slices of that buffer. Once the buffer has grown to the
+ * longest line seen, parsing does not allocate.
+ *
+ * <p>A parser is not thread-safe and returns the same Command instance from every call.
+ */
 public class CommandParser {
+
+    private static final String[] PREPOSITIONS = { "on", "with", "at", "in", "into", "to", "from", "under" };
+
+    private final VerbTable verbs;
+    private final WordTrie<String> prepositions = new WordTrie<>();
+    private final Command command = new Command();
+
+    // Parser that knows only the built-in verbs.
     public CommandParser() {
-        System.out.println("CommandParser initialized");
+        this(new VerbTable());
+    }
+
+    public CommandParser(VerbTable verbs) {
+        if (verbs == null)
+            throw new IllegalArgumentException("Verb table cannot be null.");
+        this.verbs = verbs;
+        for (String preposition : PREPOSITIONS) prepositions.put(preposition, preposition);
+        Log.PARSER.debug("CommandParser initialized");
+    }
+
+    public Command parse(String userInput) {
+        Command c = command;
+        c.reset();
+        if (userInput == null) return c;
+
+        if (c.text.length < userInput.length()) c.text = Arrays.copyOf(c.text, userInput.length() * 2);
+        char[] text = c.text;
+        int n = 0;
+        boolean space = false;
+        for (int i = 0, len = userInput.length(); i < len; i++) {
+            char ch = userInput.charAt(i);
+            if (Character.isWhitespace(ch)) {
+                space = n > 0;
+            } else {
+                if (space) {
+                    text[n++] = ' ';
+                    space = false;
+                }
+                text[n++] = Character.toLowerCase(ch);
+            }
+        }
+        c.length = n;
+        if (n == 0) return c;
+
+        int verbEnd = wordEnd(text, 0, n);
+        c.verbId = verbs.lookup(text, 0, verbEnd);
+        c.verb = Verb.of(c.verbId);
+        c.verbEnd = verbEnd;
+        if (verbEnd == n) return c;
+
+        // The first preposition that still has words after it splits the direct and indirect objects.
+        int start = verbEnd + 1;
+        c.directStart = start;
+        c.directEnd = n;
+        for (int word = start; word < n; ) {
+            int end = wordEnd(text, word, n);
+            if (end < n && prepositions.get(text, word, end) != null) {
+                c.directEnd = word > start ? word - 1 : start;
+                c.prepositionStart = word;
+                c.prepositionEnd = end;
+                c.indirectStart = end + 1;
+                c.indirectEnd = n;
+                break;
+            }
+            word = end + 1;
+        }
+        return c;
     }
 
-    public String[] parse(String userInput) {
-        if (userInput == null) return new String[0];
-        String trimmedInput = userInput.toLowerCase().trim();
-        if (trimmedInput.isEmpty()) return new String[0];
-        return trimmedInput.split("\\s+");
+    private static int wordEnd(char[] text, int from, int length) {
+        int i = from;
+        while (i < length && text[i] != ' ') i++;
+        return i;
     }
-}
\ No newline at end of file
+}
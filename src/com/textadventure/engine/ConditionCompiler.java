@@ -0,0 +1,117 @@
+package com.textadventure.engine;
+
+import com.textadventure.model.Condition;
+import com.textadventure.model.Conditions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Compiles {@link Conditions} blocks into {@link Condition} predicates. All parts of a block must
+ * hold: {@code requiresItem} (one name or a list), {@code requiresAnyItem}, none of
+ * {@code forbidsItem}, every {@code requiresItemInRoom} and every {@code requiresCounter} minimum.
+ * Item names are resolved to ids once, here; a required item that is not defined can never be
+ * held, so it compiles to {@link Condition#NEVER}.
+ */
+public final class ConditionCompiler {
+
+    private ConditionCompiler() {}
+
+    public static Condition compile(Conditions conditions, ToIntFunction<String> itemIds) {
+        if (conditions == null) return Condition.ALWAYS;
+        List<Condition> parts = new ArrayList<>();
+
+        int[] required = resolve(requiredNames(conditions.getRequiresItem()), itemIds);
+        if (required.length > 0) {
+            if (containsUnknown(required)) return Condition.NEVER;
+            parts.add(allItems(required));
+        }
+
+        int[] any = resolve(conditions.getRequiresAnyItem(), itemIds);
+        if (any.length > 0) {
+            int[] known = Arrays.stream(any).filter(id -> id >= 0).toArray();
+            if (known.length == 0) return Condition.NEVER;
+            parts.add(anyItem(known));
+        }
+
+        int[] forbidden = Arrays.stream(resolve(conditions.getForbidsItem(), itemIds)).filter(id -> id >= 0).toArray();
+        if (forbidden.length > 0) {
+            parts.add(new Condition.Not(anyItem(forbidden)));
+        }
+
+        int[] inRoom = resolve(conditions.getRequiresItemInRoom(), itemIds);
+        for (int id : inRoom) {
+            if (id < 0) return Condition.NEVER;
+            parts.add(new Condition.ItemInRoom(id));
+        }
+
+        Map<String, Integer> counters = conditions.getRequiresCounter();
+        if (counters != null) {
+            for (Map.Entry<String, Integer> e : counters.entrySet()) {
+                if (e.getKey() != null && e.getValue() != null)
+                    parts.add(new Condition.CounterAtLeast(e.getKey(), e.getValue()));
+            }
+        }
+
+        if (parts.isEmpty()) return Condition.ALWAYS;
+        if (parts.size() == 1) return parts.get(0);
+        return new Condition.And(parts.toArray(new Condition[0]));
+    }
+
+    // requiresItem is either a single name or a list of names, as in the JSON file.
+    static List<String> requiredNames(Object requiresItem) {
+        if (requiresItem == null) return List.of();
+        if (requiresItem instanceof Collection<?> names) {
+            List<String> result = new ArrayList<>(names.size());
+            for (Object name : names) {
+                if (name != null) result.add(name.toString());
+            }
+            return result;
+        }
+        return List.of(requiresItem.toString());
+    }
+
+    private static int[] resolve(List<String> names, ToIntFunction<String> itemIds) {
+        if (names == null || names.isEmpty()) return new int[0];
+        int[] ids = new int[names.size()];
+        for (int i = 0; i < ids.length; i++) {
+            String name = names.get(i);
+            ids[i] = name != null ? itemIds.applyAsInt(name.trim()) : -1;
+        }
+        return ids;
+    }
+
+    private static boolean containsUnknown(int[] ids) {
+        for (int id : ids) {
+            if (id < 0) return true;
+        }
+        return false;
+    }
+
+    private static Condition allItems(int[] ids) { return itemMask(ids, true); }
+
+    private static Condition anyItem(int[] ids) { return itemMask(ids, false); }
+
+    // Builds a sparse mask that covers only the bitset words the ids fall into.
+    private static Condition itemMask(int[] ids, boolean all) {
+        int[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        int[] words = new int[sorted.length];
+        long[] masks = new long[sorted.length];
+        int count = 0;
+        for (int id : sorted) {
+            int word = id >>> 6;
+            if (count == 0 || words[count - 1] != word) {
+                words[count++] = word;
+            }
+            masks[count - 1] |= 1L << id;
+        }
+        words = Arrays.copyOf(words, count);
+        masks = Arrays.copyOf(masks, count);
+        return all ? new Condition.HasAllItems(words, masks) : new Condition.HasAnyItem(words, masks);
+    }
+}
@@ -0,0 +1,72 @@
+package com.textadventure.engine;
+
+import com.textadventure.model.Effect;
+import com.textadventure.model.ExitModification;
+import com.textadventure.model.Item;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Compiles an {@link Item.Usability} into the ordered {@link Effect} steps that using the item
+ * runs. The fields compile in a fixed order: the target's removal first (it is the one step that
+ * can fail, when another player got there first), then the effect description, spawned and
+ * granted items, the room description, the counter, consuming the item and the exit changes;
+ * steps listed under {@code effects} follow. Fields left out compile to no step at all, and a
+ * step on an item that is not defined is dropped here rather than checked on every use. Each step
+ * is bound to its type's handler; a type that was never declared is an
+ * {@link IllegalArgumentException}.
+ */
+public final class EffectCompiler {
+
+    private EffectCompiler() {}
+
+    public static Effect[] compile(Item.Usability usability, ToIntFunction<String> itemIds) {
+        if (usability == null) return new Effect[0];
+        List<Effect> steps = new ArrayList<>();
+        if (usability.getRemovesTarget() != null)
+            steps.add(new Effect(Effect.REMOVE_TARGET, usability.getRemovesTarget(), null, 0));
+        if (usability.getEffectDescription() != null)
+            steps.add(new Effect(Effect.DESCRIBE, null, usability.getEffectDescription(), 0));
+        if (usability.getAddsTarget() != null)
+            steps.add(new Effect(Effect.SPAWN_ITEM, usability.getAddsTarget(), null, 0));
+        if (usability.getChangesRoomDescriptionTo() != null)
+            steps.add(new Effect(Effect.SET_DESCRIPTION, null, usability.getChangesRoomDescriptionTo(), 0));
+        if (usability.getAddsItemToInventory() != null)
+            steps.add(new Effect(Effect.GRANT_ITEM, usability.getAddsItemToInventory(), null, 0));
+        if (usability.getIncrementsCounter() != null)
+            steps.add(new Effect(Effect.INCREMENT_COUNTER, usability.getIncrementsCounter(), null, 0));
+        if (usability.isConsumesItem())
+            steps.add(new Effect(Effect.CONSUME, null, null, 0));
+        if (usability.getUnlocksExit() != null)
+            steps.add(new Effect(Effect.UNLOCK_EXIT, usability.getUnlocksExit(), null, 0));
+        ExitModification mod = usability.getModifiesExit();
+        if (mod != null && mod.getDirection() != null) {
+            if (mod.getSetFailMessage() != null)
+                steps.add(new Effect(Effect.SET_EXIT_MESSAGE, mod.getDirection(), mod.getSetFailMessage(), 0));
+            if (mod.isClearRequiresItem())
+                steps.add(new Effect(Effect.UNLOCK_EXIT, mod.getDirection(), null, mod.getRelocksAfterTurns()));
+        }
+        for (Effect effect : usability.getEffects()) {
+            if (effect != null && effect.getType() != null && !effect.getType().isBlank()) steps.add(effect);
+        }
+        return link(steps, itemIds);
+    }
+
+    // Binds the steps to their handlers and resolves item subjects of steps already in pipeline order.
+    public static Effect[] link(List<Effect> steps, ToIntFunction<String> itemIds) {
+        List<Effect> pipeline = new ArrayList<>(steps.size());
+        for (Effect step : steps) {
+            int item = step.getSubject() != null ? itemIds.applyAsInt(step.getSubject()) : -1;
+            if (item < 0 && isItemStep(step.getType())) continue;
+            pipeline.add(step.compiled(item));
+        }
+        return pipeline.toArray(new Effect[0]);
+    }
+
+    // Steps whose subject must be a defined item; the ones that name an undefined item are dropped.
+    static boolean isItemStep(String type) {
+        return Effect.REMOVE_TARGET.equals(type) || Effect.SPAWN_ITEM.equals(type) || Effect.GRANT_ITEM.equals(type);
+    }
+}
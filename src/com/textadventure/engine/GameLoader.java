@@ -1,50 +1,49 @@
 package com.textadventure.engine;
 
 import com.textadventure.model.*;
+import com.textadventure.utils.Log;
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 
+/**
+ * Single-pass loader that builds {@link Room} and {@link Item} instances straight from the JSON
+ * token stream, so the whole file is never held in memory as a string or as an intermediate
+ * object tree. Rooms may appear before the items they reference; those references are resolved
+ * once the stream has been consumed.
+ */
 public class GameLoader {
 
-    private static class ItemData {
-        String name;
-        String description;
-        Item.Usability usability;
-    }
-
-    private static class ExitDataJson {
-        String targetRoom;
-        Conditions conditions;
-    }
-
-    private static class RoomData {
-        String name;
-        String description;
-        Map<String, String> exits;
-        List<String> items;
-        Map<String, ExitDataJson> exitData;
-        // List<ConditionalDescription> conditionalDescriptions;
-    }
-
-    private static class GameData {
-        String playerStart;
-        List<ItemData> items;
-        List<RoomData> rooms;
-    }
-
     private Map<String, Room> loadedRooms = new HashMap<>();
     private Map<String, Item> loadedItems = new HashMap<>();
     private String playerStartRoomName;
     private final Gson gson = new Gson();
+    private final TypeAdapter<Item.Usability> usabilityAdapter = gson.getAdapter(Item.Usability.class);
+    private final TypeAdapter<Conditions> conditionsAdapter = gson.getAdapter(Conditions.class);
+    private final TypeAdapter<ConditionalDescription> conditionalDescriptionAdapter =
+            gson.getAdapter(ConditionalDescription.class);
+
+    // Item names referenced by rooms that were read before the item definitions.
+    private final Map<Room, List<String>> pendingRoomItems = new LinkedHashMap<>();
+    // Item names rooms list that no item definition matches, by room name; the items are left out.
+    private final Map<String, List<String>> unresolvedRoomItems = new LinkedHashMap<>();
+    // File each room was read from, when several files were loaded as one world.
+    private final Map<String, String> roomSources = new LinkedHashMap<>();
+    private String currentSource;
 
     public GameLoader() {
-        System.out.println("GameLoader initialized. Gson parser ready.");
+        Log.LOADER.debug("GameLoader initialized. Gson parser ready.");
     }
 
     public void loadGameData(String filePath) throws IOException, JsonSyntaxException, GameDataException {
@@ -52,65 +51,295 @@ public class GameLoader {
             throw new IllegalArgumentException("File path cannot be null or empty");
 
         Path path = Paths.get(filePath);
-        String jsonContent = Files.readString(path);
-        GameData gameData = gson.fromJson(jsonContent, GameData.class);
-        if (gameData == null)
-            throw new GameDataException("Parsed game data is null.");
+        try (Reader fileReader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            loadGameData(fileReader);
+        }
+    }
+
+    /**
+     * Loads several files as one world, e.g. one file per region. Each may hold rooms and items;
+     * rooms may list items defined in any of the files, and only one file needs a playerStart.
+     */
+    public void loadGameData(List<String> filePaths) throws IOException, JsonSyntaxException, GameDataException {
+        boolean roomsFound = false;
+        for (String filePath : filePaths) {
+            if (filePath == null || filePath.trim().isEmpty())
+                throw new IllegalArgumentException("File path cannot be null or empty");
+            currentSource = filePath;
+            try (Reader fileReader = Files.newBufferedReader(Paths.get(filePath), StandardCharsets.UTF_8)) {
+                roomsFound |= readDocument(fileReader);
+            } finally {
+                currentSource = null;
+            }
+        }
+        finishLoading(roomsFound);
+    }
 
-        if (gameData.items == null) gameData.items = new ArrayList<>();
-        if (gameData.rooms == null)
+    public void loadGameData(Reader source) throws IOException, JsonSyntaxException, GameDataException {
+        finishLoading(readDocument(source));
+    }
+
+    private boolean readDocument(Reader source) throws IOException, JsonSyntaxException, GameDataException {
+        boolean roomsFound = false;
+        try (JsonReader reader = new JsonReader(source)) {
+            if (isEmptyDocument(reader) || reader.peek() == JsonToken.NULL)
+                throw new GameDataException("Parsed game data is null.");
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "playerStart" -> {
+                        String start = nextStringOrNull(reader);
+                        if (start != null) playerStartRoomName = start;
+                    }
+                    case "items" -> readItems(reader);
+                    case "rooms" -> roomsFound = readRooms(reader);
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+        return roomsFound;
+    }
+
+    private void finishLoading(boolean roomsFound) throws GameDataException {
+        if (!roomsFound)
             throw new GameDataException("'rooms' array not found or null in JSON.");
+        resolvePendingRoomItems();
+
+        this.playerStartRoomName = playerStartRoomName != null ? playerStartRoomName.trim() : null;
+        if (!loadedRooms.containsKey(playerStartRoomName))
+            throw new GameDataException("Start room not found.");
+    }
+
+    private void readItems(JsonReader reader) throws IOException, GameDataException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return;
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            readItem(reader);
+        }
+        reader.endArray();
+    }
 
-        for (ItemData id : gameData.items) {
-            if (id.name == null || id.name.trim().isEmpty()) continue;
-            Item item = new Item(id.name.trim(), id.description != null ? id.description : "");
-            if (id.usability != null) {
-                item.setUsability(id.usability);
+    private void readItem(JsonReader reader) throws IOException, GameDataException {
+        String name = null;
+        String description = null;
+        Item.Usability usability = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "name" -> name = nextStringOrNull(reader);
+                case "description" -> description = nextStringOrNull(reader);
+                case "usability" -> usability = usabilityAdapter.read(reader);
+                default -> reader.skipValue();
             }
-            loadedItems.put(id.name.trim(), item);
         }
+        reader.endObject();
 
-        for (RoomData rd : gameData.rooms) {
-            if (rd.name == null || rd.name.trim().isEmpty()) continue;
-            String roomName = rd.name.trim();
-            Room room = new Room(roomName, rd.description != null ? rd.description : "");
-            loadedRooms.put(roomName, room);
+        if (name == null || name.trim().isEmpty()) return;
+        Item item = new Item(name.trim(), description != null ? description : "");
+        if (usability != null) {
+            checkEffectTypes(name.trim(), usability);
+            item.setUsability(usability);
+        }
+        loadedItems.put(name.trim(), item);
+    }
 
-            if (rd.exits != null) {
-                for (Map.Entry<String, String> e : rd.exits.entrySet()) {
-                    room.addExit(e.getKey(), e.getValue());
-                }
+    // A step nothing can run is an error in the file, caught here rather than on every use.
+    private void checkEffectTypes(String itemName, Item.Usability usability) throws GameDataException {
+        for (Effect effect : usability.getEffects()) {
+            if (effect == null || effect.getType() == null || effect.getType().isBlank()) continue;
+            if (!Effect.isDeclared(effect.getType()))
+                throw new GameDataException("Item '" + itemName + "' has an effect of unknown type '"
+                        + effect.getType() + "'" + (currentSource != null ? " in " + currentSource : "") + ".");
+        }
+    }
+
+    private boolean readRooms(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return false;
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            readRoom(reader);
+        }
+        reader.endArray();
+        return true;
+    }
+
+    private void readRoom(JsonReader reader) throws IOException {
+        String name = null;
+        String description = null;
+        Map<String, String> exits = null;
+        Map<String, ExitData> exitData = null;
+        List<String> itemNames = null;
+        List<ConditionalDescription> conditionalDescriptions = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "name" -> name = nextStringOrNull(reader);
+                case "description" -> description = nextStringOrNull(reader);
+                case "exits" -> exits = readSimpleExits(reader);
+                case "exitData" -> exitData = readExitData(reader);
+                case "items" -> itemNames = readStringArray(reader);
+                case "conditionalDescriptions" -> conditionalDescriptions = readConditionalDescriptions(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (name == null || name.trim().isEmpty()) return;
+        String roomName = name.trim();
+        Room room = new Room(roomName, description != null ? description : "");
+        loadedRooms.put(roomName, room);
+        if (currentSource != null) roomSources.put(roomName, currentSource);
+
+        // Conditional exits override simple exits in the same direction, whatever their order in the file.
+        if (exits != null) {
+            for (Map.Entry<String, String> e : exits.entrySet()) {
+                room.addExit(e.getKey(), e.getValue());
             }
+        }
+        if (exitData != null) {
+            for (Map.Entry<String, ExitData> e : exitData.entrySet()) {
+                room.getExit().put(e.getKey(), e.getValue());
+            }
+        }
 
-            if (rd.exitData != null) {
-                for (Map.Entry<String, ExitDataJson> e : rd.exitData.entrySet()) {
-                    String dir = e.getKey().toLowerCase().trim();
-                    ExitData ed = new ExitData();
-                    ed.setTargetRoom(e.getValue().targetRoom);
-                    ed.setConditions(e.getValue().conditions);
-                    room.getExit().put(dir, ed);
+        if (conditionalDescriptions != null) {
+            room.getConditionalDescriptions().addAll(conditionalDescriptions);
+        }
+
+        if (itemNames != null) {
+            for (int i = 0; i < itemNames.size(); i++) {
+                Item item = loadedItems.get(itemNames.get(i).trim());
+                if (item == null) {
+                    // Keep room order intact: once one name is unresolved, defer the rest of the room too.
+                    pendingRoomItems.put(room, itemNames.subList(i, itemNames.size()));
+                    break;
                 }
+                room.addItem(item);
             }
+        }
+    }
+
+    private Map<String, String> readSimpleExits(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        Map<String, String> exits = new LinkedHashMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String direction = reader.nextName();
+            exits.put(direction, nextStringOrNull(reader));
+        }
+        reader.endObject();
+        return exits;
+    }
 
-            if (rd.items != null) {
-                for (String itemName : rd.items) {
-                    Item item = loadedItems.get(itemName.trim());
-                    if (item != null) room.addItem(item);
+    private Map<String, ExitData> readExitData(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        Map<String, ExitData> exitData = new LinkedHashMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String direction = reader.nextName().toLowerCase().trim();
+            ExitData ed = new ExitData();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "targetRoom" -> ed.setTargetRoom(nextStringOrNull(reader));
+                    case "conditions" -> ed.setConditions(conditionsAdapter.read(reader));
+                    default -> reader.skipValue();
                 }
             }
+            reader.endObject();
+            exitData.put(direction, ed);
         }
+        reader.endObject();
+        return exitData;
+    }
 
-        this.playerStartRoomName = gameData.playerStart != null ? gameData.playerStart.trim() : null;
-        if (!loadedRooms.containsKey(playerStartRoomName))
-            throw new GameDataException("Start room not found.");
+    private List<ConditionalDescription> readConditionalDescriptions(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        List<ConditionalDescription> descriptions = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            ConditionalDescription cd = conditionalDescriptionAdapter.read(reader);
+            if (cd != null && cd.getDescription() != null) descriptions.add(cd);
+        }
+        reader.endArray();
+        return descriptions;
+    }
+
+    private List<String> readStringArray(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String value = nextStringOrNull(reader);
+            if (value != null) values.add(value);
+        }
+        reader.endArray();
+        return values;
+    }
+
+    private static boolean isEmptyDocument(JsonReader reader) throws IOException {
+        try {
+            reader.peek();
+            return false;
+        } catch (EOFException e) {
+            return true;
+        }
+    }
+
+    private static String nextStringOrNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    private void resolvePendingRoomItems() {
+        for (Map.Entry<Room, List<String>> entry : pendingRoomItems.entrySet()) {
+            Room room = entry.getKey();
+            for (String itemName : entry.getValue()) {
+                Item item = loadedItems.get(itemName.trim());
+                if (item != null) {
+                    room.addItem(item);
+                } else {
+                    unresolvedRoomItems.computeIfAbsent(room.getName(), k -> new ArrayList<>()).add(itemName);
+                }
+            }
+        }
+        pendingRoomItems.clear();
     }
 
     public Map<String, Room> getLoadedRooms() { return loadedRooms; }
     public Map<String, Item> getLoadedItems() { return loadedItems; }
     public String getPlayerStartRoomName() { return playerStartRoomName; }
+    public Map<String, List<String>> getUnresolvedRoomItems() { return unresolvedRoomItems; }
+    public Map<String, String> getRoomSources() { return roomSources; }
 
     public static class GameDataException extends Exception {
         public GameDataException(String message) { super(message); }
         public GameDataException(String message, Throwable cause) { super(message, cause); }
     }
-}
\ No newline at end of file
+}
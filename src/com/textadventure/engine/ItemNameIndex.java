@@ -0,0 +1,347 @@
+package com.textadventure.engine;
+
+import com.textadventure.model.Item;
+import com.textadventure.model.ItemContainer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves what a player typed to the items in scope (a room, the inventory), precomputed over the
+ * item names of a world. A reference is tried, in order, as:
+ * <ol>
+ *   <li>the exact name ("key card");</li>
+ *   <li>word prefixes, every typed word starting some word of the name ("key", "k c");</li>
+ *   <li>a substring of the name ("hammer" for "Sledgehammer");</li>
+ *   <li>a misspelling sharing most of its trigrams with the name ("sledgehamer").</li>
+ * </ol>
+ * The first rule that matches anything in scope wins. Candidates come from prefix and trigram
+ * postings, or from the scope itself when that is smaller, so no rule scans the whole world or
+ * computes an edit distance. The index is immutable and may be shared between games.
+ */
+public final class ItemNameIndex {
+
+    private static final int[] NONE = new int[0];
+    // Share of the typed trigrams a misspelled name must contain.
+    private static final double MIN_TRIGRAM_SHARE = 0.6;
+
+    private final String[] keys;
+    private final String[][] keyWords;
+    private final long[][] keyTrigrams;
+    private final Map<String, Integer> keyIds;
+    private final Map<String, int[]> prefixPostings;
+    private final Map<Long, int[]> trigramPostings;
+
+    public ItemNameIndex(Collection<String> itemNames) {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> distinct = new ArrayList<>();
+        for (String name : itemNames) {
+            String key = ItemContainer.normalize(name).trim();
+            if (!key.isEmpty() && !ids.containsKey(key)) {
+                ids.put(key, distinct.size());
+                distinct.add(key);
+            }
+        }
+        this.keys = distinct.toArray(new String[0]);
+        this.keyIds = ids;
+        this.keyWords = new String[keys.length][];
+        this.keyTrigrams = new long[keys.length][];
+
+        Map<String, IntList> prefixes = new HashMap<>();
+        Map<Long, IntList> trigrams = new HashMap<>();
+        for (int id = 0; id < keys.length; id++) {
+            keyWords[id] = words(keys[id]);
+            for (String word : keyWords[id]) {
+                for (int end = 1; end <= word.length(); end++) {
+                    prefixes.computeIfAbsent(word.substring(0, end), k -> new IntList()).addOnce(id);
+                }
+            }
+            keyTrigrams[id] = trigrams(keys[id]);
+            for (long trigram : keyTrigrams[id]) {
+                trigrams.computeIfAbsent(trigram, k -> new IntList()).addOnce(id);
+            }
+        }
+        this.prefixPostings = new HashMap<>(prefixes.size() * 2);
+        prefixes.forEach((prefix, list) -> prefixPostings.put(prefix, list.toArray()));
+        this.trigramPostings = new HashMap<>(trigrams.size() * 2);
+        trigrams.forEach((trigram, list) -> trigramPostings.put(trigram, list.toArray()));
+    }
+
+    public int size() { return keys.length; }
+
+    /**
+     * Items in the given scopes that the reference names, one per distinct name and in scope order.
+     * An empty list means nothing matched; more than one means the reference is ambiguous.
+     */
+    public List<Item> resolve(String reference, ItemContainer... scopes) {
+        if (reference == null || reference.isBlank()) return List.of();
+        String query = ItemContainer.normalize(reference).trim();
+
+        for (ItemContainer scope : scopes) {
+            Item exact = scope.find(query);
+            if (exact != null) return List.of(exact);
+        }
+
+        int scopeSize = 0;
+        for (ItemContainer scope : scopes) scopeSize += scope.size();
+        if (scopeSize == 0) return List.of();
+
+        List<Item> matches = new ArrayList<>(2);
+        String[] words = words(query);
+        int[] prefixed = prefixCandidates(words, scopeSize);
+        if (prefixed != null) {
+            collect(prefixed, scopeSize, scopes, matches, id -> matchesPrefixes(id, words));
+            if (!matches.isEmpty()) return inScopeOrder(matches, scopes);
+        }
+
+        long[] queryTrigrams = trigrams(query);
+        if (query.length() >= 3) {
+            int[] candidates = NONE;
+            for (long trigram : queryTrigrams) {
+                int[] posting = trigramPostings.getOrDefault(trigram, NONE);
+                if (posting.length == 0) {
+                    candidates = NONE;
+                    break;
+                }
+                if (candidates == NONE || posting.length < candidates.length) candidates = posting;
+            }
+            if (candidates.length > 0) {
+                collect(candidates, scopeSize, scopes, matches, id -> keys[id].contains(query));
+                if (!matches.isEmpty()) return inScopeOrder(matches, scopes);
+            }
+        }
+
+        return closestMisspelling(queryTrigrams, scopeSize, scopes);
+    }
+
+    // Names having every word as a word prefix, or null when some word prefixes no name at all. While
+    // the postings are larger than the scope only the rarest is returned, and collect() walks the scope.
+    private int[] prefixCandidates(String[] words, int scopeSize) {
+        int[][] postings = new int[words.length][];
+        for (int i = 0; i < words.length; i++) {
+            postings[i] = prefixPostings.get(words[i]);
+            if (postings[i] == null) return null;
+        }
+        Arrays.sort(postings, (a, b) -> Integer.compare(a.length, b.length));
+        int[] candidates = postings[0];
+        for (int i = 1; i < postings.length && candidates.length <= scopeSize; i++) {
+            candidates = intersect(candidates, postings[i]);
+        }
+        return candidates;
+    }
+
+    // a is the shorter posting; a much longer b is binary-searched instead of merged.
+    private static int[] intersect(int[] a, int[] b) {
+        int[] both = new int[a.length];
+        int n = 0;
+        if (b.length > a.length * 16) {
+            for (int id : a) {
+                if (Arrays.binarySearch(b, id) >= 0) both[n++] = id;
+            }
+            return Arrays.copyOf(both, n);
+        }
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] == b[j]) {
+                both[n++] = a[i];
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(both, n);
+    }
+
+    private boolean matchesPrefixes(int id, String[] words) {
+        for (String word : words) {
+            boolean found = false;
+            for (String nameWord : keyWords[id]) {
+                if (nameWord.startsWith(word)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) return false;
+        }
+        return true;
+    }
+
+    private List<Item> closestMisspelling(long[] queryTrigrams, int scopeSize, ItemContainer[] scopes) {
+        if (queryTrigrams.length == 0) return List.of();
+        int needed = (int) Math.ceil(queryTrigrams.length * MIN_TRIGRAM_SHARE);
+
+        // A name sharing `needed` trigrams must appear in at least one of the rarest
+        // (length - needed + 1) postings, so only those are merged into the candidate list.
+        int[][] postings = new int[queryTrigrams.length][];
+        for (int i = 0; i < queryTrigrams.length; i++) {
+            postings[i] = trigramPostings.getOrDefault(queryTrigrams[i], NONE);
+        }
+        Arrays.sort(postings, (a, b) -> Integer.compare(a.length, b.length));
+        int rarest = queryTrigrams.length - needed + 1;
+        int postingTotal = 0;
+        for (int i = 0; i < rarest; i++) postingTotal += postings[i].length;
+        int[] candidates;
+        if (postingTotal <= scopeSize) {
+            candidates = new int[postingTotal];
+            int n = 0;
+            for (int i = 0; i < rarest; i++) {
+                System.arraycopy(postings[i], 0, candidates, n, postings[i].length);
+                n += postings[i].length;
+            }
+        } else {
+            candidates = scopeKeyIds(scopes, scopeSize);
+        }
+        Arrays.sort(candidates);
+
+        List<Item> best = new ArrayList<>(2);
+        double bestScore = 0;
+        for (int i = 0; i < candidates.length; i++) {
+            int id = candidates[i];
+            if (id < 0 || (i > 0 && candidates[i - 1] == id)) continue;
+            int shared = sharedTrigrams(queryTrigrams, keyTrigrams[id]);
+            if (shared < needed) continue;
+            Item item = findInScopes(keys[id], scopes);
+            if (item == null) continue;
+            double score = (double) shared / (queryTrigrams.length + keyTrigrams[id].length - shared);
+            if (score > bestScore) {
+                best.clear();
+                bestScore = score;
+            }
+            if (score == bestScore) best.add(item);
+        }
+        return inScopeOrder(best, scopes);
+    }
+
+    private interface KeyTest {
+        boolean test(int keyId);
+    }
+
+    // Adds the in-scope items whose names pass the test, walking whichever is smaller: the posting or the scope.
+    private void collect(int[] posting, int scopeSize, ItemContainer[] scopes, List<Item> matches, KeyTest test) {
+        if (posting.length <= scopeSize) {
+            for (int id : posting) {
+                if (!test.test(id)) continue;
+                Item item = findInScopes(keys[id], scopes);
+                if (item != null) matches.add(item);
+            }
+            return;
+        }
+        for (ItemContainer scope : scopes) {
+            for (Item item : scope) {
+                Integer id = keyIds.get(item.getLookupKey());
+                if (id != null && test.test(id) && !containsName(matches, item)) matches.add(item);
+            }
+        }
+    }
+
+    // Postings are in world order; an ambiguous answer is listed in scope order whichever was walked.
+    private static List<Item> inScopeOrder(List<Item> matches, ItemContainer[] scopes) {
+        if (matches.size() < 2) return matches;
+        List<Item> ordered = new ArrayList<>(matches.size());
+        for (ItemContainer scope : scopes) {
+            for (Item item : scope) {
+                if (matches.contains(item) && !ordered.contains(item)) ordered.add(item);
+            }
+        }
+        return ordered;
+    }
+
+    private int[] scopeKeyIds(ItemContainer[] scopes, int scopeSize) {
+        int[] ids = new int[scopeSize];
+        int n = 0;
+        for (ItemContainer scope : scopes) {
+            for (Item item : scope) ids[n++] = keyIds.getOrDefault(item.getLookupKey(), -1);
+        }
+        return ids;
+    }
+
+    private static Item findInScopes(String key, ItemContainer[] scopes) {
+        for (ItemContainer scope : scopes) {
+            Item item = scope.find(key);
+            if (item != null) return item;
+        }
+        return null;
+    }
+
+    private static boolean containsName(List<Item> items, Item item) {
+        for (Item existing : items) {
+            if (existing.getLookupKey().equals(item.getLookupKey())) return true;
+        }
+        return false;
+    }
+
+    private static int sharedTrigrams(long[] a, long[] b) {
+        int shared = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return shared;
+    }
+
+    private static String[] words(String key) {
+        int count = 0;
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) != ' ' && (i == 0 || key.charAt(i - 1) == ' ')) count++;
+        }
+        String[] words = new String[count];
+        int n = 0;
+        for (int i = 0; i < key.length(); ) {
+            if (key.charAt(i) == ' ') {
+                i++;
+                continue;
+            }
+            int end = key.indexOf(' ', i);
+            if (end < 0) end = key.length();
+            words[n++] = key.substring(i, end);
+            i = end;
+        }
+        return words;
+    }
+
+    // Sorted, distinct trigrams of a name, three chars packed into a long; shorter names are one gram.
+    private static long[] trigrams(String key) {
+        if (key.length() < 3) return key.isEmpty() ? new long[0] : new long[] { pack(key, 0, key.length()) };
+        long[] grams = new long[key.length() - 2];
+        for (int i = 0; i < grams.length; i++) grams[i] = pack(key, i, i + 3);
+        Arrays.sort(grams);
+        int n = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) grams[n++] = grams[i];
+        }
+        return Arrays.copyOf(grams, n);
+    }
+
+    private static long pack(String s, int start, int end) {
+        long packed = 0;
+        for (int i = start; i < end; i++) packed = (packed << 16) | s.charAt(i);
+        return packed;
+    }
+
+    private static final class IntList {
+        int[] values = new int[2];
+        int size;
+
+        // Ids arrive in increasing order, so a repeat can only be the last value.
+        void addOnce(int value) {
+            if (size > 0 && values[size - 1] == value) return;
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int[] toArray() { return Arrays.copyOf(values, size); }
+    }
+}
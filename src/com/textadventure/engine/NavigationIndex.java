@@ -0,0 +1,175 @@
+package com.textadventure.engine;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Shortest-path data for a {@link WorldGraph}, built once per world and shared by every game on it.
+ * Routes are asked for through a per-player {@link Navigator}, which knows which conditional exits
+ * that player can currently pass.
+ *
+ * <p>Worlds of up to {@value #ALL_PAIRS_LIMIT} rooms get all-pairs tables: the distance and the
+ * first exit of a shortest route between any two rooms over the exits without conditions. Those
+ * exits never change, so the tables never need rebuilding; a navigator joins them up through the
+ * conditional exits that are open for its player. Larger worlds get distances from and to a few
+ * landmark rooms over every exit, open or not; these are lower bounds on any route, whatever is
+ * unlocked, and guide an A* search that only follows the exits the player can pass.
+ */
+public final class NavigationIndex {
+
+    static final int ALL_PAIRS_LIMIT = 2048;
+    static final short NO_ROUTE = Short.MAX_VALUE;
+    static final int FAR = Integer.MAX_VALUE;
+    private static final int LANDMARKS = 8;
+
+    final WorldGraph graph;
+    final int roomCount;
+    // Conditional exits and the rooms they leave from.
+    final int[] gatedExits;
+    final int[] gatedSources;
+    // All-pairs tier, indexed [from * roomCount + to]: hops, and the first exit as an offset from exitStart(from).
+    final short[] distances;
+    final short[] firstExits;
+    // Landmark tier: hops from each landmark to every room, and from every room to each landmark.
+    final int[][] fromLandmark;
+    final int[][] toLandmark;
+
+    public NavigationIndex(WorldGraph graph) {
+        this(graph, ALL_PAIRS_LIMIT);
+    }
+
+    // Tests lower the limit to get the landmark tier on a small world.
+    NavigationIndex(WorldGraph graph, int allPairsLimit) {
+        if (graph == null)
+            throw new IllegalArgumentException("World graph cannot be null.");
+        this.graph = graph;
+        this.roomCount = graph.getRoomCount();
+
+        int gated = 0;
+        for (int exit = 0; exit < graph.getExitCount(); exit++) if (graph.isGated(exit)) gated++;
+        gatedExits = new int[gated];
+        gatedSources = new int[gated];
+        gated = 0;
+        for (int room = 0; room < roomCount; room++) {
+            for (int exit = graph.exitStart(room); exit < graph.exitEnd(room); exit++) {
+                if (graph.isGated(exit)) {
+                    gatedExits[gated] = exit;
+                    gatedSources[gated++] = room;
+                }
+            }
+        }
+
+        if (roomCount <= allPairsLimit) {
+            distances = new short[roomCount * roomCount];
+            firstExits = new short[roomCount * roomCount];
+            fromLandmark = toLandmark = new int[0][];
+            buildTables();
+        } else {
+            distances = firstExits = null;
+            int count = Math.min(LANDMARKS, roomCount);
+            fromLandmark = new int[count][];
+            toLandmark = new int[count][];
+            buildLandmarks();
+        }
+    }
+
+    public boolean hasAllPairsTables() { return distances != null; }
+    public int getLandmarkCount() { return fromLandmark.length; }
+
+    /** A navigator for one player; {@code gateOpen} says whether a conditional exit can be passed now. */
+    public Navigator navigator(IntPredicate gateOpen) {
+        return new Navigator(this, gateOpen);
+    }
+
+    private void buildTables() {
+        int[] queue = new int[roomCount];
+        for (int from = 0; from < roomCount; from++) {
+            int row = from * roomCount;
+            Arrays.fill(distances, row, row + roomCount, NO_ROUTE);
+            distances[row + from] = 0;
+            int head = 0, tail = 0;
+            queue[tail++] = from;
+            while (head < tail) {
+                int room = queue[head++];
+                short next = (short) (distances[row + room] + 1);
+                for (int exit = graph.exitStart(room); exit < graph.exitEnd(room); exit++) {
+                    int target = graph.exitTarget(exit);
+                    if (target < 0 || graph.isGated(exit) || distances[row + target] != NO_ROUTE) continue;
+                    distances[row + target] = next;
+                    firstExits[row + target] = room == from
+                            ? (short) (exit - graph.exitStart(from)) : firstExits[row + room];
+                    queue[tail++] = target;
+                }
+            }
+        }
+    }
+
+    private void buildLandmarks() {
+        int exitCount = graph.getExitCount();
+        int[] reverseOffsets = new int[roomCount + 1];
+        for (int exit = 0; exit < exitCount; exit++) {
+            int target = graph.exitTarget(exit);
+            if (target >= 0) reverseOffsets[target + 1]++;
+        }
+        for (int room = 0; room < roomCount; room++) reverseOffsets[room + 1] += reverseOffsets[room];
+        int[] reverseSources = new int[reverseOffsets[roomCount]];
+        int[] fill = Arrays.copyOf(reverseOffsets, roomCount);
+        for (int room = 0; room < roomCount; room++) {
+            for (int exit = graph.exitStart(room); exit < graph.exitEnd(room); exit++) {
+                int target = graph.exitTarget(exit);
+                if (target >= 0) reverseSources[fill[target]++] = room;
+            }
+        }
+
+        // Farthest-point selection: each landmark is the room farthest from the ones chosen so far.
+        int[] nearest = new int[roomCount];
+        Arrays.fill(nearest, FAR);
+        int[] queue = new int[roomCount];
+        int landmark = 0;
+        for (int i = 0; i < fromLandmark.length; i++) {
+            fromLandmark[i] = distancesFrom(landmark, queue, null, null);
+            toLandmark[i] = distancesFrom(landmark, queue, reverseOffsets, reverseSources);
+            int farthest = -1;
+            for (int room = 0; room < roomCount; room++) {
+                nearest[room] = Math.min(nearest[room], fromLandmark[i][room]);
+                if (nearest[room] > 0 && (farthest < 0 || nearest[room] > nearest[farthest])) farthest = room;
+            }
+            if (farthest < 0) {
+                landmark = (landmark + 1) % roomCount;
+            } else {
+                landmark = farthest;
+            }
+        }
+    }
+
+    // Breadth-first hop counts over every exit, following exits backwards when reverse offsets are given.
+    private int[] distancesFrom(int root, int[] queue, int[] reverseOffsets, int[] reverseSources) {
+        int[] hops = new int[roomCount];
+        Arrays.fill(hops, FAR);
+        hops[root] = 0;
+        int head = 0, tail = 0;
+        queue[tail++] = root;
+        while (head < tail) {
+            int room = queue[head++];
+            int next = hops[room] + 1;
+            if (reverseOffsets == null) {
+                for (int exit = graph.exitStart(room); exit < graph.exitEnd(room); exit++) {
+                    int target = graph.exitTarget(exit);
+                    if (target >= 0 && hops[target] == FAR) {
+                        hops[target] = next;
+                        queue[tail++] = target;
+                    }
+                }
+            } else {
+                for (int i = reverseOffsets[room]; i < reverseOffsets[room + 1]; i++) {
+                    int source = reverseSources[i];
+                    if (hops[source] == FAR) {
+                        hops[source] = next;
+                        queue[tail++] = source;
+                    }
+                }
+            }
+        }
+        return hops;
+    }
+}
@@ -0,0 +1,260 @@
+package com.textadventure.engine;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Answers "how do I get from here to there" for one player over a shared {@link NavigationIndex}.
+ * Conditional exits count only while {@code gateOpen} allows them. With all-pairs tables the
+ * navigator keeps the list of open conditional exits: {@link #exitOpened(int)} adds an unlocked
+ * exit to it, and {@link #gatesChanged()} (inventory or room items changed) has it re-checked on
+ * the next query. Not thread-safe; each game owns its own navigator.
+ */
+public final class Navigator {
+
+    private static final int NO_ROUTE = 1 << 24;
+
+    private final NavigationIndex index;
+    private final WorldGraph graph;
+    private final IntPredicate gateOpen;
+
+    // All-pairs tier: positions in index.gatedExits of the conditional exits open right now.
+    private int[] openGates = new int[0];
+    private int openGateCount;
+    private boolean gatesDirty = true;
+
+    // Landmark tier: A* scratch, reused between queries and reset by bumping the generation.
+    private int[] seen;
+    private int[] closed;
+    private int[] cost;
+    private int[] parentExit;
+    private int generation;
+    private long[] heapKeys = new long[64];
+    private int[] heapRooms = new int[64];
+    private int heapSize;
+    private final int[] targetFrom;
+    private final int[] targetTo;
+
+    private int[] path = new int[64];
+    private int pathLength;
+
+    Navigator(NavigationIndex index, IntPredicate gateOpen) {
+        if (gateOpen == null)
+            throw new IllegalArgumentException("Gate check cannot be null.");
+        this.index = index;
+        this.graph = index.graph;
+        this.gateOpen = gateOpen;
+        this.targetFrom = new int[index.getLandmarkCount()];
+        this.targetTo = new int[index.getLandmarkCount()];
+    }
+
+    public void gatesChanged() {
+        gatesDirty = true;
+    }
+
+    public void exitOpened(int exit) {
+        if (gatesDirty || !graph.isGated(exit)) return;
+        int gate = Arrays.binarySearch(index.gatedExits, exit);
+        for (int i = 0; i < openGateCount; i++) if (openGates[i] == gate) return;
+        if (openGateCount == openGates.length) openGates = Arrays.copyOf(openGates, Math.max(8, openGateCount * 2));
+        openGates[openGateCount++] = gate;
+    }
+
+    /** Shortest route between two rooms by number of moves, or null when there is none right now. */
+    public Route route(int from, int to) {
+        if (from < 0 || to < 0 || from >= index.roomCount || to >= index.roomCount)
+            throw new IllegalArgumentException("No such room id: " + (from < 0 || from >= index.roomCount ? from : to));
+        pathLength = 0;
+        boolean found = from == to || (index.hasAllPairsTables() ? tableRoute(from, to) : searchRoute(from, to));
+        return found ? new Route(from, to, Arrays.copyOf(path, pathLength)) : null;
+    }
+
+    // ---- all-pairs tier ----
+
+    private int hops(int from, int to) {
+        short hops = index.distances[from * index.roomCount + to];
+        return hops == NavigationIndex.NO_ROUTE ? NO_ROUTE : hops;
+    }
+
+    private void refreshGates() {
+        if (!gatesDirty) return;
+        openGateCount = 0;
+        for (int gate = 0; gate < index.gatedExits.length; gate++) {
+            if (gateOpen.test(index.gatedExits[gate])) {
+                if (openGateCount == openGates.length) openGates = Arrays.copyOf(openGates, Math.max(8, openGateCount * 2));
+                openGates[openGateCount++] = gate;
+            }
+        }
+        gatesDirty = false;
+    }
+
+    // Dijkstra over the start room and the far sides of the open conditional exits, joined by table distances.
+    private boolean tableRoute(int from, int to) {
+        refreshGates();
+        int nodes = openGateCount + 1;
+        int[] best = new int[nodes];
+        int[] via = new int[nodes];
+        boolean[] done = new boolean[nodes];
+        Arrays.fill(best, NO_ROUTE);
+        best[0] = 0;
+        int answer = hops(from, to);
+        int last = answer < NO_ROUTE ? 0 : -1;
+        while (true) {
+            int node = -1;
+            for (int i = 0; i < nodes; i++) {
+                if (!done[i] && best[i] < NO_ROUTE && (node < 0 || best[i] < best[node])) node = i;
+            }
+            if (node < 0 || best[node] >= answer) break;
+            done[node] = true;
+            int room = node == 0 ? from : gateTarget(node);
+            int total = best[node] + hops(room, to);
+            if (total < answer) {
+                answer = total;
+                last = node;
+            }
+            for (int i = 1; i < nodes; i++) {
+                if (done[i] || gateTarget(i) < 0) continue;
+                int through = best[node] + hops(room, index.gatedSources[openGates[i - 1]]) + 1;
+                if (through < best[i]) {
+                    best[i] = through;
+                    via[i] = node;
+                }
+            }
+        }
+        if (last < 0) return false;
+
+        int[] chain = new int[nodes];
+        int length = 0;
+        for (int node = last; node != 0; node = via[node]) chain[length++] = node;
+        int room = from;
+        for (int i = length - 1; i >= 0; i--) {
+            int gate = openGates[chain[i] - 1];
+            appendTableRoute(room, index.gatedSources[gate]);
+            append(index.gatedExits[gate]);
+            room = graph.exitTarget(index.gatedExits[gate]);
+        }
+        appendTableRoute(room, to);
+        return true;
+    }
+
+    private int gateTarget(int node) {
+        return graph.exitTarget(index.gatedExits[openGates[node - 1]]);
+    }
+
+    private void appendTableRoute(int from, int to) {
+        while (from != to) {
+            int exit = graph.exitStart(from) + index.firstExits[from * index.roomCount + to];
+            append(exit);
+            from = graph.exitTarget(exit);
+        }
+    }
+
+    // ---- landmark tier ----
+
+    private int estimate(int room) {
+        int bound = 0;
+        for (int i = 0; i < targetFrom.length; i++) {
+            int fromLandmark = index.fromLandmark[i][room];
+            if (targetFrom[i] != NavigationIndex.FAR && fromLandmark != NavigationIndex.FAR)
+                bound = Math.max(bound, targetFrom[i] - fromLandmark);
+            int toLandmark = index.toLandmark[i][room];
+            if (targetTo[i] != NavigationIndex.FAR && toLandmark != NavigationIndex.FAR)
+                bound = Math.max(bound, toLandmark - targetTo[i]);
+        }
+        return bound;
+    }
+
+    private boolean searchRoute(int from, int to) {
+        if (seen == null) {
+            seen = new int[index.roomCount];
+            closed = new int[index.roomCount];
+            cost = new int[index.roomCount];
+            parentExit = new int[index.roomCount];
+        }
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(seen, 0);
+            Arrays.fill(closed, 0);
+            generation = 1;
+        }
+        for (int i = 0; i < targetFrom.length; i++) {
+            targetFrom[i] = index.fromLandmark[i][to];
+            targetTo[i] = index.toLandmark[i][to];
+            // A landmark that reaches the start but not the target proves there is no route.
+            if (targetFrom[i] == NavigationIndex.FAR && index.fromLandmark[i][from] != NavigationIndex.FAR) return false;
+        }
+
+        heapSize = 0;
+        seen[from] = generation;
+        cost[from] = 0;
+        push(estimate(from), 0, from);
+        while (heapSize > 0) {
+            int room = pop();
+            if (closed[room] == generation) continue;
+            closed[room] = generation;
+            if (room == to) break;
+            int next = cost[room] + 1;
+            for (int exit = graph.exitStart(room); exit < graph.exitEnd(room); exit++) {
+                int target = graph.exitTarget(exit);
+                if (target < 0 || closed[target] == generation) continue;
+                if (seen[target] == generation && cost[target] <= next) continue;
+                if (graph.isGated(exit) && !gateOpen.test(exit)) continue;
+                seen[target] = generation;
+                cost[target] = next;
+                parentExit[target] = exit;
+                push(next + estimate(target), next, target);
+            }
+        }
+        if (closed[to] != generation) return false;
+
+        for (int room = to; room != from; room = graph.exitRoom(parentExit[room])) append(parentExit[room]);
+        for (int i = 0, j = pathLength - 1; i < j; i++, j--) {
+            int swap = path[i];
+            path[i] = path[j];
+            path[j] = swap;
+        }
+        return true;
+    }
+
+    // Orders by estimated total, then prefers the room furthest along (ties are common on grid-like maps).
+    private void push(int estimate, int hops, int room) {
+        if (heapSize == heapKeys.length) {
+            heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+            heapRooms = Arrays.copyOf(heapRooms, heapSize * 2);
+        }
+        long key = (long) estimate << 32 | (Integer.MAX_VALUE - hops);
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapKeys[parent] <= key) break;
+            heapKeys[i] = heapKeys[parent];
+            heapRooms[i] = heapRooms[parent];
+            i = parent;
+        }
+        heapKeys[i] = key;
+        heapRooms[i] = room;
+    }
+
+    private int pop() {
+        int room = heapRooms[0];
+        long key = heapKeys[--heapSize];
+        int last = heapRooms[heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) child++;
+            if (key <= heapKeys[child]) break;
+            heapKeys[i] = heapKeys[child];
+            heapRooms[i] = heapRooms[child];
+            i = child;
+        }
+        heapKeys[i] = key;
+        heapRooms[i] = last;
+        return room;
+    }
+
+    private void append(int exit) {
+        if (pathLength == path.length) path = Arrays.copyOf(path, pathLength * 2);
+        path[pathLength++] = exit;
+    }
+}
@@ -0,0 +1,39 @@
+package com.textadventure.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A shortest route found by a {@link Navigator}: the exits (edge indices of the {@link WorldGraph})
+ * to take in order, from one room to another.
+ */
+public final class Route {
+
+    private final int from;
+    private final int to;
+    private final int[] exits;
+
+    Route(int from, int to, int[] exits) {
+        this.from = from;
+        this.to = to;
+        this.exits = exits;
+    }
+
+    public int getFrom() { return from; }
+    public int getTo() { return to; }
+    public int getLength() { return exits.length; }
+    public int exit(int step) { return exits[step]; }
+    public int[] getExits() { return Arrays.copyOf(exits, exits.length); }
+
+    public List<String> directions(WorldGraph graph) {
+        List<String> directions = new ArrayList<>(exits.length);
+        for (int exit : exits) directions.add(graph.directionName(graph.exitDirection(exit)));
+        return directions;
+    }
+
+    @Override
+    public String toString() {
+        return "Route " + from + " -> " + to + " (" + exits.length + " exits)";
+    }
+}
@@ -0,0 +1,106 @@
+package com.textadventure.engine;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Findings of a {@link WorldValidator} run: broken references, which rooms and items can be reached
+ * at all, and, when a goal room was given, the rooms and game states from which the goal can no
+ * longer be reached.
+ */
+public final class ValidationReport {
+
+    public enum Severity { ERROR, WARNING }
+
+    public static final class Issue {
+        private final Severity severity;
+        private final String subject;
+        private final String message;
+
+        Issue(Severity severity, String subject, String message) {
+            this.severity = severity;
+            this.subject = subject;
+            this.message = message;
+        }
+
+        public Severity getSeverity() { return severity; }
+        // Room or item the issue was found in, e.g. "room 'Cryo Chamber'".
+        public String getSubject() { return subject; }
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() { return severity + " " + subject + ": " + message; }
+    }
+
+    private static final int SAMPLE_LIMIT = 10;
+
+    final List<Issue> issues = new ArrayList<>();
+    int roomCount;
+    int reachableRooms;
+    final List<String> unreachableRoomSamples = new ArrayList<>();
+    int itemCount;
+    int obtainableItems;
+    String goalRoom;
+    boolean goalReachable;
+    int deadEndRooms;
+    final List<String> deadEndRoomSamples = new ArrayList<>();
+    int statesExplored;
+    int deadStates;
+    final List<String> deadStateExamples = new ArrayList<>();
+    String stateSearchNote;
+    long elapsedNanos;
+
+    ValidationReport() {}
+
+    public List<Issue> getIssues() { return issues; }
+    public int getRoomCount() { return roomCount; }
+    public int getReachableRoomCount() { return reachableRooms; }
+    public List<String> getUnreachableRoomSamples() { return unreachableRoomSamples; }
+    public int getObtainableItemCount() { return obtainableItems; }
+    public String getGoalRoom() { return goalRoom; }
+    public boolean isGoalReachable() { return goalReachable; }
+    public int getDeadEndRoomCount() { return deadEndRooms; }
+    public int getStatesExplored() { return statesExplored; }
+    public int getDeadStateCount() { return deadStates; }
+    // Each example is the command path that first makes the goal unreachable.
+    public List<String> getDeadStateExamples() { return deadStateExamples; }
+    // Why the state search was skipped or cut short; null when it ran to completion.
+    public String getStateSearchNote() { return stateSearchNote; }
+
+    public boolean hasErrors() {
+        for (Issue issue : issues) {
+            if (issue.severity == Severity.ERROR) return true;
+        }
+        return false;
+    }
+
+    void addSample(List<String> samples, String value) {
+        if (samples.size() < SAMPLE_LIMIT) samples.add(value);
+    }
+
+    public void print(PrintStream out) {
+        int errors = 0;
+        for (Issue issue : issues) {
+            if (issue.severity == Severity.ERROR) errors++;
+        }
+        out.printf("References: %d errors, %d warnings%n", errors, issues.size() - errors);
+        for (Issue issue : issues) out.println("  " + issue);
+
+        out.printf("Reachable rooms: %d of %d%s%n", reachableRooms, roomCount,
+                unreachableRoomSamples.isEmpty() ? "" : " (unreachable include " + unreachableRoomSamples + ")");
+        out.printf("Obtainable items: %d of %d%n", obtainableItems, itemCount);
+        if (goalRoom != null) {
+            out.printf("Goal '%s': %s%n", goalRoom, goalReachable ? "reachable" : "NOT reachable");
+            out.printf("Dead-end rooms (reachable, goal never reachable from them): %d%s%n", deadEndRooms,
+                    deadEndRoomSamples.isEmpty() ? "" : " e.g. " + deadEndRoomSamples);
+        }
+        if (stateSearchNote != null) {
+            out.println("State search: " + stateSearchNote);
+        } else {
+            out.printf("State search: %d (room, inventory) states, %d dead%n", statesExplored, deadStates);
+            for (String example : deadStateExamples) out.println("  dead after: " + example);
+        }
+        out.printf("Validated in %.0f ms%n", elapsedNanos / 1e6);
+    }
+}
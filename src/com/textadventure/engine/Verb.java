@@ -0,0 +1,38 @@
+package com.textadventure.engine;
+
+/**
+ * Built-in command verbs and the words that select them. The first word is the canonical name used
+ * in help text; the rest are aliases. A built-in verb's id in a {@link VerbTable} is its ordinal;
+ * verbs added by game packs get ids after {@code UNKNOWN}.
+ */
+public enum Verb {
+    GO("go"),
+    TAKE("take"),
+    DROP("drop"),
+    INVENTORY("inventory", "inv"),
+    EXAMINE("examine", "x"),
+    USE("use"),
+    LOOK("look"),
+    SAVE("save"),
+    LOAD("load"),
+    QUIT("quit", "exit"),
+    // Any first word that is not one of the above.
+    UNKNOWN();
+
+    private static final Verb[] VALUES = values();
+
+    private final String[] words;
+
+    Verb(String... words) {
+        this.words = words;
+    }
+
+    public String[] words() { return words.clone(); }
+
+    public String canonicalName() { return words.length > 0 ? words[0] : ""; }
+
+    // Built-in verb for a verb id, or UNKNOWN for unresolved words and pack-defined verbs.
+    public static Verb of(int verbId) {
+        return verbId >= 0 && verbId < UNKNOWN.ordinal() ? VALUES[verbId] : UNKNOWN;
+    }
+}
@@ -0,0 +1,74 @@
+package com.textadventure.engine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns verb names to dense ids and maps every word that selects a verb (its name and aliases)
+ * to that id. The built-in {@link Verb}s are interned first, so their ids are their ordinals.
+ * Parsers built over a table see verbs added to it later.
+ */
+public final class VerbTable {
+
+    private final WordTrie<Integer> words = new WordTrie<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    public VerbTable() {
+        for (Verb verb : Verb.values()) {
+            String name = verb == Verb.UNKNOWN ? "" : verb.canonicalName();
+            names.add(name);
+            for (String word : verb.words()) addWord(word, verb.ordinal());
+        }
+    }
+
+    // Returns the id of the named verb, creating it (with the name as its first word) if needed.
+    public int intern(String name) {
+        String key = name.toLowerCase();
+        Integer id = ids.get(key);
+        if (id != null) return id;
+        checkWord(key);
+        names.add(key);
+        addWord(key, names.size() - 1);
+        return names.size() - 1;
+    }
+
+    // Makes a further word select an interned verb, e.g. "get" for "take".
+    public void alias(String word, int verbId) {
+        if (verbId < 0 || verbId >= names.size() || verbId == Verb.UNKNOWN.ordinal())
+            throw new IllegalArgumentException("Unknown verb id " + verbId + ".");
+        addWord(word.toLowerCase(), verbId);
+    }
+
+    // Id of the verb the word selects, or -1.
+    public int lookup(String word) {
+        Integer id = word != null ? ids.get(word.toLowerCase()) : null;
+        return id != null ? id : -1;
+    }
+
+    int lookup(char[] text, int start, int end) {
+        Integer id = words.get(text, start, end);
+        return id != null ? id : -1;
+    }
+
+    public String name(int verbId) { return names.get(verbId); }
+    public int size() { return names.size(); }
+
+    // Checked before anything is changed, so a rejected word leaves the table as it was.
+    private void addWord(String word, int verbId) {
+        checkWord(word);
+        Integer previous = ids.get(word);
+        if (previous != null && previous != verbId)
+            throw new IllegalArgumentException("'" + word + "' already selects the verb '" + names.get(previous) + "'.");
+        Integer id = verbId;
+        ids.put(word, id);
+        words.put(word, id);
+    }
+
+    private static void checkWord(String word) {
+        if (!WordTrie.accepts(word))
+            throw new IllegalArgumentException("Verb words must be lower-case letters a-z: '" + word + "'.");
+    }
+}
@@ -0,0 +1,63 @@
+package com.textadventure.engine;
+
+import java.util.Arrays;
+
+/**
+ * Maps lower-case ASCII words to values. Lookups walk a flat child table directly over a slice of
+ * a char buffer, so resolving a token never creates a String. Words containing characters other
+ * than {@code a-z} cannot be stored and never match.
+ */
+final class WordTrie<T> {
+
+    private static final int ALPHABET = 26;
+
+    private int[] children = new int[ALPHABET * 8];
+    private Object[] values = new Object[8];
+    private int nodeCount = 1;
+
+    // True when the word is non-empty and all a-z, i.e. put would store it.
+    static boolean accepts(String word) {
+        if (word == null || word.isEmpty()) return false;
+        for (int i = 0; i < word.length(); i++) {
+            int c = word.charAt(i) - 'a';
+            if (c < 0 || c >= ALPHABET) return false;
+        }
+        return true;
+    }
+
+    void put(String word, T value) {
+        if (!accepts(word))
+            throw new IllegalArgumentException("Trie words must be lower-case letters: '" + word + "'");
+        int node = 0;
+        for (int i = 0; i < word.length(); i++) {
+            int slot = node * ALPHABET + word.charAt(i) - 'a';
+            int child = children[slot];
+            if (child == 0) {
+                child = newNode();
+                children[slot] = child;
+            }
+            node = child;
+        }
+        values[node] = value;
+    }
+
+    // Value stored for chars[start, end), or null.
+    @SuppressWarnings("unchecked")
+    T get(char[] chars, int start, int end) {
+        int node = 0;
+        for (int i = start; i < end; i++) {
+            int c = chars[i] - 'a';
+            node = c >= 0 && c < ALPHABET ? children[node * ALPHABET + c] : 0;
+            if (node == 0) return null;
+        }
+        return (T) values[node];
+    }
+
+    private int newNode() {
+        if (nodeCount == values.length) {
+            values = Arrays.copyOf(values, nodeCount * 2);
+            children = Arrays.copyOf(children, nodeCount * 2 * ALPHABET);
+        }
+        return nodeCount++;
+    }
+}
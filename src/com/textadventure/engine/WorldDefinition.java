@@ -0,0 +1,169 @@
+package com.textadventure.engine;
+
+import com.textadventure.engine.GameLoader.GameDataException;
+import com.textadventure.model.ConditionalDescription;
+import com.textadventure.model.Conditions;
+import com.textadventure.model.ExitData;
+import com.textadventure.model.Item;
+import com.textadventure.model.Room;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable view of a loaded world: room and item definitions plus the start room. Rooms are
+ * frozen on construction (or, for a {@link WorldImage}, as they are materialized), so one definition
+ * can back any number of games; everything a game changes lives in its own {@code WorldState}
+ * overlay.
+ */
+public final class WorldDefinition {
+
+    private final Map<String, Room> rooms;
+    private final Map<String, Item> items;
+    private final String startRoomName;
+    private final WorldGraph graph;
+    // Dense id tables for JSON-loaded worlds; image-backed worlds resolve ids through the image.
+    private final Room[] roomsById;
+    private final Item[] itemsById;
+    private final WorldImage image;
+    // Built with the definition for JSON worlds; image-backed worlds build it on first use.
+    private volatile ItemNameIndex itemNameIndex;
+    // Built on the first route query.
+    private volatile NavigationIndex navigationIndex;
+
+    public WorldDefinition(Map<String, Room> rooms, Map<String, Item> items, String startRoomName)
+            throws GameDataException {
+        if (rooms == null || rooms.isEmpty())
+            throw new GameDataException("World definition requires at least one room.");
+        if (startRoomName == null || !rooms.containsKey(startRoomName))
+            throw new GameDataException("Start room '" + startRoomName + "' does not correspond to any loaded room.");
+
+        this.rooms = Collections.unmodifiableMap(new LinkedHashMap<>(rooms));
+        this.items = Collections.unmodifiableMap(new LinkedHashMap<>(items != null ? items : Map.of()));
+        this.startRoomName = startRoomName;
+        this.image = null;
+
+        this.itemsById = this.items.values().toArray(new Item[0]);
+        for (int id = 0; id < itemsById.length; id++) {
+            itemsById[id].assignId(id);
+        }
+        for (Item item : itemsById) {
+            if (item.getUsability() == null) continue;
+            try {
+                item.getUsability().setPipeline(EffectCompiler.compile(item.getUsability(), this::itemId));
+            } catch (IllegalArgumentException e) {
+                throw new GameDataException("Item '" + item.getName() + "': " + e.getMessage());
+            }
+        }
+        this.roomsById = this.rooms.values().toArray(new Room[0]);
+        for (int id = 0; id < roomsById.length; id++) {
+            roomsById[id].assignId(id);
+            roomsById[id].freeze();
+        }
+
+        WorldGraph.Builder builder = new WorldGraph.Builder(roomsById.length);
+        for (Room room : roomsById) {
+            builder.beginRoom(room.getId());
+            for (Map.Entry<String, ExitData> e : room.getExit().entrySet()) {
+                Room target = this.rooms.get(e.getValue().getTargetRoom());
+                Conditions conditions = e.getValue().getConditions();
+                builder.addExit(e.getKey(), target != null ? target.getId() : -1,
+                        conditions != null ? ConditionCompiler.compile(conditions, this::itemId) : null);
+            }
+            for (ConditionalDescription cd : room.getConditionalDescriptions()) {
+                cd.setCompiledCondition(ConditionCompiler.compile(cd.getConditions(), this::itemId));
+            }
+        }
+        this.graph = builder.build();
+        this.itemNameIndex = new ItemNameIndex(this.items.keySet());
+    }
+
+    // Image-backed worlds keep the image's lazy maps; rooms are frozen as the image materializes them.
+    private WorldDefinition(WorldImage image) {
+        this.rooms = Collections.unmodifiableMap(image.roomMap());
+        this.items = Collections.unmodifiableMap(image.itemMap());
+        this.startRoomName = image.getStartRoomName();
+        this.image = image;
+        this.roomsById = null;
+        this.itemsById = null;
+        this.graph = image.buildGraph();
+    }
+
+    public static WorldDefinition from(GameLoader loader) throws GameDataException {
+        return new WorldDefinition(loader.getLoadedRooms(), loader.getLoadedItems(), loader.getPlayerStartRoomName());
+    }
+
+    static WorldDefinition fromImage(WorldImage image) {
+        return new WorldDefinition(image);
+    }
+
+    // Loads either a compiled world image (*.twi) or a JSON adventure file.
+    public static WorldDefinition load(String path) throws IOException, GameDataException {
+        if (WorldImage.isImagePath(path))
+            return WorldImage.open(Paths.get(path)).toDefinition();
+        GameLoader loader = new GameLoader();
+        loader.loadGameData(path);
+        return from(loader);
+    }
+
+    public Room getRoom(String roomName) { return roomName != null ? rooms.get(roomName) : null; }
+    public Item getItem(String itemName) { return itemName != null ? items.get(itemName) : null; }
+    public boolean hasRoom(String roomName) { return roomName != null && rooms.containsKey(roomName); }
+    public Collection<Room> getRooms() { return rooms.values(); }
+    public Set<String> getRoomNames() { return rooms.keySet(); }
+    public Set<String> getItemNames() { return items.keySet(); }
+    public int getRoomCount() { return rooms.size(); }
+    public String getStartRoomName() { return startRoomName; }
+    public WorldGraph getGraph() { return graph; }
+    public int getItemCount() { return items.size(); }
+
+    public ItemNameIndex getItemNameIndex() {
+        ItemNameIndex index = itemNameIndex;
+        if (index == null) {
+            List<String> names = new ArrayList<>(image.getItemCount());
+            for (int id = 0; id < image.getItemCount(); id++) names.add(image.itemName(id));
+            index = new ItemNameIndex(names);
+            itemNameIndex = index;
+        }
+        return index;
+    }
+
+    // Region storage of image-backed worlds; null for JSON worlds, which are held in memory whole.
+    public WorldRegions getRegions() { return image != null ? image.getRegions() : null; }
+
+    public NavigationIndex getNavigationIndex() {
+        NavigationIndex index = navigationIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = navigationIndex;
+                if (index == null) {
+                    index = new NavigationIndex(graph);
+                    navigationIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    public Room room(int roomId) { return image != null ? image.room(roomId) : roomsById[roomId]; }
+    public Item item(int itemId) { return image != null ? image.item(itemId) : itemsById[itemId]; }
+
+    public int roomId(String roomName) {
+        if (image != null) return image.roomIndex(roomName);
+        Room room = getRoom(roomName);
+        return room != null ? room.getId() : -1;
+    }
+
+    public int itemId(String itemName) {
+        if (image != null) return image.itemIndex(itemName);
+        Item item = getItem(itemName);
+        return item != null ? item.getId() : -1;
+    }
+}
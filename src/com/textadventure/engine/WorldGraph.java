@@ -0,0 +1,153 @@
+package com.textadventure.engine;
+
+import com.textadventure.model.Condition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exit graph of a world in compressed sparse row form. Rooms and directions are dense integer
+ * ids; the exits of room {@code r} are the edges {@code exitStart(r) .. exitEnd(r) - 1}, each with
+ * a direction id, a target room id ({@code -1} when the target does not exist) and, for exits that
+ * carry conditions, the compiled {@link Condition}. Moving and listing exits are plain array reads.
+ */
+public final class WorldGraph {
+
+    private final int roomCount;
+    private final int[] exitOffsets;
+    private final int[] exitDirections;
+    private final int[] exitTargets;
+    private final Condition[] exitConditions;
+    private final String[] directionNames;
+    private final Map<String, Integer> directionIds;
+    private final String[] exitSummaries;
+
+    private WorldGraph(Builder builder) {
+        this.roomCount = builder.roomCount;
+        this.exitOffsets = Arrays.copyOf(builder.exitOffsets, builder.roomCount + 1);
+        this.exitDirections = Arrays.copyOf(builder.exitDirections, builder.exitCount);
+        this.exitTargets = Arrays.copyOf(builder.exitTargets, builder.exitCount);
+        this.exitConditions = Arrays.copyOf(builder.exitConditions, builder.exitCount);
+        this.directionNames = builder.directionNames.toArray(new String[0]);
+        this.directionIds = Map.copyOf(builder.directionIds);
+        this.exitSummaries = new String[roomCount];
+    }
+
+    public int getRoomCount() { return roomCount; }
+    public int getExitCount() { return exitTargets.length; }
+    public int getDirectionCount() { return directionNames.length; }
+
+    public int directionId(String direction) {
+        Integer id = direction != null ? directionIds.get(direction) : null;
+        return id != null ? id : -1;
+    }
+
+    public String directionName(int directionId) { return directionNames[directionId]; }
+
+    public int exitStart(int roomId) { return exitOffsets[roomId]; }
+    public int exitEnd(int roomId) { return exitOffsets[roomId + 1]; }
+    public int exitDirection(int exit) { return exitDirections[exit]; }
+    public int exitTarget(int exit) { return exitTargets[exit]; }
+    public boolean isGated(int exit) { return exitConditions[exit] != null; }
+    // Compiled conditions of a gated exit, or null for a plain exit.
+    public Condition exitCondition(int exit) { return exitConditions[exit]; }
+
+    // Room the exit leaves from: the last room whose edge range starts at or before the exit.
+    public int exitRoom(int exit) {
+        int low = 0, high = roomCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (exitOffsets[mid] <= exit) low = mid;
+            else high = mid - 1;
+        }
+        return low;
+    }
+
+    // Returns the edge index of the exit in the given direction, or -1 when there is none.
+    public int findExit(int roomId, int directionId) {
+        if (directionId < 0) return -1;
+        for (int exit = exitOffsets[roomId], end = exitOffsets[roomId + 1]; exit < end; exit++) {
+            if (exitDirections[exit] == directionId) return exit;
+        }
+        return -1;
+    }
+
+    // Sorted, space-separated exit directions of a room, computed once per room.
+    public String exitSummary(int roomId) {
+        String summary = exitSummaries[roomId];
+        if (summary == null) {
+            int start = exitOffsets[roomId];
+            String[] directions = new String[exitOffsets[roomId + 1] - start];
+            for (int i = 0; i < directions.length; i++) {
+                directions[i] = directionNames[exitDirections[start + i]];
+            }
+            Arrays.sort(directions);
+            summary = String.join(" ", directions);
+            exitSummaries[roomId] = summary;
+        }
+        return summary;
+    }
+
+    public static final class Builder {
+        private final int roomCount;
+        private int[] exitOffsets;
+        private int[] exitDirections = new int[16];
+        private int[] exitTargets = new int[16];
+        private Condition[] exitConditions = new Condition[16];
+        private int exitCount;
+        private int currentRoom = -1;
+        private final List<String> directionNames = new ArrayList<>();
+        private final Map<String, Integer> directionIds = new HashMap<>();
+
+        public Builder(int roomCount) {
+            this.roomCount = roomCount;
+            this.exitOffsets = new int[roomCount + 1];
+        }
+
+        // Rooms must be started in id order; exits added afterwards belong to the current room.
+        public Builder beginRoom(int roomId) {
+            if (roomId != currentRoom + 1)
+                throw new IllegalStateException("Rooms must be added in id order; expected " + (currentRoom + 1) + ".");
+            currentRoom = roomId;
+            exitOffsets[roomId] = exitCount;
+            return this;
+        }
+
+        public Builder addExit(String direction, int targetRoomId, Condition condition) {
+            if (currentRoom < 0)
+                throw new IllegalStateException("beginRoom must be called before addExit.");
+            if (exitCount == exitTargets.length) {
+                int capacity = exitCount * 2;
+                exitDirections = Arrays.copyOf(exitDirections, capacity);
+                exitTargets = Arrays.copyOf(exitTargets, capacity);
+                exitConditions = Arrays.copyOf(exitConditions, capacity);
+            }
+            exitDirections[exitCount] = internDirection(direction);
+            exitTargets[exitCount] = targetRoomId;
+            exitConditions[exitCount] = condition;
+            exitCount++;
+            return this;
+        }
+
+        public WorldGraph build() {
+            for (int room = currentRoom + 1; room <= roomCount; room++) {
+                exitOffsets[room] = exitCount;
+            }
+            currentRoom = roomCount - 1;
+            return new WorldGraph(this);
+        }
+
+        private int internDirection(String direction) {
+            Integer id = directionIds.get(direction);
+            if (id == null) {
+                id = directionNames.size();
+                directionNames.add(direction);
+                directionIds.put(direction, id);
+            }
+            return id;
+        }
+    }
+}
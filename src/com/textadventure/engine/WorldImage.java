@@ -0,0 +1,763 @@
+package com.textadventure.engine;
+
+import com.textadventure.engine.GameLoader.GameDataException;
+import com.textadventure.model.*;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Compiled, memory-mapped world file. {@link #write} turns a loaded world into a compact binary
+ * image (interned string table, sorted room and item index tables, exits as integer edges);
+ * {@link #open} maps such an image read-only and materializes {@link Room} and {@link Item}
+ * objects only when they are first looked up. Processes mapping the same image share its pages
+ * through the OS page cache. Rooms are grouped into regions (one per source file, or spatially
+ * coherent chunks of the exit graph) that {@link WorldRegions} loads and evicts as a unit.
+ *
+ * <p>All tables are arrays of big-endian ints. A string or table reference of {@code -1} means
+ * "absent".
+ */
+public final class WorldImage {
+
+    public static final String FILE_EXTENSION = ".twi";
+
+    private static final int MAGIC = 0x54415749; // "TAWI"
+    private static final int VERSION = 5;
+    private static final int HEADER_INTS = 22;
+    // Version 2 images have no region table; their rooms are split into regions by id.
+    private static final int V2_HEADER_INTS = 19;
+    // Version 3 and 4 images have no effect table; their pipelines are compiled from the usability fields.
+    private static final int V4_HEADER_INTS = 21;
+
+    private static final int ITEM_INTS = 3;        // name, description, usability
+    private static final int USABILITY_INTS = 14;  // target, effect, flags, unlocksExit, removesTarget, addsTarget,
+                                                   // changesDescription, addsToInventory, modDirection, modFailMessage,
+                                                   // incrementsCounter, modRelocksAfterTurns, effectStart, effectCount
+    // Version 4 images have no effectStart and effectCount, version 2 and 3 ones no modRelocksAfterTurns either.
+    private static final int V4_USABILITY_INTS = 12;
+    private static final int V3_USABILITY_INTS = 11;
+    private static final int EFFECT_INTS = 4;      // type, subject, text, value
+    private static final int ROOM_INTS = 8;        // name, description, exitStart, exitCount, itemStart, itemCount,
+                                                   // conditionalDescriptionStart, conditionalDescriptionCount
+    private static final int EXIT_INTS = 4;        // direction, targetName, targetRoom, conditions
+    private static final int CONDITION_INTS = 12;  // failMessage, requiresStart, requiresCount, requiresKind,
+                                                   // anyStart, anyCount, forbidsStart, forbidsCount,
+                                                   // inRoomStart, inRoomCount, counterStart, counterCount
+    private static final int CONDITIONAL_DESCRIPTION_INTS = 2; // conditions, description
+
+    private static final int FLAG_CONSUMES = 1;
+    private static final int FLAG_MODIFIES_EXIT = 2;
+    private static final int FLAG_CLEAR_REQUIRES = 4;
+
+    private static final int REQUIRES_NONE = 0;
+    private static final int REQUIRES_SINGLE = 1;
+    private static final int REQUIRES_LIST = 2;
+
+    private final ByteBuffer buffer;
+    private final int itemCount;
+    private final int roomCount;
+    private final int startRoom;
+    private final int stringOffsetsPos;
+    private final int stringDataPos;
+    private final int itemTablePos;
+    private final int usabilityTablePos;
+    private final int roomTablePos;
+    private final int exitTablePos;
+    private final int conditionTablePos;
+    private final int requiresTablePos;
+    private final int roomItemTablePos;
+    private final int conditionalDescriptionTablePos;
+    private final int usabilityInts;
+    private final int effectTablePos;
+
+    private final WorldRegions regions;
+    private final AtomicReferenceArray<Item> items;
+
+    private WorldImage(ByteBuffer buffer) throws GameDataException {
+        this.buffer = buffer;
+        if (buffer.capacity() < V2_HEADER_INTS * 4 || buffer.getInt(0) != MAGIC)
+            throw new GameDataException("Not a compiled world image.");
+        int version = buffer.getInt(4);
+        if (version < 2 || version > VERSION)
+            throw new GameDataException("Unsupported world image version " + version + ".");
+        this.itemCount = header(3);
+        this.roomCount = header(4);
+        this.startRoom = header(8);
+        this.stringOffsetsPos = header(9);
+        this.stringDataPos = header(10);
+        this.itemTablePos = header(11);
+        this.usabilityTablePos = header(12);
+        this.roomTablePos = header(13);
+        this.exitTablePos = header(14);
+        this.conditionTablePos = header(15);
+        this.requiresTablePos = header(16);
+        this.roomItemTablePos = header(17);
+        this.conditionalDescriptionTablePos = header(18);
+        this.usabilityInts = version >= 5 ? USABILITY_INTS : version == 4 ? V4_USABILITY_INTS : V3_USABILITY_INTS;
+        this.effectTablePos = version >= 5 ? header(V4_HEADER_INTS) : -1;
+        if (startRoom < 0 || startRoom >= roomCount)
+            throw new GameDataException("World image has no valid start room.");
+        if (effectTablePos >= 0) checkEffectTypes();
+        this.items = new AtomicReferenceArray<>(itemCount);
+        this.regions = version == 2 ? WorldRegions.byIdRange(this, roomCount) : readRegions(header(19), header(20));
+    }
+
+    public static WorldImage open(Path imagePath) throws IOException, GameDataException {
+        try (FileChannel channel = FileChannel.open(imagePath, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new GameDataException("World image is larger than 2 GB: " + imagePath);
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new WorldImage(mapped);
+        }
+    }
+
+    public static boolean isImagePath(String path) {
+        return path != null && path.endsWith(FILE_EXTENSION);
+    }
+
+    public int getRoomCount() { return roomCount; }
+    public int getItemCount() { return itemCount; }
+    public String getStartRoomName() { return string(roomField(startRoom, 0)); }
+
+    public WorldDefinition toDefinition() throws GameDataException {
+        return WorldDefinition.fromImage(this);
+    }
+
+    public WorldRegions getRegions() { return regions; }
+
+    private WorldRegions readRegions(int regionCount, int tablePos) throws GameDataException {
+        if (regionCount < 1 || tablePos < 0)
+            throw new GameDataException("World image has no region table.");
+        int[] offsets = new int[regionCount + 1];
+        for (int i = 0; i <= regionCount; i++) offsets[i] = buffer.getInt(tablePos + i * 4);
+        int roomsPos = tablePos + (regionCount + 1) * 4;
+        int[] regionRooms = new int[roomCount];
+        for (int i = 0; i < roomCount; i++) regionRooms[i] = buffer.getInt(roomsPos + i * 4);
+        return new WorldRegions(this, offsets, regionRooms);
+    }
+
+    // ---- lookups -----------------------------------------------------------------------------
+
+    public int roomIndex(String roomName) {
+        return roomName != null ? search(roomTablePos, ROOM_INTS, roomCount, roomName) : -1;
+    }
+
+    public int itemIndex(String itemName) {
+        return itemName != null ? search(itemTablePos, ITEM_INTS, itemCount, itemName) : -1;
+    }
+
+    public Room room(int index) {
+        return regions.room(index);
+    }
+
+    public Item item(int index) {
+        Item item = items.get(index);
+        if (item == null) {
+            item = materializeItem(index);
+            if (!items.compareAndSet(index, null, item)) item = items.get(index);
+        }
+        return item;
+    }
+
+    public String roomName(int index) { return string(roomField(index, 0)); }
+    public String itemName(int index) { return string(itemField(index, 0)); }
+
+    public Map<String, Room> roomMap() {
+        return new LazyMap<>(roomCount) {
+            @Override int indexOf(String key) { return roomIndex(key); }
+            @Override String keyAt(int index) { return roomName(index); }
+            @Override Room valueAt(int index) { return room(index); }
+        };
+    }
+
+    public Map<String, Item> itemMap() {
+        return new LazyMap<>(itemCount) {
+            @Override int indexOf(String key) { return itemIndex(key); }
+            @Override String keyAt(int index) { return itemName(index); }
+            @Override Item valueAt(int index) { return item(index); }
+        };
+    }
+
+    // Builds the exit graph straight from the exit table, without materializing any room.
+    WorldGraph buildGraph() {
+        WorldGraph.Builder builder = new WorldGraph.Builder(roomCount);
+        Map<Integer, String> directions = new HashMap<>();
+        for (int room = 0; room < roomCount; room++) {
+            builder.beginRoom(room);
+            int exitStart = roomField(room, 2);
+            int exitEnd = exitStart + roomField(room, 3);
+            for (int exit = exitStart; exit < exitEnd; exit++) {
+                int base = exitTablePos + exit * EXIT_INTS * 4;
+                String direction = directions.computeIfAbsent(buffer.getInt(base), this::string);
+                int conditions = buffer.getInt(base + 12);
+                builder.addExit(direction, buffer.getInt(base + 8), conditions >= 0 ? new DeferredCondition(conditions) : null);
+            }
+        }
+        return builder.build();
+    }
+
+    // Compiles an exit's conditions the first time they are tested, like rooms are materialized on first lookup.
+    private final class DeferredCondition implements Condition {
+        private final int index;
+        private volatile Condition compiled;
+
+        DeferredCondition(int index) { this.index = index; }
+
+        @Override
+        public boolean test(ConditionContext context) {
+            Condition condition = compiled;
+            if (condition == null) {
+                condition = ConditionCompiler.compile(materializeConditions(index), WorldImage.this::itemIndex);
+                compiled = condition;
+            }
+            return condition.test(context);
+        }
+    }
+
+    // ---- materialization ---------------------------------------------------------------------
+
+    int exitCount(int room) { return roomField(room, 3); }
+
+    int exitTarget(int room, int exit) {
+        return buffer.getInt(exitTablePos + ((roomField(room, 2) + exit) * EXIT_INTS + 2) * 4);
+    }
+
+    Room materializeRoom(int index) {
+        Room room = new Room(string(roomField(index, 0)), string(roomField(index, 1)));
+        room.assignId(index);
+        int exitStart = roomField(index, 2);
+        int exitEnd = exitStart + roomField(index, 3);
+        for (int exit = exitStart; exit < exitEnd; exit++) {
+            int base = exitTablePos + exit * EXIT_INTS * 4;
+            String direction = string(buffer.getInt(base));
+            String target = string(buffer.getInt(base + 4));
+            int conditions = buffer.getInt(base + 12);
+            if (conditions < 0 && target != null) {
+                room.addExit(direction, target);
+            } else {
+                ExitData ed = new ExitData();
+                ed.setTargetRoom(target);
+                ed.setConditions(conditions >= 0 ? materializeConditions(conditions) : null);
+                room.getExit().put(direction, ed);
+            }
+        }
+        int itemStart = roomField(index, 4);
+        int itemEnd = itemStart + roomField(index, 5);
+        for (int slot = itemStart; slot < itemEnd; slot++) {
+            room.addItem(item(buffer.getInt(roomItemTablePos + slot * 4)));
+        }
+        int describedStart = roomField(index, 6);
+        int describedEnd = describedStart + roomField(index, 7);
+        for (int slot = describedStart; slot < describedEnd; slot++) {
+            int base = conditionalDescriptionTablePos + slot * CONDITIONAL_DESCRIPTION_INTS * 4;
+            ConditionalDescription cd = new ConditionalDescription(
+                    materializeConditions(buffer.getInt(base)), string(buffer.getInt(base + 4)));
+            cd.setCompiledCondition(ConditionCompiler.compile(cd.getConditions(), this::itemIndex));
+            room.getConditionalDescriptions().add(cd);
+        }
+        room.freeze();
+        return room;
+    }
+
+    private Conditions materializeConditions(int index) {
+        int base = conditionTablePos + index * CONDITION_INTS * 4;
+        String failMessage = string(buffer.getInt(base));
+        int start = buffer.getInt(base + 4);
+        int count = buffer.getInt(base + 8);
+        int kind = buffer.getInt(base + 12);
+        Object requiresItem = null;
+        if (kind == REQUIRES_SINGLE) {
+            requiresItem = string(buffer.getInt(requiresTablePos + start * 4));
+        } else if (kind == REQUIRES_LIST) {
+            requiresItem = names(start, count);
+        }
+        Map<String, Integer> counters = null;
+        int counterStart = buffer.getInt(base + 40);
+        int counterCount = buffer.getInt(base + 44);
+        if (counterCount > 0) {
+            counters = new LinkedHashMap<>();
+            for (int i = 0; i < counterCount; i++) {
+                int pair = requiresTablePos + (counterStart + 2 * i) * 4;
+                counters.put(string(buffer.getInt(pair)), buffer.getInt(pair + 4));
+            }
+        }
+        return new Conditions(requiresItem,
+                names(buffer.getInt(base + 16), buffer.getInt(base + 20)),
+                names(buffer.getInt(base + 24), buffer.getInt(base + 28)),
+                names(buffer.getInt(base + 32), buffer.getInt(base + 36)),
+                counters, failMessage);
+    }
+
+    // Names stored as consecutive string ids in the requires table; null when there are none.
+    private List<String> names(int start, int count) {
+        if (count == 0) return null;
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(string(buffer.getInt(requiresTablePos + (start + i) * 4)));
+        }
+        return names;
+    }
+
+    private Item materializeItem(int index) {
+        Item item = new Item(string(itemField(index, 0)), string(itemField(index, 1)));
+        item.assignId(index);
+        int usability = itemField(index, 2);
+        if (usability >= 0) {
+            int base = usabilityTablePos + usability * usabilityInts * 4;
+            int flags = buffer.getInt(base + 8);
+            ExitModification mod = null;
+            if ((flags & FLAG_MODIFIES_EXIT) != 0) {
+                mod = new ExitModification(string(buffer.getInt(base + 32)),
+                        (flags & FLAG_CLEAR_REQUIRES) != 0, string(buffer.getInt(base + 36)),
+                        usabilityInts > 11 ? buffer.getInt(base + 44) : 0);
+            }
+            item.setUsability(new Item.Usability(
+                    string(buffer.getInt(base)),
+                    string(buffer.getInt(base + 4)),
+                    (flags & FLAG_CONSUMES) != 0,
+                    string(buffer.getInt(base + 12)),
+                    string(buffer.getInt(base + 16)),
+                    string(buffer.getInt(base + 20)),
+                    string(buffer.getInt(base + 24)),
+                    string(buffer.getInt(base + 28)),
+                    mod,
+                    string(buffer.getInt(base + 40))));
+            item.getUsability().setPipeline(effectTablePos >= 0
+                    ? materializeEffects(buffer.getInt(base + 48), buffer.getInt(base + 52))
+                    : EffectCompiler.compile(item.getUsability(), this::itemIndex));
+        }
+        return item;
+    }
+
+    // Items are materialized lazily, so their effect types are checked here, once per distinct type:
+    // an image listing a type this process never registered fails to open instead of mid-game.
+    private void checkEffectTypes() throws GameDataException {
+        int[] checked = new int[8];
+        int checkedCount = 0;
+        int step = EFFECT_INTS * 4;
+        scan:
+        for (int pos = effectTablePos; pos + step <= buffer.capacity(); pos += step) {
+            int type = buffer.getInt(pos);
+            for (int i = 0; i < checkedCount; i++) if (checked[i] == type) continue scan;
+            if (!Effect.isDeclared(string(type)))
+                throw new GameDataException("World image has an effect of unknown type '" + string(type) + "'.");
+            if (checkedCount == checked.length) checked = Arrays.copyOf(checked, checkedCount * 2);
+            checked[checkedCount++] = type;
+        }
+    }
+
+    // A pipeline exactly as it was compiled when the image was written.
+    private Effect[] materializeEffects(int start, int count) {
+        List<Effect> steps = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int base = effectTablePos + (start + i) * EFFECT_INTS * 4;
+            steps.add(new Effect(string(buffer.getInt(base)), string(buffer.getInt(base + 4)),
+                    string(buffer.getInt(base + 8)), buffer.getInt(base + 12)));
+        }
+        return EffectCompiler.link(steps, this::itemIndex);
+    }
+
+    // ---- low-level access --------------------------------------------------------------------
+
+    private int header(int slot) { return buffer.getInt(slot * 4); }
+    private int roomField(int room, int field) { return buffer.getInt(roomTablePos + (room * ROOM_INTS + field) * 4); }
+    private int itemField(int item, int field) { return buffer.getInt(itemTablePos + (item * ITEM_INTS + field) * 4); }
+
+    private String string(int id) {
+        if (id < 0) return null;
+        int start = buffer.getInt(stringOffsetsPos + id * 4);
+        int end = buffer.getInt(stringOffsetsPos + (id + 1) * 4);
+        byte[] bytes = new byte[end - start];
+        buffer.get(stringDataPos + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Binary search over a table sorted by the unsigned UTF-8 bytes of its first (name) field.
+    private int search(int tablePos, int recordInts, int count, String name) {
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareString(buffer.getInt(tablePos + mid * recordInts * 4), key);
+            if (cmp < 0) low = mid + 1;
+            else if (cmp > 0) high = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    private int compareString(int id, byte[] key) {
+        int start = stringDataPos + buffer.getInt(stringOffsetsPos + id * 4);
+        int length = stringDataPos + buffer.getInt(stringOffsetsPos + (id + 1) * 4) - start;
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Byte.compareUnsigned(buffer.get(start + i), key[i]);
+            if (cmp != 0) return cmp;
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    private abstract static class LazyMap<V> extends AbstractMap<String, V> {
+        private final int size;
+
+        LazyMap(int size) { this.size = size; }
+
+        abstract int indexOf(String key);
+        abstract String keyAt(int index);
+        abstract V valueAt(int index);
+
+        @Override public int size() { return size; }
+
+        @Override public boolean containsKey(Object key) {
+            return key instanceof String name && indexOf(name) >= 0;
+        }
+
+        @Override public V get(Object key) {
+            if (!(key instanceof String name)) return null;
+            int index = indexOf(name);
+            return index >= 0 ? valueAt(index) : null;
+        }
+
+        @Override public Set<Entry<String, V>> entrySet() {
+            return new AbstractSet<>() {
+                @Override public int size() { return size; }
+                @Override public Iterator<Entry<String, V>> iterator() {
+                    return new Iterator<>() {
+                        private int next;
+                        @Override public boolean hasNext() { return next < size; }
+                        @Override public Entry<String, V> next() {
+                            if (next >= size) throw new NoSuchElementException();
+                            int index = next++;
+                            String key = keyAt(index);
+                            // Iterating keys must not materialize every room or item.
+                            return new Entry<>() {
+                                @Override public String getKey() { return key; }
+                                @Override public V getValue() { return valueAt(index); }
+                                @Override public V setValue(V value) { throw new UnsupportedOperationException(); }
+                            };
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    // ---- compilation -------------------------------------------------------------------------
+
+    public static void write(WorldDefinition world, Path target) throws IOException, GameDataException {
+        write(world, Map.of(), target);
+    }
+
+    /**
+     * Writes an image whose rooms are grouped by {@code roomRegions} (room name to region name);
+     * rooms it does not name are split into regions of {@link WorldRegions#DEFAULT_REGION_ROOMS}
+     * neighbouring rooms.
+     */
+    public static void write(WorldDefinition world, Map<String, String> roomRegions, Path target)
+            throws IOException, GameDataException {
+        new Compiler(world).write(roomRegions, target);
+    }
+
+    private static final class Compiler {
+        private final WorldDefinition world;
+        private final Map<String, Integer> stringIds = new HashMap<>();
+        private final List<byte[]> strings = new ArrayList<>();
+
+        private final List<String> roomOrder;
+        private final List<String> itemOrder;
+        private final Map<String, Integer> roomIndexes = new HashMap<>();
+        private final Map<String, Integer> itemIndexes = new HashMap<>();
+
+        Compiler(WorldDefinition world) {
+            this.world = world;
+            this.roomOrder = sortedByUtf8(world.getRoomNames());
+            this.itemOrder = sortedByUtf8(world.getItemNames());
+            for (int i = 0; i < roomOrder.size(); i++) roomIndexes.put(roomOrder.get(i), i);
+            for (int i = 0; i < itemOrder.size(); i++) itemIndexes.put(itemOrder.get(i), i);
+        }
+
+        void write(Map<String, String> roomRegions, Path target) throws IOException, GameDataException {
+            IntTable itemTable = new IntTable();
+            IntTable usabilityTable = new IntTable();
+            IntTable effectTable = new IntTable();
+            for (String itemName : itemOrder) {
+                Item item = world.getItem(itemName);
+                itemTable.add(intern(itemName), intern(item.getDescription()));
+                Item.Usability u = item.getUsability();
+                if (u == null) {
+                    itemTable.add(-1);
+                    continue;
+                }
+                itemTable.add(usabilityTable.size() / USABILITY_INTS);
+                ExitModification mod = u.getModifiesExit();
+                int flags = (u.isConsumesItem() ? FLAG_CONSUMES : 0)
+                        | (mod != null ? FLAG_MODIFIES_EXIT : 0)
+                        | (mod != null && mod.isClearRequiresItem() ? FLAG_CLEAR_REQUIRES : 0);
+                usabilityTable.add(intern(u.getTarget()), intern(u.getEffectDescription()), flags,
+                        intern(u.getUnlocksExit()), intern(u.getRemovesTarget()), intern(u.getAddsTarget()),
+                        intern(u.getChangesRoomDescriptionTo()), intern(u.getAddsItemToInventory()),
+                        intern(mod != null ? mod.getDirection() : null),
+                        intern(mod != null ? mod.getSetFailMessage() : null),
+                        intern(u.getIncrementsCounter()),
+                        mod != null ? mod.getRelocksAfterTurns() : 0,
+                        effectTable.size() / EFFECT_INTS, u.getPipeline().length);
+                for (Effect step : u.getPipeline()) {
+                    effectTable.add(intern(step.getType()), intern(step.getSubject()), intern(step.getText()), step.getValue());
+                }
+            }
+
+            IntTable roomTable = new IntTable();
+            IntTable exitTable = new IntTable();
+            IntTable conditionTable = new IntTable();
+            IntTable requiresTable = new IntTable();
+            IntTable roomItemTable = new IntTable();
+            IntTable conditionalDescriptionTable = new IntTable();
+            for (String roomName : roomOrder) {
+                Room room = world.getRoom(roomName);
+                int exitStart = exitTable.size() / EXIT_INTS;
+                for (Map.Entry<String, ExitData> e : room.getExit().entrySet()) {
+                    ExitData ed = e.getValue();
+                    Integer targetIndex = ed.getTargetRoom() != null ? roomIndexes.get(ed.getTargetRoom()) : null;
+                    int conditions = ed.getConditions() != null
+                            ? writeConditions(ed.getConditions(), conditionTable, requiresTable) : -1;
+                    exitTable.add(intern(e.getKey()), intern(ed.getTargetRoom()), targetIndex != null ? targetIndex : -1, conditions);
+                }
+                int itemStart = roomItemTable.size();
+                for (Item item : room.getItems()) {
+                    Integer index = itemIndexes.get(item.getName());
+                    if (index != null) roomItemTable.add(index);
+                }
+                int describedStart = conditionalDescriptionTable.size() / CONDITIONAL_DESCRIPTION_INTS;
+                for (ConditionalDescription cd : room.getConditionalDescriptions()) {
+                    Conditions conditions = cd.getConditions() != null ? cd.getConditions() : new Conditions();
+                    conditionalDescriptionTable.add(writeConditions(conditions, conditionTable, requiresTable),
+                            intern(cd.getDescription()));
+                }
+                roomTable.add(intern(roomName), intern(room.getDescription()),
+                        exitStart, exitTable.size() / EXIT_INTS - exitStart,
+                        itemStart, roomItemTable.size() - itemStart,
+                        describedStart, conditionalDescriptionTable.size() / CONDITIONAL_DESCRIPTION_INTS - describedStart);
+            }
+
+            IntTable regionTable = new IntTable();
+            int regionCount = writeRegions(roomRegions, regionTable);
+
+            int stringBytes = 0;
+            for (byte[] s : strings) stringBytes += s.length;
+
+            int[] header = new int[HEADER_INTS];
+            header[0] = MAGIC;
+            header[1] = VERSION;
+            header[2] = strings.size();
+            header[3] = itemOrder.size();
+            header[4] = roomOrder.size();
+            header[5] = exitTable.size() / EXIT_INTS;
+            header[6] = conditionTable.size() / CONDITION_INTS;
+            header[7] = usabilityTable.size() / USABILITY_INTS;
+            header[8] = roomIndexes.get(world.getStartRoomName());
+            long pos = HEADER_INTS * 4L;
+            header[9] = (int) pos;  pos += (strings.size() + 1) * 4L;
+            header[10] = (int) pos; pos += stringBytes;
+            pos = (pos + 3) & ~3L;
+            header[11] = (int) pos; pos += itemTable.size() * 4L;
+            header[12] = (int) pos; pos += usabilityTable.size() * 4L;
+            header[13] = (int) pos; pos += roomTable.size() * 4L;
+            header[14] = (int) pos; pos += exitTable.size() * 4L;
+            header[15] = (int) pos; pos += conditionTable.size() * 4L;
+            header[16] = (int) pos; pos += requiresTable.size() * 4L;
+            header[17] = (int) pos; pos += roomItemTable.size() * 4L;
+            header[18] = (int) pos; pos += conditionalDescriptionTable.size() * 4L;
+            header[19] = regionCount;
+            header[20] = (int) pos; pos += regionTable.size() * 4L;
+            header[21] = (int) pos; pos += effectTable.size() * 4L;
+            if (pos > Integer.MAX_VALUE)
+                throw new GameDataException("World is too large for a single image (" + pos + " bytes).");
+
+            // Write next to the target and rename, so readers never map a half-written image.
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            try (OutputStream file = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+                for (int value : header) out.writeInt(value);
+                int offset = 0;
+                for (byte[] s : strings) {
+                    out.writeInt(offset);
+                    offset += s.length;
+                }
+                out.writeInt(offset);
+                for (byte[] s : strings) out.write(s);
+                for (int pad = stringBytes; (pad & 3) != 0; pad++) out.writeByte(0);
+                itemTable.writeTo(out);
+                usabilityTable.writeTo(out);
+                roomTable.writeTo(out);
+                exitTable.writeTo(out);
+                conditionTable.writeTo(out);
+                requiresTable.writeTo(out);
+                roomItemTable.writeTo(out);
+                conditionalDescriptionTable.writeTo(out);
+                regionTable.writeTo(out);
+                effectTable.writeTo(out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        // Region offsets followed by the room indexes of each region; returns the number of regions.
+        private int writeRegions(Map<String, String> roomRegions, IntTable regionTable) {
+            List<List<Integer>> groups = new ArrayList<>();
+            Map<String, List<Integer>> named = new LinkedHashMap<>();
+            int roomCount = world.getRoomCount();
+            boolean[] assigned = new boolean[roomCount];
+            for (int room = 0; room < roomCount; room++) {
+                String region = roomRegions.get(world.room(room).getName());
+                if (region == null) continue;
+                named.computeIfAbsent(region, k -> new ArrayList<>()).add(roomIndexes.get(world.room(room).getName()));
+                assigned[room] = true;
+            }
+            groups.addAll(named.values());
+
+            // Grow each remaining region breadth-first from a seed; its unvisited frontier seeds the next ones.
+            // A region that runs out of connected rooms before it is full carries on from the next seed.
+            WorldGraph graph = world.getGraph();
+            int[] stamp = new int[roomCount];
+            Arrays.fill(stamp, -1);
+            ArrayDeque<Integer> seeds = new ArrayDeque<>();
+            seeds.add(world.roomId(world.getStartRoomName()));
+            int scan = 0;
+            int search = 0;
+            List<Integer> group = null;
+            while (true) {
+                int seed = -1;
+                while (!seeds.isEmpty() && seed < 0) {
+                    int candidate = seeds.poll();
+                    if (!assigned[candidate]) seed = candidate;
+                }
+                if (seed < 0) {
+                    while (scan < roomCount && assigned[scan]) scan++;
+                    if (scan == roomCount) break;
+                    seed = scan;
+                }
+                if (group == null || group.size() == WorldRegions.DEFAULT_REGION_ROOMS) {
+                    group = new ArrayList<>();
+                    groups.add(group);
+                }
+                ArrayDeque<Integer> queue = new ArrayDeque<>();
+                queue.add(seed);
+                stamp[seed] = ++search;
+                while (!queue.isEmpty() && group.size() < WorldRegions.DEFAULT_REGION_ROOMS) {
+                    int room = queue.poll();
+                    assigned[room] = true;
+                    group.add(roomIndexes.get(world.room(room).getName()));
+                    for (int exit = graph.exitStart(room); exit < graph.exitEnd(room); exit++) {
+                        int target = graph.exitTarget(exit);
+                        if (target >= 0 && !assigned[target] && stamp[target] != search) {
+                            stamp[target] = search;
+                            queue.add(target);
+                        }
+                    }
+                }
+                seeds.addAll(queue);
+            }
+
+            int offset = 0;
+            for (List<Integer> members : groups) {
+                regionTable.add(offset);
+                offset += members.size();
+            }
+            regionTable.add(offset);
+            for (List<Integer> members : groups) {
+                for (int room : members) regionTable.add(room);
+            }
+            return groups.size();
+        }
+
+        private int writeConditions(Conditions conditions, IntTable conditionTable, IntTable requiresTable) {
+            int index = conditionTable.size() / CONDITION_INTS;
+            Object requires = conditions.getRequiresItem();
+            int start = requiresTable.size();
+            int kind = REQUIRES_NONE;
+            if (requires instanceof List<?> list) {
+                kind = REQUIRES_LIST;
+                for (Object name : list) requiresTable.add(intern(String.valueOf(name)));
+            } else if (requires != null) {
+                kind = REQUIRES_SINGLE;
+                requiresTable.add(intern(requires.toString()));
+            }
+            int requiresCount = requiresTable.size() - start;
+            int anyStart = addNames(conditions.getRequiresAnyItem(), requiresTable);
+            int forbidsStart = addNames(conditions.getForbidsItem(), requiresTable);
+            int inRoomStart = addNames(conditions.getRequiresItemInRoom(), requiresTable);
+            int counterStart = requiresTable.size();
+            Map<String, Integer> counters = conditions.getRequiresCounter();
+            if (counters != null) {
+                for (Map.Entry<String, Integer> e : counters.entrySet()) {
+                    if (e.getKey() != null && e.getValue() != null) requiresTable.add(intern(e.getKey()), e.getValue());
+                }
+            }
+            conditionTable.add(intern(conditions.getFailMessage()), start, requiresCount, kind,
+                    anyStart, forbidsStart - anyStart,
+                    forbidsStart, inRoomStart - forbidsStart,
+                    inRoomStart, counterStart - inRoomStart,
+                    counterStart, (requiresTable.size() - counterStart) / 2);
+            return index;
+        }
+
+        private int addNames(List<String> names, IntTable requiresTable) {
+            int start = requiresTable.size();
+            if (names != null) {
+                for (String name : names) {
+                    if (name != null) requiresTable.add(intern(name));
+                }
+            }
+            return start;
+        }
+
+        private int intern(String value) {
+            if (value == null) return -1;
+            Integer id = stringIds.get(value);
+            if (id == null) {
+                id = strings.size();
+                strings.add(value.getBytes(StandardCharsets.UTF_8));
+                stringIds.put(value, id);
+            }
+            return id;
+        }
+
+        private static List<String> sortedByUtf8(Collection<String> names) {
+            List<byte[]> encoded = new ArrayList<>(names.size());
+            for (String name : names) encoded.add(name.getBytes(StandardCharsets.UTF_8));
+            encoded.sort(Arrays::compareUnsigned);
+            List<String> sorted = new ArrayList<>(encoded.size());
+            for (byte[] bytes : encoded) sorted.add(new String(bytes, StandardCharsets.UTF_8));
+            return sorted;
+        }
+    }
+
+    private static final class IntTable {
+        private int[] values = new int[64];
+        private int size;
+
+        void add(int... row) {
+            if (size + row.length > values.length) values = Arrays.copyOf(values, Math.max(values.length * 2, size + row.length));
+            System.arraycopy(row, 0, values, size, row.length);
+            size += row.length;
+        }
+
+        int size() { return size; }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            for (int i = 0; i < size; i++) out.writeInt(values[i]);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.textadventure.engine;
+
+import com.textadventure.model.Room;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Region-partitioned room storage of a {@link WorldImage}. Rooms are materialized a whole region
+ * at a time, the first time any room of the region is looked up. A game holds a {@link Lease} on
+ * the region its player is in; leasing a region also prefetches the regions its exits lead into,
+ * on a background thread. Regions no lease refers to stay cached until more than
+ * {@link #setMaxIdleRegions(int) maxIdleRegions} of them are loaded, then the least recently
+ * released ones are dropped and re-read from the mapped image when needed again.
+ *
+ * <p>Items are not partitioned: the engine compares items by identity, so an item, once
+ * materialized, stays cached for the life of the image.
+ */
+public final class WorldRegions {
+
+    // Rooms per region when the compiler partitions a world itself, and for images without a region table.
+    public static final int DEFAULT_REGION_ROOMS = 1024;
+    private static final int DEFAULT_MAX_IDLE_REGIONS = Integer.getInteger("textadventure.regions.cached", 64);
+
+    private static final class Region {
+        final int id;
+        volatile Room[] rooms;
+        // Guarded by the idle map's lock.
+        int leases;
+        volatile int[] neighbors;
+        final AtomicBoolean prefetchQueued = new AtomicBoolean();
+
+        Region(int id) { this.id = id; }
+    }
+
+    private final WorldImage image;
+    private final int[] regionOffsets;
+    private final int[] regionRooms;
+    private final int[] roomRegion;
+    private final int[] roomSlot;
+    private final Region[] regions;
+    // Loaded regions without leases, least recently released first.
+    private final LinkedHashMap<Integer, Region> idle = new LinkedHashMap<>();
+    private int maxIdleRegions = DEFAULT_MAX_IDLE_REGIONS;
+    private volatile ExecutorService prefetcher;
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // regionOffsets has one entry per region plus one; regionRooms lists the room ids of each region in turn.
+    WorldRegions(WorldImage image, int[] regionOffsets, int[] regionRooms) {
+        this.image = image;
+        this.regionOffsets = regionOffsets;
+        this.regionRooms = regionRooms;
+        int regionCount = regionOffsets.length - 1;
+        this.roomRegion = new int[regionRooms.length];
+        this.roomSlot = new int[regionRooms.length];
+        this.regions = new Region[regionCount];
+        for (int region = 0; region < regionCount; region++) {
+            regions[region] = new Region(region);
+            for (int i = regionOffsets[region]; i < regionOffsets[region + 1]; i++) {
+                roomRegion[regionRooms[i]] = region;
+                roomSlot[regionRooms[i]] = i - regionOffsets[region];
+            }
+        }
+    }
+
+    // Consecutive room ids in regions of DEFAULT_REGION_ROOMS, for images written without a region table.
+    static WorldRegions byIdRange(WorldImage image, int roomCount) {
+        int regionCount = Math.max(1, (roomCount + DEFAULT_REGION_ROOMS - 1) / DEFAULT_REGION_ROOMS);
+        int[] offsets = new int[regionCount + 1];
+        for (int region = 0; region <= regionCount; region++) offsets[region] = Math.min(roomCount, region * DEFAULT_REGION_ROOMS);
+        int[] rooms = new int[roomCount];
+        Arrays.setAll(rooms, room -> room);
+        return new WorldRegions(image, offsets, rooms);
+    }
+
+    public int getRegionCount() { return regions.length; }
+    public int regionOf(int roomId) { return roomRegion[roomId]; }
+    public int getRegionSize(int region) { return regionOffsets[region + 1] - regionOffsets[region]; }
+    public boolean isLoaded(int region) { return regions[region].rooms != null; }
+    public long getLoadCount() { return loads.get(); }
+    public long getEvictionCount() { return evictions.get(); }
+
+    public int getLoadedRegionCount() {
+        int loaded = 0;
+        for (Region region : regions) if (region.rooms != null) loaded++;
+        return loaded;
+    }
+
+    public void setMaxIdleRegions(int maxIdleRegions) {
+        if (maxIdleRegions < 0)
+            throw new IllegalArgumentException("Idle region limit cannot be negative.");
+        synchronized (idle) {
+            this.maxIdleRegions = maxIdleRegions;
+            evictIdle();
+        }
+    }
+
+    /** Leases the region of the given room for one game; move it along with the player and close it when done. */
+    public Lease lease(int roomId) {
+        Lease lease = new Lease();
+        lease.moveTo(roomId);
+        return lease;
+    }
+
+    public final class Lease implements AutoCloseable {
+        private int region = -1;
+
+        private Lease() {}
+
+        public int getRegion() { return region; }
+
+        public void moveTo(int roomId) {
+            int next = roomRegion[roomId];
+            if (next == region) return;
+            int previous = region;
+            region = next;
+            acquire(regions[next]);
+            if (previous >= 0) release(regions[previous]);
+            load(regions[next]);
+            prefetchNeighbors(regions[next]);
+        }
+
+        @Override
+        public void close() {
+            if (region < 0) return;
+            release(regions[region]);
+            region = -1;
+        }
+    }
+
+    Room room(int roomId) {
+        Region region = regions[roomRegion[roomId]];
+        Room[] rooms = region.rooms;
+        if (rooms == null) rooms = load(region);
+        return rooms[roomSlot[roomId]];
+    }
+
+    private Room[] load(Region region) {
+        Room[] rooms = region.rooms;
+        if (rooms != null) return rooms;
+        synchronized (region) {
+            rooms = region.rooms;
+            if (rooms == null) {
+                int start = regionOffsets[region.id];
+                rooms = new Room[regionOffsets[region.id + 1] - start];
+                for (int slot = 0; slot < rooms.length; slot++) rooms[slot] = image.materializeRoom(regionRooms[start + slot]);
+                region.rooms = rooms;
+                loads.incrementAndGet();
+            }
+        }
+        synchronized (idle) {
+            if (region.leases == 0 && region.rooms != null) {
+                idle.remove(region.id);
+                idle.put(region.id, region);
+                evictIdle();
+            }
+        }
+        return rooms;
+    }
+
+    private void acquire(Region region) {
+        synchronized (idle) {
+            if (region.leases++ == 0) idle.remove(region.id);
+        }
+    }
+
+    private void release(Region region) {
+        synchronized (idle) {
+            if (--region.leases == 0 && region.rooms != null) {
+                idle.put(region.id, region);
+                evictIdle();
+            }
+        }
+    }
+
+    // Caller holds the idle map's lock.
+    private void evictIdle() {
+        Iterator<Region> eldest = idle.values().iterator();
+        while (idle.size() > maxIdleRegions && eldest.hasNext()) {
+            Region region = eldest.next();
+            eldest.remove();
+            region.rooms = null;
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void prefetchNeighbors(Region region) {
+        for (int neighbor : neighbors(region)) {
+            Region next = regions[neighbor];
+            if (next.rooms != null || !next.prefetchQueued.compareAndSet(false, true)) continue;
+            prefetcher().execute(() -> {
+                try {
+                    load(next);
+                } finally {
+                    next.prefetchQueued.set(false);
+                }
+            });
+        }
+    }
+
+    // Regions that exits of this region's rooms lead into, read from the image without materializing rooms.
+    private int[] neighbors(Region region) {
+        int[] neighbors = region.neighbors;
+        if (neighbors != null) return neighbors;
+        boolean[] seen = new boolean[regions.length];
+        int count = 0;
+        neighbors = new int[4];
+        for (int i = regionOffsets[region.id]; i < regionOffsets[region.id + 1]; i++) {
+            int room = regionRooms[i];
+            for (int exit = 0, exits = image.exitCount(room); exit < exits; exit++) {
+                int target = image.exitTarget(room, exit);
+                if (target < 0) continue;
+                int neighbor = roomRegion[target];
+                if (neighbor == region.id || seen[neighbor]) continue;
+                seen[neighbor] = true;
+                if (count == neighbors.length) neighbors = Arrays.copyOf(neighbors, count * 2);
+                neighbors[count++] = neighbor;
+            }
+        }
+        neighbors = Arrays.copyOf(neighbors, count);
+        region.neighbors = neighbors;
+        return neighbors;
+    }
+
+    private ExecutorService prefetcher() {
+        ExecutorService executor = prefetcher;
+        if (executor == null) {
+            synchronized (this) {
+                executor = prefetcher;
+                if (executor == null) {
+                    executor = Executors.newSingleThreadExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "region-prefetch");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    prefetcher = executor;
+                }
+            }
+        }
+        return executor;
+    }
+}
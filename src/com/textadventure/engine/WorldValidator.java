@@ -0,0 +1,773 @@
+package com.textadventure.engine;
+
+import com.textadventure.engine.ValidationReport.Issue;
+import com.textadventure.engine.ValidationReport.Severity;
+import com.textadventure.model.Condition;
+import com.textadventure.model.ConditionContext;
+import com.textadventure.model.ConditionalDescription;
+import com.textadventure.model.Conditions;
+import com.textadventure.model.Effect;
+import com.textadventure.model.ExitData;
+import com.textadventure.model.ExitModification;
+import com.textadventure.model.Item;
+import com.textadventure.model.Room;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
+
+/**
+ * Checks a loaded world in three passes:
+ * <ol>
+ *   <li>References, in parallel over rooms and items: exit targets, item names in conditions,
+ *       room item lists and usability targets and effects.</li>
+ *   <li>Reachability: a work-list fixpoint over rooms, obtainable items, use effects and unlocked
+ *       exits. It is optimistic (forbidden items, room-item conditions and counters never block)
+ *       and linear in the size of the world, so it answers "can this room / item / the goal be
+ *       reached at all" on very large worlds. With a goal room it also finds dead-end rooms.</li>
+ *   <li>Dead states: a breadth-first search over (room, inventory and world-flag bitset) states
+ *       that models taking, consuming, forbidden items and use effects exactly, then marks every
+ *       state from which the goal cannot be reached. Only items that conditions or use effects
+ *       involve are tracked; when they and the flags do not fit in 64 bits, or the state limit is
+ *       hit, this pass is skipped and the report says so.</li>
+ * </ol>
+ * The state search only lets an item be dropped back where it was taken, and treats counters as
+ * always high enough.
+ */
+public final class WorldValidator {
+
+    private static final int DEFAULT_STATE_LIMIT = 1_000_000;
+    private static final int DEAD_STATE_EXAMPLES = 5;
+
+    private final WorldDefinition world;
+    private final WorldGraph graph;
+    private String goalRoom;
+    private Map<String, List<String>> unresolvedRoomItems = Map.of();
+    private int stateLimit = DEFAULT_STATE_LIMIT;
+
+    // Filled by validate(): initial item ids per room, and rooms per item.
+    private int[][] roomItems;
+    private int[][] itemRooms;
+    private int[] exitSource;
+
+    public WorldValidator(WorldDefinition world) {
+        if (world == null)
+            throw new IllegalArgumentException("World definition cannot be null.");
+        this.world = world;
+        this.graph = world.getGraph();
+    }
+
+    public WorldValidator goalRoom(String goalRoom) {
+        this.goalRoom = goalRoom;
+        return this;
+    }
+
+    // Item names the loader could not resolve (GameLoader.getUnresolvedRoomItems()), reported as errors.
+    public WorldValidator unresolvedRoomItems(Map<String, List<String>> unresolvedRoomItems) {
+        this.unresolvedRoomItems = unresolvedRoomItems != null ? unresolvedRoomItems : Map.of();
+        return this;
+    }
+
+    public WorldValidator stateLimit(int stateLimit) {
+        this.stateLimit = stateLimit;
+        return this;
+    }
+
+    public ValidationReport validate() {
+        long start = System.nanoTime();
+        ValidationReport report = new ValidationReport();
+        report.roomCount = world.getRoomCount();
+        report.itemCount = world.getItemCount();
+        report.goalRoom = goalRoom;
+
+        indexRoomItems();
+        if (goalRoom != null && !world.hasRoom(goalRoom)) {
+            report.issues.add(new Issue(Severity.ERROR, "goal", "room '" + goalRoom + "' is not defined"));
+            report.goalRoom = null;
+        }
+        checkReferences(report);
+        Reachability reachability = new Reachability();
+        reachability.run(report);
+        if (report.goalRoom != null) findDeadEndRooms(report, reachability);
+        new StateSearch(reachability).run(report);
+
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    private void indexRoomItems() {
+        int roomCount = world.getRoomCount();
+        roomItems = new int[roomCount][];
+        IntStream.range(0, roomCount).parallel().forEach(id -> {
+            List<Item> items = world.room(id).getItems();
+            int[] ids = new int[items.size()];
+            for (int i = 0; i < ids.length; i++) ids[i] = world.itemId(items.get(i).getName());
+            roomItems[id] = ids;
+        });
+
+        int[] counts = new int[world.getItemCount()];
+        for (int[] ids : roomItems) {
+            for (int id : ids) if (id >= 0) counts[id]++;
+        }
+        itemRooms = new int[counts.length][];
+        for (int id = 0; id < counts.length; id++) itemRooms[id] = new int[counts[id]];
+        Arrays.fill(counts, 0);
+        for (int room = 0; room < roomItems.length; room++) {
+            for (int id : roomItems[room]) if (id >= 0) itemRooms[id][counts[id]++] = room;
+        }
+
+        exitSource = new int[graph.getExitCount()];
+        for (int room = 0; room < roomCount; room++) {
+            for (int exit = graph.exitStart(room); exit < graph.exitEnd(room); exit++) exitSource[exit] = room;
+        }
+    }
+
+    // ---- references ----------------------------------------------------------------------------
+
+    private void checkReferences(ValidationReport report) {
+        ConcurrentLinkedQueue<Issue> found = new ConcurrentLinkedQueue<>();
+        IntStream.range(0, world.getRoomCount()).parallel().forEach(id -> checkRoom(world.room(id), found));
+        IntStream.range(0, world.getItemCount()).parallel().forEach(id -> checkItem(world.item(id), found));
+        List<Issue> sorted = new ArrayList<>(found);
+        sorted.sort(Comparator.comparing(Issue::getSeverity).thenComparing(Issue::getSubject)
+                .thenComparing(Issue::getMessage));
+        report.issues.addAll(sorted);
+    }
+
+    private void checkRoom(Room room, ConcurrentLinkedQueue<Issue> found) {
+        String subject = "room '" + room.getName() + "'";
+        for (Map.Entry<String, ExitData> e : room.getExit().entrySet()) {
+            String target = e.getValue().getTargetRoom();
+            if (target == null || !world.hasRoom(target.trim()))
+                found.add(new Issue(Severity.ERROR, subject, "exit '" + e.getKey() + "' leads to undefined room '" + target + "'"));
+            checkConditionItems(e.getValue().getConditions(), subject, "exit '" + e.getKey() + "'", found);
+        }
+        for (ConditionalDescription cd : room.getConditionalDescriptions()) {
+            checkConditionItems(cd.getConditions(), subject, "conditional description", found);
+        }
+        for (String itemName : unresolvedRoomItems.getOrDefault(room.getName(), List.of())) {
+            found.add(new Issue(Severity.ERROR, subject, "lists undefined item '" + itemName + "'"));
+        }
+    }
+
+    private void checkConditionItems(Conditions conditions, String subject, String where, ConcurrentLinkedQueue<Issue> found) {
+        for (String name : conditionItemNames(conditions)) {
+            if (world.itemId(name) < 0)
+                found.add(new Issue(Severity.ERROR, subject, where + " refers to undefined item '" + name + "'"));
+        }
+    }
+
+    private void checkItem(Item item, ConcurrentLinkedQueue<Issue> found) {
+        Item.Usability usability = item.getUsability();
+        if (usability == null) return;
+        String subject = "item '" + item.getName() + "'";
+        if (usability.getTarget() == null) {
+            found.add(new Issue(Severity.WARNING, subject, "usability has no target"));
+        } else {
+            checkItemReference(usability.getTarget(), "target", subject, found);
+        }
+        checkItemReference(usability.getAddsTarget(), "addsTarget", subject, found);
+        checkItemReference(usability.getRemovesTarget(), "removesTarget", subject, found);
+        checkItemReference(usability.getAddsItemToInventory(), "addsItemToInventory", subject, found);
+
+        List<Effect> effects = usability.getEffects();
+        for (int i = 0; i < effects.size(); i++) {
+            Effect effect = effects.get(i);
+            if (effect == null || effect.getType() == null || effect.getType().isBlank())
+                found.add(new Issue(Severity.WARNING, subject, "effects[" + i + "] has no type"));
+            else if (EffectCompiler.isItemStep(effect.getType()))
+                checkItemReference(effect.getSubject(), "effects[" + i + "].subject", subject, found);
+        }
+
+        ExitModification mod = usability.getModifiesExit();
+        if (mod != null && mod.getRelocksAfterTurns() < 0)
+            found.add(new Issue(Severity.ERROR, subject, "modifiesExit.relocksAfterTurns is negative"));
+        if (mod != null) checkTargetExit(usability, mod.getDirection(), "modifiesExit", subject, found);
+        if (usability.getUnlocksExit() != null)
+            checkTargetExit(usability, usability.getUnlocksExit(), "unlocksExit", subject, found);
+    }
+
+    // Gated exits of the room that using the item opens, read off its compiled steps.
+    private int[] unlockedExits(Item.Usability usability, int room) {
+        int[] exits = new int[0];
+        for (Effect step : usability.getPipeline()) {
+            if (!Effect.UNLOCK_EXIT.equals(step.getType())) continue;
+            int exit = graph.findExit(room, graph.directionId(step.getSubject()));
+            if (exit >= 0 && graph.isGated(exit)) {
+                exits = Arrays.copyOf(exits, exits.length + 1);
+                exits[exits.length - 1] = exit;
+            }
+        }
+        return exits;
+    }
+
+    // The exit an item opens must be a conditional exit of a room its target is in.
+    private void checkTargetExit(Item.Usability usability, String exitDirection, String field, String subject,
+            ConcurrentLinkedQueue<Issue> found) {
+        if (usability.getTarget() == null) return;
+        int target = world.itemId(usability.getTarget().trim());
+        int direction = graph.directionId(exitDirection);
+        boolean matches = false;
+        if (target >= 0) {
+            for (int room : itemRooms[target]) {
+                int exit = graph.findExit(room, direction);
+                if (exit >= 0 && graph.isGated(exit)) {
+                    matches = true;
+                    break;
+                }
+            }
+        }
+        if (!matches)
+            found.add(new Issue(Severity.WARNING, subject, field + " '" + exitDirection
+                    + "' matches no conditional exit of a room holding '" + usability.getTarget() + "'"));
+    }
+
+    private void checkItemReference(String name, String field, String subject, ConcurrentLinkedQueue<Issue> found) {
+        if (name != null && world.itemId(name.trim()) < 0)
+            found.add(new Issue(Severity.ERROR, subject, field + " refers to undefined item '" + name + "'"));
+    }
+
+    private static List<String> conditionItemNames(Conditions conditions) {
+        if (conditions == null) return List.of();
+        List<String> names = new ArrayList<>(ConditionCompiler.requiredNames(conditions.getRequiresItem()));
+        addAll(names, conditions.getRequiresAnyItem());
+        addAll(names, conditions.getForbidsItem());
+        addAll(names, conditions.getRequiresItemInRoom());
+        names.replaceAll(String::trim);
+        return names;
+    }
+
+    private static void addAll(List<String> names, List<String> more) {
+        if (more == null) return;
+        for (String name : more) if (name != null) names.add(name);
+    }
+
+    private Conditions exitConditions(int exit) {
+        if (!graph.isGated(exit)) return null;
+        Room room = world.room(exitSource[exit]);
+        ExitData data = room.getExit().get(graph.directionName(graph.exitDirection(exit)));
+        return data != null ? data.getConditions() : null;
+    }
+
+    private int itemIdOf(String name) {
+        return name != null ? world.itemId(name.trim()) : -1;
+    }
+
+    // ---- reachability ----------------------------------------------------------------------------
+
+    /** Optimistic, monotone fixpoint over reachable rooms, obtainable items and cleared exits. */
+    private final class Reachability {
+        final boolean[] reached = new boolean[world.getRoomCount()];
+        final boolean[] obtained = new boolean[world.getItemCount()];
+        final boolean[] cleared = new boolean[graph.getExitCount()];
+        // (usable item, room) pairs whose use has been applied, packed as item << 32 | room.
+        final Set<Long> uses = new LinkedHashSet<>();
+        final Map<Integer, List<Integer>> addedAt = new HashMap<>();
+        final Map<Integer, List<Integer>> addedSites = new HashMap<>();
+        private final Map<Integer, List<Integer>> waiters = new HashMap<>();
+        private final int[][] usersOf;
+        private final ArrayDeque<Long> work = new ArrayDeque<>();
+
+        Reachability() {
+            int[] counts = new int[world.getItemCount()];
+            int[] targets = new int[world.getItemCount()];
+            for (int id = 0; id < targets.length; id++) {
+                Item.Usability usability = world.item(id).getUsability();
+                targets[id] = usability != null ? itemIdOf(usability.getTarget()) : -1;
+                if (targets[id] >= 0) counts[targets[id]]++;
+            }
+            usersOf = new int[targets.length][];
+            for (int id = 0; id < targets.length; id++) usersOf[id] = new int[counts[id]];
+            Arrays.fill(counts, 0);
+            for (int id = 0; id < targets.length; id++) {
+                if (targets[id] >= 0) usersOf[targets[id]][counts[targets[id]]++] = id;
+            }
+        }
+
+        void run(ValidationReport report) {
+            reach(world.roomId(world.getStartRoomName()));
+            while (!work.isEmpty()) {
+                long event = work.poll();
+                int id = (int) event;
+                if (event >>> 32 == 0) {
+                    roomReached(id);
+                } else {
+                    itemObtained(id);
+                }
+            }
+
+            for (int room = 0; room < reached.length; room++) {
+                if (reached[room]) {
+                    report.reachableRooms++;
+                } else {
+                    report.addSample(report.unreachableRoomSamples, world.room(room).getName());
+                }
+            }
+            for (boolean item : obtained) if (item) report.obtainableItems++;
+            if (report.goalRoom != null) report.goalReachable = reached[world.roomId(report.goalRoom)];
+        }
+
+        private void reach(int room) {
+            if (room >= 0 && !reached[room]) {
+                reached[room] = true;
+                work.add((long) room);
+            }
+        }
+
+        private void obtain(int item) {
+            if (item >= 0 && !obtained[item]) {
+                obtained[item] = true;
+                work.add(1L << 32 | item);
+            }
+        }
+
+        private void roomReached(int room) {
+            for (int item : roomItems[room]) {
+                obtain(item);
+                useOn(item, room);
+            }
+            for (int item : addedAt.getOrDefault(room, List.of())) useOn(item, room);
+            for (int exit = graph.exitStart(room); exit < graph.exitEnd(room); exit++) tryExit(exit);
+        }
+
+        private void itemObtained(int item) {
+            List<Integer> waiting = waiters.remove(item);
+            if (waiting != null) for (int exit : waiting) tryExit(exit);
+
+            Item.Usability usability = world.item(item).getUsability();
+            int target = usability != null ? itemIdOf(usability.getTarget()) : -1;
+            if (target < 0) return;
+            for (int room : itemRooms[target]) if (reached[room]) apply(item, room);
+            for (int room : addedSites.getOrDefault(target, List.of())) if (reached[room]) apply(item, room);
+        }
+
+        // The target item is present in a reached room: apply every obtained item used on it.
+        private void useOn(int target, int room) {
+            if (target < 0) return;
+            for (int user : usersOf[target]) if (obtained[user]) apply(user, room);
+        }
+
+        private void apply(int item, int room) {
+            if (!uses.add((long) item << 32 | room)) return;
+            Item.Usability usability = world.item(item).getUsability();
+            obtain(itemIdOf(usability.getAddsItemToInventory()));
+            int added = itemIdOf(usability.getAddsTarget());
+            if (added >= 0 && !addedAt.computeIfAbsent(room, k -> new ArrayList<>()).contains(added)) {
+                addedAt.get(room).add(added);
+                addedSites.computeIfAbsent(added, k -> new ArrayList<>()).add(room);
+                obtain(added);
+                useOn(added, room);
+            }
+            for (int exit : unlockedExits(usability, room)) {
+                if (!cleared[exit]) {
+                    cleared[exit] = true;
+                    reach(graph.exitTarget(exit));
+                }
+            }
+        }
+
+        private void tryExit(int exit) {
+            int target = graph.exitTarget(exit);
+            if (target < 0 || reached[target]) return;
+            if (cleared[exit]) {
+                reach(target);
+                return;
+            }
+            int missing = missingItem(exitConditions(exit));
+            if (missing == -1) {
+                reach(target);
+            } else if (missing >= 0) {
+                waiters.computeIfAbsent(missing, k -> new ArrayList<>()).add(exit);
+            } else if (missing == -3) {
+                // Any one of several items will do: wait on all of them.
+                for (String name : exitConditions(exit).getRequiresAnyItem()) {
+                    int id = name != null ? world.itemId(name.trim()) : -1;
+                    if (id >= 0) waiters.computeIfAbsent(id, k -> new ArrayList<>()).add(exit);
+                }
+            }
+        }
+
+        // -1 when passable, an item id to wait for, -2 when never passable, -3 when waiting on requiresAnyItem.
+        int missingItem(Conditions conditions) {
+            if (conditions == null) return -1;
+            for (String name : ConditionCompiler.requiredNames(conditions.getRequiresItem())) {
+                int id = world.itemId(name.trim());
+                if (id < 0) return -2;
+                if (!obtained[id]) return id;
+            }
+            List<String> any = conditions.getRequiresAnyItem();
+            if (any != null && !any.isEmpty()) {
+                boolean known = false;
+                for (String name : any) {
+                    int id = name != null ? world.itemId(name.trim()) : -1;
+                    if (id >= 0 && obtained[id]) return -1;
+                    known |= id >= 0;
+                }
+                return known ? -3 : -2;
+            }
+            return -1;
+        }
+
+        boolean passable(int exit) {
+            return graph.exitTarget(exit) >= 0 && (cleared[exit] || missingItem(exitConditions(exit)) == -1);
+        }
+    }
+
+    // Rooms reachable from the start from which even the optimistic search never reaches the goal.
+    private void findDeadEndRooms(ValidationReport report, Reachability reachability) {
+        int roomCount = world.getRoomCount();
+        int[] inCount = new int[roomCount + 1];
+        int exitCount = graph.getExitCount();
+        boolean[] passable = new boolean[exitCount];
+        for (int exit = 0; exit < exitCount; exit++) {
+            if (reachability.reached[exitSource[exit]] && reachability.passable(exit)) {
+                passable[exit] = true;
+                inCount[graph.exitTarget(exit) + 1]++;
+            }
+        }
+        for (int room = 0; room < roomCount; room++) inCount[room + 1] += inCount[room];
+        int[] sources = new int[inCount[roomCount]];
+        int[] fill = Arrays.copyOf(inCount, roomCount);
+        for (int exit = 0; exit < exitCount; exit++) {
+            if (passable[exit]) sources[fill[graph.exitTarget(exit)]++] = exitSource[exit];
+        }
+
+        boolean[] canFinish = new boolean[roomCount];
+        int[] queue = new int[roomCount];
+        int head = 0, tail = 0;
+        int goal = world.roomId(report.goalRoom);
+        canFinish[goal] = true;
+        queue[tail++] = goal;
+        while (head < tail) {
+            int room = queue[head++];
+            for (int i = inCount[room]; i < inCount[room + 1]; i++) {
+                int source = sources[i];
+                if (!canFinish[source]) {
+                    canFinish[source] = true;
+                    queue[tail++] = source;
+                }
+            }
+        }
+        for (int room = 0; room < roomCount; room++) {
+            if (reachability.reached[room] && !canFinish[room]) {
+                report.deadEndRooms++;
+                report.addSample(report.deadEndRoomSamples, world.room(room).getName());
+            }
+        }
+    }
+
+    // ---- state search ----------------------------------------------------------------------------
+
+    /** Exact breadth-first search over (room, bitset) states; see the class comment. */
+    private final class StateSearch implements ConditionContext {
+        private static final int MOVE = 0, TAKE = 1, DROP = 2, USE = 3;
+
+        private final Reachability reachability;
+        private final Map<String, Integer> bits = new LinkedHashMap<>();
+        private final Map<Integer, Integer> heldBit = new HashMap<>();
+        private int[] trackedItems = new int[0];
+        // Use sites from the reachability pass: the used item and the room.
+        private int[] siteItem = new int[0];
+        private int[] siteRoom = new int[0];
+
+        // Current state while evaluating conditions.
+        private int currentRoom;
+        private long currentBits;
+
+        StateSearch(Reachability reachability) {
+            this.reachability = reachability;
+        }
+
+        void run(ValidationReport report) {
+            String tooMany = assignBits();
+            if (tooMany != null) {
+                report.stateSearchNote = tooMany;
+                return;
+            }
+            States states = new States();
+            int start = states.add(world.roomId(world.getStartRoomName()), 0L, -1, 0);
+            int[] edgeFrom = new int[1024];
+            int[] edgeTo = new int[1024];
+            int edgeCount = 0;
+
+            for (int state = start; state < states.size; state++) {
+                if (states.size > stateLimit) {
+                    report.stateSearchNote = "stopped after " + stateLimit + " states (state limit)";
+                    report.statesExplored = states.size;
+                    return;
+                }
+                currentRoom = states.room[state];
+                currentBits = states.bits[state];
+                int[] successors = successors(currentRoom, currentBits, states, state);
+                for (int next : successors) {
+                    if (edgeCount == edgeFrom.length) {
+                        edgeFrom = Arrays.copyOf(edgeFrom, edgeCount * 2);
+                        edgeTo = Arrays.copyOf(edgeTo, edgeCount * 2);
+                    }
+                    edgeFrom[edgeCount] = state;
+                    edgeTo[edgeCount++] = next;
+                }
+            }
+            report.statesExplored = states.size;
+            if (report.goalRoom == null) return;
+
+            // Walk the edges backwards from every goal state.
+            int goal = world.roomId(report.goalRoom);
+            int[] offsets = new int[states.size + 1];
+            for (int i = 0; i < edgeCount; i++) offsets[edgeTo[i] + 1]++;
+            for (int i = 0; i < states.size; i++) offsets[i + 1] += offsets[i];
+            int[] sources = new int[edgeCount];
+            int[] fill = Arrays.copyOf(offsets, states.size);
+            for (int i = 0; i < edgeCount; i++) sources[fill[edgeTo[i]]++] = edgeFrom[i];
+
+            boolean[] alive = new boolean[states.size];
+            int[] queue = new int[states.size];
+            int head = 0, tail = 0;
+            for (int state = 0; state < states.size; state++) {
+                if (states.room[state] == goal) {
+                    alive[state] = true;
+                    queue[tail++] = state;
+                }
+            }
+            while (head < tail) {
+                int state = queue[head++];
+                for (int i = offsets[state]; i < offsets[state + 1]; i++) {
+                    if (!alive[sources[i]]) {
+                        alive[sources[i]] = true;
+                        queue[tail++] = sources[i];
+                    }
+                }
+            }
+            for (int state = 0; state < states.size; state++) {
+                if (alive[state]) continue;
+                report.deadStates++;
+                int parent = states.parent[state];
+                if (parent >= 0 && alive[parent] && report.deadStateExamples.size() < DEAD_STATE_EXAMPLES)
+                    report.deadStateExamples.add(path(states, state));
+            }
+        }
+
+        // Gives every tracked item, take site, use flag and unlockable exit a bit; returns why not, if they do not fit.
+        private String assignBits() {
+            Set<Integer> tracked = new HashSet<>();
+            for (int exit = 0; exit < graph.getExitCount(); exit++) {
+                if (!reachability.reached[exitSource[exit]]) continue;
+                for (String name : conditionItemNames(exitConditions(exit))) {
+                    int id = world.itemId(name);
+                    if (id >= 0) tracked.add(id);
+                }
+            }
+            int sites = reachability.uses.size();
+            siteItem = new int[sites];
+            siteRoom = new int[sites];
+            int n = 0;
+            for (long use : reachability.uses) {
+                siteItem[n] = (int) (use >>> 32);
+                siteRoom[n++] = (int) use;
+                Item.Usability usability = world.item((int) (use >>> 32)).getUsability();
+                tracked.add((int) (use >>> 32));
+                int produced = itemIdOf(usability.getAddsItemToInventory());
+                if (produced >= 0) tracked.add(produced);
+                int target = itemIdOf(usability.getTarget());
+                if (target >= 0) tracked.add(target);
+            }
+            if (tracked.size() > 64)
+                return "skipped: " + tracked.size() + " items gate exits or take part in uses; at most 64 fit one bitset";
+
+            trackedItems = tracked.stream().mapToInt(Integer::intValue).sorted().toArray();
+            for (int item : trackedItems) {
+                heldBit.put(item, bit("held " + item));
+                for (int room : itemRooms[item]) if (reachability.reached[room]) bit("taken " + item + "@" + room);
+                for (int room : reachability.addedSites.getOrDefault(item, List.of())) bit("taken " + item + "@" + room);
+            }
+            for (int site = 0; site < sites; site++) {
+                Item.Usability usability = world.item(siteItem[site]).getUsability();
+                int room = siteRoom[site];
+                int removed = itemIdOf(usability.getRemovesTarget());
+                if (removed >= 0) bit("removed " + removed + "@" + room);
+                int added = itemIdOf(usability.getAddsTarget());
+                if (added >= 0) bit("added " + added + "@" + room);
+                for (int exit : unlockedExits(usability, room)) bit("cleared " + exit);
+            }
+            if (bits.size() > 64)
+                return "skipped: " + bits.size() + " item and world flags do not fit one 64-bit state";
+            return null;
+        }
+
+        private int bit(String flag) {
+            return bits.computeIfAbsent(flag, k -> bits.size());
+        }
+
+        private long mask(String flag) {
+            Integer bit = bits.get(flag);
+            return bit != null ? 1L << bit : 0L;
+        }
+
+        private boolean holds(long stateBits, int item) {
+            Integer bit = heldBit.get(item);
+            return bit != null && (stateBits & 1L << bit) != 0;
+        }
+
+        private boolean present(long stateBits, int item, int room) {
+            boolean initially = false;
+            for (int id : roomItems[room]) {
+                if (id == item) {
+                    initially = true;
+                    break;
+                }
+            }
+            boolean placed = initially || (stateBits & mask("added " + item + "@" + room)) != 0;
+            return placed && (stateBits & (mask("removed " + item + "@" + room) | mask("taken " + item + "@" + room))) == 0;
+        }
+
+        private int[] successors(int room, long stateBits, States states, int state) {
+            int[] next = new int[8];
+            int count = 0;
+            for (int exit = graph.exitStart(room); exit < graph.exitEnd(room); exit++) {
+                int target = graph.exitTarget(exit);
+                if (target < 0) continue;
+                Condition condition = graph.exitCondition(exit);
+                if (condition != null && (stateBits & mask("cleared " + exit)) == 0 && !condition.test(this)) continue;
+                next = push(next, count++, states.add(target, stateBits, state, MOVE << 28 | exit));
+            }
+            for (int item : trackedItems) {
+                long taken = mask("taken " + item + "@" + room);
+                if (taken != 0 && present(stateBits, item, room)) {
+                    long after = stateBits | taken | 1L << heldBit.get(item);
+                    next = push(next, count++, states.add(room, after, state, TAKE << 28 | item));
+                } else if (taken != 0 && (stateBits & taken) != 0 && holds(stateBits, item)) {
+                    long after = stateBits & ~(taken | 1L << heldBit.get(item));
+                    next = push(next, count++, states.add(room, after, state, DROP << 28 | item));
+                }
+            }
+            for (int site = 0; site < siteItem.length; site++) {
+                if (siteRoom[site] != room || !holds(stateBits, siteItem[site])) continue;
+                Item.Usability usability = world.item(siteItem[site]).getUsability();
+                int target = itemIdOf(usability.getTarget());
+                if (target < 0 || !present(stateBits, target, room)) continue;
+                long after = stateBits;
+                int removed = itemIdOf(usability.getRemovesTarget());
+                if (removed >= 0) after |= mask("removed " + removed + "@" + room);
+                int added = itemIdOf(usability.getAddsTarget());
+                if (added >= 0) after = (after | mask("added " + added + "@" + room)) & ~mask("removed " + added + "@" + room);
+                int produced = itemIdOf(usability.getAddsItemToInventory());
+                if (produced >= 0) after |= 1L << heldBit.get(produced);
+                if (usability.isConsumesItem()) after &= ~(1L << heldBit.get(siteItem[site]));
+                for (int exit : unlockedExits(usability, room)) after |= mask("cleared " + exit);
+                if (after != stateBits) next = push(next, count++, states.add(room, after, state, USE << 28 | site));
+            }
+            return Arrays.copyOf(next, count);
+        }
+
+        private int[] push(int[] values, int index, int value) {
+            if (index == values.length) values = Arrays.copyOf(values, index * 2);
+            values[index] = value;
+            return values;
+        }
+
+        private String path(States states, int state) {
+            List<String> steps = new ArrayList<>();
+            for (int s = state; states.parent[s] >= 0; s = states.parent[s]) steps.add(label(states.action[s]));
+            Collections.reverse(steps);
+            return String.join(", ", steps);
+        }
+
+        private String label(int action) {
+            int payload = action & ((1 << 28) - 1);
+            return switch (action >>> 28) {
+                case MOVE -> "go " + graph.directionName(graph.exitDirection(payload));
+                case TAKE -> "take " + world.item(payload).getName();
+                case DROP -> "drop " + world.item(payload).getName();
+                default -> "use " + world.item(siteItem[payload]).getName() + " on "
+                        + world.item(siteItem[payload]).getUsability().getTarget();
+            };
+        }
+
+        @Override
+        public long inventoryWord(int wordIndex) {
+            long word = 0;
+            for (int item : trackedItems) {
+                if (item >>> 6 == wordIndex && holds(currentBits, item)) word |= 1L << item;
+            }
+            return word;
+        }
+
+        @Override
+        public boolean roomHasItem(int itemId) {
+            return present(currentBits, itemId, currentRoom);
+        }
+
+        @Override
+        public int counter(String name) {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    /** Interned (room, bits) states with the action that first reached each one. */
+    private static final class States {
+        int[] room = new int[1024];
+        long[] bits = new long[1024];
+        int[] parent = new int[1024];
+        int[] action = new int[1024];
+        int size;
+        private int[] table = new int[4096];
+
+        States() {
+            Arrays.fill(table, -1);
+        }
+
+        // Returns the index of the state, adding it (with its parent and action) when new.
+        int add(int stateRoom, long stateBits, int parentState, int parentAction) {
+            int mask = table.length - 1;
+            for (int slot = hash(stateRoom, stateBits) & mask; ; slot = (slot + 1) & mask) {
+                int existing = table[slot];
+                if (existing < 0) {
+                    if (size == room.length) grow();
+                    room[size] = stateRoom;
+                    bits[size] = stateBits;
+                    parent[size] = parentState;
+                    action[size] = parentAction;
+                    table[slot] = size;
+                    if (++size * 2 > table.length) rehash();
+                    return size - 1;
+                }
+                if (room[existing] == stateRoom && bits[existing] == stateBits) return existing;
+            }
+        }
+
+        private static int hash(int stateRoom, long stateBits) {
+            long h = stateBits * 0x9E3779B97F4A7C15L + stateRoom;
+            return (int) (h ^ (h >>> 29));
+        }
+
+        private void grow() {
+            int capacity = room.length * 2;
+            room = Arrays.copyOf(room, capacity);
+            bits = Arrays.copyOf(bits, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            action = Arrays.copyOf(action, capacity);
+        }
+
+        private void rehash() {
+            table = new int[table.length * 2];
+            Arrays.fill(table, -1);
+            int mask = table.length - 1;
+            for (int state = 0; state < size; state++) {
+                int slot = hash(room[state], bits[state]) & mask;
+                while (table[slot] >= 0) slot = (slot + 1) & mask;
+                table[slot] = state;
+            }
+        }
+    }
+}
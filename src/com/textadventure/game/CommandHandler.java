@@ -0,0 +1,12 @@
+package com.textadventure.game;
+
+import com.textadventure.engine.Command;
+
+/**
+ * Runs one verb. Handlers are registered with a game's {@link CommandRegistry} and print their
+ * response to {@link Game#getOutput()}, which is flushed once the turn is over.
+ */
+@FunctionalInterface
+public interface CommandHandler {
+    void handle(Game game, Command command);
+}
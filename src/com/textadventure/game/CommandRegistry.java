@@ -0,0 +1,87 @@
+package com.textadventure.game;
+
+import com.textadventure.engine.CommandParser;
+import com.textadventure.engine.VerbTable;
+
+import java.util.Arrays;
+
+/**
+ * Verbs a game understands and the handler for each, indexed by verb id. Registering a verb interns
+ * its name (and aliases) in the shared {@link VerbTable}, so parsers made by {@link #newParser()}
+ * resolve it straight to the id that dispatch indexes with.
+ *
+ * <p>Verbs registered with {@link #registerMeta} act on the game rather than in it, like save or
+ * undo: running one is not a turn, so the clock does not move and no undo level is recorded.
+ */
+public final class CommandRegistry {
+
+    private final VerbTable verbs = new VerbTable();
+    private CommandHandler[] handlers = new CommandHandler[verbs.size() + 8];
+    private String[][] aliases = new String[handlers.length][];
+    private boolean[] meta = new boolean[handlers.length];
+    // Verb ids in registration order, which is the order the help line lists them in.
+    private int[] order = new int[handlers.length];
+    private int registered;
+    private String helpLine;
+
+    // Registers (or replaces) the handler for a verb; returns the verb id.
+    public int register(String verb, CommandHandler handler, String... verbAliases) {
+        return register(verb, handler, false, verbAliases);
+    }
+
+    // Registers (or replaces) the handler for a verb whose commands do not take a turn.
+    public int registerMeta(String verb, CommandHandler handler, String... verbAliases) {
+        return register(verb, handler, true, verbAliases);
+    }
+
+    private int register(String verb, CommandHandler handler, boolean isMeta, String... verbAliases) {
+        if (verb == null || verb.isBlank())
+            throw new IllegalArgumentException("Verb name cannot be null or empty.");
+        if (handler == null)
+            throw new IllegalArgumentException("Handler for '" + verb + "' cannot be null.");
+        int id = verbs.intern(verb);
+        for (String alias : verbAliases) verbs.alias(alias, id);
+        if (id >= handlers.length) {
+            int capacity = Math.max(id + 1, handlers.length * 2);
+            handlers = Arrays.copyOf(handlers, capacity);
+            aliases = Arrays.copyOf(aliases, capacity);
+            order = Arrays.copyOf(order, capacity);
+            meta = Arrays.copyOf(meta, capacity);
+        }
+        if (handlers[id] == null) order[registered++] = id;
+        handlers[id] = handler;
+        aliases[id] = verbAliases.clone();
+        meta[id] = isMeta;
+        helpLine = null;
+        return id;
+    }
+
+    // Handler for a parsed verb id, or null when the verb is unknown or has no handler.
+    public CommandHandler handler(int verbId) {
+        return verbId >= 0 && verbId < handlers.length ? handlers[verbId] : null;
+    }
+
+    // True for verbs registered with registerMeta.
+    public boolean isMeta(int verbId) {
+        return verbId >= 0 && verbId < meta.length && meta[verbId];
+    }
+
+    public VerbTable getVerbs() { return verbs; }
+
+    public CommandParser newParser() { return new CommandParser(verbs); }
+
+    // e.g. "go, look, inventory (inv), quit"
+    public String helpLine() {
+        if (helpLine == null) {
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < registered; i++) {
+                int id = order[i];
+                if (line.length() > 0) line.append(", ");
+                line.append(verbs.name(id));
+                if (aliases[id].length > 0) line.append(" (").append(String.join(", ", aliases[id])).append(')');
+            }
+            helpLine = line.toString();
+        }
+        return helpLine;
+    }
+}
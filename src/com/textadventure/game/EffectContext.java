@@ -0,0 +1,57 @@
+package com.textadventure.game;
+
+import com.textadventure.engine.WorldDefinition;
+import com.textadventure.model.Item;
+import com.textadventure.model.Room;
+import com.textadventure.persistence.StateDelta;
+
+/**
+ * What an {@link EffectHandler} works with while one item is being used: the item, its target,
+ * the room, and the game to change. State changes go through {@link #apply}, the same event path
+ * every command takes, so they are logged, saved and undone like any other; {@link #schedule}
+ * puts one on the game's clock for a later turn instead. A game reuses one context for every use.
+ */
+public final class EffectContext {
+
+    private final Game game;
+    private Room room;
+    private Item item;
+    private Item target;
+
+    EffectContext(Game game) {
+        this.game = game;
+    }
+
+    void begin(Room room, Item item, Item target) {
+        this.room = room;
+        this.item = item;
+        this.target = target;
+    }
+
+    public Game getGame() { return game; }
+    public WorldDefinition getWorld() { return game.getWorld(); }
+    public WorldState getWorldState() { return game.getWorldState(); }
+    public Room getRoom() { return room; }
+    public Item getItem() { return item; }
+    public Item getTarget() { return target; }
+    public int getTick() { return game.getTick(); }
+
+    // False when the event changed nothing, e.g. an item another player already took.
+    public boolean apply(StateDelta change) { return game.apply(change); }
+
+    // Makes the change at the start of the turn that many turns from now. Pending changes are saved,
+    // undone and replayed with the clock, so a rewind or a load never makes one twice.
+    public void schedule(StateDelta change, int turns) {
+        if (turns < 1) throw new IllegalArgumentException("A timed change must be at least one turn away.");
+        game.apply(StateDelta.changeScheduled(change, game.getTick() + turns));
+    }
+
+    public void println(String line) { game.getOutput().println(line); }
+
+    // Reports why the use could not go on and marks the turn blocked; returns false to stop the steps.
+    public boolean block(String message) {
+        game.blocked();
+        println(message);
+        return false;
+    }
+}
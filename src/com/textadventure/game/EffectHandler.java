@@ -0,0 +1,14 @@
+package com.textadventure.game;
+
+import com.textadventure.model.Effect;
+
+/**
+ * Runs one step of using an item. Handlers are registered by effect type with the
+ * {@link EffectRegistry}; a handler that returns false stops the steps after it, e.g. when the
+ * target is gone.
+ */
+@FunctionalInterface
+public interface EffectHandler extends Effect.Handler<EffectContext> {
+    @Override
+    boolean apply(EffectContext use, Effect effect);
+}
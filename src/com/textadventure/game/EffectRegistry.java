@@ -0,0 +1,96 @@
+package com.textadventure.game;
+
+import com.textadventure.engine.WorldGraph;
+import com.textadventure.model.Effect;
+import com.textadventure.model.Item;
+import com.textadventure.persistence.StateDelta;
+
+/**
+ * Handlers for the effect types items run when used. The built-in types a usability's fields
+ * compile to are bound here; registering a type again replaces its handler, and registering a new
+ * one declares it, so steps of that type listed under a usability's {@code effects} load and do
+ * something. Types are shared by every game in the process and must be registered before a world
+ * that lists them is loaded; loading one with an unregistered type fails.
+ */
+public final class EffectRegistry {
+
+    static {
+        register(Effect.REMOVE_TARGET, EffectRegistry::removeTarget);
+        register(Effect.DESCRIBE, (use, effect) -> {
+            use.println(effect.getText());
+            return true;
+        });
+        register(Effect.SPAWN_ITEM, (use, effect) ->
+                apply(use, StateDelta.roomItemAdded(use.getRoom().getName(), effect.getSubject())));
+        register(Effect.SET_DESCRIPTION, (use, effect) ->
+                apply(use, StateDelta.descriptionChanged(use.getRoom().getName(), effect.getText())));
+        register(Effect.GRANT_ITEM, (use, effect) -> apply(use, StateDelta.inventoryAdded(effect.getSubject())));
+        register(Effect.INCREMENT_COUNTER, (use, effect) -> {
+            // Incremented in place, so concurrent uses in a shared world all count; the listener logs the value.
+            use.getWorldState().incrementCounter(effect.getSubject());
+            return true;
+        });
+        register(Effect.CONSUME, (use, effect) -> apply(use, StateDelta.inventoryRemoved(use.getItem().getName())));
+        register(Effect.UNLOCK_EXIT, EffectRegistry::unlockExit);
+        register(Effect.SET_EXIT_MESSAGE, (use, effect) -> {
+            if (exit(use, effect.getSubject()) >= 0)
+                use.apply(StateDelta.exitMessageChanged(use.getRoom().getName(), effect.getSubject(), effect.getText()));
+            return true;
+        });
+    }
+
+    private EffectRegistry() {}
+
+    // Registers (or replaces) the handler for an effect type; returns the type id.
+    public static int register(String type, EffectHandler handler) {
+        return Effect.declare(type, handler);
+    }
+
+    // Handler for an effect type, or null when the type was never registered.
+    public static EffectHandler handler(String type) {
+        return (EffectHandler) Effect.handler(type);
+    }
+
+    // Runs the steps in order; false when one of them stopped the rest. Every step was bound to a
+    // handler when its world was loaded, and the built-in ones are bound before this class is used.
+    static boolean run(EffectContext use, Effect[] pipeline) {
+        for (Effect effect : pipeline) {
+            if (!effect.<EffectContext>getHandler().apply(use, effect)) return false;
+        }
+        return true;
+    }
+
+    // The removal goes first, since in a shared world another player may get there first: the rest
+    // runs only when this player's removal went through, or when the item removed is not the use
+    // target and was never in the room.
+    private static boolean removeTarget(EffectContext use, Effect effect) {
+        Item removed = use.getWorld().item(effect.getItem());
+        if (removed != use.getTarget() && !use.getWorldState().getItemContainer(use.getRoom()).contains(removed))
+            return true;
+        if (use.apply(StateDelta.roomItemRemoved(use.getRoom().getName(), removed.getName()))) return true;
+        return use.block("The " + removed.getName() + " is gone.");
+    }
+
+    // Opens a gated exit of the room; a positive value locks it again that many turns later.
+    private static boolean unlockExit(EffectContext use, Effect effect) {
+        String direction = effect.getSubject();
+        int exit = exit(use, direction);
+        if (exit < 0 || !use.getWorld().getGraph().isGated(exit)) return true;
+        use.apply(StateDelta.exitUnlocked(use.getRoom().getName(), direction));
+        use.println("The exit to the " + direction + " is now open.");
+        if (effect.getValue() > 0)
+            use.apply(StateDelta.exitLockScheduled(use.getRoom().getName(), direction, use.getTick() + effect.getValue()));
+        return true;
+    }
+
+    private static int exit(EffectContext use, String direction) {
+        WorldGraph graph = use.getWorld().getGraph();
+        return graph.findExit(use.getRoom().getId(), graph.directionId(direction));
+    }
+
+    // A step that just changes state never stops the rest, even when the change was a no-op.
+    private static boolean apply(EffectContext use, StateDelta change) {
+        use.apply(change);
+        return true;
+    }
+}
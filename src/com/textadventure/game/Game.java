@@ -1,385 +1,914 @@
 package com.textadventure.game;
 
 import com.textadventure.model.*;
+import com.textadventure.engine.Command;
+import com.textadventure.engine.CommandParser;
 import com.textadventure.engine.GameLoader;
 import com.textadventure.engine.GameLoader.GameDataException;
+import com.textadventure.engine.Navigator;
+import com.textadventure.engine.Route;
+import com.textadventure.engine.WorldDefinition;
+import com.textadventure.engine.WorldGraph;
+import com.textadventure.engine.WorldImage;
+import com.textadventure.engine.WorldRegions;
+import com.textadventure.metrics.Metrics;
+import com.textadventure.persistence.EventLog;
+import com.textadventure.persistence.SaveJournal;
+import com.textadventure.persistence.Snapshot;
+import com.textadventure.persistence.StateDelta;
+import com.textadventure.utils.Log;
 import com.textadventure.utils.SaveState;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
 import java.util.*;
-import java.util.stream.Collectors;
 
-public class Game {
-    private Map<String, Room> rooms;
+public class Game implements AutoCloseable {
+    private WorldDefinition world;
+    private WorldState worldState;
     private Player player;
     private final GameLoader gameLoader;
-    private static final String SAVE_FILE_NAME = "savegame.json";
-    private Map<String, Item> allGameItems;
+    private static final String SAVE_FILE_NAME = "savegame.sav";
+    private static final String LEGACY_SAVE_FILE_NAME = "savegame.json";
+    private String saveFileName = SAVE_FILE_NAME;
+    private final TurnOutput output;
+    // Everything a command prints goes to the turn buffer; processCommand flushes it once per turn.
+    private final PrintStream out;
+    private final CommandRegistry commands = new CommandRegistry();
+    private final CommandParser commandParser = commands.newParser();
+    private final EffectContext useContext = new EffectContext(this);
+    private boolean finished;
+    private SaveJournal journal;
+    // Changes made since the last save, kept only while the next save appends them to an attached
+    // journal; before the first save, after a rewind and in a shared world nothing is buffered.
+    private final List<StateDelta> pendingDeltas = new ArrayList<>();
+    private long changeCount;
+    private GameHistory history;
+    private final WorldClock clock = new WorldClock(this::fireTimedChange);
+    // Set while rewind replays logged events; they are already in the log and the journal.
+    private boolean rewinding;
+    // Set by a rewind: the journal no longer matches, so the next save writes a full snapshot.
+    private boolean needsCheckpoint;
+    private Navigator navigator;
+    // Keeps the region around the player loaded in region-partitioned (image) worlds.
+    private WorldRegions.Lease regionLease;
+    // Set when other players share this game's world state; see joinSharedWorld.
+    private SharedWorld sharedWorld;
+    private String playerName;
+    private final SharedWorld.Observer observer;
+    // Room whose items the route gate check tests requiresItemInRoom against.
+    private Room gateRoom;
+    private static final int HINT_STEPS_SHOWN = 12;
+    // Per-verb metrics by verb id, so a turn records without a map lookup; the last slot is unknown verbs.
+    private Metrics.VerbMetrics[] verbMetrics = new Metrics.VerbMetrics[0];
+    private Metrics.Outcome turnOutcome;
+    private final WorldState.ChangeListener deltaRecorder = new WorldState.ChangeListener() {
+        @Override
+        public void itemAdded(Room room, Item item) {
+            recordChange(StateDelta.roomItemAdded(room.getName(), item.getName()));
+        }
+
+        @Override
+        public void itemRemoved(Room room, Item item) {
+            recordChange(StateDelta.roomItemRemoved(room.getName(), item.getName()));
+        }
+
+        @Override
+        public void descriptionChanged(Room room, String description) {
+            recordChange(StateDelta.descriptionChanged(room.getName(), description));
+        }
+
+        @Override
+        public void exitRequirementCleared(Room room, String direction) {
+            recordChange(StateDelta.exitUnlocked(room.getName(), direction));
+            if (navigator != null) {
+                WorldGraph graph = world.getGraph();
+                navigator.exitOpened(graph.findExit(room.getId(), graph.directionId(direction)));
+            }
+        }
+
+        @Override
+        public void exitRequirementRestored(Room room, String direction) {
+            recordChange(StateDelta.exitLocked(room.getName(), direction));
+            if (navigator != null) navigator.gatesChanged();
+        }
+
+        @Override
+        public void exitMessageChanged(Room room, String direction, String message) {
+            recordChange(StateDelta.exitMessageChanged(room.getName(), direction, message));
+        }
+
+        @Override
+        public void counterChanged(String name, int value) {
+            recordChange(StateDelta.counterSet(name, value));
+        }
+    };
+    private final ConditionContext conditionContext = new ConditionContext() {
+        @Override
+        public long inventoryWord(int wordIndex) {
+            return player.getInventoryContainer().idWord(wordIndex);
+        }
+
+        @Override
+        public boolean roomHasItem(int itemId) {
+            return worldState.getItemContainer(getCurrentRoom()).contains(world.item(itemId));
+        }
+
+        @Override
+        public int counter(String name) {
+            return worldState.getCounter(name);
+        }
+    };
+
+    private final ConditionContext gateContext = new ConditionContext() {
+        @Override
+        public long inventoryWord(int wordIndex) {
+            return conditionContext.inventoryWord(wordIndex);
+        }
+
+        @Override
+        public boolean roomHasItem(int itemId) {
+            return worldState.getItemContainer(gateRoom).contains(world.item(itemId));
+        }
+
+        @Override
+        public int counter(String name) {
+            return conditionContext.counter(name);
+        }
+    };
 
     public Game() {
+        this(System.out);
+    }
+
+    public Game(PrintStream out) {
+        this(out, Charset.defaultCharset());
+    }
+
+    public Game(PrintStream out, Charset charset) {
+        this.output = new TurnOutput(out, charset);
+        this.out = output.stream();
+        this.observer = output::notice;
         this.gameLoader = new GameLoader();
-        System.out.println("Game object created. Ready for initialization.");
+        registerBuiltInCommands();
+        Log.GAME.debug("Game object created. Ready for initialization.");
+    }
+
+    private void registerBuiltInCommands() {
+        commands.register("go", (game, c) -> processGoCommand(c));
+        commands.register("look", (game, c) -> processLookCommand());
+        commands.register("take", (game, c) -> processTakeCommand(c));
+        commands.register("drop", (game, c) -> processDropCommand(c));
+        commands.register("inventory", (game, c) -> processInventoryCommand(), "inv");
+        commands.register("examine", (game, c) -> processExamineCommand(c), "x");
+        commands.register("use", (game, c) -> processUseCommand(c));
+        commands.registerMeta("save", (game, c) -> processSaveCommand());
+        commands.registerMeta("load", (game, c) -> processLoadCommand());
+        commands.register("hint", (game, c) -> processHintCommand(c));
+        commands.registerMeta("undo", (game, c) -> processUndoCommand());
+        commands.registerMeta("redo", (game, c) -> processRedoCommand());
+        commands.register("quit", (game, c) -> processQuitCommand(), "exit");
     }
 
     public void initialize(String dataFilePath)
             throws IOException, com.google.gson.JsonSyntaxException, GameDataException, IllegalArgumentException {
-        System.out.println("----------------------------------------");
-        System.out.println("Initializing game from data file: " + dataFilePath + "...");
-        System.out.println("----------------------------------------");
+        long start = System.nanoTime();
+        try {
+            loadAndInitialize(dataFilePath);
+            Metrics.WORLD_LOAD.record(System.nanoTime() - start);
+        } finally {
+            output.flush();
+        }
+    }
 
-        System.out.println("[Initialize] Calling GameLoader.loadGameData()...");
-        gameLoader.loadGameData(dataFilePath);
-        System.out.println("[Initialize] Game data loaded successfully by GameLoader.");
-        System.out.println("----------------------------------------");
+    private void loadAndInitialize(String dataFilePath)
+            throws IOException, com.google.gson.JsonSyntaxException, GameDataException, IllegalArgumentException {
+        out.println("----------------------------------------");
+        out.println("Initializing game from data file: " + dataFilePath + "...");
+        out.println("----------------------------------------");
+
+        WorldDefinition definition;
+        if (WorldImage.isImagePath(dataFilePath)) {
+            Log.LOADER.debug("Mapping compiled world image...");
+            definition = WorldImage.open(Paths.get(dataFilePath)).toDefinition();
+            WorldDefinition mapped = definition;
+            Log.LOADER.info(() -> "World image mapped. Total rooms available: " + mapped.getRoomCount());
+        } else {
+            Log.LOADER.debug("Calling GameLoader.loadGameData()...");
+            gameLoader.loadGameData(dataFilePath);
+            Log.LOADER.debug("Game data loaded; freezing rooms and items into a world definition...");
+            if (gameLoader.getLoadedRooms() == null || gameLoader.getLoadedRooms().isEmpty())
+                throw new GameDataException(
+                        "Initialization failed: GameLoader returned null or empty rooms map after successful load.");
+            definition = WorldDefinition.from(gameLoader);
+            WorldDefinition loaded = definition;
+            Log.LOADER.info(() -> "World definition ready. Total rooms loaded: " + loaded.getRoomCount());
+            Log.LOADER.debug(() -> "Rooms loaded: " + loaded.getRoomNames());
+            Log.LOADER.debug(() -> "All game items loaded: " + loaded.getItemNames());
+        }
 
-        System.out.println("[Initialize] Retrieving loaded rooms from GameLoader...");
-        Map<String, Room> loadedRoomsMap = gameLoader.getLoadedRooms();
+        initialize(definition);
+        Log.GAME.debug(() -> "Player's current room set to: '" + this.player.getCurrentRoomName() + "'");
 
-        if (loadedRoomsMap == null || loadedRoomsMap.isEmpty())
-            throw new GameDataException(
-                    "Initialization failed: GameLoader returned null or empty rooms map after successful load.");
+        out.println("Game initialization complete!");
+        out.println("Player is ready at location: " + this.player.getCurrentRoomName());
+        out.println("----------------------------------------");
+    }
 
-        this.rooms = loadedRoomsMap;
-        System.out
-                .println("[Initialize] Rooms map populated in Game instance. Total rooms loaded: " + this.rooms.size());
-        System.out.println("----------------------------------------");
+    public void initialize(WorldDefinition definition) throws GameDataException {
+        initialize(definition, null, null);
+    }
 
-        this.allGameItems = gameLoader.getLoadedItems();
-        if (this.allGameItems == null) {
-            throw new GameDataException("Initialization failed: Could not load item definitions.");
-        }
-        System.out.println("[Game.initialize] Rooms loaded: " + this.rooms.keySet());
-        System.out.println("[Game.initialize] All game items loaded: " + this.allGameItems.keySet());
+    /**
+     * Starts the game in a world other players share: what anyone takes, drops or changes, everyone
+     * sees, and the others in the same room are told what this player does. Saving, loading and
+     * undo are not available, since the state is not this game's alone.
+     */
+    public void joinSharedWorld(SharedWorld shared, String playerName) throws GameDataException {
+        if (shared == null)
+            throw new GameDataException("Initialization failed: shared world has not been created.");
+        if (playerName == null || playerName.isBlank())
+            throw new IllegalArgumentException("Player name cannot be null or empty.");
+        initialize(shared.getWorld(), shared, playerName);
+        announce("appears");
+    }
+
+    private void initialize(WorldDefinition definition, SharedWorld shared, String name) throws GameDataException {
+        if (definition == null)
+            throw new GameDataException("Initialization failed: world definition has not been loaded.");
 
-        System.out.println("[Initialize] Creating the Player object...");
+        String startRoomName = definition.getStartRoomName();
+        if (!definition.hasRoom(startRoomName))
+            throw new GameDataException("Initialization failed: Player starting room '" + startRoomName +
+                    "' does not correspond to any loaded room.");
+        close();
+        this.world = definition;
+        this.sharedWorld = shared;
+        this.playerName = name;
+        this.worldState = shared != null ? new SharedWorldState(shared) : new WorldState(definition);
+        this.worldState.setChangeListener(deltaRecorder);
+        this.pendingDeltas.clear();
+        this.journal = null;
+        this.finished = false;
+        this.changeCount = 0;
+        this.needsCheckpoint = false;
+        this.navigator = null;
+        this.clock.reset(0, List.of());
         this.player = new Player();
-        System.out.println("[Initialize] Player object created successfully.");
+        placePlayer(definition.roomId(startRoomName), startRoomName);
+        // Nothing reads a shared game's history: undo, redo and rewind are not available there.
+        this.history = shared != null ? null : new GameHistory(definition, player, worldState, clock);
+        Metrics.roomVisited(startRoomName);
+    }
 
-        System.out.println("[Initialize] Retrieving player start room name from GameLoader...");
-        String startRoomName = gameLoader.getPlayerStartRoomName();
+    public void setSaveFileName(String saveFileName) {
+        if (saveFileName == null || saveFileName.isBlank())
+            throw new IllegalArgumentException("Save file name cannot be null or empty.");
+        this.saveFileName = saveFileName;
+        this.journal = null;
+        this.pendingDeltas.clear();
+    }
 
-        if (startRoomName == null || !this.rooms.containsKey(startRoomName))
-            throw new GameDataException("Initialization failed: Player starting room '" + startRoomName +
-                    "' (specified in JSON) does not correspond to any loaded room. Check JSON data integrity.");
-        System.out.println("[Initialize] Start room name '" + startRoomName + "' confirmed to exist in loaded rooms.");
+    public Room getCurrentRoom() {
+        return world.room(player.getCurrentRoomId());
+    }
 
-        this.player.setCurrentRoomName(startRoomName);
-        System.out.println("[Initialize] Player's current room set to: '" + this.player.getCurrentRoomName() + "'");
+    public WorldDefinition getWorld() { return world; }
 
-        System.out.println("----------------------------------------");
-        System.out.println("Game initialization complete!");
-        System.out.println("Player is ready at location: " + this.player.getCurrentRoomName());
-        System.out.println("----------------------------------------");
+    public String getCurrentExitSummary() {
+        return world.getGraph().exitSummary(player.getCurrentRoomId());
     }
 
-    public Room getCurrentRoom() {
-        return rooms.get(player.getCurrentRoomName());
+    // The first conditional description whose conditions hold, else the room's (possibly changed) description.
+    public String getCurrentRoomDescription() {
+        Room room = getCurrentRoom();
+        for (ConditionalDescription cd : room.getConditionalDescriptions()) {
+            Condition condition = cd.getCompiledCondition();
+            if (condition != null && condition.test(conditionContext)) return cd.getDescription();
+        }
+        return worldState.getDescription(room);
+    }
+
+    public WorldState getWorldState() { return worldState; }
+    public Player getPlayer() { return player; }
+
+    // Location banner and prompt shown before each input by the console front end.
+    public void printStatus() {
+        Room room = getCurrentRoom();
+        out.println("\n========================================");
+        out.println("Location: " + room.getName());
+        out.println("----------------------------------------");
+        out.println(getCurrentRoomDescription());
+
+        ItemContainer items = worldState.getItemContainer(room);
+        if (!items.isEmpty()) {
+            out.println("----------------------------------------");
+            out.println("You see: " + items.getNameList() + ".");
+        }
+
+        String exits = getCurrentExitSummary();
+        if (!exits.isEmpty()) {
+            out.println("----------------------------------------");
+            out.println("Exits: " + exits);
+        }
+
+        out.println("========================================");
+        out.print("> ");
+        output.flush();
     }
 
-    public void processCommand(String[] commandParts) {
-        if (commandParts.length == 0) return;
+    // Parses and runs one line of input, e.g. "look" from a script or the server's greeting.
+    public void processCommand(String input) {
+        processCommand(commandParser.parse(input));
+    }
+
+    public void processCommand(Command command) {
+        if (command.isEmpty()) return;
+        long start = System.nanoTime();
+        long changesBefore = changeCount;
+        // Save, load, undo and redo are not turns: a timer firing during one would clear the redo stack.
+        boolean turn = !commands.isMeta(command.verbId());
+        turnOutcome = Metrics.Outcome.SUCCESS;
+        try {
+            if (turn) clock.advance();
+            dispatch(command);
+            out.println();
+        } finally {
+            output.flush();
+            if (turn && history != null) history.turnEnded(player, worldState, clock.tick(), changeCount != changesBefore);
+            verbMetrics(command.verbId()).record(turnOutcome, System.nanoTime() - start);
+        }
+    }
 
-        String commandVerb = commandParts[0].toLowerCase();
+    private void dispatch(Command command) {
+        CommandHandler handler = commands.handler(command.verbId());
+        if (handler != null) {
+            handler.handle(this, command);
+        } else {
+            turnOutcome = Metrics.Outcome.UNKNOWN_COMMAND;
+            out.println("Sorry, I don't understand the command '" + command.verbWord() + "'.");
+            out.println("Try one of these: " + commands.helpLine());
+        }
+    }
 
-        switch (commandVerb) {
-            case "go" -> processGoCommand(commandParts);
-            case "take" -> processTakeCommand(commandParts);
-            case "inventory", "inv" -> processInventoryCommand();
-            case "examine", "x" -> processExamineCommand(commandParts);
-            case "use" -> processUseCommand(commandParts);
-            case "look" -> processLookCommand();
-            case "save" -> processSaveCommand();
-            case "load" -> processLoadCommand();
-            case "quit", "exit" -> System.exit(0);
-            default -> {
-                System.out.println("Sorry, I don't understand the command '" + commandVerb + "'.");
-                System.out.println("Try one of these: go, look, take, inventory (inv), examine (x), use, save, load, quit");
-            }
+    private Metrics.VerbMetrics verbMetrics(int verbId) {
+        int verbs = commands.getVerbs().size();
+        // Verbs registered since the cache was sized: start over, the shared entries are looked up again.
+        if (verbMetrics.length != verbs + 1) verbMetrics = new Metrics.VerbMetrics[verbs + 1];
+        int slot = commands.handler(verbId) != null ? verbId : verbs;
+        Metrics.VerbMetrics metrics = verbMetrics[slot];
+        if (metrics == null) {
+            metrics = Metrics.verb(slot < verbs ? commands.getVerbs().name(verbId) : Metrics.UNKNOWN_VERB);
+            verbMetrics[slot] = metrics;
         }
-        System.out.println();
+        return metrics;
     }
 
-    private void processGoCommand(String[] parts) {
-        if (parts.length < 2) {
-            System.out.println("Go where?");
+    // Verbs this game understands; game packs register their own handlers here.
+    public CommandRegistry getCommands() { return commands; }
+
+    // Routes for this player: conditional exits count when unlocked or when their conditions hold now.
+    public Navigator getNavigator() {
+        if (navigator == null) navigator = world.getNavigationIndex().navigator(this::isRouteExitOpen);
+        return navigator;
+    }
+
+    private boolean isRouteExitOpen(int exit) {
+        WorldGraph graph = world.getGraph();
+        gateRoom = world.room(graph.exitRoom(exit));
+        return worldState.isExitRequirementCleared(gateRoom, graph.directionName(graph.exitDirection(exit)))
+                || graph.exitCondition(exit).test(gateContext);
+    }
+
+    // Stream handlers print to; it is flushed to the real output at the end of each turn.
+    public PrintStream getOutput() { return out; }
+
+    // True once the player has quit; front ends stop reading input.
+    public boolean isFinished() { return finished; }
+
+    // Releases the world region this game keeps loaded and leaves a shared world; the game can be
+    // initialized again afterwards.
+    @Override
+    public void close() {
+        if (regionLease != null) {
+            regionLease.close();
+            regionLease = null;
+        }
+        if (sharedWorld != null) {
+            announce("leaves");
+            sharedWorld.move(observer, player.getCurrentRoomId(), -1);
+            sharedWorld = null;
+        }
+    }
+
+    // Tells the other players in this room, e.g. announce("takes the lamp") -> "Alice takes the lamp.".
+    private void announce(String action) {
+        sharedWorld.publish(player.getCurrentRoomId(), observer, playerName + " " + action + ".");
+    }
+
+    // Marks the turn as blocked, e.g. by an effect whose target another player took.
+    void blocked() { turnOutcome = Metrics.Outcome.BLOCKED; }
+
+    // Saving, loading and undo need a state that is this game's alone.
+    private boolean refusedInSharedWorld() {
+        if (sharedWorld == null) return false;
+        out.println("That is not available in a shared world.");
+        return true;
+    }
+
+    private void placePlayer(int roomId, String roomName) {
+        WorldRegions regions = world.getRegions();
+        if (regions != null && roomId >= 0) {
+            if (regionLease == null) regionLease = regions.lease(roomId);
+            else regionLease.moveTo(roomId);
+        }
+        if (sharedWorld != null) sharedWorld.move(observer, player.getCurrentRoomId(), roomId);
+        player.setCurrentRoom(roomId, roomName);
+    }
+
+    // Number of state changes (moves, item and room changes, counters) made since initialization.
+    public long getChangeCount() { return changeCount; }
+
+    // Turns played since the game was initialized, as saved and restored with the game.
+    public int getTick() { return clock.tick(); }
+
+    // Exits waiting to lock again and changes effects scheduled for a later turn.
+    public int getPendingTimedChanges() { return clock.pendingCount(); }
+
+    // Number of events since the game was initialized or loaded; rewind accepts getFirstKeptEvent() up to this.
+    public int getEventCount() { return history != null ? history.size() : 0; }
+
+    // Oldest event still in the log; older ones are discarded once the history grows past its limit.
+    public int getFirstKeptEvent() { return history != null ? history.first() : 0; }
+
+    // Null in a shared world, where no log is kept.
+    public EventLog getEventLog() { return history != null ? history.getLog() : null; }
+
+    /**
+     * Puts the game back into the state it was in after the given number of events, by restoring
+     * the nearest earlier checkpoint and replaying the log from there. Later events are discarded.
+     */
+    public void rewind(int event) {
+        if (history == null)
+            throw new IllegalStateException("A game in a shared world cannot be rewound.");
+        if (event < history.first() || event > history.size())
+            throw new IllegalArgumentException("Cannot rewind to event " + event + "; events " + history.first()
+                    + " to " + history.size() + " are kept.");
+        GameHistory.Checkpoint checkpoint = history.checkpointAt(event);
+        rewinding = true;
+        try {
+            restore(checkpoint);
+            for (int i = checkpoint.event; i < event; i++) apply(history.event(i));
+            clock.setTick(history.tickAt(event));
+        } finally {
+            rewinding = false;
+        }
+        history.rewound(event, player, worldState, clock.tick());
+    }
+
+    // Installs a checkpoint in O(1); its state and the live one share everything unchanged since.
+    private void restore(GameHistory.Checkpoint checkpoint) {
+        placePlayer(checkpoint.playerRoomId, checkpoint.playerRoomName);
+        player.restoreInventory(checkpoint.inventory);
+        worldState.restore(checkpoint.world);
+        history.restoreClock(clock, checkpoint.event, checkpoint.tick);
+        // The journal no longer matches what pendingDeltas would add to it.
+        pendingDeltas.clear();
+        needsCheckpoint = true;
+        if (navigator != null) navigator.gatesChanged();
+    }
+
+    private void processUndoCommand() {
+        if (refusedInSharedWorld()) return;
+        GameHistory.Checkpoint previous = history.undo();
+        if (previous == null) {
+            out.println("Nothing to undo.");
             return;
         }
-        String direction = parts[1].toLowerCase();
-        Room current = getCurrentRoom();
-        ExitData exitData = current.getExit().get(direction);
+        restore(previous);
+        out.println("Undone. You are in " + player.getCurrentRoomName() + ".");
+    }
+
+    private void processRedoCommand() {
+        if (refusedInSharedWorld()) return;
+        GameHistory.Checkpoint next = history.redo();
+        if (next == null) {
+            out.println("Nothing to redo.");
+            return;
+        }
+        restore(next);
+        out.println("Redone. You are in " + player.getCurrentRoomName() + ".");
+    }
+
+    private void recordChange(StateDelta delta) {
+        if (rewinding) return;
+        if (journal != null && journal.isAttached() && !needsCheckpoint) pendingDeltas.add(delta);
+        if (history != null) history.append(delta, clock.tick());
+        changeCount++;
+        // Conditions read the inventory, room items and counters; unlocked exits are passed on one by one.
+        if (navigator != null && delta.getKind() != StateDelta.Kind.PLAYER_MOVED
+                && delta.getKind() != StateDelta.Kind.DESCRIPTION_CHANGED
+                && delta.getKind() != StateDelta.Kind.EXIT_UNLOCKED) {
+            navigator.gatesChanged();
+        }
+    }
+
+    private void processHintCommand(Command command) {
+        if (!command.hasArguments()) {
+            out.println("Hint for where? Try 'hint <room>'.");
+            return;
+        }
+        String roomName = command.arguments();
+        int target = world.roomId(roomName);
+        if (target < 0) {
+            for (String name : world.getRoomNames()) {
+                if (name.equalsIgnoreCase(roomName)) {
+                    target = world.roomId(name);
+                    break;
+                }
+            }
+        }
+        if (target < 0) {
+            out.println("There is no place called '" + roomName + "'.");
+            return;
+        }
+        String targetName = world.room(target).getName();
+        if (target == player.getCurrentRoomId()) {
+            out.println("You are already in " + targetName + ".");
+            return;
+        }
+        // Other players may have opened or closed gates since the last route.
+        if (sharedWorld != null && navigator != null) navigator.gatesChanged();
+        Route route = getNavigator().route(player.getCurrentRoomId(), target);
+        if (route == null) {
+            out.println("You can't get to " + targetName + " from here yet.");
+            return;
+        }
+        List<String> directions = route.directions(world.getGraph());
+        String steps = String.join(", ", directions.subList(0, Math.min(directions.size(), HINT_STEPS_SHOWN)));
+        if (directions.size() > HINT_STEPS_SHOWN) steps += ", ...";
+        out.println("To reach " + targetName + ", go " + steps + " (" + route.getLength()
+                + (route.getLength() == 1 ? " move)." : " moves)."));
+    }
+
+    private void processQuitCommand() {
+        finished = true;
+        out.println("Quitting game. Goodbye!");
+    }
 
-        if (exitData == null) {
-            System.out.println("You can't go " + direction + " from here.");
+    private void processGoCommand(Command command) {
+        if (!command.hasArguments()) {
+            out.println("Go where?");
             return;
         }
+        String direction = command.arguments();
+        WorldGraph graph = world.getGraph();
+        int exit = graph.findExit(player.getCurrentRoomId(), graph.directionId(direction));
 
-        if (!checkConditions(exitData.getConditions(), player)) {
+        if (exit < 0) {
+            out.println("You can't go " + direction + " from here.");
             return;
         }
 
-        String targetRoom = exitData.getTargetRoom();
-        if (targetRoom == null || !rooms.containsKey(targetRoom)) {
-            System.out.println("Error: Invalid exit destination.");
+        // Conditions were compiled at load time; the room's ExitData is only consulted for the fail message.
+        Condition condition = graph.exitCondition(exit);
+        if (condition != null && !condition.test(conditionContext)) {
+            Room current = getCurrentRoom();
+            if (!worldState.isExitRequirementCleared(current, direction)) {
+                String failMessage = worldState.getExitMessage(current, direction);
+                if (failMessage == null) failMessage = current.getExit().get(direction).getConditions().getFailMessage();
+                if (failMessage != null) out.println(failMessage);
+                turnOutcome = Metrics.Outcome.BLOCKED;
+                return;
+            }
+        }
+
+        int targetRoomId = graph.exitTarget(exit);
+        if (targetRoomId < 0) {
+            out.println("Error: Invalid exit destination.");
             return;
         }
 
-        player.setCurrentRoomName(targetRoom);
-        System.out.println("You move " + direction + " to " + getCurrentRoom().getName() + ".");
+        Room target = world.room(targetRoomId);
+        if (sharedWorld != null) announce("leaves " + direction);
+        apply(StateDelta.playerMoved(target.getName()));
+        if (sharedWorld != null) announce("arrives");
+        Metrics.roomVisited(target.getName());
+        out.println("You move " + direction + " to " + target.getName() + ".");
         processLookCommand();
     }
 
-    private void processTakeCommand(String[] parts) {
-        if (parts.length < 2) {
-            System.out.println("Take what?");
+    private void processTakeCommand(Command command) {
+        if (!command.hasArguments()) {
+            out.println("Take what?");
             return;
         }
-        String itemName = String.join(" ", Arrays.copyOfRange(parts, 1, parts.length));
+        String itemName = command.arguments();
         Room current = getCurrentRoom();
-        Optional<Item> optItem = current.findItemByName(itemName);
-        if (optItem.isEmpty()) {
-            System.out.println("There is no '" + itemName + "' here.");
+        List<Item> matches = resolveItems(itemName, worldState.getItemContainer(current));
+        if (matches.size() != 1) {
+            reportUnresolved(matches, "There is no '" + itemName + "' here.");
+            return;
+        }
+        Item item = matches.get(0);
+        // Fails only in a shared world, when another player took it since it was resolved.
+        if (!apply(StateDelta.roomItemRemoved(current.getName(), item.getName()))) {
+            turnOutcome = Metrics.Outcome.BLOCKED;
+            out.println("Someone else took the " + item.getName() + " first.");
             return;
         }
-        Item item = optItem.get();
-        current.getItems().remove(item);
-        player.takeItem(item);
-        System.out.println("You take the " + item.getName() + ".");
+        apply(StateDelta.inventoryAdded(item.getName()));
+        out.println("You take the " + item.getName() + ".");
+        if (sharedWorld != null) announce("takes the " + item.getName());
+    }
+
+    private void processDropCommand(Command command) {
+        if (!command.hasArguments()) {
+            out.println("Drop what?");
+            return;
+        }
+        String itemName = command.arguments();
+        List<Item> matches = resolveItems(itemName, player.getInventoryContainer());
+        if (matches.size() != 1) {
+            reportUnresolved(matches, "You don't have a '" + itemName + "'.");
+            return;
+        }
+        Item item = matches.get(0);
+        apply(StateDelta.inventoryRemoved(item.getName()));
+        apply(StateDelta.roomItemAdded(getCurrentRoom().getName(), item.getName()));
+        out.println("You drop the " + item.getName() + ".");
+        if (sharedWorld != null) announce("drops the " + item.getName());
     }
 
     private void processInventoryCommand() {
-        List<Item> inv = player.getInventory();
-        if (inv.isEmpty()) {
-            System.out.println("Your inventory is empty.");
+        ItemContainer inventory = player.getInventoryContainer();
+        if (inventory.isEmpty()) {
+            out.println("Your inventory is empty.");
         } else {
-            String items = inv.stream().map(Item::getName).collect(Collectors.joining(", "));
-            System.out.println("You are carrying: " + items);
+            out.println("You are carrying: " + inventory.getNameList());
         }
     }
 
-    private void processExamineCommand(String[] parts) {
-        if (parts.length < 2) {
-            System.out.println("Examine what?");
+    private void processExamineCommand(Command command) {
+        if (!command.hasArguments()) {
+            out.println("Examine what?");
             return;
         }
-        String target = String.join(" ", Arrays.copyOfRange(parts, 1, parts.length));
-        Optional<Item> invItem = player.findItemInventory(target);
-        if (invItem.isPresent()) {
-            System.out.println(invItem.get().getDescription());
+        String target = command.arguments();
+        List<Item> matches = resolveItems(target, player.getInventoryContainer(),
+                worldState.getItemContainer(getCurrentRoom()));
+        if (matches.size() != 1) {
+            reportUnresolved(matches, "There is no '" + target + "' to examine.");
             return;
         }
-        Optional<Item> roomItem = getCurrentRoom().findItemByName(target);
-        if (roomItem.isPresent()) {
-            System.out.println(roomItem.get().getDescription());
+        out.println(matches.get(0).getDescription());
+    }
+
+    private void processUseCommand(Command command) {
+        if (!command.hasDirectObject() || !"on".equals(command.preposition())) {
+            out.println("Usage: use <item> on <target>");
             return;
         }
-        System.out.println("There is no '" + target + "' to examine.");
-    }
+        String itemName = command.directObject();
+        String targetName = command.indirectObject();
 
-    private void processUseCommand(String[] parts) {
-        if (parts.length < 4 || !parts[2].equalsIgnoreCase("on")) {
-            System.out.println("Usage: use <item> on <target>");
+        List<Item> matches = resolveItems(itemName, player.getInventoryContainer());
+        if (matches.size() != 1) {
+            reportUnresolved(matches, "You don't have a '" + itemName + "'.");
             return;
         }
-        String itemName = parts[1];
-        String targetName = String.join(" ", Arrays.copyOfRange(parts, 3, parts.length));
+        Item item = matches.get(0);
 
-        Optional<Item> optItem = player.findItemInventory(itemName);
-        if (optItem.isEmpty()) {
-            System.out.println("You don't have a '" + itemName + "'.");
+        Room current = getCurrentRoom();
+        List<Item> targets = resolveItems(targetName, worldState.getItemContainer(current));
+        if (targets.size() != 1) {
+            reportUnresolved(targets, "There is no '" + targetName + "' here.");
             return;
         }
-        Item item = optItem.get();
         Item.Usability usability = item.getUsability();
-        if (usability == null || !targetName.equalsIgnoreCase(usability.getTarget())) {
-            System.out.println("You can't use the " + item.getName() + " on that.");
+        if (usability == null || !targets.get(0).getName().equalsIgnoreCase(usability.getTarget())) {
+            out.println("You can't use the " + item.getName() + " on that.");
             return;
         }
 
-        Room current = getCurrentRoom();
-        Optional<Item> optTarget = current.findItemByName(targetName);
-        if (optTarget.isEmpty()) {
-            System.out.println("There is no '" + targetName + "' here.");
-            return;
-        }
+        // Compiled at load time; a step that fails (the target is gone) stops the rest.
+        useContext.begin(current, item, targets.get(0));
+        if (EffectRegistry.run(useContext, usability.getPipeline()) && sharedWorld != null)
+            announce("uses the " + item.getName() + " on the " + targets.get(0).getName());
+    }
 
-        System.out.println(usability.getEffectDescription());
+    private List<Item> resolveItems(String reference, ItemContainer... scopes) {
+        return world.getItemNameIndex().resolve(reference, scopes);
+    }
 
-        // Apply effects
-        if (usability.getRemovesTarget() != null) {
-            current.findItemByName(usability.getRemovesTarget()).ifPresent(current::removeItem);
-        }
-        if (usability.getAddsTarget() != null) {
-            Item newItem = allGameItems.get(usability.getAddsTarget());
-            if (newItem != null) current.addItem(newItem);
-        }
-        if (usability.getChangesRoomDescriptionTo() != null) {
-            current.setDescription(usability.getChangesRoomDescriptionTo());
-        }
-        if (usability.getAddsItemToInventory() != null) {
-            Item addItem = allGameItems.get(usability.getAddsItemToInventory());
-            if (addItem != null) player.takeItem(addItem);
-        }
-        if (usability.isConsumesItem()) {
-            player.removeItem(item.getName());
+    // Prints the not-found message, or asks which item was meant when several matched.
+    private void reportUnresolved(List<Item> matches, String notFoundMessage) {
+        if (matches.isEmpty()) {
+            out.println(notFoundMessage);
+            return;
         }
-        if (usability.getModifiesExit() != null) {
-            ExitModification mod = usability.getModifiesExit();
-            ExitData ed = current.getExit().get(mod.getDirection());
-            if (ed != null && ed.getConditions() != null && mod.isClearRequiresItem()) {
-                ed.getConditions().setRequiresItem(null);
-                System.out.println("The exit to the " + mod.getDirection() + " is now open.");
-            }
+        StringBuilder names = new StringBuilder("Which do you mean: ");
+        for (int i = 0; i < matches.size(); i++) {
+            if (i > 0) names.append(i == matches.size() - 1 ? " or " : ", ");
+            names.append(matches.get(i).getName());
         }
+        out.println(names.append('?'));
     }
 
     private void processLookCommand() {
         Room room = getCurrentRoom();
-        System.out.println("\n" + room.getName());
-        System.out.println(room.getDescription());
+        out.println("\n" + room.getName());
+        out.println(getCurrentRoomDescription());
 
-        List<Item> items = room.getItems();
+        ItemContainer items = worldState.getItemContainer(room);
         if (!items.isEmpty()) {
-            String list = items.stream().map(Item::getName).collect(Collectors.joining(", "));
-            System.out.println("You see: " + list);
+            out.println("You see: " + items.getNameList());
         }
 
-        Map<String, ExitData> exits = room.getExit();
+        String exits = getCurrentExitSummary();
         if (!exits.isEmpty()) {
-            String dirs = exits.keySet().stream().sorted().collect(Collectors.joining(" "));
-            System.out.println("Exits: " + dirs);
+            out.println("Exits: " + exits);
         }
     }
 
     private void processSaveCommand() {
+        if (refusedInSharedWorld()) return;
+        long start = System.nanoTime();
+        try {
+            SaveJournal journal = journal();
+            if (!journal.isAttached() || needsCheckpoint) {
+                checkpoint(journal);
+                needsCheckpoint = false;
+            } else {
+                pendingDeltas.add(StateDelta.clockSet(clock.tick()));
+                journal.append(pendingDeltas);
+                if (journal.needsCompaction()) checkpoint(journal);
+            }
+            pendingDeltas.clear();
+            Metrics.SAVE.record(System.nanoTime() - start);
+            out.println("Game saved to " + saveFileName);
+        } catch (IOException e) {
+            out.println("Failed to save game: " + e.getMessage());
+        }
+    }
+
+    // Snapshot of everything that differs from the world definition; its size follows the changes, not the world.
+    private SaveState snapshot() {
+        Map<String, List<String>> roomItems = new LinkedHashMap<>();
+        for (Map.Entry<String, ItemContainer> e : worldState.getChangedRoomItems().entrySet()) {
+            roomItems.put(e.getKey(), e.getValue().asList().stream().map(Item::getName).toList());
+        }
+        Map<String, List<String>> unlockedExits = new LinkedHashMap<>();
+        for (Map.Entry<String, Set<String>> e : worldState.getClearedExitRequirements().entrySet()) {
+            unlockedExits.put(e.getKey(), new ArrayList<>(e.getValue()));
+        }
         SaveState state = new SaveState(
             player.getCurrentRoomName(),
             player.getInventory().stream().map(Item::getName).toList(),
-            new HashMap<>()
+            roomItems,
+            new LinkedHashMap<>(worldState.getChangedDescriptions()),
+            unlockedExits,
+            new LinkedHashMap<>(worldState.getCounters())
         );
-        for (Map.Entry<String, Room> entry : rooms.entrySet()) {
-            List<String> roomItems = entry.getValue().getItems().stream().map(Item::getName).toList();
-            state.getRoomItemStates().put(entry.getKey(), roomItems);
-        }
-        try (FileWriter writer = new FileWriter(SAVE_FILE_NAME)) {
-            new GsonBuilder().setPrettyPrinting().create().toJson(state, writer);
-            System.out.println("Game saved to " + SAVE_FILE_NAME);
-        } catch (IOException e) {
-            System.out.println("Failed to save game: " + e.getMessage());
-        }
+        if (!worldState.getChangedExitMessages().isEmpty())
+            state.setExitMessages(new LinkedHashMap<>(worldState.getChangedExitMessages()));
+        return state;
     }
 
-    private void processLoadCommand() {
-        try (FileReader reader = new FileReader(SAVE_FILE_NAME)) {
-            SaveState loadedState = new Gson().fromJson(reader, SaveState.class);
-            if (loadedState == null) {
-                System.out.println("No saved game found.");
-                return;
-            }
-
-            if (player == null) {
-                player = new Player();
-                System.out.println("[Debug] Player object was null, created a new one for loading.");
-            }
-
-            if (rooms == null) {
-                System.err.println("ERROR: Cannot apply loaded state, game rooms are not initialized.");
-                return;
-            }
-
-            String loadedLocation = loadedState.getPlayerLocation();
-            if (loadedLocation != null && rooms.containsKey(loadedLocation)) {
-                player.setCurrentRoomName(loadedLocation);
-                System.out.println("[Debug] Player location set to: " + loadedLocation);
-            } else {
-                System.err.println("WARNING: Loaded location '" + loadedLocation + "' is invalid. Player location not updated.");
-            }
-
-            List<String> loadedInvNames = loadedState.getPlayerInventory();
-            if (loadedInvNames != null) {
-                player.getInventory().clear();
-                System.out.println("[Debug] Player inventory cleared.");
-                for (String itemName : loadedInvNames) {
-                    Item item = allGameItems.get(itemName);
-                    if (item != null) {
-                        player.takeItem(item);
-                        System.out.println("[Debug] Added '" + itemName + "' to player inventory.");
-                    } else {
-                        System.err.println("WARNING: Unknown item '" + itemName + "' in saved inventory. Skipping.");
-                    }
-                }
-            } else {
-                System.err.println("WARNING: Saved inventory data is missing.");
-                player.getInventory().clear();
-            }
+    // The snapshot has no room for the clock, so its tick and pending changes open the fresh journal.
+    private void checkpoint(SaveJournal journal) throws IOException {
+        journal.checkpoint(snapshot());
+        List<StateDelta> timers = new ArrayList<>(clock.pendingCount() + 1);
+        timers.add(StateDelta.clockSet(clock.tick()));
+        timers.addAll(clock.scheduledEvents());
+        journal.append(timers);
+    }
 
-            Map<String, List<String>> loadedRoomStates = loadedState.getRoomItemStates();
-            if (loadedRoomStates != null) {
-                for (Map.Entry<String, Room> roomEntry : rooms.entrySet()) {
-                    String roomName = roomEntry.getKey();
-                    Room room = roomEntry.getValue();
-                    if (room == null) continue;
-
-                    List<String> itemNamesForThisRoom = loadedRoomStates.get(roomName);
-                    room.getItems().clear();
-                    System.out.println("[Debug] Cleared items for room: " + roomName);
-
-                    if (itemNamesForThisRoom != null) {
-                        for (String itemName : itemNamesForThisRoom) {
-                            Item item = allGameItems.get(itemName);
-                            if (item != null) {
-                                room.addItem(item);
-                                System.out.println("[Debug] Added '" + itemName + "' back to room '" + roomName + "'.");
-                            } else {
-                                System.err.println("WARNING: Unknown item '" + itemName + "' in saved state for room '" + roomName + "'. Skipping.");
-                            }
-                        }
-                    }
-                }
-            } else {
-                System.err.println("WARNING: Saved room item state data is missing.");
-            }
+    private SaveJournal journal() {
+        if (journal == null) journal = new SaveJournal(Paths.get(saveFileName));
+        return journal;
+    }
 
-            System.out.println("Game loaded successfully!");
+    private void processLoadCommand() {
+        if (refusedInSharedWorld()) return;
+        long start = System.nanoTime();
+        SaveJournal.Recovery recovery;
+        try {
+            recovery = loadSource().recover(world);
+        } catch (NoSuchFileException e) {
+            out.println("No saved game found.");
+            return;
         } catch (IOException e) {
-            System.out.println("Failed to load game: " + e.getMessage());
+            out.println("Failed to load game: " + e.getMessage());
+            return;
         }
-    }
+        Snapshot snapshot = recovery.getSnapshot();
 
-    private boolean checkConditions(Conditions conditions, Player player) {
-        if (conditions == null) {
-            return true;
+        if (snapshot.getPlayerRoom() != null) {
+            placePlayer(world.roomId(snapshot.getPlayerRoom()), snapshot.getPlayerRoom());
+        }
+        player.clearInventory();
+        for (Item item : snapshot.getInventory()) {
+            player.takeItem(item);
         }
+        worldState.restore(snapshot.getRoomItems(), snapshot.getDescriptions(),
+                snapshot.getUnlockedExits(), snapshot.getCounters(), snapshot.getExitMessages());
+        clock.reset(0, List.of());
 
-        Object requiredItemsObj = conditions.getRequiresItem();
+        for (StateDelta delta : recovery.getDeltas()) {
+            apply(delta);
+        }
+        if (recovery.hasTornTail()) {
+            Log.PERSISTENCE.warn("Ignored an incomplete record at the end of the save journal.");
+        }
+        pendingDeltas.clear();
+        needsCheckpoint = false;
+        history = new GameHistory(world, player, worldState, clock);
+        if (navigator != null) navigator.gatesChanged();
+        Metrics.LOAD.record(System.nanoTime() - start);
+
+        out.println("Game loaded successfully!");
+    }
 
-        if (requiredItemsObj == null) {
-            return true;
+    // Reads a legacy savegame.json when the default save file has never been written; the next save
+    // then starts a fresh snapshot in the default file.
+    private SaveJournal loadSource() {
+        SaveJournal current = journal();
+        if (saveFileName.equals(SAVE_FILE_NAME) && !Files.exists(current.getSnapshotPath())
+                && Files.exists(Paths.get(LEGACY_SAVE_FILE_NAME))) {
+            return new SaveJournal(Paths.get(LEGACY_SAVE_FILE_NAME));
         }
+        return current;
+    }
 
-        if (requiredItemsObj instanceof String) {
-            String requiredItemName = (String) requiredItemsObj;
-            if (player.findItemInventory(requiredItemName).isEmpty()) {
-                if (conditions.getFailMessage() != null) {
-                    System.out.println(conditions.getFailMessage());
-                }
-                return false;
+    // The one place game state changes: commands, journal replay and rewind all reduce to events applied here.
+    // False when the event changed nothing, e.g. an item another player in a shared world already took.
+    boolean apply(StateDelta delta) {
+        Room room = delta.getRoom() != null ? world.getRoom(delta.getRoom()) : null;
+        boolean needsRoom = delta.getKind() != StateDelta.Kind.INVENTORY_ADDED
+                && delta.getKind() != StateDelta.Kind.INVENTORY_REMOVED
+                && delta.getKind() != StateDelta.Kind.COUNTER_SET
+                && delta.getKind() != StateDelta.Kind.CLOCK_SET
+                && delta.getKind() != StateDelta.Kind.CHANGE_SCHEDULED;
+        if (needsRoom && room == null) {
+            Log.PERSISTENCE.warn("Unknown room in event " + delta + ". Skipping.");
+            return false;
+        }
+        // Room overlay changes are recorded by the WorldState listener, player changes here.
+        switch (delta.getKind()) {
+            case PLAYER_MOVED -> {
+                placePlayer(world.roomId(room.getName()), room.getName());
+                recordChange(delta);
             }
-        } else if (requiredItemsObj instanceof List) {
-            @SuppressWarnings("unchecked")
-            List<String> requiredItems = (List<String>) requiredItemsObj;
-            for (String itemName : requiredItems) {
-                if (player.findItemInventory(itemName).isEmpty()) {
-                    if (conditions.getFailMessage() != null) {
-                        System.out.println(conditions.getFailMessage());
-                    }
+            case DESCRIPTION_CHANGED -> worldState.setDescription(room, delta.getSubject());
+            case EXIT_UNLOCKED -> worldState.clearExitRequirement(room, delta.getSubject());
+            case EXIT_MESSAGE_CHANGED -> worldState.setExitMessage(room, delta.getSubject(), delta.getText());
+            case COUNTER_SET -> worldState.setCounter(delta.getSubject(), delta.getValue());
+            case EXIT_LOCKED -> {
+                worldState.restoreExitRequirement(room, delta.getSubject());
+                clock.locked(room.getName(), delta.getSubject());
+            }
+            case EXIT_LOCK_SCHEDULED, CHANGE_SCHEDULED -> {
+                clock.schedule(delta);
+                recordChange(delta);
+            }
+            // Journal only: saves record the clock, the log does not.
+            case CLOCK_SET -> clock.setTick(delta.getValue());
+            default -> {
+                Item item = world.getItem(delta.getSubject());
+                if (item == null) {
+                    Log.PERSISTENCE.warn("Unknown item in event " + delta + ". Skipping.");
                     return false;
                 }
+                switch (delta.getKind()) {
+                    case ROOM_ITEM_ADDED -> worldState.addItem(room, item);
+                    case ROOM_ITEM_REMOVED -> {
+                        return worldState.removeItem(room, item);
+                    }
+                    case INVENTORY_ADDED -> {
+                        player.takeItem(item);
+                        recordChange(delta);
+                    }
+                    case INVENTORY_REMOVED -> {
+                        if (!player.dropItem(item)) return false;
+                        recordChange(delta);
+                    }
+                    default -> { }
+                }
             }
         }
         return true;
     }
-}
\ No newline at end of file
+
+    // A timed change whose tick has come, applied at the start of the turn like any other event.
+    private void fireTimedChange(StateDelta change) {
+        apply(change);
+        if (change.getKind() == StateDelta.Kind.EXIT_LOCKED && change.getRoom().equals(player.getCurrentRoomName())) {
+            out.println("The exit to the " + change.getSubject() + " closes again.");
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.textadventure.game;
+
+import com.textadventure.engine.WorldDefinition;
+import com.textadventure.model.ItemContainer;
+import com.textadventure.model.Player;
+import com.textadventure.persistence.EventLog;
+import com.textadventure.persistence.StateDelta;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Everything a game has done since it was initialized or loaded: the {@link EventLog} of its
+ * state changes, checkpoints of the full state taken at turn boundaries every
+ * {@link #CHECKPOINT_INTERVAL} events, and the undo and redo stacks. Restoring the checkpoint at
+ * or before an event and replaying the events after it rebuilds the state exactly as it was at
+ * that event. When more than {@link #MAX_CHECKPOINTS} accumulate, every other one in the older
+ * half is dropped, so checkpoints get sparser with age and long sessions keep a bounded number.
+ * Once the log holds more than {@link #EVENT_LIMIT} events, the checkpoints older than that many
+ * events back and the events before the oldest one left are discarded, so a session's history
+ * stays bounded too; rewinding and undoing reach back to that checkpoint and no further.
+ *
+ * <p>A checkpoint holds the persistent {@link WorldState.Version} and the inventory container,
+ * both shared with the live state, so taking or restoring one is O(1) and keeping many costs
+ * memory only for what changed between them. Undo keeps the state at the end of each of the
+ * last {@link #UNDO_LEVELS} turns that changed something.
+ *
+ * <p>The {@link WorldClock} is not part of a checkpoint. Each event records the tick it happened
+ * at, and the pending timed changes at an event are rebuilt from those pending at the oldest
+ * event kept plus the scheduling and locking events after it; a history in which nothing was ever
+ * timed skips the scan.
+ *
+ * <p>Games over a {@link SharedWorld} keep no history, since other players change the state
+ * between any two of their events.
+ */
+final class GameHistory {
+
+    static final int CHECKPOINT_INTERVAL = 256;
+    static final int MAX_CHECKPOINTS = 64;
+    static final int UNDO_LEVELS = Integer.getInteger("textadventure.undo.levels", 100);
+    static final int EVENT_LIMIT = Integer.getInteger("textadventure.history.events",
+            CHECKPOINT_INTERVAL * MAX_CHECKPOINTS * 4);
+
+    /** A game's mutable state after a given number of events. */
+    static final class Checkpoint {
+        final int event;
+        final int playerRoomId;
+        final String playerRoomName;
+        final ItemContainer inventory;
+        final WorldState.Version world;
+        final int tick;
+
+        Checkpoint(int event, Player player, WorldState state, int tick) {
+            this.event = event;
+            this.tick = tick;
+            this.playerRoomId = player.getCurrentRoomId();
+            this.playerRoomName = player.getCurrentRoomName();
+            this.inventory = player.getInventoryContainer();
+            this.world = state.version();
+        }
+    }
+
+    private final EventLog log;
+    private final int eventLimit;
+    // Tick of each event in the log, from its first kept one on.
+    private int[] ticks = new int[256];
+    // Tick and pending timed changes at the log's first kept event.
+    private int baseTick;
+    private List<StateDelta> baseTimers;
+    // Set once anything was timed; until then the clock needs no rebuilding.
+    private boolean timed;
+    private final List<Checkpoint> checkpoints = new ArrayList<>();
+    private final Deque<Checkpoint> undo = new ArrayDeque<>();
+    private final Deque<Checkpoint> redo = new ArrayDeque<>();
+    // State at the end of the last turn that changed something, or after the last undo / redo.
+    private Checkpoint current;
+
+    // Starts with a checkpoint of the current state as event 0.
+    GameHistory(WorldDefinition world, Player player, WorldState state, WorldClock clock) {
+        this(world, player, state, clock, EVENT_LIMIT);
+    }
+
+    GameHistory(WorldDefinition world, Player player, WorldState state, WorldClock clock, int eventLimit) {
+        if (eventLimit < CHECKPOINT_INTERVAL)
+            throw new IllegalArgumentException("History must keep at least " + CHECKPOINT_INTERVAL + " events.");
+        this.log = new EventLog(world);
+        this.eventLimit = eventLimit;
+        this.baseTick = clock.tick();
+        this.baseTimers = clock.scheduledEvents();
+        this.timed = !baseTimers.isEmpty();
+        this.current = new Checkpoint(0, player, state, clock.tick());
+        checkpoints.add(current);
+    }
+
+    EventLog getLog() { return log; }
+    int size() { return log.size(); }
+    // Oldest event rewind can reach.
+    int first() { return log.first(); }
+
+    void append(StateDelta delta, int tick) {
+        int index = log.size() - log.first();
+        log.append(delta);
+        if (index == ticks.length) ticks = Arrays.copyOf(ticks, ticks.length * 2);
+        ticks[index] = tick;
+        if (WorldClock.isScheduling(delta.getKind())) timed = true;
+    }
+
+    // Tick the given number of events were reached at.
+    int tickAt(int event) { return event == log.first() ? baseTick : ticks[event - 1 - log.first()]; }
+
+    // Puts the clock back to what it was after the given event, at the given tick.
+    void restoreClock(WorldClock clock, int event, int tick) {
+        if (!timed) {
+            clock.reset(tick, baseTimers);
+            return;
+        }
+        clock.reset(baseTick, baseTimers);
+        replayTimers(clock, event);
+        clock.setTick(tick);
+    }
+
+    // Schedules and cancels the relocks the kept events up to the given one did.
+    private void replayTimers(WorldClock clock, int event) {
+        for (int i = log.first(); i < event; i++) {
+            StateDelta.Kind kind = log.kind(i);
+            if (WorldClock.isScheduling(kind)) {
+                clock.schedule(log.get(i));
+            } else if (kind == StateDelta.Kind.EXIT_LOCKED) {
+                StateDelta lock = log.get(i);
+                clock.locked(lock.getRoom(), lock.getSubject());
+            }
+        }
+    }
+
+    StateDelta event(int index) { return log.get(index); }
+
+    // Called at the end of every turn. A turn that changed the state becomes undoable and ends any redo.
+    void turnEnded(Player player, WorldState state, int tick, boolean changed) {
+        if (!changed) return;
+        undo.push(current);
+        if (undo.size() > UNDO_LEVELS) undo.removeLast();
+        redo.clear();
+        current = new Checkpoint(log.size(), player, state, tick);
+        if (log.size() - checkpoints.get(checkpoints.size() - 1).event < CHECKPOINT_INTERVAL) return;
+        checkpoints.add(current);
+        if (checkpoints.size() > MAX_CHECKPOINTS) {
+            // Thin out the older half only, so recent events stay cheap to rewind to.
+            for (int i = checkpoints.size() / 2; i > 0; i--) {
+                if (i % 2 == 1) checkpoints.remove(i);
+            }
+        }
+        if (log.size() - checkpoints.get(0).event > eventLimit) forgetBefore(log.size() - eventLimit);
+    }
+
+    // Makes the latest checkpoint at or before the given event the oldest one and discards the
+    // events before it, carrying the clock's pending changes at that point into the base.
+    private void forgetBefore(int event) {
+        int oldest = 0;
+        while (oldest + 1 < checkpoints.size() && checkpoints.get(oldest + 1).event <= event) oldest++;
+        if (oldest == 0) return;
+        Checkpoint base = checkpoints.get(oldest);
+        if (timed) {
+            WorldClock replay = new WorldClock(delta -> {});
+            replay.reset(baseTick, baseTimers);
+            replayTimers(replay, base.event);
+            replay.setTick(base.tick);
+            baseTimers = replay.scheduledEvents();
+        }
+        baseTick = base.tick;
+        int dropped = base.event - log.first();
+        System.arraycopy(ticks, dropped, ticks, 0, log.size() - base.event);
+        log.discardBefore(base.event);
+        checkpoints.subList(0, oldest).clear();
+        undo.removeIf(checkpoint -> checkpoint.event < base.event);
+    }
+
+    // State to go back to, with the log cut back to match; null when there is nothing to undo.
+    Checkpoint undo() {
+        Checkpoint previous = undo.poll();
+        if (previous == null) return null;
+        redo.push(current);
+        current = previous;
+        truncate(previous.event);
+        return previous;
+    }
+
+    // State an undo left, with its events taken back into the log; null when there is nothing to redo.
+    Checkpoint redo() {
+        Checkpoint next = redo.poll();
+        if (next == null) return null;
+        undo.push(current);
+        current = next;
+        log.extendTo(next.event);
+        return next;
+    }
+
+    // Latest checkpoint taken at or before the given event.
+    Checkpoint checkpointAt(int event) {
+        for (int i = checkpoints.size() - 1; i > 0; i--) {
+            if (checkpoints.get(i).event <= event) return checkpoints.get(i);
+        }
+        return checkpoints.get(0);
+    }
+
+    // After a rewind: forgets later events, checkpoints and undo steps, and anything to redo.
+    void rewound(int event, Player player, WorldState state, int tick) {
+        truncate(event);
+        undo.removeIf(checkpoint -> checkpoint.event > event);
+        redo.clear();
+        current = new Checkpoint(event, player, state, tick);
+    }
+
+    private void truncate(int event) {
+        log.truncate(event);
+        while (checkpoints.size() > 1 && checkpoints.get(checkpoints.size() - 1).event > event) {
+            checkpoints.remove(checkpoints.size() - 1);
+        }
+    }
+}
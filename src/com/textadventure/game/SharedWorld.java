@@ -0,0 +1,207 @@
+package com.textadventure.game;
+
+import com.textadventure.engine.WorldDefinition;
+import com.textadventure.model.Item;
+import com.textadventure.model.ItemContainer;
+import com.textadventure.model.Room;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * One world state that many players change at once, as opposed to the private {@link WorldState}
+ * each game gets by default. Games join it with {@link Game#joinSharedWorld}.
+ *
+ * <p>Every room has its own slot per kind of state, and a change replaces the slot's immutable
+ * value with a compare-and-set: players in different rooms never touch the same slot, and two
+ * players taking the same item race on one CAS, so exactly one of them gets it. Nothing here
+ * takes a lock. Counters are shared too and incremented atomically.
+ *
+ * <p>The world also tracks which players are in which room, so a change can be announced to the
+ * others present through their {@link Observer}.
+ */
+public final class SharedWorld {
+
+    /** A player who hears about what others do in the same room. */
+    public interface Observer {
+        // Called on the acting player's thread, so it should only queue the message for the observer's own.
+        void notice(String message);
+    }
+
+    private final WorldDefinition world;
+    // By room id; null means the room still holds what the definition put there.
+    private final AtomicReferenceArray<ItemContainer> roomItems;
+    private final AtomicReferenceArray<String> descriptions;
+    private final AtomicReferenceArray<Set<String>> clearedExits;
+    private final AtomicReferenceArray<Map<String, String>> exitMessages;
+    private final ConcurrentHashMap<String, Integer> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Set<Observer>> presence = new ConcurrentHashMap<>();
+
+    public SharedWorld(WorldDefinition world) {
+        if (world == null)
+            throw new IllegalArgumentException("Shared world requires a world definition.");
+        this.world = world;
+        int rooms = world.getRoomCount();
+        this.roomItems = new AtomicReferenceArray<>(rooms);
+        this.descriptions = new AtomicReferenceArray<>(rooms);
+        this.clearedExits = new AtomicReferenceArray<>(rooms);
+        this.exitMessages = new AtomicReferenceArray<>(rooms);
+    }
+
+    public WorldDefinition getWorld() { return world; }
+
+    // Read-only: containers are replaced, never changed, once stored.
+    public ItemContainer getItemContainer(Room room) {
+        ItemContainer changed = roomItems.get(room.getId());
+        return changed != null ? changed : room.getItemContainer();
+    }
+
+    public void addItem(Room room, Item item) {
+        int id = room.getId();
+        while (true) {
+            ItemContainer current = roomItems.get(id);
+            ItemContainer next = (current != null ? current : room.getItemContainer()).plus(item);
+            if (roomItems.compareAndSet(id, current, next)) return;
+        }
+    }
+
+    // False when the item is not (or no longer) in the room, e.g. because another player took it first.
+    public boolean removeItem(Room room, Item item) {
+        int id = room.getId();
+        while (true) {
+            ItemContainer current = roomItems.get(id);
+            ItemContainer source = current != null ? current : room.getItemContainer();
+            ItemContainer next = source.minus(item);
+            if (next == source) return false;
+            if (roomItems.compareAndSet(id, current, next)) return true;
+        }
+    }
+
+    public String getDescription(Room room) {
+        String changed = descriptions.get(room.getId());
+        return changed != null ? changed : room.getDescription();
+    }
+
+    public void setDescription(Room room, String description) {
+        descriptions.set(room.getId(), description);
+    }
+
+    public boolean isExitRequirementCleared(Room room, String direction) {
+        Set<String> cleared = clearedExits.get(room.getId());
+        return cleared != null && cleared.contains(direction);
+    }
+
+    // False when the exit was already open.
+    public boolean clearExitRequirement(Room room, String direction) {
+        int id = room.getId();
+        while (true) {
+            Set<String> cleared = clearedExits.get(id);
+            if (cleared != null && cleared.contains(direction)) return false;
+            Set<String> next = cleared != null ? new HashSet<>(cleared) : new HashSet<>();
+            next.add(direction);
+            if (clearedExits.compareAndSet(id, cleared, Collections.unmodifiableSet(next))) return true;
+        }
+    }
+
+    // False when the exit was not open.
+    public boolean restoreExitRequirement(Room room, String direction) {
+        int id = room.getId();
+        while (true) {
+            Set<String> cleared = clearedExits.get(id);
+            if (cleared == null || !cleared.contains(direction)) return false;
+            Set<String> next = new HashSet<>(cleared);
+            next.remove(direction);
+            if (clearedExits.compareAndSet(id, cleared, next.isEmpty() ? null : Collections.unmodifiableSet(next))) return true;
+        }
+    }
+
+    public String getExitMessage(Room room, String direction) {
+        Map<String, String> messages = exitMessages.get(room.getId());
+        return messages != null ? messages.get(direction) : null;
+    }
+
+    public void setExitMessage(Room room, String direction, String message) {
+        int id = room.getId();
+        while (true) {
+            Map<String, String> messages = exitMessages.get(id);
+            Map<String, String> next = messages != null ? new HashMap<>(messages) : new HashMap<>();
+            next.put(direction, message);
+            if (exitMessages.compareAndSet(id, messages, Collections.unmodifiableMap(next))) return;
+        }
+    }
+
+    public int getCounter(String name) {
+        return counters.getOrDefault(name, 0);
+    }
+
+    public int incrementCounter(String name) {
+        return counters.merge(name, 1, Integer::sum);
+    }
+
+    public void setCounter(String name, int value) {
+        counters.put(name, value);
+    }
+
+    // Rooms changed so far, by name; each of these scans every room.
+    public Map<String, ItemContainer> getChangedRoomItems() {
+        Map<String, ItemContainer> changed = new LinkedHashMap<>();
+        for (int i = 0; i < roomItems.length(); i++) {
+            ItemContainer items = roomItems.get(i);
+            if (items != null) changed.put(world.room(i).getName(), items);
+        }
+        return changed;
+    }
+
+    public Map<String, String> getChangedDescriptions() {
+        Map<String, String> changed = new LinkedHashMap<>();
+        for (int i = 0; i < descriptions.length(); i++) {
+            String description = descriptions.get(i);
+            if (description != null) changed.put(world.room(i).getName(), description);
+        }
+        return changed;
+    }
+
+    public Map<String, Set<String>> getClearedExitRequirements() {
+        Map<String, Set<String>> cleared = new LinkedHashMap<>();
+        for (int i = 0; i < clearedExits.length(); i++) {
+            Set<String> directions = clearedExits.get(i);
+            if (directions != null) cleared.put(world.room(i).getName(), directions);
+        }
+        return cleared;
+    }
+
+    public Map<String, Map<String, String>> getChangedExitMessages() {
+        Map<String, Map<String, String>> changed = new LinkedHashMap<>();
+        for (int i = 0; i < exitMessages.length(); i++) {
+            Map<String, String> messages = exitMessages.get(i);
+            if (messages != null) changed.put(world.room(i).getName(), messages);
+        }
+        return changed;
+    }
+
+    public Map<String, Integer> getCounters() { return Map.copyOf(counters); }
+
+    // Moves an observer between rooms; a negative room id means nowhere (joining or leaving).
+    public void move(Observer observer, int fromRoomId, int toRoomId) {
+        if (fromRoomId >= 0) {
+            Set<Observer> present = presence.get(fromRoomId);
+            if (present != null) present.remove(observer);
+        }
+        if (toRoomId >= 0) presence.computeIfAbsent(toRoomId, id -> ConcurrentHashMap.newKeySet()).add(observer);
+    }
+
+    // Tells everyone in the room except the source.
+    public void publish(int roomId, Observer source, String message) {
+        Set<Observer> present = presence.get(roomId);
+        if (present == null) return;
+        for (Observer observer : present) {
+            if (observer != source) observer.notice(message);
+        }
+    }
+}
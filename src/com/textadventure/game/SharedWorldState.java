@@ -0,0 +1,144 @@
+package com.textadventure.game;
+
+import com.textadventure.model.Item;
+import com.textadventure.model.ItemContainer;
+import com.textadventure.model.Room;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A game's view of a {@link SharedWorld}: reads and writes go straight to the shared state, and
+ * the change listener hears only about the changes this game actually made. A change that lost a
+ * race (an item someone else already took) is not reported. The shared state has no versions and
+ * cannot be replaced in bulk, so undo, rewind and loading a save are not available over it.
+ */
+final class SharedWorldState extends WorldState {
+
+    private final SharedWorld shared;
+
+    SharedWorldState(SharedWorld shared) {
+        super(shared.getWorld());
+        this.shared = shared;
+    }
+
+    @Override
+    public ItemContainer getItemContainer(Room room) { return shared.getItemContainer(room); }
+
+    @Override
+    public void addItem(Room room, Item item) {
+        if (item == null)
+            throw new IllegalArgumentException("Cannot add a null item to the room.");
+        shared.addItem(room, item);
+        if (getChangeListener() != null) getChangeListener().itemAdded(room, item);
+    }
+
+    @Override
+    public boolean removeItem(Room room, Item item) {
+        if (item == null)
+            throw new IllegalArgumentException("Cannot remove a null item from the room.");
+        if (!shared.removeItem(room, item)) return false;
+        if (getChangeListener() != null) getChangeListener().itemRemoved(room, item);
+        return true;
+    }
+
+    @Override
+    public void setItems(Room room, List<Item> items) { throw unsupported(); }
+
+    @Override
+    public String getDescription(Room room) { return shared.getDescription(room); }
+
+    @Override
+    public void setDescription(Room room, String newDescription) {
+        if (newDescription == null)
+            throw new IllegalArgumentException("Room description cannot be null");
+        shared.setDescription(room, newDescription);
+        if (getChangeListener() != null) getChangeListener().descriptionChanged(room, newDescription);
+    }
+
+    @Override
+    public boolean isExitRequirementCleared(Room room, String direction) {
+        return shared.isExitRequirementCleared(room, direction);
+    }
+
+    @Override
+    public void clearExitRequirement(Room room, String direction) {
+        if (shared.clearExitRequirement(room, direction) && getChangeListener() != null)
+            getChangeListener().exitRequirementCleared(room, direction);
+    }
+
+    @Override
+    public void restoreExitRequirement(Room room, String direction) {
+        if (shared.restoreExitRequirement(room, direction) && getChangeListener() != null)
+            getChangeListener().exitRequirementRestored(room, direction);
+    }
+
+    @Override
+    public String getExitMessage(Room room, String direction) { return shared.getExitMessage(room, direction); }
+
+    @Override
+    public void setExitMessage(Room room, String direction, String message) {
+        if (message == null)
+            throw new IllegalArgumentException("Exit message cannot be null");
+        shared.setExitMessage(room, direction, message);
+        if (getChangeListener() != null) getChangeListener().exitMessageChanged(room, direction, message);
+    }
+
+    @Override
+    public int getCounter(String name) { return shared.getCounter(name); }
+
+    @Override
+    public int incrementCounter(String name) {
+        int value = shared.incrementCounter(name);
+        if (getChangeListener() != null) getChangeListener().counterChanged(name, value);
+        return value;
+    }
+
+    @Override
+    public void setCounter(String name, int value) {
+        shared.setCounter(name, value);
+        if (getChangeListener() != null) getChangeListener().counterChanged(name, value);
+    }
+
+    @Override
+    public Map<String, ItemContainer> getChangedRoomItems() { return shared.getChangedRoomItems(); }
+
+    @Override
+    public Map<String, String> getChangedDescriptions() { return shared.getChangedDescriptions(); }
+
+    @Override
+    public Map<String, Set<String>> getClearedExitRequirements() { return shared.getClearedExitRequirements(); }
+
+    @Override
+    public Map<String, Integer> getCounters() { return shared.getCounters(); }
+
+    @Override
+    public Map<String, Map<String, String>> getChangedExitMessages() { return shared.getChangedExitMessages(); }
+
+    @Override
+    public Version version() { throw unsupported(); }
+
+    @Override
+    public void restore(Version version) { throw unsupported(); }
+
+    @Override
+    public void restore(Map<String, ItemContainer> items, Map<String, String> descriptions,
+            Map<String, Set<String>> unlockedExits, Map<String, Integer> counterValues) {
+        throw unsupported();
+    }
+
+    @Override
+    public void restore(Map<String, ItemContainer> items, Map<String, String> descriptions,
+            Map<String, Set<String>> unlockedExits, Map<String, Integer> counterValues,
+            Map<String, Map<String, String>> changedExitMessages) {
+        throw unsupported();
+    }
+
+    @Override
+    public void reset() { throw unsupported(); }
+
+    private static UnsupportedOperationException unsupported() {
+        return new UnsupportedOperationException("A shared world cannot be restored or replaced.");
+    }
+}
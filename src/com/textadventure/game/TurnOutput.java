@@ -0,0 +1,88 @@
+package com.textadventure.game;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects everything a game prints during one turn in a reusable buffer and hands it to the real
+ * output stream as a single write. {@link #stream()} is what command code prints to.
+ * {@link #notice} queues a line from another thread; the game's own thread writes the queued
+ * lines ahead of its next turn's output, so only that thread ever writes to the sink. A player
+ * waiting at the prompt therefore sees notices with the output of their next command. Only the
+ * latest {@link #NOTICE_LIMIT} are kept until then; older ones are dropped and reported as a count.
+ */
+public final class TurnOutput {
+
+    static final int NOTICE_LIMIT = 32;
+
+    private final ReusableBuffer bytes = new ReusableBuffer(4096);
+    private final PrintStream buffer;
+    private final OutputStream sink;
+    private final Charset charset;
+    // Both guarded by the queue itself.
+    private final ArrayDeque<String> notices = new ArrayDeque<>();
+    private int missedNotices;
+
+    public TurnOutput(OutputStream sink, Charset charset) {
+        if (sink == null)
+            throw new IllegalArgumentException("Game output stream cannot be null.");
+        this.sink = sink;
+        this.charset = charset;
+        this.buffer = new PrintStream(bytes, false, charset);
+    }
+
+    public PrintStream stream() { return buffer; }
+
+    // Writes the queued notices, then the buffered turn in one call, and empties the buffer for the next turn.
+    public void flush() {
+        buffer.flush();
+        List<String> lines = takeNotices();
+        if (bytes.size() == 0 && lines == null) return;
+        try {
+            if (lines != null) {
+                for (String line : lines) sink.write((line + System.lineSeparator()).getBytes(charset));
+            }
+            bytes.writeTo(sink);
+            sink.flush();
+        } catch (IOException e) {
+            // The sink is a PrintStream in practice and reports errors through checkError().
+        } finally {
+            bytes.reset();
+        }
+    }
+
+    // Queues a line for the next flush, dropping the oldest once NOTICE_LIMIT are waiting; safe from any thread.
+    public void notice(String message) {
+        synchronized (notices) {
+            if (notices.size() == NOTICE_LIMIT) {
+                notices.poll();
+                missedNotices++;
+            }
+            notices.add(message);
+        }
+    }
+
+    // Empties the queue into a list to write outside the lock; null when nothing is waiting.
+    private List<String> takeNotices() {
+        synchronized (notices) {
+            if (notices.isEmpty()) return null;
+            List<String> lines = new ArrayList<>(notices.size() + 1);
+            if (missedNotices > 0) lines.add("(" + missedNotices + " earlier messages were missed.)");
+            lines.addAll(notices);
+            notices.clear();
+            missedNotices = 0;
+            return lines;
+        }
+    }
+
+    // reset() keeps the grown array, so steady-state turns do not allocate a new buffer.
+    private static final class ReusableBuffer extends ByteArrayOutputStream {
+        ReusableBuffer(int capacity) { super(capacity); }
+    }
+}
@@ -0,0 +1,112 @@
+package com.textadventure.game;
+
+import com.textadventure.persistence.StateDelta;
+import com.textadventure.utils.TimingWheel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A game's clock and the timed changes waiting on it. The clock advances one tick per turn, and a
+ * change is handed to the fire callback at the start of the turn its tick comes. There are two
+ * kinds: the exit relocks of {@code relocksAfterTurns}, scheduled by {@code EXIT_LOCK_SCHEDULED}
+ * events and fired as {@code EXIT_LOCKED}, and any other change an effect schedules through
+ * {@link EffectContext#schedule}, recorded as a {@code CHANGE_SCHEDULED} event and fired as the
+ * change it carries. Pending ones sit on a {@link TimingWheel}, so any number of them cost O(1)
+ * per turn.
+ *
+ * <p>An exit has at most one pending relock: scheduling it again moves it, and {@link #locked}
+ * takes it off the wheel when the exit is locked some other way (or the lock is replayed from a
+ * save). Other scheduled changes each fire once. Setting the clock to a tick drops whatever was
+ * due by then, since it fired already. The clock holds no randomness, so replaying the same turns
+ * fires the same changes in the same order.
+ */
+final class WorldClock {
+
+    private final TimingWheel<StateDelta> wheel = new TimingWheel<>(0);
+    // Pending relocks by room name, then direction; other timed changes have no key.
+    private final Map<String, Map<String, TimingWheel.Timer<StateDelta>>> pending = new HashMap<>();
+    private final Consumer<StateDelta> fire;
+    private final Consumer<StateDelta> due;
+
+    WorldClock(Consumer<StateDelta> fire) {
+        this.fire = fire;
+        this.due = timed -> {
+            if (timed.getKind() == StateDelta.Kind.CHANGE_SCHEDULED) {
+                this.fire.accept(timed.getChange());
+            } else {
+                take(timed.getRoom(), timed.getSubject());
+                this.fire.accept(timed);
+            }
+        };
+    }
+
+    int tick() { return wheel.now(); }
+    int pendingCount() { return wheel.size(); }
+
+    // Starts the next turn, handing every change due at it to the fire callback.
+    void advance() { wheel.advance(due); }
+
+    // Puts the change a scheduling event asks for on the wheel; a relock replaces any the exit had.
+    void schedule(StateDelta scheduling) {
+        if (!isScheduling(scheduling.getKind()))
+            throw new IllegalArgumentException("Not a scheduling event: " + scheduling + ".");
+        if (scheduling.getKind() == StateDelta.Kind.CHANGE_SCHEDULED) {
+            wheel.schedule(scheduling.getValue(), scheduling);
+            return;
+        }
+        String room = scheduling.getRoom();
+        String direction = scheduling.getSubject();
+        TimingWheel.Timer<StateDelta> timer = wheel.schedule(scheduling.getValue(), StateDelta.exitLocked(room, direction));
+        wheel.cancel(pending.computeIfAbsent(room, name -> new HashMap<>(4)).put(direction, timer));
+    }
+
+    // The exit was locked, so a relock still pending for it has nothing left to do.
+    void locked(String room, String direction) {
+        if (!pending.isEmpty()) wheel.cancel(take(room, direction));
+    }
+
+    // The pending changes as the events that schedule them, e.g. to write into a save.
+    List<StateDelta> scheduledEvents() {
+        List<StateDelta> events = new ArrayList<>(wheel.size());
+        wheel.forEach((tick, timed) -> events.add(timed.getKind() == StateDelta.Kind.CHANGE_SCHEDULED
+                ? StateDelta.changeScheduled(timed.getChange(), tick)
+                : StateDelta.exitLockScheduled(timed.getRoom(), timed.getSubject(), tick)));
+        return events;
+    }
+
+    // Sets the clock and the pending changes, e.g. to a checkpoint's.
+    void reset(int tick, List<StateDelta> scheduledEvents) {
+        wheel.clear(tick);
+        if (!pending.isEmpty()) pending.clear();
+        for (StateDelta event : scheduledEvents) schedule(event);
+    }
+
+    // Moves the clock without firing anything. A replay reaches a tick after the changes due by then
+    // were made, so those are dropped rather than made again.
+    void setTick(int tick) {
+        if (tick == wheel.now()) return;
+        if (wheel.size() == 0) {
+            wheel.clear(tick);
+            return;
+        }
+        List<StateDelta> waiting = scheduledEvents();
+        waiting.removeIf(scheduling -> scheduling.getValue() <= tick);
+        reset(tick, waiting);
+    }
+
+    static boolean isScheduling(StateDelta.Kind kind) {
+        return kind == StateDelta.Kind.EXIT_LOCK_SCHEDULED || kind == StateDelta.Kind.CHANGE_SCHEDULED;
+    }
+
+    private TimingWheel.Timer<StateDelta> take(String room, String direction) {
+        Map<String, TimingWheel.Timer<StateDelta>> exits = pending.get(room);
+        if (exits == null) return null;
+        TimingWheel.Timer<StateDelta> timer = exits.remove(direction);
+        if (exits.isEmpty()) pending.remove(room);
+        return timer;
+    }
+}
@@ -0,0 +1,239 @@
+package com.textadventure.game;
+
+import com.textadventure.engine.WorldDefinition;
+import com.textadventure.model.Item;
+import com.textadventure.model.ItemContainer;
+import com.textadventure.model.Room;
+import com.textadventure.utils.PersistentMap;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Copy-on-write overlay over a {@link WorldDefinition}. Only rooms that a game has actually
+ * changed get an entry here; every other lookup falls through to the shared definition.
+ * Individual changes are reported to an optional {@link ChangeListener}; bulk replacements made
+ * while restoring a save ({@link #setItems}, {@link #restore}, {@link #reset}) are not.
+ *
+ * <p>The overlay is kept in {@link PersistentMap}s, and a room's item container, unlocked
+ * directions or exit messages are replaced, never changed, once stored. {@link #version()} is therefore an O(1)
+ * snapshot, and the versions a game keeps share everything that did not change between them.
+ */
+public class WorldState {
+
+    /** The overlay at one moment; {@link #restore(Version)} puts it back in O(1). */
+    public static final class Version {
+        private final PersistentMap<String, ItemContainer> roomItems;
+        private final PersistentMap<String, String> roomDescriptions;
+        private final PersistentMap<String, Set<String>> clearedExitRequirements;
+        private final PersistentMap<String, Integer> counters;
+        private final PersistentMap<String, Map<String, String>> exitMessages;
+
+        private Version(WorldState state) {
+            this.roomItems = state.roomItems;
+            this.roomDescriptions = state.roomDescriptions;
+            this.clearedExitRequirements = state.clearedExitRequirements;
+            this.counters = state.counters;
+            this.exitMessages = state.exitMessages;
+        }
+    }
+
+    private final WorldDefinition world;
+    private PersistentMap<String, ItemContainer> roomItems = PersistentMap.empty();
+    private PersistentMap<String, String> roomDescriptions = PersistentMap.empty();
+    private PersistentMap<String, Set<String>> clearedExitRequirements = PersistentMap.empty();
+    private PersistentMap<String, Integer> counters = PersistentMap.empty();
+    // Fail messages that replaced an exit's own, by room and then direction.
+    private PersistentMap<String, Map<String, String>> exitMessages = PersistentMap.empty();
+    private ChangeListener listener;
+
+    public interface ChangeListener {
+        void itemAdded(Room room, Item item);
+        void itemRemoved(Room room, Item item);
+        void descriptionChanged(Room room, String description);
+        void exitRequirementCleared(Room room, String direction);
+        void exitRequirementRestored(Room room, String direction);
+        void exitMessageChanged(Room room, String direction, String message);
+        void counterChanged(String name, int value);
+    }
+
+    public WorldState(WorldDefinition world) {
+        if (world == null)
+            throw new IllegalArgumentException("World state requires a world definition.");
+        this.world = world;
+    }
+
+    public WorldDefinition getWorld() { return world; }
+
+    public void setChangeListener(ChangeListener listener) { this.listener = listener; }
+
+    ChangeListener getChangeListener() { return listener; }
+
+    public List<Item> getItems(Room room) {
+        return getItemContainer(room).asList();
+    }
+
+    // Read-only use only: for unchanged rooms this is the shared definition's container.
+    public ItemContainer getItemContainer(Room room) {
+        ItemContainer changed = roomItems.get(room.getName());
+        return changed != null ? changed : room.getItemContainer();
+    }
+
+    public Item findItem(Room room, String itemName) {
+        return getItemContainer(room).find(itemName);
+    }
+
+    public void addItem(Room room, Item item) {
+        if (item == null)
+            throw new IllegalArgumentException("Cannot add a null item to the room.");
+        roomItems = roomItems.plus(room.getName(), getItemContainer(room).plus(item));
+        if (listener != null) listener.itemAdded(room, item);
+    }
+
+    public boolean removeItem(Room room, Item item) {
+        if (item == null)
+            throw new IllegalArgumentException("Cannot remove a null item from the room.");
+        ItemContainer current = getItemContainer(room);
+        ItemContainer items = current.minus(item);
+        if (items == current) return false;
+        roomItems = roomItems.plus(room.getName(), items);
+        if (listener != null) listener.itemRemoved(room, item);
+        return true;
+    }
+
+    public void setItems(Room room, List<Item> items) {
+        if (items.equals(room.getItems()))
+            roomItems = roomItems.minus(room.getName());
+        else {
+            ItemContainer container = new ItemContainer();
+            for (Item item : items) container.add(item);
+            roomItems = roomItems.plus(room.getName(), container);
+        }
+    }
+
+    public String getDescription(Room room) {
+        String changed = roomDescriptions.get(room.getName());
+        return changed != null ? changed : room.getDescription();
+    }
+
+    public void setDescription(Room room, String newDescription) {
+        if (newDescription == null)
+            throw new IllegalArgumentException("Room description cannot be null");
+        roomDescriptions = roomDescriptions.plus(room.getName(), newDescription);
+        if (listener != null) listener.descriptionChanged(room, newDescription);
+    }
+
+    public boolean isExitRequirementCleared(Room room, String direction) {
+        Set<String> cleared = clearedExitRequirements.get(room.getName());
+        return cleared != null && cleared.contains(direction);
+    }
+
+    public void clearExitRequirement(Room room, String direction) {
+        Set<String> cleared = clearedExitRequirements.get(room.getName());
+        if (cleared != null && cleared.contains(direction)) return;
+        Set<String> next = cleared != null ? new HashSet<>(cleared) : new HashSet<>();
+        next.add(direction);
+        clearedExitRequirements = clearedExitRequirements.plus(room.getName(), Collections.unmodifiableSet(next));
+        if (listener != null) listener.exitRequirementCleared(room, direction);
+    }
+
+    // Makes the exit's conditions apply again, e.g. when a door relocks.
+    public void restoreExitRequirement(Room room, String direction) {
+        Set<String> cleared = clearedExitRequirements.get(room.getName());
+        if (cleared == null || !cleared.contains(direction)) return;
+        Set<String> next = new HashSet<>(cleared);
+        next.remove(direction);
+        clearedExitRequirements = next.isEmpty() ? clearedExitRequirements.minus(room.getName())
+                : clearedExitRequirements.plus(room.getName(), Collections.unmodifiableSet(next));
+        if (listener != null) listener.exitRequirementRestored(room, direction);
+    }
+
+    // The message shown when the exit's conditions block the player, if one replaced the definition's.
+    public String getExitMessage(Room room, String direction) {
+        Map<String, String> messages = exitMessages.get(room.getName());
+        return messages != null ? messages.get(direction) : null;
+    }
+
+    public void setExitMessage(Room room, String direction, String message) {
+        if (message == null)
+            throw new IllegalArgumentException("Exit message cannot be null");
+        Map<String, String> messages = exitMessages.get(room.getName());
+        Map<String, String> next = messages != null ? new HashMap<>(messages) : new HashMap<>();
+        next.put(direction, message);
+        exitMessages = exitMessages.plus(room.getName(), Collections.unmodifiableMap(next));
+        if (listener != null) listener.exitMessageChanged(room, direction, message);
+    }
+
+    public int getCounter(String name) {
+        Integer value = counters.get(name);
+        return value != null ? value : 0;
+    }
+
+    public int incrementCounter(String name) {
+        int value = getCounter(name) + 1;
+        counters = counters.plus(name, value);
+        if (listener != null) listener.counterChanged(name, value);
+        return value;
+    }
+
+    public void setCounter(String name, int value) {
+        counters = counters.plus(name, value);
+        if (listener != null) listener.counterChanged(name, value);
+    }
+
+    // Immutable: each reflects the state when it was called. The room containers must not be changed.
+    public Map<String, ItemContainer> getChangedRoomItems() { return roomItems; }
+    public Map<String, String> getChangedDescriptions() { return roomDescriptions; }
+    public Map<String, Set<String>> getClearedExitRequirements() { return clearedExitRequirements; }
+    public Map<String, Integer> getCounters() { return counters; }
+    public Map<String, Map<String, String>> getChangedExitMessages() { return exitMessages; }
+
+    public Version version() { return new Version(this); }
+
+    public void restore(Version version) {
+        roomItems = version.roomItems;
+        roomDescriptions = version.roomDescriptions;
+        clearedExitRequirements = version.clearedExitRequirements;
+        counters = version.counters;
+        exitMessages = version.exitMessages;
+    }
+
+    /**
+     * Replaces the whole overlay in one step, e.g. from a decoded save. The room containers are
+     * taken over, not copied, so the caller must not keep using them.
+     */
+    public void restore(Map<String, ItemContainer> items, Map<String, String> descriptions,
+            Map<String, Set<String>> unlockedExits, Map<String, Integer> counterValues) {
+        restore(items, descriptions, unlockedExits, counterValues, Map.of());
+    }
+
+    public void restore(Map<String, ItemContainer> items, Map<String, String> descriptions,
+            Map<String, Set<String>> unlockedExits, Map<String, Integer> counterValues,
+            Map<String, Map<String, String>> changedExitMessages) {
+        roomItems = PersistentMap.copyOf(items);
+        roomDescriptions = PersistentMap.copyOf(descriptions);
+        PersistentMap<String, Set<String>> cleared = PersistentMap.empty();
+        for (Map.Entry<String, Set<String>> e : unlockedExits.entrySet()) {
+            cleared = cleared.plus(e.getKey(), Collections.unmodifiableSet(new HashSet<>(e.getValue())));
+        }
+        clearedExitRequirements = cleared;
+        counters = PersistentMap.copyOf(counterValues);
+        PersistentMap<String, Map<String, String>> messages = PersistentMap.empty();
+        for (Map.Entry<String, Map<String, String>> e : changedExitMessages.entrySet()) {
+            messages = messages.plus(e.getKey(), Collections.unmodifiableMap(new HashMap<>(e.getValue())));
+        }
+        exitMessages = messages;
+    }
+
+    public void reset() {
+        roomItems = PersistentMap.empty();
+        roomDescriptions = PersistentMap.empty();
+        clearedExitRequirements = PersistentMap.empty();
+        counters = PersistentMap.empty();
+        exitMessages = PersistentMap.empty();
+    }
+}
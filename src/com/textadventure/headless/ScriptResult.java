@@ -0,0 +1,49 @@
+package com.textadventure.headless;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of one script: the final room, inventory and counters, whether the script quit, and one
+ * {@link StepOutcome} per non-blank command. A script that threw has {@link #getError()} set and
+ * reports the state reached before the failing step.
+ */
+public final class ScriptResult {
+
+    private final String name;
+    private final String finalRoom;
+    private final List<String> inventory;
+    private final Map<String, Integer> counters;
+    private final List<StepOutcome> steps;
+    private final boolean quit;
+    private final long elapsedNanos;
+    private final Exception error;
+
+    ScriptResult(String name, String finalRoom, List<String> inventory, Map<String, Integer> counters,
+            List<StepOutcome> steps, boolean quit, long elapsedNanos, Exception error) {
+        this.name = name;
+        this.finalRoom = finalRoom;
+        this.inventory = List.copyOf(inventory);
+        this.counters = Map.copyOf(counters);
+        this.steps = List.copyOf(steps);
+        this.quit = quit;
+        this.elapsedNanos = elapsedNanos;
+        this.error = error;
+    }
+
+    public String getName() { return name; }
+    public String getFinalRoom() { return finalRoom; }
+    public List<String> getInventory() { return inventory; }
+    public Map<String, Integer> getCounters() { return counters; }
+    public List<StepOutcome> getSteps() { return steps; }
+    public boolean isQuit() { return quit; }
+    public long getElapsedNanos() { return elapsedNanos; }
+    public Exception getError() { return error; }
+    public boolean isSuccessful() { return error == null; }
+
+    @Override
+    public String toString() {
+        return name + ": " + steps.size() + " steps, ended in " + finalRoom + ", carrying " + inventory
+                + (error != null ? ", failed: " + error : "");
+    }
+}
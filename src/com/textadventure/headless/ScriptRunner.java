@@ -0,0 +1,228 @@
+package com.textadventure.headless;
+
+import com.textadventure.engine.Command;
+import com.textadventure.engine.CommandParser;
+import com.textadventure.engine.GameLoader.GameDataException;
+import com.textadventure.engine.WorldDefinition;
+import com.textadventure.game.Game;
+import com.textadventure.game.SharedWorld;
+import com.textadventure.persistence.SaveJournal;
+import com.textadventure.utils.Log;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plays command scripts against a shared {@link WorldDefinition} without a console. Every script
+ * gets its own {@link Game} (and so its own light-weight world overlay), runs until its commands
+ * run out or it quits, and yields a {@link ScriptResult}. Output is thrown away unless
+ * {@link #captureOutput(boolean)} is set, in which case each step keeps the text it printed.
+ * Saves made by a script go to a private file that is deleted when the script ends. With
+ * {@link #sharedWorld(SharedWorld)} the scripts instead play together in one world state.
+ *
+ * <p>Usage: {@code ScriptRunner <world.json|world.twi> <script>... [--threads N] [--output] [--shared]}
+ */
+public final class ScriptRunner {
+
+    private static final AtomicLong RUN_IDS = new AtomicLong();
+
+    private final WorldDefinition world;
+    private boolean captureOutput;
+    private boolean keepSteps = true;
+    private SharedWorld sharedWorld;
+    private Path saveDirectory = Paths.get(System.getProperty("java.io.tmpdir"));
+
+    public ScriptRunner(WorldDefinition world) {
+        if (world == null)
+            throw new IllegalArgumentException("World definition cannot be null.");
+        this.world = world;
+    }
+
+    public ScriptRunner captureOutput(boolean captureOutput) {
+        this.captureOutput = captureOutput;
+        return this;
+    }
+
+    // Without per-step records a result holds only the final state, for scripts with millions of steps.
+    public ScriptRunner keepSteps(boolean keepSteps) {
+        this.keepSteps = keepSteps;
+        return this;
+    }
+
+    // Scripts join this world, each as a player named after the script; null gives each its own state.
+    public ScriptRunner sharedWorld(SharedWorld sharedWorld) {
+        if (sharedWorld != null && sharedWorld.getWorld() != world)
+            throw new IllegalArgumentException("Shared world must be over the runner's world definition.");
+        this.sharedWorld = sharedWorld;
+        return this;
+    }
+
+    public ScriptRunner saveDirectory(Path saveDirectory) {
+        if (saveDirectory == null)
+            throw new IllegalArgumentException("Save directory cannot be null.");
+        this.saveDirectory = saveDirectory;
+        return this;
+    }
+
+    public ScriptResult run(String name, Iterable<String> commands) {
+        return run(name, commands.iterator());
+    }
+
+    // Streams the script line by line; I/O errors end the script and are reported in the result.
+    public ScriptResult run(String name, BufferedReader script) {
+        Iterator<String> lines = script.lines().iterator();
+        return run(name, lines);
+    }
+
+    /**
+     * Runs every script on a pool of {@code parallelism} threads and returns the results in the
+     * scripts' iteration order.
+     */
+    public List<ScriptResult> runAll(Map<String, ? extends Iterable<String>> scripts, int parallelism)
+            throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "script-runner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Callable<ScriptResult>> tasks = new ArrayList<>(scripts.size());
+            scripts.forEach((name, commands) -> tasks.add(() -> run(name, commands)));
+            List<ScriptResult> results = new ArrayList<>(tasks.size());
+            for (Future<ScriptResult> future : pool.invokeAll(tasks)) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Script runner task failed.", e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private ScriptResult run(String name, Iterator<String> commands) {
+        ByteArrayOutputStream captured = captureOutput ? new ByteArrayOutputStream(1024) : null;
+        PrintStream out = new PrintStream(captured != null ? captured : OutputStream.nullOutputStream(),
+                false, StandardCharsets.UTF_8);
+        Game game = new Game(out, StandardCharsets.UTF_8);
+        Path saveFile = saveDirectory.resolve(
+                "script-" + ProcessHandle.current().pid() + "-" + RUN_IDS.incrementAndGet() + ".sav");
+        List<StepOutcome> steps = new ArrayList<>();
+        Exception error = null;
+        long start = System.nanoTime();
+        try {
+            if (sharedWorld != null) game.joinSharedWorld(sharedWorld, name);
+            else game.initialize(world);
+            game.setSaveFileName(saveFile.toString());
+            CommandParser parser = game.getCommands().newParser();
+            int index = 0;
+            while (!game.isFinished() && commands.hasNext()) {
+                Command command = parser.parse(commands.next());
+                if (command.isEmpty()) continue;
+                String text = keepSteps ? command.toString() : null;
+                boolean recognized = game.getCommands().handler(command.verbId()) != null;
+                long before = game.getChangeCount();
+                game.processCommand(command);
+                String output = null;
+                if (captured != null) {
+                    output = captured.toString(StandardCharsets.UTF_8);
+                    captured.reset();
+                }
+                if (keepSteps) {
+                    steps.add(new StepOutcome(index, text, recognized, game.getPlayer().getCurrentRoomName(),
+                            (int) (game.getChangeCount() - before), output));
+                }
+                index++;
+            }
+        } catch (GameDataException | RuntimeException e) {
+            error = e instanceof UncheckedIOException io ? io.getCause() : e;
+        } finally {
+            game.close();
+            deleteSave(saveFile);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        List<String> inventory = new ArrayList<>();
+        String room = null;
+        Map<String, Integer> counters = Map.of();
+        if (game.getPlayer() != null) {
+            game.getPlayer().getInventory().forEach(item -> inventory.add(item.getName()));
+            room = game.getPlayer().getCurrentRoomName();
+            counters = game.getWorldState().getCounters();
+        }
+        return new ScriptResult(name, room, inventory, counters, steps, game.isFinished(), elapsed, error);
+    }
+
+    private static void deleteSave(Path saveFile) {
+        try {
+            Files.deleteIfExists(saveFile);
+            Files.deleteIfExists(saveFile.resolveSibling(saveFile.getFileName() + SaveJournal.JOURNAL_SUFFIX));
+        } catch (IOException e) {
+            Log.GAME.warn("Could not delete script save file " + saveFile + ": " + e.getMessage());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Path> scriptFiles = new ArrayList<>();
+        String worldPath = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean output = false;
+        boolean shared = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--output" -> output = true;
+                case "--shared" -> shared = true;
+                default -> {
+                    if (worldPath == null) worldPath = args[i];
+                    else scriptFiles.add(Paths.get(args[i]));
+                }
+            }
+        }
+        if (worldPath == null || scriptFiles.isEmpty()) {
+            System.err.println("Usage: ScriptRunner <world.json|world.twi> <script>... [--threads N] [--output] [--shared]");
+            return;
+        }
+
+        WorldDefinition world = WorldDefinition.load(worldPath);
+        Map<String, List<String>> scripts = new LinkedHashMap<>();
+        for (Path file : scriptFiles) scripts.put(file.toString(), Files.readAllLines(file, StandardCharsets.UTF_8));
+
+        long start = System.nanoTime();
+        List<ScriptResult> results = new ScriptRunner(world).captureOutput(output)
+                .sharedWorld(shared ? new SharedWorld(world) : null).runAll(scripts, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long commands = 0;
+        for (ScriptResult result : results) {
+            commands += result.getSteps().size();
+            System.out.println(result);
+            if (output) {
+                for (StepOutcome step : result.getSteps()) System.out.print("> " + step.getCommand() + "\n" + step.getOutput());
+            }
+        }
+        System.out.printf("%d scripts, %d commands in %.2f s (%.0f commands/s on %d threads)%n",
+                results.size(), commands, seconds, commands / seconds, threads);
+    }
+}
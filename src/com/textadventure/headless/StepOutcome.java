@@ -0,0 +1,38 @@
+package com.textadventure.headless;
+
+/**
+ * What one scripted command did: where the player ended up, how many state changes it made, and the
+ * text it printed when the runner captures output (null otherwise).
+ */
+public final class StepOutcome {
+
+    private final int index;
+    private final String command;
+    private final boolean recognized;
+    private final String roomAfter;
+    private final int changes;
+    private final String output;
+
+    StepOutcome(int index, String command, boolean recognized, String roomAfter, int changes, String output) {
+        this.index = index;
+        this.command = command;
+        this.recognized = recognized;
+        this.roomAfter = roomAfter;
+        this.changes = changes;
+        this.output = output;
+    }
+
+    public int getIndex() { return index; }
+    public String getCommand() { return command; }
+    // False when the first word was not a verb the game knows.
+    public boolean isRecognized() { return recognized; }
+    public String getRoomAfter() { return roomAfter; }
+    public int getChanges() { return changes; }
+    public boolean changedState() { return changes > 0; }
+    public String getOutput() { return output; }
+
+    @Override
+    public String toString() {
+        return index + ": " + command + " -> " + roomAfter + (changes > 0 ? " (" + changes + " changes)" : "");
+    }
+}
@@ -0,0 +1,105 @@
+package com.textadventure.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with HDR-style log-linear buckets: values below 64 ns get a bucket
+ * each, and every power of two above that is split into 32 buckets, so a reported percentile is
+ * within about 3% of the true value, from nanoseconds up to about 19 hours. Recording is one
+ * atomic increment per value plus the running sum and maximum; many threads may record at once.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 6;
+    private static final int LINEAR = 1 << SUB_BITS;
+    private static final int HALF = LINEAR / 2;
+    private static final int MAX_SHIFT = 40;
+    private static final int BUCKETS = LINEAR + MAX_SHIFT * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(index(nanos));
+        sum.add(nanos);
+        long current;
+        while (nanos > (current = max.get()) && !max.compareAndSet(current, nanos)) {
+            // Another thread raised the maximum; retry against its value.
+        }
+    }
+
+    static int index(long nanos) {
+        if (nanos < LINEAR) return (int) nanos;
+        int shift = 63 - Long.numberOfLeadingZeros(nanos) - (SUB_BITS - 1);
+        if (shift > MAX_SHIFT) return BUCKETS - 1;
+        return LINEAR + (shift - 1) * HALF + (int) (nanos >>> shift) - HALF;
+    }
+
+    // Largest value that falls into the bucket.
+    static long upperBound(int index) {
+        if (index < LINEAR) return index;
+        int shift = (index - LINEAR) / HALF + 1;
+        long mantissa = (index - LINEAR) % HALF + HALF;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, sum.sum(), max.get());
+    }
+
+    /** Counts as of one moment; concurrent recording may make the sum and maximum run slightly ahead. */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() { return count; }
+        public long getMaxNanos() { return max; }
+        public long getSumNanos() { return sum; }
+        public double getMeanNanos() { return count > 0 ? (double) sum / count : 0; }
+
+        // Values in the buckets lying wholly at or below each of the ascending bounds, as cumulative
+        // counts. A bucket straddling a bound counts above it, so a value within about 3% below a
+        // bound may land in the next one.
+        public long[] countsAtOrBelow(long[] boundsNanos) {
+            long[] cumulative = new long[boundsNanos.length];
+            long seen = 0;
+            int bucket = 0;
+            for (int i = 0; i < boundsNanos.length; i++) {
+                while (bucket < counts.length && upperBound(bucket) <= boundsNanos[i]) seen += counts[bucket++];
+                cumulative[i] = seen;
+            }
+            return cumulative;
+        }
+
+        // Upper bound of the bucket holding the value at quantile q (0..1), capped at the maximum seen.
+        public long percentileNanos(double q) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(q * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(upperBound(i), max);
+            }
+            return max;
+        }
+    }
+}
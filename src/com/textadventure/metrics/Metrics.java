@@ -0,0 +1,180 @@
+package com.textadventure.metrics;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide engine metrics: per-verb command latency and outcome counts, save / load / world
+ * load durations and room visit counts. Every recording path is lock-free (atomic counters and
+ * {@link LongAdder}s; the maps are only written the first time a verb or room is seen), so
+ * sessions never wait on each other. {@link #writeText(Appendable)} renders everything in the
+ * Prometheus text format; {@link MetricsExporter} serves or dumps it.
+ *
+ * <p>Latencies are exported as histograms of cumulative counts since the process started, on
+ * fixed bounds from a microsecond to 10 s, so the scraper computes quantiles over whatever
+ * window it likes ({@code histogram_quantile(0.99, rate(..._bucket[5m]))}). Only the maximum is
+ * a lifetime figure.
+ */
+public final class Metrics {
+
+    public enum Outcome {
+        SUCCESS("success"), UNKNOWN_COMMAND("unknown_command"), BLOCKED("blocked");
+
+        private final String label;
+
+        Outcome(String label) { this.label = label; }
+
+        public String label() { return label; }
+    }
+
+    /** Latency and outcome counts of one verb. */
+    public static final class VerbMetrics {
+        private final String verb;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder[] outcomes = new LongAdder[Outcome.values().length];
+
+        private VerbMetrics(String verb) {
+            this.verb = verb;
+            for (int i = 0; i < outcomes.length; i++) outcomes[i] = new LongAdder();
+        }
+
+        public String getVerb() { return verb; }
+        public LatencyHistogram getLatency() { return latency; }
+        public long getCount(Outcome outcome) { return outcomes[outcome.ordinal()].sum(); }
+
+        public void record(Outcome outcome, long nanos) {
+            latency.record(nanos);
+            outcomes[outcome.ordinal()].increment();
+        }
+    }
+
+    // Verb name commands that match no verb are counted under.
+    public static final String UNKNOWN_VERB = "unknown";
+    private static final int HEATMAP_ROOMS = Integer.getInteger("textadventure.metrics.rooms", 50);
+    // Upper bounds of the exported latency buckets, in nanoseconds.
+    private static final long[] BUCKET_BOUNDS = {
+            1_000L, 5_000L, 10_000L, 25_000L, 50_000L, 100_000L, 250_000L, 500_000L,
+            1_000_000L, 2_500_000L, 5_000_000L, 10_000_000L, 25_000_000L, 50_000_000L, 100_000_000L,
+            250_000_000L, 500_000_000L, 1_000_000_000L, 2_500_000_000L, 5_000_000_000L, 10_000_000_000L };
+    private static final String[] BUCKET_LABELS = new String[BUCKET_BOUNDS.length];
+
+    static {
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++)
+            BUCKET_LABELS[i] = BigDecimal.valueOf(BUCKET_BOUNDS[i], 9).stripTrailingZeros().toPlainString();
+    }
+
+    public static final LatencyHistogram SAVE = new LatencyHistogram();
+    public static final LatencyHistogram LOAD = new LatencyHistogram();
+    public static final LatencyHistogram WORLD_LOAD = new LatencyHistogram();
+
+    private static final ConcurrentHashMap<String, VerbMetrics> VERBS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, LongAdder> ROOM_VISITS = new ConcurrentHashMap<>();
+
+    private Metrics() {}
+
+    public static VerbMetrics verb(String name) {
+        VerbMetrics metrics = VERBS.get(name);
+        return metrics != null ? metrics : VERBS.computeIfAbsent(name, VerbMetrics::new);
+    }
+
+    public static void roomVisited(String roomName) {
+        LongAdder visits = ROOM_VISITS.get(roomName);
+        if (visits == null) visits = ROOM_VISITS.computeIfAbsent(roomName, k -> new LongAdder());
+        visits.increment();
+    }
+
+    public static long getRoomVisits(String roomName) {
+        LongAdder visits = ROOM_VISITS.get(roomName);
+        return visits != null ? visits.sum() : 0;
+    }
+
+    public static void writeText(Appendable out) throws IOException {
+        out.append("# HELP textadventure_command_latency_seconds Time spent in Game.processCommand, by verb.\n");
+        out.append("# TYPE textadventure_command_latency_seconds histogram\n");
+        Map<String, VerbMetrics> verbs = new TreeMap<>(VERBS);
+        Map<String, LatencyHistogram.Snapshot> verbLatencies = new TreeMap<>();
+        for (VerbMetrics metrics : verbs.values()) verbLatencies.put(metrics.verb, metrics.latency.snapshot());
+        for (Map.Entry<String, LatencyHistogram.Snapshot> verb : verbLatencies.entrySet()) {
+            writeHistogram(out, "textadventure_command_latency_seconds", "verb=\"" + escape(verb.getKey()) + "\"", verb.getValue());
+        }
+        out.append("# HELP textadventure_command_latency_max_seconds Slowest command since the process started, by verb.\n");
+        out.append("# TYPE textadventure_command_latency_max_seconds gauge\n");
+        for (Map.Entry<String, LatencyHistogram.Snapshot> verb : verbLatencies.entrySet()) {
+            writeMax(out, "textadventure_command_latency_max_seconds", "verb=\"" + escape(verb.getKey()) + "\"", verb.getValue());
+        }
+        out.append("# HELP textadventure_commands_total Commands processed, by verb and outcome.\n");
+        out.append("# TYPE textadventure_commands_total counter\n");
+        for (VerbMetrics metrics : verbs.values()) {
+            for (Outcome outcome : Outcome.values()) {
+                long count = metrics.getCount(outcome);
+                if (count > 0) {
+                    out.append("textadventure_commands_total{verb=\"").append(escape(metrics.verb))
+                            .append("\",outcome=\"").append(outcome.label()).append("\"} ").append(Long.toString(count)).append('\n');
+                }
+            }
+        }
+
+        out.append("# HELP textadventure_operation_latency_seconds Duration of saves, loads and world loads.\n");
+        out.append("# TYPE textadventure_operation_latency_seconds histogram\n");
+        Map<String, LatencyHistogram.Snapshot> operations = new LinkedHashMap<>();
+        operations.put("save", SAVE.snapshot());
+        operations.put("load", LOAD.snapshot());
+        operations.put("world_load", WORLD_LOAD.snapshot());
+        for (Map.Entry<String, LatencyHistogram.Snapshot> operation : operations.entrySet()) {
+            writeHistogram(out, "textadventure_operation_latency_seconds", "operation=\"" + operation.getKey() + "\"",
+                    operation.getValue());
+        }
+        out.append("# HELP textadventure_operation_latency_max_seconds Slowest save, load and world load since the process started.\n");
+        out.append("# TYPE textadventure_operation_latency_max_seconds gauge\n");
+        for (Map.Entry<String, LatencyHistogram.Snapshot> operation : operations.entrySet()) {
+            writeMax(out, "textadventure_operation_latency_max_seconds", "operation=\"" + operation.getKey() + "\"",
+                    operation.getValue());
+        }
+
+        out.append("# HELP textadventure_room_visits_total Times players entered a room (most visited rooms only).\n");
+        out.append("# TYPE textadventure_room_visits_total counter\n");
+        List<Map.Entry<String, Long>> rooms = new ArrayList<>(ROOM_VISITS.size());
+        ROOM_VISITS.forEach((room, visits) -> rooms.add(Map.entry(room, visits.sum())));
+        rooms.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        for (Map.Entry<String, Long> room : rooms.subList(0, Math.min(rooms.size(), HEATMAP_ROOMS))) {
+            out.append("textadventure_room_visits_total{room=\"").append(escape(room.getKey())).append("\"} ")
+                    .append(Long.toString(room.getValue())).append('\n');
+        }
+    }
+
+    private static void writeHistogram(Appendable out, String name, String labels, LatencyHistogram.Snapshot snapshot)
+            throws IOException {
+        if (snapshot.getCount() == 0) return;
+        long[] cumulative = snapshot.countsAtOrBelow(BUCKET_BOUNDS);
+        for (int i = 0; i < cumulative.length; i++) {
+            out.append(name).append("_bucket{").append(labels).append(",le=\"").append(BUCKET_LABELS[i]).append("\"} ")
+                    .append(Long.toString(cumulative[i])).append('\n');
+        }
+        out.append(name).append("_bucket{").append(labels).append(",le=\"+Inf\"} ")
+                .append(Long.toString(snapshot.getCount())).append('\n');
+        out.append(name).append("_sum{").append(labels).append("} ").append(seconds(snapshot.getSumNanos())).append('\n');
+        out.append(name).append("_count{").append(labels).append("} ").append(Long.toString(snapshot.getCount())).append('\n');
+    }
+
+    private static void writeMax(Appendable out, String name, String labels, LatencyHistogram.Snapshot snapshot)
+            throws IOException {
+        if (snapshot.getCount() == 0) return;
+        out.append(name).append('{').append(labels).append("} ").append(seconds(snapshot.getMaxNanos())).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,113 @@
+package com.textadventure.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import com.textadventure.utils.Log;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes {@link Metrics} as text: over HTTP on the loopback interface
+ * ({@code GET /metrics}), and/or by rewriting a dump file every few seconds. Configured with
+ * {@code -Dtextadventure.metrics.port=<port>}, {@code -Dtextadventure.metrics.file=<path>} and
+ * {@code -Dtextadventure.metrics.interval=<seconds>} (default 60).
+ */
+public final class MetricsExporter implements AutoCloseable {
+
+    private static final String PROPERTY_PREFIX = "textadventure.metrics.";
+
+    private HttpServer http;
+    private ScheduledExecutorService dumper;
+
+    private MetricsExporter() {}
+
+    /** Starts whatever the system properties ask for; returns null when they ask for nothing. */
+    public static MetricsExporter startFromSystemProperties() {
+        Integer port = Integer.getInteger(PROPERTY_PREFIX + "port");
+        String file = System.getProperty(PROPERTY_PREFIX + "file");
+        if (port == null && file == null) return null;
+        MetricsExporter exporter = new MetricsExporter();
+        try {
+            if (port != null) exporter.serve(port);
+            if (file != null) exporter.dumpEvery(Paths.get(file), Long.getLong(PROPERTY_PREFIX + "interval", 60));
+        } catch (IOException e) {
+            Log.SERVER.warn("Cannot start metrics endpoint: " + e.getMessage());
+        }
+        return exporter;
+    }
+
+    public static String render() {
+        StringBuilder text = new StringBuilder(4096);
+        try {
+            Metrics.writeText(text);
+        } catch (IOException e) {
+            throw new IllegalStateException("StringBuilder cannot fail.", e);
+        }
+        return text.toString();
+    }
+
+    public MetricsExporter serve(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> {
+            try (exchange) {
+                byte[] body = render().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        server.setExecutor(null);
+        server.start();
+        http = server;
+        Log.SERVER.info(() -> "Metrics at http://" + server.getAddress().getHostString() + ":"
+                + server.getAddress().getPort() + "/metrics");
+        return this;
+    }
+
+    public int getPort() { return http != null ? http.getAddress().getPort() : -1; }
+
+    public MetricsExporter dumpEvery(Path file, long intervalSeconds) {
+        if (intervalSeconds <= 0)
+            throw new IllegalArgumentException("Dump interval must be positive.");
+        dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> dump(file), intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        return this;
+    }
+
+    // Writes next to the target and renames, so readers never see a half-written dump.
+    public static void dump(Path file) {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.writeString(temp, render(), StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Log.SERVER.warn("Cannot write metrics to " + file + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (http != null) http.stop(0);
+        if (dumper != null) {
+            dumper.shutdownNow();
+            String file = System.getProperty(PROPERTY_PREFIX + "file");
+            if (file != null) dump(Paths.get(file));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.textadventure.model;
+
+import java.util.Arrays;
+
+/**
+ * Predicate compiled from a {@link Conditions} block at load time. Item requirements are resolved
+ * to item ids and grouped into bitset masks, so checking them is a few word operations against
+ * the {@link ConditionContext}'s inventory bitset instead of a name scan.
+ */
+public interface Condition {
+
+    boolean test(ConditionContext context);
+
+    Condition ALWAYS = context -> true;
+    Condition NEVER = context -> false;
+
+    // Inventory holds every item whose id bit is set in the (sparse) mask.
+    final class HasAllItems implements Condition {
+        private final int[] words;
+        private final long[] masks;
+
+        public HasAllItems(int[] words, long[] masks) {
+            this.words = words;
+            this.masks = masks;
+        }
+
+        @Override
+        public boolean test(ConditionContext context) {
+            for (int i = 0; i < words.length; i++) {
+                if ((context.inventoryWord(words[i]) & masks[i]) != masks[i]) return false;
+            }
+            return true;
+        }
+    }
+
+    // Inventory holds at least one item whose id bit is set in the (sparse) mask.
+    final class HasAnyItem implements Condition {
+        private final int[] words;
+        private final long[] masks;
+
+        public HasAnyItem(int[] words, long[] masks) {
+            this.words = words;
+            this.masks = masks;
+        }
+
+        @Override
+        public boolean test(ConditionContext context) {
+            for (int i = 0; i < words.length; i++) {
+                if ((context.inventoryWord(words[i]) & masks[i]) != 0) return true;
+            }
+            return false;
+        }
+    }
+
+    final class ItemInRoom implements Condition {
+        private final int itemId;
+
+        public ItemInRoom(int itemId) { this.itemId = itemId; }
+
+        @Override
+        public boolean test(ConditionContext context) { return context.roomHasItem(itemId); }
+    }
+
+    final class CounterAtLeast implements Condition {
+        private final String counter;
+        private final int value;
+
+        public CounterAtLeast(String counter, int value) {
+            this.counter = counter;
+            this.value = value;
+        }
+
+        @Override
+        public boolean test(ConditionContext context) { return context.counter(counter) >= value; }
+    }
+
+    final class Not implements Condition {
+        private final Condition operand;
+
+        public Not(Condition operand) { this.operand = operand; }
+
+        @Override
+        public boolean test(ConditionContext context) { return !operand.test(context); }
+    }
+
+    final class And implements Condition {
+        private final Condition[] operands;
+
+        public And(Condition... operands) { this.operands = Arrays.copyOf(operands, operands.length); }
+
+        @Override
+        public boolean test(ConditionContext context) {
+            for (Condition operand : operands) {
+                if (!operand.test(context)) return false;
+            }
+            return true;
+        }
+    }
+
+    final class Or implements Condition {
+        private final Condition[] operands;
+
+        public Or(Condition... operands) { this.operands = Arrays.copyOf(operands, operands.length); }
+
+        @Override
+        public boolean test(ConditionContext context) {
+            for (Condition operand : operands) {
+                if (operand.test(context)) return true;
+            }
+            return false;
+        }
+    }
+}
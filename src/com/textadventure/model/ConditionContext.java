@@ -0,0 +1,15 @@
+package com.textadventure.model;
+
+/**
+ * Game state a compiled {@link Condition} is evaluated against: the player's inventory as an
+ * item-id bitset, the items in the current room and named counters.
+ */
+public interface ConditionContext {
+
+    // Word of the inventory bitset holding item ids [64 * wordIndex, 64 * wordIndex + 63].
+    long inventoryWord(int wordIndex);
+
+    boolean roomHasItem(int itemId);
+
+    int counter(String name);
+}
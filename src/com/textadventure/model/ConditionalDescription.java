@@ -3,6 +3,7 @@ package com.textadventure.model;
 public class ConditionalDescription {
     private Conditions conditions; 
     private String description; 
+    private transient Condition compiled;
 
     public Conditions getConditions() {
         return conditions;
@@ -12,5 +13,19 @@ public class ConditionalDescription {
         return description;
     }
 
+    // Set when the owning room joins a world definition; null until then.
+    public Condition getCompiledCondition() {
+        return compiled;
+    }
+
+    public void setCompiledCondition(Condition compiled) {
+        this.compiled = compiled;
+    }
+
     public ConditionalDescription() {}
-}
\ No newline at end of file
+
+    public ConditionalDescription(Conditions conditions, String description) {
+        this.conditions = conditions;
+        this.description = description;
+    }
+}
@@ -1,26 +1,67 @@
 package com.textadventure.model;
 
+import com.textadventure.utils.Log;
+
+import java.util.List;
+import java.util.Map;
+
 public class Conditions {
     private Object requiresItem;
+    private List<String> requiresAnyItem;
+    private List<String> forbidsItem;
+    private List<String> requiresItemInRoom;
+    private Map<String, Integer> requiresCounter;
     private String failMessage;
 
     public Object getRequiresItem() {
         return requiresItem;
     }
 
+    public List<String> getRequiresAnyItem() {
+        return requiresAnyItem;
+    }
+
+    public List<String> getForbidsItem() {
+        return forbidsItem;
+    }
+
+    public List<String> getRequiresItemInRoom() {
+        return requiresItemInRoom;
+    }
+
+    // Counter name -> minimum value.
+    public Map<String, Integer> getRequiresCounter() {
+        return requiresCounter;
+    }
+
     public String getFailMessage() {
         return failMessage;
     }
 
     public void setRequiresItem(Object requiresItem) {
         this.requiresItem = requiresItem;
-        System.out.println("[Debug Cond Mod] requiresItem set to: " + requiresItem);
+        Log.LOADER.debug(() -> "Conditions requiresItem set to: " + requiresItem);
     }
 
     public void setFailMessage(String failMessage) {
         this.failMessage = failMessage;
-        System.out.println("[Debug Cond Mod] failMessage set to: " + failMessage);
+        Log.LOADER.debug(() -> "Conditions failMessage set to: " + failMessage);
     }
 
     public Conditions() {}
-}
\ No newline at end of file
+
+    public Conditions(Object requiresItem, String failMessage) {
+        this.requiresItem = requiresItem;
+        this.failMessage = failMessage;
+    }
+
+    public Conditions(Object requiresItem, List<String> requiresAnyItem, List<String> forbidsItem,
+            List<String> requiresItemInRoom, Map<String, Integer> requiresCounter, String failMessage) {
+        this.requiresItem = requiresItem;
+        this.requiresAnyItem = requiresAnyItem;
+        this.forbidsItem = forbidsItem;
+        this.requiresItemInRoom = requiresItemInRoom;
+        this.requiresCounter = requiresCounter;
+        this.failMessage = failMessage;
+    }
+}
@@ -0,0 +1,144 @@
+package com.textadventure.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One step of what using an item does, e.g. spawning an item or opening an exit. A usability's
+ * fields are compiled into an ordered array of these when its world is loaded; further steps can
+ * be listed under {@code effects} in the JSON file. {@code subject} names the item, direction or
+ * counter the step acts on, {@code text} is a message or description and {@code value} a number
+ * such as a delay in turns.
+ *
+ * <p>Effect types are declared once per process: the built-in ones here, others by registering a
+ * {@link Handler} for them before loading a world that lists them. Compiling a step binds it to its
+ * type's handler, so a step of an undeclared type is rejected at load time and using an item runs
+ * each step's handler directly. Compiled steps also carry their subject's item id, or -1 when the
+ * subject is not an item.
+ */
+public final class Effect {
+
+    public static final String REMOVE_TARGET = "removeTarget";
+    public static final String DESCRIBE = "describe";
+    public static final String SPAWN_ITEM = "spawnItem";
+    public static final String SET_DESCRIPTION = "setDescription";
+    public static final String GRANT_ITEM = "grantItem";
+    public static final String INCREMENT_COUNTER = "incrementCounter";
+    public static final String CONSUME = "consume";
+    public static final String UNLOCK_EXIT = "unlockExit";
+    public static final String SET_EXIT_MESSAGE = "setExitMessage";
+
+    /** Carries out the steps of one effect type; {@code C} is what the game hands it while an item is used. */
+    @FunctionalInterface
+    public interface Handler<C> {
+        boolean apply(C context, Effect step);
+    }
+
+    // What compiled steps of one type are bound to; declaring the type again swaps the handler in place.
+    private static final class Binding {
+        final int typeId;
+        volatile Handler<?> handler;
+
+        Binding(int typeId) { this.typeId = typeId; }
+    }
+
+    private static final Map<String, Binding> TYPES = new HashMap<>();
+    private static final List<String> TYPE_NAMES = new ArrayList<>();
+
+    // The built-in types, declared before anything can be compiled; the game binds their handlers.
+    static {
+        for (String type : List.of(REMOVE_TARGET, DESCRIBE, SPAWN_ITEM, SET_DESCRIPTION, GRANT_ITEM,
+                INCREMENT_COUNTER, CONSUME, UNLOCK_EXIT, SET_EXIT_MESSAGE)) {
+            binding(type);
+        }
+    }
+
+    private String type;
+    private String subject;
+    private String text;
+    private int value;
+    private transient Binding binding;
+    private transient int item = -1;
+
+    public Effect() {}
+
+    public Effect(String type, String subject, String text, int value) {
+        this.type = type;
+        this.subject = subject;
+        this.text = text;
+        this.value = value;
+    }
+
+    public String getType() { return type; }
+    public String getSubject() { return subject; }
+    public String getText() { return text; }
+    public int getValue() { return value; }
+
+    // -1 until compiled.
+    public int getTypeId() { return binding != null ? binding.typeId : -1; }
+    public int getItem() { return item; }
+
+    // The handler this step was bound to when compiled; null before that.
+    @SuppressWarnings("unchecked")
+    public <C> Handler<C> getHandler() { return binding != null ? (Handler<C>) binding.handler : null; }
+
+    // A copy bound to its type's handler, with the subject's item id resolved.
+    public Effect compiled(int itemId) {
+        Binding bound = declared(type);
+        if (bound == null)
+            throw new IllegalArgumentException("Unknown effect type '" + type + "'.");
+        Effect compiled = new Effect(type, subject, text, value);
+        compiled.binding = bound;
+        compiled.item = itemId;
+        return compiled;
+    }
+
+    // Declares an effect type, or replaces the handler of one, including in steps already compiled; returns its id.
+    public static synchronized int declare(String type, Handler<?> handler) {
+        if (handler == null)
+            throw new IllegalArgumentException("Handler for effect '" + type + "' cannot be null.");
+        Binding bound = binding(type);
+        bound.handler = handler;
+        return bound.typeId;
+    }
+
+    public static boolean isDeclared(String type) {
+        return declared(type) != null;
+    }
+
+    // Handler of a declared type, or null when it has none yet.
+    public static Handler<?> handler(String type) {
+        Binding bound = declared(type);
+        return bound != null ? bound.handler : null;
+    }
+
+    // Id of a declared effect type, or -1.
+    public static int typeId(String type) {
+        Binding bound = declared(type);
+        return bound != null ? bound.typeId : -1;
+    }
+
+    public static synchronized String typeName(int typeId) {
+        return typeId >= 0 && typeId < TYPE_NAMES.size() ? TYPE_NAMES.get(typeId) : null;
+    }
+
+    private static synchronized Binding declared(String type) {
+        return type != null ? TYPES.get(type) : null;
+    }
+
+    private static Binding binding(String type) {
+        if (type == null || type.isBlank())
+            throw new IllegalArgumentException("Effect type cannot be null or empty.");
+        return TYPES.computeIfAbsent(type, name -> {
+            TYPE_NAMES.add(name);
+            return new Binding(TYPE_NAMES.size() - 1);
+        });
+    }
+
+    @Override
+    public String toString() {
+        return type + "[subject=" + subject + ", text=" + text + ", value=" + value + "]";
+    }
+}
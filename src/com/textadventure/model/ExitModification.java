@@ -4,10 +4,24 @@ public class ExitModification {
     private String direction;        
     private boolean clearRequiresItem; 
     private String setFailMessage;    
+    private int relocksAfterTurns;
 
     public String getDirection() { return direction; }
     public boolean isClearRequiresItem() { return clearRequiresItem; }
     public String getSetFailMessage() { return setFailMessage; }
+    // Turns after which an exit this opened locks again; 0 keeps it open.
+    public int getRelocksAfterTurns() { return relocksAfterTurns; }
 
     public ExitModification() {}
+
+    public ExitModification(String direction, boolean clearRequiresItem, String setFailMessage) {
+        this.direction = direction;
+        this.clearRequiresItem = clearRequiresItem;
+        this.setFailMessage = setFailMessage;
+    }
+
+    public ExitModification(String direction, boolean clearRequiresItem, String setFailMessage, int relocksAfterTurns) {
+        this(direction, clearRequiresItem, setFailMessage);
+        this.relocksAfterTurns = relocksAfterTurns;
+    }
 }
\ No newline at end of file
@@ -8,6 +8,8 @@ public class Item {
     private String description;
     private List<String> items;
     private Usability usability;
+    private int id = -1;
+    private final String lookupKey;
 
     public Item(String name, String description) {
         if (name == null || name.trim().isEmpty())
@@ -17,6 +19,7 @@ public class Item {
             throw new IllegalArgumentException("Item description cannot be null.");
 
         this.name = name;
+        this.lookupKey = ItemContainer.normalize(name);
         this.description = description;
         this.usability = null;
         this.items = null;
@@ -26,10 +29,25 @@ public class Item {
         return this.name;
     }
 
+    // Lower-cased name used by ItemContainer indexes.
+    public String getLookupKey() {
+        return this.lookupKey;
+    }
+
     public String getDescription() {
         return this.description;
     }
 
+    public int getId() {
+        return this.id;
+    }
+
+    public void assignId(int id) {
+        if (this.id >= 0 && this.id != id)
+            throw new IllegalStateException("Item '" + this.name + "' already has id " + this.id + ".");
+        this.id = id;
+    }
+
     public List<String> getItems() {
         return (items == null) ? List.of() : items;
     }
@@ -43,6 +61,8 @@ public class Item {
     }
 
     public static class Usability {
+        private static final Effect[] NO_EFFECTS = new Effect[0];
+
         private String target;
         private String effectDescription;
         private boolean consumesItem;
@@ -52,6 +72,9 @@ public class Item {
         private String changesRoomDescriptionTo;
         private String addsItemToInventory;
         private ExitModification modifiesExit;
+        private String incrementsCounter;
+        private List<Effect> effects;
+        private transient Effect[] pipeline = NO_EFFECTS;
 
         public String getTarget() { return target; }
         public String getEffectDescription() { return effectDescription; }
@@ -62,7 +85,29 @@ public class Item {
         public String getAddsTarget() { return addsTarget; }
         public String getChangesRoomDescriptionTo() { return changesRoomDescriptionTo; }
         public String getAddsItemToInventory() { return addsItemToInventory; }
+        public String getIncrementsCounter() { return incrementsCounter; }
+        // Steps listed under "effects", run after the ones the fields above compile to.
+        public List<Effect> getEffects() { return (effects == null) ? List.of() : effects; }
+
+        // Compiled when the item joins a world definition; empty until then.
+        public Effect[] getPipeline() { return pipeline; }
+        public void setPipeline(Effect[] pipeline) { this.pipeline = pipeline; }
 
         public Usability() {}
+
+        public Usability(String target, String effectDescription, boolean consumesItem, String unlocksExit,
+                String removesTarget, String addsTarget, String changesRoomDescriptionTo,
+                String addsItemToInventory, ExitModification modifiesExit, String incrementsCounter) {
+            this.target = target;
+            this.effectDescription = effectDescription;
+            this.consumesItem = consumesItem;
+            this.unlocksExit = unlocksExit;
+            this.removesTarget = removesTarget;
+            this.addsTarget = addsTarget;
+            this.changesRoomDescriptionTo = changesRoomDescriptionTo;
+            this.addsItemToInventory = addsItemToInventory;
+            this.modifiesExit = modifiesExit;
+            this.incrementsCounter = incrementsCounter;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,284 @@
+package com.textadventure.model;
+
+import com.textadventure.utils.PersistentMap;
+import com.textadventure.utils.PersistentVector;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Ordered collection of items with a case-insensitive name index. Items keep their insertion
+ * order and may share names; a lookup returns the earliest item with that name. Lookups with an
+ * already lower-case name (which is what the command parser produces) do not allocate.
+ *
+ * <p>Containers created with {@code trackItemIds} also keep a bitset of the ids of the items they
+ * hold, which compiled {@link Condition}s test with plain word operations.
+ *
+ * <p>The items, the name index and the id bitset are persistent structures, so copying a
+ * container is free and {@link #plus} / {@link #minus} copy only the paths they change: the
+ * versions kept for undo and by other sessions share everything else. A removed item leaves an
+ * empty slot behind until there are more empty slots than items.
+ */
+public class ItemContainer implements Iterable<Item> {
+
+    private static final int MIN_COMPACT = 32;
+
+    // Items in insertion order; null where an item was removed.
+    private PersistentVector<Item> slots;
+    // Ascending slot positions of the items under each lookup key.
+    private PersistentMap<String, int[]> index;
+    private PersistentVector<Long> idBits;
+    private int size;
+    private final List<Item> view = new View();
+    // Cached "a, b, c" rendering of the item names; dropped on every change.
+    private String nameList;
+
+    public ItemContainer() {
+        this(false);
+    }
+
+    public ItemContainer(boolean trackItemIds) {
+        this.slots = PersistentVector.empty();
+        this.index = PersistentMap.empty();
+        this.idBits = trackItemIds ? PersistentVector.empty() : null;
+    }
+
+    // Shares the source's structure; later changes to either one leave the other as it was.
+    public ItemContainer(ItemContainer source) {
+        this.slots = source.slots;
+        this.index = source.index;
+        this.idBits = source.idBits;
+        this.size = source.size;
+        this.nameList = source.nameList;
+    }
+
+    public static String normalize(String itemName) {
+        return itemName.toLowerCase(Locale.ROOT);
+    }
+
+    // A copy holding the item as well; this container is left unchanged.
+    public ItemContainer plus(Item item) {
+        ItemContainer next = new ItemContainer(this);
+        next.add(item);
+        return next;
+    }
+
+    // A copy without the item; this container itself when it does not hold the item.
+    public ItemContainer minus(Item item) {
+        if (!contains(item)) return this;
+        ItemContainer next = new ItemContainer(this);
+        next.remove(item);
+        return next;
+    }
+
+    public void add(Item item) {
+        if (item == null)
+            throw new IllegalArgumentException("Cannot add a null item.");
+        int[] positions = index.get(item.getLookupKey());
+        int[] next = positions == null ? new int[1] : Arrays.copyOf(positions, positions.length + 1);
+        next[next.length - 1] = slots.size();
+        slots = slots.plus(item);
+        index = index.plus(item.getLookupKey(), next);
+        size++;
+        nameList = null;
+        if (idBits != null && item.getId() >= 0) setIdBit(item.getId());
+    }
+
+    public boolean remove(Item item) {
+        if (item == null)
+            throw new IllegalArgumentException("Cannot remove a null item.");
+        int[] positions = index.get(item.getLookupKey());
+        int at = positions != null ? indexOf(positions, item) : -1;
+        if (at < 0) return false;
+        slots = slots.with(positions[at], null);
+        size--;
+        nameList = null;
+        // Items with the same id are copies of one definition, so they share the lookup key.
+        boolean lastWithId = true;
+        if (positions.length == 1) {
+            index = index.minus(item.getLookupKey());
+        } else {
+            int[] next = new int[positions.length - 1];
+            System.arraycopy(positions, 0, next, 0, at);
+            System.arraycopy(positions, at + 1, next, at, next.length - at);
+            index = index.plus(item.getLookupKey(), next);
+            lastWithId = !holdsId(next, item.getId());
+        }
+        if (idBits != null && item.getId() >= 0 && lastWithId) clearIdBit(item.getId());
+        int empty = slots.size() - size;
+        if (empty > MIN_COMPACT && empty > size) compact();
+        return true;
+    }
+
+    // Returns the first item with the given name (case-insensitive), or null.
+    public Item find(String itemName) {
+        if (itemName == null || itemName.isBlank()) return null;
+        int[] positions = index.get(normalize(itemName));
+        return positions != null ? slots.get(positions[0]) : null;
+    }
+
+    public Item removeByName(String itemName) {
+        Item item = find(itemName);
+        if (item != null) remove(item);
+        return item;
+    }
+
+    public boolean contains(Item item) {
+        int[] positions = item != null ? index.get(item.getLookupKey()) : null;
+        return positions != null && indexOf(positions, item) >= 0;
+    }
+
+    public int countNamed(String itemName) {
+        int[] positions = itemName != null ? index.get(normalize(itemName)) : null;
+        return positions != null ? positions.length : 0;
+    }
+
+    // Word of the item-id bitset holding ids [64 * wordIndex, 64 * wordIndex + 63]; 0 when not tracked.
+    public long idWord(int wordIndex) {
+        return idBits != null && wordIndex < idBits.size() ? idBits.get(wordIndex) : 0L;
+    }
+
+    public boolean hasItemId(int itemId) {
+        return itemId >= 0 && (idWord(itemId >>> 6) & (1L << itemId)) != 0;
+    }
+
+    // Comma-separated item names in order, computed once per change of the container.
+    public String getNameList() {
+        String names = nameList;
+        if (names == null) {
+            StringBuilder joined = new StringBuilder(size * 16);
+            for (Item item : this) {
+                if (joined.length() > 0) joined.append(", ");
+                joined.append(item.getName());
+            }
+            names = joined.toString();
+            nameList = names;
+        }
+        return names;
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    public void clear() {
+        slots = PersistentVector.empty();
+        index = PersistentMap.empty();
+        if (idBits != null) idBits = PersistentVector.empty();
+        size = 0;
+        nameList = null;
+    }
+
+    // Read-only, insertion-ordered view backed by this container.
+    public List<Item> asList() { return view; }
+
+    @Override
+    public Iterator<Item> iterator() { return new Items(slots); }
+
+    // Package-private for tests that check what two versions share.
+    PersistentVector<Item> slots() { return slots; }
+
+    private int indexOf(int[] positions, Item item) {
+        for (int i = 0; i < positions.length; i++) {
+            if (slots.get(positions[i]) == item) return i;
+        }
+        return -1;
+    }
+
+    private boolean holdsId(int[] positions, int itemId) {
+        for (int position : positions) {
+            if (slots.get(position).getId() == itemId) return true;
+        }
+        return false;
+    }
+
+    private void setIdBit(int itemId) {
+        int word = itemId >>> 6;
+        while (idBits.size() <= word) idBits = idBits.plus(0L);
+        idBits = idBits.with(word, idBits.get(word) | 1L << itemId);
+    }
+
+    private void clearIdBit(int itemId) {
+        int word = itemId >>> 6;
+        if (word < idBits.size()) idBits = idBits.with(word, idBits.get(word) & ~(1L << itemId));
+    }
+
+    // Drops the empty slots, renumbering the index; the id bitset is unchanged.
+    private void compact() {
+        PersistentVector<Item> live = PersistentVector.empty();
+        PersistentMap<String, int[]> positions = PersistentMap.empty();
+        for (Item item : this) {
+            int[] at = positions.get(item.getLookupKey());
+            int[] next = at == null ? new int[1] : Arrays.copyOf(at, at.length + 1);
+            next[next.length - 1] = live.size();
+            positions = positions.plus(item.getLookupKey(), next);
+            live = live.plus(item);
+        }
+        slots = live;
+        index = positions;
+    }
+
+    // Walks one version of the slots, skipping the empty ones.
+    private static final class Items implements Iterator<Item> {
+        private final Iterator<Item> slots;
+        private Item next;
+
+        Items(PersistentVector<Item> slots) {
+            this.slots = slots.iterator();
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (next == null && slots.hasNext()) next = slots.next();
+        }
+
+        @Override
+        public boolean hasNext() { return next != null; }
+
+        @Override
+        public Item next() {
+            if (next == null) throw new NoSuchElementException();
+            Item item = next;
+            advance();
+            return item;
+        }
+    }
+
+    private final class View extends AbstractList<Item> {
+        @Override
+        public Item get(int position) {
+            Objects.checkIndex(position, size);
+            if (slots.size() == size) return slots.get(position);
+            for (Item item : ItemContainer.this) {
+                if (position-- == 0) return item;
+            }
+            throw new IllegalStateException("Container size out of step with its slots.");
+        }
+
+        @Override
+        public int size() { return size; }
+
+        @Override
+        public Iterator<Item> iterator() { return ItemContainer.this.iterator(); }
+
+        // Walks both lists once, rather than by position.
+        @Override
+        public boolean equals(Object other) {
+            if (other == this) return true;
+            if (!(other instanceof List<?> list) || list.size() != size) return false;
+            Iterator<?> theirs = list.iterator();
+            for (Item item : this) {
+                if (!Objects.equals(item, theirs.next())) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() { return super.hashCode(); }
+    }
+}
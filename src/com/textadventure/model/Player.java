@@ -1,71 +1,90 @@
 package com.textadventure.model;
 
+import com.textadventure.utils.Log;
+
 import java.util.List;
 import java.util.Optional;
-import java.util.ArrayList;
-import java.util.Iterator;
 
+// The inventory container is replaced, never changed, once set; earlier ones stay valid as snapshots.
 public class Player {
     private String currentRoomName;
-    private List<Item> inventory;
+    private int currentRoomId = -1;
+    private ItemContainer inventory;
 
     public Player() {
-        this.inventory = new ArrayList<>();
+        this.inventory = new ItemContainer(true);
     }
 
     public void takeItem(Item item) {
         if (item == null)
             throw new IllegalArgumentException("Cannot add a null item to player inventory.");
-        this.inventory.add(item);
+        this.inventory = inventory.plus(item);
     }
 
     public boolean dropItem(Item item) {
         if (item == null)
             throw new IllegalArgumentException("Cannot drop null item from player inventory.");
-        boolean removed = this.inventory.remove(item);
-        return removed;
+        ItemContainer next = inventory.minus(item);
+        if (next == inventory) return false;
+        this.inventory = next;
+        return true;
     }
 
     public List<Item> getInventory() {
+        return this.inventory.asList();
+    }
+
+    public ItemContainer getInventoryContainer() {
         return this.inventory;
     }
 
+    public void clearInventory() {
+        this.inventory = new ItemContainer(true);
+    }
+
+    // Puts back a container from getInventoryContainer(), e.g. when undoing; it is shared, not copied.
+    public void restoreInventory(ItemContainer inventory) {
+        if (inventory == null)
+            throw new IllegalArgumentException("Cannot restore a null inventory.");
+        this.inventory = inventory;
+    }
+
     public boolean removeItem(String itemName) {
-        if (itemName == null || itemName.isBlank() || inventory == null) {
+        if (itemName == null || itemName.isBlank()) {
             return false;
         }
-        Iterator<Item> iterator = inventory.iterator();
-        while (iterator.hasNext()) {
-            Item item = iterator.next();
-            if (item.getName() != null && item.getName().equalsIgnoreCase(itemName)) {
-                iterator.remove();
-                System.out.println("[Player Debug] Removed '" + itemName + "' from inventory."); 
-                return true;
-            }
+        Item item = inventory.find(itemName);
+        if (item != null && dropItem(item)) {
+            Log.GAME.debug(() -> "Removed '" + itemName + "' from inventory.");
+            return true;
         }
-        System.out.println("[Player Debug] Item '" + itemName + "' not found in inventory to remove."); 
-        return false; 
+        Log.GAME.debug(() -> "Item '" + itemName + "' not found in inventory to remove.");
+        return false;
     }
 
     public String getCurrentRoomName() {
         return this.currentRoomName;
     }
 
-    public void setCurrentRoomName(String newRoomName) {
-        if (newRoomName == null || newRoomName.trim().isEmpty())
+    public int getCurrentRoomId() {
+        return this.currentRoomId;
+    }
+
+    public void setCurrentRoom(int roomId, String roomName) {
+        if (roomId < 0)
+            throw new IllegalArgumentException("Cannot set current room id to a negative value.");
+        if (roomName == null || roomName.trim().isEmpty())
             throw new IllegalArgumentException("Cannot set current room name to null or empty.");
-        this.currentRoomName = newRoomName.trim();
+        this.currentRoomId = roomId;
+        this.currentRoomName = roomName.trim();
     }
 
     public Optional<Item> findItemInventory(String itemName) {
-        if (itemName == null || itemName.isBlank()) {
-            return Optional.empty();
-        }
-        for (Item item : inventory) {
-            if (item.getName().equalsIgnoreCase(itemName)) {
-                return Optional.of(item);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(inventory.find(itemName));
+    }
+
+    // Allocation-free variant of findItemInventory for the command path; returns null when absent.
+    public Item findInventoryItem(String itemName) {
+        return inventory.find(itemName);
     }
 }
\ No newline at end of file
@@ -1,6 +1,9 @@
 package com.textadventure.model;
 
+import com.textadventure.utils.Log;
+
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -12,7 +15,9 @@ public class Room {
     private String name;
     private String description;
     private Map<String, String> exits = new HashMap<>();
-    private List<Item> items;
+    private final ItemContainer items;
+    private boolean frozen;
+    private int id = -1;
 
     public Room(String name, String description) {
         if (name == null || name.trim().isEmpty())
@@ -23,20 +28,44 @@ public class Room {
         this.name = name.trim();
         this.description = description;
         this.exits = new HashMap<>();
-        this.items = new ArrayList<>();
+        this.items = new ItemContainer();
         this.conditionalDescriptions = new ArrayList<>();
     }
 
+    // Called once a room becomes part of a shared world definition; later changes go to a WorldState overlay.
+    public void freeze() {
+        if (frozen) return;
+        this.frozen = true;
+        this.exit = Collections.unmodifiableMap(this.exit);
+        this.exits = Collections.unmodifiableMap(targetsByDirection());
+        this.conditionalDescriptions = Collections.unmodifiableList(this.conditionalDescriptions);
+    }
+
+    public boolean isFrozen() { return frozen; }
+
+    public int getId() { return id; }
+
+    public void assignId(int id) {
+        if (this.id >= 0 && this.id != id)
+            throw new IllegalStateException("Room '" + this.name + "' already has id " + this.id + ".");
+        this.id = id;
+    }
+
     public String getName() { return this.name; }
     public String getDescription() { return this.description; }
     public List<ConditionalDescription> getConditionalDescriptions() { return conditionalDescriptions; }
 
     public void setDescription(String newDescription) {
+        checkNotFrozen();
         this.description = newDescription;
-        System.out.println("[Room Debug] Description for room '" + this.name + "' changed.");
+        Log.GAME.debug(() -> "Description for room '" + this.name + "' changed.");
     }
 
     public Map<String, String> getExits() {
+        return frozen ? exits : targetsByDirection();
+    }
+
+    private Map<String, String> targetsByDirection() {
         Map<String, String> simple = new HashMap<>();
         for (Map.Entry<String, ExitData> e : exit.entrySet()) {
             if (e.getValue().getTargetRoom() != null) {
@@ -48,17 +77,20 @@ public class Room {
 
     public Map<String, ExitData> getExit() { return exit; }
 
-    public List<Item> getItems() { return this.items; }
+    public List<Item> getItems() { return this.items.asList(); }
+    public ItemContainer getItemContainer() { return this.items; }
 
     public void addItem(Item item) {
         if (item == null)
             throw new IllegalArgumentException("Cannot add a null item to the room.");
+        checkNotFrozen();
         this.items.add(item);
     }
 
     public void removeItem(Item item) {
         if (item == null)
             throw new IllegalArgumentException("Cannot remove a null item from the room.");
+        checkNotFrozen();
         this.items.remove(item);
     }
 
@@ -78,24 +110,16 @@ public class Room {
     }
 
     public Optional<Item> findItemByName(String itemName) {
-        if (itemName == null || itemName.isBlank()) {
-            return Optional.empty();
-        }
-        for (Item item : this.items) {
-            if (item.getName().equalsIgnoreCase(itemName)) {
-                return Optional.of(item);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(this.items.find(itemName));
     }
 
     public Item removeItem(String targetToRemove) {
-        Optional<Item> opt = findItemByName(targetToRemove);
-        if (opt.isPresent()) {
-            Item item = opt.get();
-            this.items.remove(item);
-            return item;
-        }
-        return null;
+        checkNotFrozen();
+        return this.items.removeByName(targetToRemove);
+    }
+
+    private void checkNotFrozen() {
+        if (frozen)
+            throw new UnsupportedOperationException("Room '" + this.name + "' is part of a shared world definition.");
     }
 }
\ No newline at end of file
@@ -0,0 +1,153 @@
+package com.textadventure.persistence;
+
+import com.textadventure.engine.WorldDefinition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Append-only in-memory log of a game's {@link StateDelta}s, packed into an int array of three
+ * words per event: kind and room id, subject, value. Items are stored by their world id; other
+ * subjects (directions, descriptions, counter names) go through a string table, so repeated
+ * values cost one int each, and an event's text goes in its value word as a string id too.
+ * Appending allocates nothing once the array and the table have grown to fit. The change a
+ * {@code CHANGE_SCHEDULED} event makes is kept aside by event number, since it has fields of its own.
+ *
+ * <p>Events are numbered from the start of the game; {@link #discardBefore} frees the oldest ones
+ * without renumbering the rest, so a long game can keep a bounded window of its history.
+ */
+public final class EventLog {
+
+    private static final int STRIDE = 3;
+    private static final int KIND_BITS = 4;
+    private static final StateDelta.Kind[] KINDS = StateDelta.Kind.values();
+
+    private final WorldDefinition world;
+    private int[] words = new int[STRIDE * 256];
+    private int size;
+    // Events before this were discarded; words[0] holds this one.
+    private int first;
+    // Events before this are intact, including ones a truncate dropped that no append has overwritten yet.
+    private int written;
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    // The change of each CHANGE_SCHEDULED event held, by event number.
+    private final NavigableMap<Integer, StateDelta> scheduledChanges = new TreeMap<>();
+
+    public EventLog(WorldDefinition world) {
+        if (world == null)
+            throw new IllegalArgumentException("Event log requires a world definition.");
+        this.world = world;
+    }
+
+    public int size() { return size; }
+
+    // Number of the oldest event still held.
+    public int first() { return first; }
+
+    // Bytes the packed events take up, not counting the string table.
+    public long getEventBytes() { return (long) (size - first) * STRIDE * Integer.BYTES; }
+
+    public void append(StateDelta delta) {
+        int room = -1;
+        if (delta.getRoom() != null) {
+            room = world.roomId(delta.getRoom());
+            if (room < 0)
+                throw new IllegalArgumentException("Unknown room in event " + delta + ".");
+        }
+        int subject = isItemKind(delta.getKind()) ? world.itemId(delta.getSubject()) : stringId(delta.getSubject());
+        if (subject < 0 && delta.getSubject() != null)
+            throw new IllegalArgumentException("Unknown item in event " + delta + ".");
+        if ((size - first) * STRIDE == words.length) words = Arrays.copyOf(words, words.length * 2);
+        int at = (size - first) * STRIDE;
+        words[at] = delta.getKind().ordinal() | (room + 1) << KIND_BITS;
+        words[at + 1] = subject;
+        words[at + 2] = delta.getKind() == StateDelta.Kind.EXIT_MESSAGE_CHANGED ? stringId(delta.getText()) : delta.getValue();
+        if (delta.getKind() == StateDelta.Kind.CHANGE_SCHEDULED) scheduledChanges.put(size, delta.getChange());
+        written = ++size;
+    }
+
+    // Kind of an event, without decoding the rest of it.
+    public StateDelta.Kind kind(int index) {
+        checkIndex(index);
+        return KINDS[words[(index - first) * STRIDE] & ((1 << KIND_BITS) - 1)];
+    }
+
+    public StateDelta get(int index) {
+        checkIndex(index);
+        int at = (index - first) * STRIDE;
+        StateDelta.Kind kind = KINDS[words[at] & ((1 << KIND_BITS) - 1)];
+        int roomId = (words[at] >>> KIND_BITS) - 1;
+        String room = roomId >= 0 ? world.room(roomId).getName() : null;
+        int subject = words[at + 1];
+        String subjectName = subject < 0 ? null
+                : isItemKind(kind) ? world.item(subject).getName() : strings.get(subject);
+        return switch (kind) {
+            case PLAYER_MOVED -> StateDelta.playerMoved(room);
+            case ROOM_ITEM_ADDED -> StateDelta.roomItemAdded(room, subjectName);
+            case ROOM_ITEM_REMOVED -> StateDelta.roomItemRemoved(room, subjectName);
+            case INVENTORY_ADDED -> StateDelta.inventoryAdded(subjectName);
+            case INVENTORY_REMOVED -> StateDelta.inventoryRemoved(subjectName);
+            case DESCRIPTION_CHANGED -> StateDelta.descriptionChanged(room, subjectName);
+            case EXIT_UNLOCKED -> StateDelta.exitUnlocked(room, subjectName);
+            case COUNTER_SET -> StateDelta.counterSet(subjectName, words[at + 2]);
+            case EXIT_LOCKED -> StateDelta.exitLocked(room, subjectName);
+            case EXIT_LOCK_SCHEDULED -> StateDelta.exitLockScheduled(room, subjectName, words[at + 2]);
+            case CLOCK_SET -> StateDelta.clockSet(words[at + 2]);
+            case EXIT_MESSAGE_CHANGED -> StateDelta.exitMessageChanged(room, subjectName,
+                    words[at + 2] >= 0 ? strings.get(words[at + 2]) : null);
+            case CHANGE_SCHEDULED -> StateDelta.changeScheduled(scheduledChanges.get(index), words[at + 2]);
+        };
+    }
+
+    // Drops every event from the given index on, e.g. after rewinding to it.
+    public void truncate(int newSize) {
+        if (newSize < first || newSize > size)
+            throw new IndexOutOfBoundsException("Cannot truncate " + size + " events to " + newSize + ".");
+        size = newSize;
+    }
+
+    // Takes truncated events back, e.g. on redo; only possible while nothing was appended since.
+    public void extendTo(int newSize) {
+        if (newSize < size || newSize > written)
+            throw new IndexOutOfBoundsException("Cannot extend " + size + " events to " + newSize + " (" + written + " kept).");
+        size = newSize;
+    }
+
+    // Frees every event before the given one; they can no longer be read, truncated to or replayed.
+    public void discardBefore(int event) {
+        if (event > size)
+            throw new IndexOutOfBoundsException("Cannot discard past event " + size + ".");
+        if (event <= first) return;
+        int dropped = (event - first) * STRIDE;
+        System.arraycopy(words, dropped, words, 0, (written - first) * STRIDE - dropped);
+        if (!scheduledChanges.isEmpty()) scheduledChanges.headMap(event).clear();
+        first = event;
+    }
+
+    private void checkIndex(int index) {
+        if (index < first || index >= size)
+            throw new IndexOutOfBoundsException("Event " + index + " of " + first + " to " + size + ".");
+    }
+
+    private static boolean isItemKind(StateDelta.Kind kind) {
+        return kind == StateDelta.Kind.ROOM_ITEM_ADDED || kind == StateDelta.Kind.ROOM_ITEM_REMOVED
+                || kind == StateDelta.Kind.INVENTORY_ADDED || kind == StateDelta.Kind.INVENTORY_REMOVED;
+    }
+
+    private int stringId(String value) {
+        if (value == null) return -1;
+        Integer id = stringIds.get(value);
+        if (id == null) {
+            id = strings.size();
+            strings.add(value);
+            stringIds.put(value, id);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,259 @@
+package com.textadventure.persistence;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.textadventure.engine.WorldDefinition;
+import com.textadventure.utils.SaveState;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+
+/**
+ * Snapshot-plus-journal save file. A save is a {@link SaveState} snapshot (e.g.
+ * {@code savegame.sav}) and an append-only journal next to it ({@code savegame.sav.journal})
+ * holding the {@link StateDelta}s made since that snapshot. Snapshots are written in the binary
+ * {@link SnapshotCodec} format, or as JSON when the file name ends in {@code .json}; either format
+ * is recognized when reading.
+ *
+ * <p>Each {@link #append} writes one batch of length- and CRC-framed records and forces it to
+ * disk, so a save costs O(changes since the last save). Snapshots and fresh journals are written
+ * to a temporary file and renamed into place, and the directory is forced after each rename so
+ * the snapshot is never older on disk than the journal. Recovery stops at the first torn or corrupt record,
+ * so a crash mid-save leaves the previous good save intact. The journal header carries the
+ * generation of the snapshot it extends; a journal left over from another snapshot is ignored.
+ */
+public class SaveJournal {
+
+    private static final int MAGIC = 0x54414A4C; // "TAJL"
+    private static final int HEADER_BYTES = 12;  // magic, generation
+    private static final int RECORD_HEADER_BYTES = 8; // payload length, CRC32 of payload
+    public static final String JOURNAL_SUFFIX = ".journal";
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 4096;
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private final Path snapshotPath;
+    private final Path journalPath;
+    private final int compactionThreshold;
+    // Generation of the snapshot our journal extends; 0 until a snapshot was written or recovered.
+    private long generation;
+    private long journalSize;
+    private int journalRecords;
+
+    public SaveJournal(Path snapshotPath) {
+        this(snapshotPath, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    public SaveJournal(Path snapshotPath, int compactionThreshold) {
+        if (snapshotPath == null)
+            throw new IllegalArgumentException("Save file path cannot be null.");
+        if (compactionThreshold < 1)
+            throw new IllegalArgumentException("Compaction threshold must be positive.");
+        this.snapshotPath = snapshotPath;
+        this.journalPath = snapshotPath.resolveSibling(snapshotPath.getFileName() + JOURNAL_SUFFIX);
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    public Path getSnapshotPath() { return snapshotPath; }
+    public Path getJournalPath() { return journalPath; }
+    public int getJournalRecordCount() { return journalRecords; }
+
+    // True once this instance owns the files on disk, i.e. after a checkpoint or a recovery.
+    public boolean isAttached() { return generation != 0; }
+
+    public boolean needsCompaction() { return journalRecords >= compactionThreshold; }
+
+    /**
+     * Replaces the snapshot with {@code state} and starts an empty journal for it. Either rename
+     * may be interrupted by a crash; in both cases the files on disk still recover to a good save.
+     * When the journal cannot be replaced, this instance is left detached, so the next save starts
+     * with a checkpoint instead of appending records the new snapshot would never replay.
+     */
+    public void checkpoint(SaveState state) throws IOException {
+        long next;
+        do {
+            next = ThreadLocalRandom.current().nextLong();
+        } while (next == 0 || next == generation);
+        state.setJournalGeneration(next);
+
+        Path snapshotTemp = temp(snapshotPath);
+        try (FileChannel channel = FileChannel.open(snapshotTemp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            if (snapshotPath.getFileName().toString().endsWith(".json")) {
+                Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8);
+                GSON.toJson(state, writer);
+                writer.flush();
+            } else {
+                ByteBuffer encoded = ByteBuffer.wrap(SnapshotCodec.encode(state));
+                while (encoded.hasRemaining()) channel.write(encoded);
+            }
+            channel.force(true);
+        }
+        Files.move(snapshotTemp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // The old journal no longer matches the snapshot on disk, whatever happens below.
+        this.generation = 0;
+        // Otherwise a crash could keep the new journal's rename but lose the snapshot's, pairing the
+        // old snapshot with a journal it does not own and dropping every record it had.
+        forceDirectory(snapshotPath);
+
+        Path journalTemp = temp(journalPath);
+        try (FileChannel channel = FileChannel.open(journalTemp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putLong(next);
+            header.flip();
+            while (header.hasRemaining()) channel.write(header);
+            channel.force(true);
+        }
+        Files.move(journalTemp, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(journalPath);
+
+        this.generation = next;
+        this.journalSize = HEADER_BYTES;
+        this.journalRecords = 0;
+    }
+
+    // Appends the deltas as a single batched write after the last good record, then forces it to disk.
+    public void append(List<StateDelta> deltas) throws IOException {
+        if (!isAttached())
+            throw new IllegalStateException("Journal has no snapshot; call checkpoint or recover first.");
+        if (deltas.isEmpty()) return;
+
+        ByteArrayOutputStream batch = new ByteArrayOutputStream(deltas.size() * 48);
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(64);
+        DataOutputStream payloadOut = new DataOutputStream(payload);
+        DataOutputStream batchOut = new DataOutputStream(batch);
+        CRC32 crc = new CRC32();
+        for (StateDelta delta : deltas) {
+            payload.reset();
+            delta.writeTo(payloadOut);
+            crc.reset();
+            crc.update(payload.toByteArray());
+            batchOut.writeInt(payload.size());
+            batchOut.writeInt((int) crc.getValue());
+            payload.writeTo(batchOut);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+            // Drop a torn tail from an earlier crash so new records directly follow the last good one.
+            if (channel.size() > journalSize) channel.truncate(journalSize);
+            long position = journalSize;
+            while (buffer.hasRemaining()) position += channel.write(buffer, position);
+            channel.force(false);
+        }
+        journalSize += batch.size();
+        journalRecords += deltas.size();
+    }
+
+    /**
+     * Reads the snapshot, resolved against {@code world}, and every intact journal record that
+     * belongs to it, and attaches this instance to those files. Throws {@link NoSuchFileException}
+     * when there is no snapshot.
+     */
+    public Recovery recover(WorldDefinition world) throws IOException {
+        byte[] data = Files.readAllBytes(snapshotPath);
+        Snapshot snapshot;
+        if (SnapshotCodec.isBinary(data)) {
+            snapshot = SnapshotCodec.decode(data, world);
+        } else {
+            SaveState state;
+            try {
+                state = GSON.fromJson(new String(data, StandardCharsets.UTF_8), SaveState.class);
+            } catch (JsonParseException e) {
+                throw new IOException("Save file " + snapshotPath + " is corrupt: " + e.getMessage(), e);
+            }
+            if (state == null)
+                throw new IOException("Save file " + snapshotPath + " is empty.");
+            snapshot = Snapshot.resolve(state, world);
+        }
+
+        List<StateDelta> deltas = new ArrayList<>();
+        long validSize = HEADER_BYTES;
+        boolean tornTail = false;
+        long expected = snapshot.getJournalGeneration();
+        byte[] journal = expected != 0 && Files.exists(journalPath) ? Files.readAllBytes(journalPath) : null;
+        ByteBuffer in = journal != null ? ByteBuffer.wrap(journal) : null;
+
+        if (in != null && in.remaining() >= HEADER_BYTES && in.getInt() == MAGIC && in.getLong() == expected) {
+            CRC32 crc = new CRC32();
+            while (in.remaining() >= RECORD_HEADER_BYTES) {
+                int length = in.getInt();
+                int checksum = in.getInt();
+                if (length < 0 || length > in.remaining()) break;
+                crc.reset();
+                crc.update(journal, in.position(), length);
+                if ((int) crc.getValue() != checksum) break;
+                try {
+                    deltas.add(StateDelta.readFrom(new DataInputStream(
+                            new ByteArrayInputStream(journal, in.position(), length))));
+                } catch (IOException e) {
+                    break;
+                }
+                in.position(in.position() + length);
+                validSize = in.position();
+            }
+            tornTail = validSize < journal.length;
+            this.generation = expected;
+            this.journalSize = validSize;
+            this.journalRecords = deltas.size();
+        } else {
+            // No journal for this snapshot (a legacy save, or a crash right after the snapshot rename).
+            this.generation = 0;
+        }
+        return new Recovery(snapshot, deltas, tornTail);
+    }
+
+    // Makes the renames in the file's directory durable. Some platforms cannot open a directory;
+    // there the rename is as durable as the file system makes it.
+    private static void forceDirectory(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException | UnsupportedOperationException e) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    private static Path temp(Path path) {
+        return path.resolveSibling(path.getFileName() + ".tmp");
+    }
+
+    public static final class Recovery {
+        private final Snapshot snapshot;
+        private final List<StateDelta> deltas;
+        private final boolean tornTail;
+
+        Recovery(Snapshot snapshot, List<StateDelta> deltas, boolean tornTail) {
+            this.snapshot = snapshot;
+            this.deltas = deltas;
+            this.tornTail = tornTail;
+        }
+
+        public Snapshot getSnapshot() { return snapshot; }
+        public List<StateDelta> getDeltas() { return deltas; }
+        // True when the journal ended in an incomplete or corrupt record that was skipped.
+        public boolean hasTornTail() { return tornTail; }
+    }
+}
@@ -0,0 +1,135 @@
+package com.textadventure.persistence;
+
+import com.textadventure.engine.WorldDefinition;
+import com.textadventure.model.Item;
+import com.textadventure.model.ItemContainer;
+import com.textadventure.model.Room;
+import com.textadventure.utils.Log;
+import com.textadventure.utils.SaveState;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A save snapshot resolved against a {@link WorldDefinition}: rooms and items are the world's own
+ * objects and room contents are ready-made containers, so a game can install the whole state in
+ * one step. Unknown rooms and items are skipped with a warning.
+ */
+public final class Snapshot {
+
+    private final String playerRoom;
+    private final List<Item> inventory;
+    private final Map<String, ItemContainer> roomItems;
+    private final Map<String, String> descriptions;
+    private final Map<String, Set<String>> unlockedExits;
+    private final Map<String, Integer> counters;
+    private final Map<String, Map<String, String>> exitMessages;
+    private final long journalGeneration;
+
+    Snapshot(String playerRoom, List<Item> inventory, Map<String, ItemContainer> roomItems,
+            Map<String, String> descriptions, Map<String, Set<String>> unlockedExits,
+            Map<String, Integer> counters, Map<String, Map<String, String>> exitMessages, long journalGeneration) {
+        this.playerRoom = playerRoom;
+        this.inventory = inventory;
+        this.roomItems = roomItems;
+        this.descriptions = descriptions;
+        this.unlockedExits = unlockedExits;
+        this.counters = counters;
+        this.exitMessages = exitMessages;
+        this.journalGeneration = journalGeneration;
+    }
+
+    // Player room name, or null when the saved one does not exist in this world.
+    public String getPlayerRoom() { return playerRoom; }
+    public List<Item> getInventory() { return inventory; }
+    public Map<String, ItemContainer> getRoomItems() { return roomItems; }
+    public Map<String, String> getDescriptions() { return descriptions; }
+    public Map<String, Set<String>> getUnlockedExits() { return unlockedExits; }
+    public Map<String, Integer> getCounters() { return counters; }
+    public Map<String, Map<String, String>> getExitMessages() { return exitMessages; }
+    public long getJournalGeneration() { return journalGeneration; }
+
+    // Resolves a JSON save; legacy saves list every room, so rooms matching the definition are dropped.
+    static Snapshot resolve(SaveState state, WorldDefinition world) {
+        String location = state.getPlayerLocation();
+        if (!world.hasRoom(location)) {
+            Log.PERSISTENCE.warn("Loaded location '" + location + "' is invalid. Player location not updated.");
+            location = null;
+        }
+
+        List<Item> inventory = new ArrayList<>();
+        if (state.getPlayerInventory() != null) {
+            for (String itemName : state.getPlayerInventory()) {
+                Item item = world.getItem(itemName);
+                if (item != null) inventory.add(item);
+                else Log.PERSISTENCE.warn("Unknown item '" + itemName + "' in saved inventory. Skipping.");
+            }
+        } else {
+            Log.PERSISTENCE.warn("Saved inventory data is missing.");
+        }
+
+        Map<String, ItemContainer> roomItems = new HashMap<>();
+        if (state.getRoomItemStates() != null) {
+            for (Map.Entry<String, List<String>> entry : state.getRoomItemStates().entrySet()) {
+                Room room = knownRoom(world, entry.getKey());
+                if (room == null) continue;
+                ItemContainer items = new ItemContainer();
+                if (entry.getValue() != null) {
+                    for (String itemName : entry.getValue()) {
+                        Item item = world.getItem(itemName);
+                        if (item != null) items.add(item);
+                        else Log.PERSISTENCE.warn("Unknown item '" + itemName + "' in saved state for room '" + room.getName() + "'. Skipping.");
+                    }
+                }
+                if (!items.asList().equals(room.getItems())) roomItems.put(room.getName(), items);
+            }
+        } else {
+            Log.PERSISTENCE.warn("Saved room item state data is missing.");
+        }
+
+        Map<String, String> descriptions = new HashMap<>();
+        if (state.getRoomDescriptions() != null) {
+            for (Map.Entry<String, String> entry : state.getRoomDescriptions().entrySet()) {
+                if (entry.getValue() != null && knownRoom(world, entry.getKey()) != null)
+                    descriptions.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        Map<String, Set<String>> unlockedExits = new HashMap<>();
+        if (state.getUnlockedExits() != null) {
+            for (Map.Entry<String, List<String>> entry : state.getUnlockedExits().entrySet()) {
+                if (entry.getValue() != null && knownRoom(world, entry.getKey()) != null)
+                    unlockedExits.put(entry.getKey(), new HashSet<>(entry.getValue()));
+            }
+        }
+
+        Map<String, Integer> counters = new HashMap<>();
+        if (state.getCounters() != null) {
+            for (Map.Entry<String, Integer> entry : state.getCounters().entrySet()) {
+                if (entry.getValue() != null) counters.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        Map<String, Map<String, String>> exitMessages = new HashMap<>();
+        if (state.getExitMessages() != null) {
+            for (Map.Entry<String, Map<String, String>> entry : state.getExitMessages().entrySet()) {
+                if (entry.getValue() != null && knownRoom(world, entry.getKey()) != null)
+                    exitMessages.put(entry.getKey(), new HashMap<>(entry.getValue()));
+            }
+        }
+
+        return new Snapshot(location, inventory, roomItems, descriptions, unlockedExits, counters, exitMessages,
+                state.getJournalGeneration());
+    }
+
+    static Room knownRoom(WorldDefinition world, String roomName) {
+        Room room = world.getRoom(roomName);
+        if (room == null)
+            Log.PERSISTENCE.warn("Unknown room '" + roomName + "' in saved state. Skipping.");
+        return room;
+    }
+}
@@ -0,0 +1,270 @@
+package com.textadventure.persistence;
+
+import com.textadventure.engine.WorldDefinition;
+import com.textadventure.model.Item;
+import com.textadventure.model.ItemContainer;
+import com.textadventure.model.Room;
+import com.textadventure.utils.Log;
+import com.textadventure.utils.SaveState;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary encoding of a {@link SaveState}. Every distinct name or description is stored
+ * once in a string table and referenced by index, so decoding resolves each room and item name
+ * against the world a single time and builds room containers directly from the index lists.
+ *
+ * <pre>
+ * int magic "TASV", int version, long journalGeneration
+ * int stringCount, { int byteLength, utf8 bytes } * stringCount
+ * int playerLocation, int inventoryCount, int item * inventoryCount
+ * int roomCount, { int room, int itemCount, int item * itemCount } * roomCount
+ * int descriptionCount, { int room, int description } * descriptionCount
+ * int exitRoomCount, { int room, int directionCount, int direction * directionCount } * exitRoomCount
+ * int counterCount, { int name, int value } * counterCount
+ * int messageRoomCount, { int room, int messageCount, { int direction, int message } * messageCount } * messageRoomCount
+ * int crc32 of all preceding bytes
+ * </pre>
+ *
+ * <p>Version 1 saves end after the counters; they have no changed exit messages.
+ */
+public final class SnapshotCodec {
+
+    static final int MAGIC = 0x54415356; // "TASV"
+    private static final int VERSION = 2;
+
+    private SnapshotCodec() {}
+
+    public static boolean isBinary(byte[] data) {
+        return data.length >= 4 && ByteBuffer.wrap(data).getInt(0) == MAGIC;
+    }
+
+    public static byte[] encode(SaveState state) throws IOException {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+        DataOutputStream out = new DataOutputStream(body);
+
+        out.writeInt(intern(state.getPlayerLocation(), ids, strings));
+        writeNames(out, state.getPlayerInventory(), ids, strings);
+        writeNameLists(out, state.getRoomItemStates(), ids, strings);
+
+        Map<String, String> descriptions = orEmpty(state.getRoomDescriptions());
+        out.writeInt(descriptions.size());
+        for (Map.Entry<String, String> e : descriptions.entrySet()) {
+            out.writeInt(intern(e.getKey(), ids, strings));
+            out.writeInt(intern(e.getValue(), ids, strings));
+        }
+
+        writeNameLists(out, state.getUnlockedExits(), ids, strings);
+
+        Map<String, Integer> counters = orEmpty(state.getCounters());
+        out.writeInt(counters.size());
+        for (Map.Entry<String, Integer> e : counters.entrySet()) {
+            out.writeInt(intern(e.getKey(), ids, strings));
+            out.writeInt(e.getValue() != null ? e.getValue() : 0);
+        }
+
+        Map<String, Map<String, String>> exitMessages = orEmpty(state.getExitMessages());
+        out.writeInt(exitMessages.size());
+        for (Map.Entry<String, Map<String, String>> e : exitMessages.entrySet()) {
+            out.writeInt(intern(e.getKey(), ids, strings));
+            out.writeInt(e.getValue().size());
+            for (Map.Entry<String, String> message : e.getValue().entrySet()) {
+                out.writeInt(intern(message.getKey(), ids, strings));
+                out.writeInt(intern(message.getValue(), ids, strings));
+            }
+        }
+        out.flush();
+
+        ByteArrayOutputStream file = new ByteArrayOutputStream(body.size() + strings.size() * 16 + 32);
+        DataOutputStream header = new DataOutputStream(file);
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        header.writeLong(state.getJournalGeneration());
+        header.writeInt(strings.size());
+        for (String s : strings) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            header.writeInt(bytes.length);
+            header.write(bytes);
+        }
+        body.writeTo(header);
+        header.flush();
+
+        CRC32 crc = new CRC32();
+        crc.update(file.toByteArray());
+        header.writeInt((int) crc.getValue());
+        header.flush();
+        return file.toByteArray();
+    }
+
+    // Decodes a binary snapshot straight into world objects; each string is resolved at most once.
+    public static Snapshot decode(byte[] data, WorldDefinition world) throws IOException {
+        if (data.length < 24)
+            throw new IOException("Binary save is truncated.");
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 4);
+        ByteBuffer in = ByteBuffer.wrap(data);
+        if ((int) crc.getValue() != in.getInt(data.length - 4))
+            throw new IOException("Binary save is corrupt (checksum mismatch).");
+        if (in.getInt() != MAGIC)
+            throw new IOException("Not a binary save.");
+        int version = in.getInt();
+        if (version < 1 || version > VERSION)
+            throw new IOException("Unsupported binary save version " + version + ".");
+
+        try {
+            long generation = in.getLong();
+            String[] strings = new String[in.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                int length = in.getInt();
+                strings[i] = new String(data, in.position(), length, StandardCharsets.UTF_8);
+                in.position(in.position() + length);
+            }
+            Resolver resolver = new Resolver(strings, world);
+
+            int location = in.getInt();
+            Room playerRoom = location >= 0 ? resolver.room(location) : null;
+
+            int inventoryCount = in.getInt();
+            List<Item> inventory = new ArrayList<>(inventoryCount);
+            for (int i = 0; i < inventoryCount; i++) {
+                Item item = resolver.item(in.getInt());
+                if (item != null) inventory.add(item);
+            }
+
+            int roomCount = in.getInt();
+            Map<String, ItemContainer> roomItems = new HashMap<>(Math.max(16, roomCount * 2));
+            for (int r = 0; r < roomCount; r++) {
+                Room room = resolver.room(in.getInt());
+                int itemCount = in.getInt();
+                ItemContainer items = new ItemContainer();
+                for (int i = 0; i < itemCount; i++) {
+                    Item item = resolver.item(in.getInt());
+                    if (item != null) items.add(item);
+                }
+                if (room != null) roomItems.put(room.getName(), items);
+            }
+
+            int descriptionCount = in.getInt();
+            Map<String, String> descriptions = new HashMap<>();
+            for (int i = 0; i < descriptionCount; i++) {
+                Room room = resolver.room(in.getInt());
+                String description = strings[in.getInt()];
+                if (room != null) descriptions.put(room.getName(), description);
+            }
+
+            int exitRoomCount = in.getInt();
+            Map<String, Set<String>> unlockedExits = new HashMap<>();
+            for (int r = 0; r < exitRoomCount; r++) {
+                Room room = resolver.room(in.getInt());
+                int directionCount = in.getInt();
+                Set<String> directions = new HashSet<>();
+                for (int i = 0; i < directionCount; i++) directions.add(strings[in.getInt()]);
+                if (room != null) unlockedExits.put(room.getName(), directions);
+            }
+
+            int counterCount = in.getInt();
+            Map<String, Integer> counters = new HashMap<>();
+            for (int i = 0; i < counterCount; i++) {
+                String name = strings[in.getInt()];
+                counters.put(name, in.getInt());
+            }
+
+            Map<String, Map<String, String>> exitMessages = new HashMap<>();
+            int messageRoomCount = version >= 2 ? in.getInt() : 0;
+            for (int r = 0; r < messageRoomCount; r++) {
+                Room room = resolver.room(in.getInt());
+                int messageCount = in.getInt();
+                Map<String, String> messages = new HashMap<>();
+                for (int i = 0; i < messageCount; i++) messages.put(strings[in.getInt()], strings[in.getInt()]);
+                if (room != null) exitMessages.put(room.getName(), messages);
+            }
+
+            return new Snapshot(playerRoom != null ? playerRoom.getName() : null, inventory, roomItems,
+                    descriptions, unlockedExits, counters, exitMessages, generation);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Binary save is malformed.", e);
+        }
+    }
+
+    private static final class Resolver {
+        private final String[] strings;
+        private final WorldDefinition world;
+        private final Room[] rooms;
+        private final Item[] items;
+        private final boolean[] resolved;
+
+        Resolver(String[] strings, WorldDefinition world) {
+            this.strings = strings;
+            this.world = world;
+            this.rooms = new Room[strings.length];
+            this.items = new Item[strings.length];
+            this.resolved = new boolean[strings.length * 2];
+        }
+
+        Room room(int index) {
+            if (index < 0) return null;
+            if (!resolved[2 * index]) {
+                resolved[2 * index] = true;
+                rooms[index] = Snapshot.knownRoom(world, strings[index]);
+            }
+            return rooms[index];
+        }
+
+        Item item(int index) {
+            if (index < 0) return null;
+            if (!resolved[2 * index + 1]) {
+                resolved[2 * index + 1] = true;
+                items[index] = world.getItem(strings[index]);
+                if (items[index] == null)
+                    Log.PERSISTENCE.warn("Unknown item '" + strings[index] + "' in saved state. Skipping.");
+            }
+            return items[index];
+        }
+    }
+
+    private static void writeNames(DataOutputStream out, List<String> names, Map<String, Integer> ids,
+            List<String> strings) throws IOException {
+        List<String> values = names != null ? names : List.of();
+        out.writeInt(values.size());
+        for (String name : values) out.writeInt(intern(name, ids, strings));
+    }
+
+    private static void writeNameLists(DataOutputStream out, Map<String, ? extends List<String>> lists,
+            Map<String, Integer> ids, List<String> strings) throws IOException {
+        Map<String, ? extends List<String>> values = orEmpty(lists);
+        out.writeInt(values.size());
+        for (Map.Entry<String, ? extends List<String>> e : values.entrySet()) {
+            out.writeInt(intern(e.getKey(), ids, strings));
+            writeNames(out, e.getValue(), ids, strings);
+        }
+    }
+
+    private static int intern(String value, Map<String, Integer> ids, List<String> strings) {
+        if (value == null) return -1;
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = strings.size();
+            strings.add(value);
+            ids.put(value, id);
+        }
+        return id;
+    }
+
+    private static <K, V> Map<K, V> orEmpty(Map<K, V> map) {
+        return map != null ? map : Map.of();
+    }
+}
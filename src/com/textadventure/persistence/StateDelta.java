@@ -0,0 +1,140 @@
+package com.textadventure.persistence;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One change to a game's mutable state, as recorded in a {@link SaveJournal}. Rooms, items,
+ * directions and counters are referenced by name so a journal stays valid for any build of the
+ * same world.
+ */
+public final class StateDelta {
+
+    public enum Kind {
+        PLAYER_MOVED,        // room
+        ROOM_ITEM_ADDED,     // room, subject = item
+        ROOM_ITEM_REMOVED,   // room, subject = item
+        INVENTORY_ADDED,     // subject = item
+        INVENTORY_REMOVED,   // subject = item
+        DESCRIPTION_CHANGED, // room, subject = new description
+        EXIT_UNLOCKED,       // room, subject = direction
+        COUNTER_SET,         // subject = counter, value
+        EXIT_LOCKED,         // room, subject = direction
+        EXIT_LOCK_SCHEDULED, // room, subject = direction, value = tick it locks at
+        CLOCK_SET,           // value = tick
+        EXIT_MESSAGE_CHANGED, // room, subject = direction, text = new fail message
+        CHANGE_SCHEDULED     // value = tick it happens at, change = the change
+    }
+
+    private static final Kind[] KINDS = Kind.values();
+
+    private final Kind kind;
+    private final String room;
+    private final String subject;
+    private final int value;
+    private final String text;
+    private final StateDelta change;
+
+    private StateDelta(Kind kind, String room, String subject, int value) {
+        this(kind, room, subject, value, null, null);
+    }
+
+    private StateDelta(Kind kind, String room, String subject, int value, String text) {
+        this(kind, room, subject, value, text, null);
+    }
+
+    private StateDelta(Kind kind, String room, String subject, int value, String text, StateDelta change) {
+        this.kind = kind;
+        this.room = room;
+        this.subject = subject;
+        this.value = value;
+        this.text = text;
+        this.change = change;
+    }
+
+    public static StateDelta playerMoved(String room) { return new StateDelta(Kind.PLAYER_MOVED, room, null, 0); }
+    public static StateDelta roomItemAdded(String room, String item) { return new StateDelta(Kind.ROOM_ITEM_ADDED, room, item, 0); }
+    public static StateDelta roomItemRemoved(String room, String item) { return new StateDelta(Kind.ROOM_ITEM_REMOVED, room, item, 0); }
+    public static StateDelta inventoryAdded(String item) { return new StateDelta(Kind.INVENTORY_ADDED, null, item, 0); }
+    public static StateDelta inventoryRemoved(String item) { return new StateDelta(Kind.INVENTORY_REMOVED, null, item, 0); }
+    public static StateDelta descriptionChanged(String room, String description) { return new StateDelta(Kind.DESCRIPTION_CHANGED, room, description, 0); }
+    public static StateDelta exitUnlocked(String room, String direction) { return new StateDelta(Kind.EXIT_UNLOCKED, room, direction, 0); }
+    public static StateDelta counterSet(String counter, int value) { return new StateDelta(Kind.COUNTER_SET, null, counter, value); }
+    public static StateDelta exitLocked(String room, String direction) { return new StateDelta(Kind.EXIT_LOCKED, room, direction, 0); }
+    public static StateDelta exitLockScheduled(String room, String direction, int tick) { return new StateDelta(Kind.EXIT_LOCK_SCHEDULED, room, direction, tick); }
+    public static StateDelta clockSet(int tick) { return new StateDelta(Kind.CLOCK_SET, null, null, tick); }
+    public static StateDelta exitMessageChanged(String room, String direction, String message) { return new StateDelta(Kind.EXIT_MESSAGE_CHANGED, room, direction, 0, message); }
+
+    // The given change, made when the clock reaches the tick.
+    public static StateDelta changeScheduled(StateDelta change, int tick) {
+        if (change == null || !isSchedulable(change.kind))
+            throw new IllegalArgumentException("Cannot schedule " + change + ".");
+        return new StateDelta(Kind.CHANGE_SCHEDULED, null, null, tick, null, change);
+    }
+
+    // Kinds a timed change can be: changes to the state, not the clock's own events.
+    public static boolean isSchedulable(Kind kind) {
+        return kind != Kind.CLOCK_SET && kind != Kind.EXIT_LOCK_SCHEDULED && kind != Kind.CHANGE_SCHEDULED;
+    }
+
+    public Kind getKind() { return kind; }
+    public String getRoom() { return room; }
+    public String getSubject() { return subject; }
+    public int getValue() { return value; }
+    public String getText() { return text; }
+    // The change a CHANGE_SCHEDULED event makes when its tick comes; null for other kinds.
+    public StateDelta getChange() { return change; }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeByte(kind.ordinal());
+        writeString(out, room);
+        writeString(out, subject);
+        out.writeInt(value);
+        // Only kinds that carry text write it, so older journals read unchanged.
+        if (kind == Kind.EXIT_MESSAGE_CHANGED) writeString(out, text);
+        if (kind == Kind.CHANGE_SCHEDULED) change.writeTo(out);
+    }
+
+    static StateDelta readFrom(DataInputStream in) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= KINDS.length)
+            throw new IOException("Unknown journal record kind " + ordinal + ".");
+        Kind kind = KINDS[ordinal];
+        String room = readString(in);
+        String subject = readString(in);
+        int value = in.readInt();
+        if (kind == Kind.CHANGE_SCHEDULED) {
+            StateDelta change = readFrom(in);
+            if (!isSchedulable(change.kind))
+                throw new IOException("Journal record schedules " + change + ".");
+            return new StateDelta(kind, room, subject, value, null, change);
+        }
+        return new StateDelta(kind, room, subject, value, kind == Kind.EXIT_MESSAGE_CHANGED ? readString(in) : null);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return kind + "[room=" + room + ", subject=" + subject + ", value=" + value
+                + (text != null ? ", text=" + text : "") + (change != null ? ", change=" + change : "") + "]";
+    }
+}
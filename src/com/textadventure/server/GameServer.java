@@ -0,0 +1,146 @@
+package com.textadventure.server;
+
+import com.textadventure.engine.WorldDefinition;
+import com.textadventure.engine.GameLoader.GameDataException;
+import com.textadventure.game.SharedWorld;
+import com.textadventure.metrics.Metrics;
+import com.textadventure.metrics.MetricsExporter;
+import com.textadventure.utils.Log;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hosts many concurrent game sessions over one loaded world. The world definition is parsed once
+ * and shared read-only; every connection gets its own {@link GameSession} with private player and
+ * room state overlays. Clients talk a plain line-based protocol (e.g. {@code telnet localhost 4000}).
+ * With {@code --shared} all sessions play in one {@link SharedWorld} instead.
+ *
+ * <p>Usage: {@code GameServer [world.json|world.twi] [port] [--shared]}
+ */
+public class GameServer implements AutoCloseable {
+
+    private static final String DEFAULT_DATA_PATH = "data/adventure.json";
+    private static final int DEFAULT_PORT = 4000;
+
+    private final WorldDefinition sharedWorld;
+    // Null unless every session plays in the same world state.
+    private final SharedWorld commonState;
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessionExecutor;
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private final AtomicInteger sessionCounter = new AtomicInteger();
+    private final Set<String> playersOnline = ConcurrentHashMap.newKeySet();
+    private volatile boolean running = true;
+
+    public GameServer(WorldDefinition sharedWorld, int port) throws IOException {
+        this(sharedWorld, port, false);
+    }
+
+    public GameServer(WorldDefinition sharedWorld, int port, boolean sharedState) throws IOException {
+        if (sharedWorld == null)
+            throw new IllegalArgumentException("Server requires a loaded world.");
+        this.sharedWorld = sharedWorld;
+        this.commonState = sharedState ? new SharedWorld(sharedWorld) : null;
+        this.serverSocket = new ServerSocket(port, 512, InetAddress.getLoopbackAddress());
+        this.sessionExecutor = newSessionExecutor();
+    }
+
+    public int getPort() { return serverSocket.getLocalPort(); }
+    public int getActiveSessions() { return activeSessions.get(); }
+
+    public void serve() {
+        Log.SERVER.info(() -> "Listening on " + serverSocket.getLocalSocketAddress());
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                int sessionId = sessionCounter.incrementAndGet();
+                sessionExecutor.execute(() -> runSession(sessionId, socket));
+            } catch (IOException e) {
+                if (running)
+                    Log.SERVER.warn("Failed to accept connection: " + e.getMessage());
+            }
+        }
+    }
+
+    private void runSession(int sessionId, Socket socket) {
+        activeSessions.incrementAndGet();
+        try (socket) {
+            GameSession session = commonState != null
+                    ? new GameSession(sessionId, commonState, playersOnline, socket.getInputStream(), socket.getOutputStream())
+                    : new GameSession(sessionId, sharedWorld, playersOnline, socket.getInputStream(), socket.getOutputStream());
+            session.run();
+        } catch (IOException e) {
+            Log.SERVER.warn("Session " + sessionId + " ended with I/O error: " + e.getMessage());
+        } finally {
+            activeSessions.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        sessionExecutor.shutdown();
+        try {
+            sessionExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Virtual threads when the runtime has them (Java 21+), otherwise a cached platform-thread pool.
+    private static ExecutorService newSessionExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "game-session");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public static void main(String[] args) {
+        List<String> positional = new ArrayList<>();
+        boolean sharedState = false;
+        for (String arg : args) {
+            if (arg.equals("--shared")) sharedState = true;
+            else positional.add(arg);
+        }
+        String dataPath = positional.size() > 0 ? positional.get(0) : DEFAULT_DATA_PATH;
+        int port = positional.size() > 1 ? Integer.parseInt(positional.get(1)) : DEFAULT_PORT;
+
+        WorldDefinition world;
+        long start = System.nanoTime();
+        try {
+            world = WorldDefinition.load(dataPath);
+            Metrics.WORLD_LOAD.record(System.nanoTime() - start);
+        } catch (IOException | GameDataException e) {
+            Log.SERVER.error("Cannot load world from " + dataPath + ": " + e.getMessage());
+            return;
+        }
+
+        MetricsExporter metrics = MetricsExporter.startFromSystemProperties();
+        try (GameServer server = new GameServer(world, port, sharedState)) {
+            server.serve();
+        } catch (IOException e) {
+            Log.SERVER.error(e.getMessage(), e);
+        } finally {
+            if (metrics != null) metrics.close();
+        }
+    }
+}
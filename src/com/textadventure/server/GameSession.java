@@ -0,0 +1,200 @@
+package com.textadventure.server;
+
+import com.textadventure.engine.Command;
+import com.textadventure.engine.CommandParser;
+import com.textadventure.engine.WorldDefinition;
+import com.textadventure.engine.GameLoader.GameDataException;
+import com.textadventure.game.Game;
+import com.textadventure.game.SharedWorld;
+import com.textadventure.utils.Log;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * One connected player. Owns a {@link Game} whose player and world-state overlay are private to
+ * the session, while room and item definitions come from the server's shared world. Sessions
+ * created with a {@link SharedWorld} instead play in one state together with every other such
+ * session and see what the others in the same room do.
+ *
+ * <p>A session starts by asking the player's name, which names their save file
+ * ({@code savegame-<name>.sav}), so a player who reconnects gets their save back. Names are
+ * letters, digits, {@code -} and {@code _}, and are taken case-insensitively by one session at a
+ * time. Since anyone can type any name, the first session under a name is given a save key
+ * ({@link SaveKeys}), and later sessions under it must give that key before they play with that
+ * save; after {@link #KEY_ATTEMPTS} wrong keys the connection is closed.
+ */
+public class GameSession implements Runnable {
+
+    private static final Pattern PLAYER_NAME = Pattern.compile("[A-Za-z0-9_-]{1,24}");
+    static final int KEY_ATTEMPTS = 3;
+
+    private final int sessionId;
+    private final WorldDefinition sharedWorld;
+    private final SharedWorld commonState;
+    // Lower-case names of the players connected to the same server.
+    private final Set<String> playersOnline;
+    private final BufferedReader in;
+    private final PrintStream out;
+    private Path saveDirectory = Paths.get("");
+
+    public GameSession(int sessionId, WorldDefinition sharedWorld, Set<String> playersOnline,
+            InputStream input, OutputStream output) {
+        this(sessionId, sharedWorld, null, playersOnline, input, output);
+    }
+
+    public GameSession(int sessionId, SharedWorld commonState, Set<String> playersOnline,
+            InputStream input, OutputStream output) {
+        this(sessionId, commonState.getWorld(), commonState, playersOnline, input, output);
+    }
+
+    private GameSession(int sessionId, WorldDefinition sharedWorld, SharedWorld commonState,
+            Set<String> playersOnline, InputStream input, OutputStream output) {
+        this.sessionId = sessionId;
+        this.sharedWorld = sharedWorld;
+        this.commonState = commonState;
+        this.playersOnline = playersOnline;
+        this.in = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        this.out = new PrintStream(new BufferedOutputStream(output), false, StandardCharsets.UTF_8);
+    }
+
+    // Where save and key files go; the working directory unless set.
+    public GameSession saveDirectory(Path saveDirectory) {
+        if (saveDirectory == null)
+            throw new IllegalArgumentException("Save directory cannot be null.");
+        this.saveDirectory = saveDirectory;
+        return this;
+    }
+
+    // True when the name is safe to put in a file name.
+    public static boolean isValidPlayerName(String name) {
+        return name != null && PLAYER_NAME.matcher(name).matches();
+    }
+
+    @Override
+    public void run() {
+        String name;
+        try {
+            name = askName();
+        } catch (IOException e) {
+            Log.SERVER.warn("Session " + sessionId + " connection lost: " + e.getMessage());
+            return;
+        }
+        if (name == null) return;
+        try {
+            play(name);
+        } finally {
+            playersOnline.remove(name.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    // Asks until the player gives a valid name no one else is playing under, and its save key when
+    // it has one; null when the connection closes or too many keys were wrong.
+    private String askName() throws IOException {
+        int wrongKeys = 0;
+        while (prompt("What is your name? ")) {
+            String line = in.readLine();
+            if (line == null) return null;
+            String name = line.trim();
+            if (!isValidPlayerName(name)) {
+                out.println("Names are 1 to 24 letters, digits, '-' or '_'.");
+            } else if (!playersOnline.add(name.toLowerCase(Locale.ROOT))) {
+                out.println("Someone called " + name + " is already playing.");
+            } else {
+                boolean claimed = false;
+                try {
+                    claimed = claimSave(name);
+                } finally {
+                    if (!claimed) playersOnline.remove(name.toLowerCase(Locale.ROOT));
+                }
+                if (claimed) return name;
+                if (++wrongKeys == KEY_ATTEMPTS) {
+                    out.println("Too many wrong save keys.");
+                    out.flush();
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Hands out a key for a new name, or checks the one given for a name that has a key. A shared
+    // world keeps no saves, so it needs no key.
+    private boolean claimSave(String name) throws IOException {
+        if (commonState != null) return true;
+        Path keyFile = saveDirectory.resolve(saveFileName(name) + ".key");
+        if (!Files.exists(keyFile)) {
+            String key = SaveKeys.create(keyFile);
+            out.println("Your save key is " + key + ". Give it when you come back as " + name + " to get your save.");
+            return true;
+        }
+        if (!prompt("Save key for " + name + ": ")) return false;
+        String key = in.readLine();
+        if (key == null) throw new EOFException("Connection closed while asking for the save key.");
+        if (SaveKeys.matches(keyFile, key)) return true;
+        out.println("That is not the save key for " + name + ".");
+        return false;
+    }
+
+    private static String saveFileName(String name) {
+        return "savegame-" + name.toLowerCase(Locale.ROOT) + ".sav";
+    }
+
+    private void play(String name) {
+        Game game = new Game(out, StandardCharsets.UTF_8);
+        try {
+            if (commonState != null) {
+                game.joinSharedWorld(commonState, name);
+            } else {
+                game.initialize(sharedWorld);
+                game.setSaveFileName(saveDirectory.resolve(saveFileName(name)).toString());
+            }
+        } catch (GameDataException e) {
+            out.println("Server error: " + e.getMessage());
+            out.flush();
+            return;
+        }
+
+        out.println("========================================");
+        out.println(" Welcome to the Text Adventure Engine! ");
+        out.println("========================================");
+        game.processCommand("look");
+        CommandParser commandParser = game.getCommands().newParser();
+
+        try {
+            String line;
+            while (!game.isFinished() && prompt("> ") && (line = in.readLine()) != null) {
+                Command command = commandParser.parse(line);
+                if (command.isEmpty()) {
+                    out.println("Please enter a command.");
+                    continue;
+                }
+                game.processCommand(command);
+            }
+        } catch (IOException e) {
+            Log.SERVER.warn("Session " + sessionId + " connection lost: " + e.getMessage());
+        } finally {
+            game.close();
+            out.flush();
+        }
+    }
+
+    private boolean prompt(String text) {
+        out.print(text);
+        out.flush();
+        return !out.checkError();
+    }
+}
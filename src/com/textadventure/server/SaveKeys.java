@@ -0,0 +1,53 @@
+package com.textadventure.server;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * The secret that guards a player's save file on the server. The first session under a name is
+ * handed a random key and only its SHA-256 is kept, in a file next to the save; a later session
+ * under that name must give the key back before the save can be loaded or written.
+ */
+final class SaveKeys {
+
+    private static final int KEY_BYTES = 8;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private SaveKeys() {}
+
+    // Creates a key for a name that has none and returns it; fails if the key file already exists.
+    static String create(Path keyFile) throws IOException {
+        byte[] key = new byte[KEY_BYTES];
+        RANDOM.nextBytes(key);
+        String text = HexFormat.of().formatHex(key);
+        Files.writeString(keyFile, HexFormat.of().formatHex(hash(text)) + System.lineSeparator(),
+                StandardCharsets.US_ASCII, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        return text;
+    }
+
+    static boolean matches(Path keyFile, String key) throws IOException {
+        byte[] expected;
+        try {
+            expected = HexFormat.of().parseHex(Files.readString(keyFile, StandardCharsets.US_ASCII).trim());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Save key file " + keyFile + " is corrupt.", e);
+        }
+        return key != null && MessageDigest.isEqual(expected, hash(key.trim().toLowerCase(Locale.ROOT)));
+    }
+
+    private static byte[] hash(String key) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.US_ASCII));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+}
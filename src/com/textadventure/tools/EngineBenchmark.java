@@ -0,0 +1,198 @@
+package com.textadventure.tools;
+
+import com.textadventure.engine.Command;
+import com.textadventure.engine.CommandParser;
+import com.textadventure.engine.GameLoader;
+import com.textadventure.engine.Navigator;
+import com.textadventure.engine.Route;
+import com.textadventure.engine.WorldDefinition;
+import com.textadventure.engine.WorldGraph;
+import com.textadventure.game.Game;
+import com.textadventure.model.Condition;
+import com.textadventure.model.ConditionContext;
+import com.textadventure.model.ItemContainer;
+import com.textadventure.model.Room;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Micro-benchmarks for the engine's hot paths on a generated world: loading, parsing, the go /
+ * look / take / use commands, exit-condition checks, save / load and route queries. Each benchmark
+ * is warmed up, then timed over several iterations; the report gives the median time per operation
+ * and the bytes allocated per operation by the benchmark thread (the figure JMH's GC profiler
+ * reports as {@code gc.alloc.rate.norm}). Compare runs on the same machine and JVM flags.
+ *
+ * <p>The {@code jmh} Maven module runs the same benchmarks under JMH; this class needs nothing but
+ * the engine on the class path.
+ *
+ * <p>Usage: {@code EngineBenchmark [rooms] [loaderSizes] [iterations]}, e.g.
+ * {@code EngineBenchmark 10000 10,1000,100000,1000000 5}.
+ */
+public class EngineBenchmark {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    // Results are folded in here so the JIT cannot drop the measured work.
+    private static volatile long sink;
+
+    @FunctionalInterface
+    private interface Operation {
+        void run(int index) throws Exception;
+    }
+
+    private final int iterations;
+    private final PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+
+    private EngineBenchmark(int iterations) {
+        this.iterations = iterations;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rooms = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int[] loaderSizes = Arrays.stream((args.length > 1 ? args[1] : "10,1000,100000").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        Path dir = Files.createTempDirectory("engine-bench");
+        try {
+            EngineBenchmark bench = new EngineBenchmark(iterations);
+            System.out.printf("%-34s %14s %12s%n", "benchmark", "time/op", "alloc/op");
+            for (int size : loaderSizes) bench.loader(dir, size);
+            bench.commands(dir, rooms);
+        } finally {
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : files.toList()) Files.delete(file);
+            }
+            Files.delete(dir);
+        }
+    }
+
+    private void loader(Path dir, int rooms) throws Exception {
+        Path world = dir.resolve("world-" + rooms + ".json");
+        new WorldGenerator(rooms, 2, 42L).write(world);
+        int runs = rooms >= 100_000 ? 1 : Math.max(1, 100_000 / rooms);
+        measure("loadGameData (" + rooms + " rooms)", runs, i -> {
+            GameLoader loader = new GameLoader();
+            loader.loadGameData(world.toString());
+            sink += loader.getLoadedRooms().size();
+        });
+        Files.delete(world);
+    }
+
+    private void commands(Path dir, int rooms) throws Exception {
+        Path worldFile = dir.resolve("world.json");
+        new WorldGenerator(rooms, 2, 42L).write(worldFile);
+        GameLoader loader = new GameLoader();
+        loader.loadGameData(worldFile.toString());
+        WorldDefinition world = WorldDefinition.from(loader);
+        System.out.printf("-- %d rooms, %d items%n", world.getRoomCount(), world.getItemCount());
+
+        CommandParser parser = new CommandParser();
+        measure("CommandParser.parse", 1_000_000, i -> {
+            Command command = parser.parse("use key card on rusted door");
+            sink += command.verbId();
+        });
+
+        Game game = new Game(discard);
+        game.initialize(world);
+        // Room 3 is locked to the east; its key lies in room 2 (see WorldGenerator).
+        String start = WorldGenerator.roomName(3);
+        Room lockedRoom = world.getRoom(start);
+        WorldGraph graph = world.getGraph();
+        Condition lock = graph.exitCondition(graph.findExit(lockedRoom.getId(), graph.directionId("east")));
+        ItemContainer inventory = new ItemContainer(true);
+        inventory.add(world.getItem(WorldGenerator.keyName(3)));
+        ConditionContext context = new ConditionContext() {
+            @Override public long inventoryWord(int wordIndex) { return inventory.idWord(wordIndex); }
+            @Override public boolean roomHasItem(int itemId) { return false; }
+            @Override public int counter(String name) { return 0; }
+        };
+        measure("Condition.test (locked exit)", 10_000_000, i -> sink += lock.test(context) ? 1 : 0);
+
+        reset(game, world, start);
+        measure("processCommand go", 200_000, i -> game.processCommand((i & 1) == 0 ? "go south" : "go north"));
+        reset(game, world, start);
+        measure("processCommand look", 200_000, i -> game.processCommand("look"));
+        reset(game, world, start);
+        String item = WorldGenerator.itemName(3, 0);
+        measure("processCommand take + drop", 200_000, i -> game.processCommand(((i & 1) == 0 ? "take " : "drop ") + item));
+        int events = game.getEventCount();
+        measure("processCommand take + rewind", 20_000, i -> {
+            game.processCommand("take " + item);
+            game.rewind(events);
+        });
+        measure("processCommand take + undo", 200_000, i -> {
+            game.processCommand("take " + item);
+            game.processCommand("undo");
+        });
+        reset(game, world, start);
+        game.getPlayer().takeItem(world.getItem(WorldGenerator.keyName(3)));
+        String lockName = WorldGenerator.lockName(3);
+        measure("processCommand use (+ restore)", 200_000, i -> {
+            game.processCommand("use key 3 on lock 3");
+            game.getWorldState().addItem(lockedRoom, world.getItem(lockName));
+        });
+
+        reset(game, world, start);
+        game.setSaveFileName(dir.resolve("bench.sav").toString());
+        game.processCommand("save");
+        measure("processCommand move + save", 200, i -> {
+            game.processCommand((i & 1) == 0 ? "go south" : "go north");
+            game.processCommand("save");
+        });
+        measure("processCommand load", 200, i -> game.processCommand("load"));
+
+        reset(game, world, start);
+        Navigator navigator = game.getNavigator();
+        Random random = new Random(42L);
+        int[] targets = random.ints(1024, 0, world.getRoomCount()).toArray();
+        int from = world.roomId(start);
+        measure("Navigator.route (random rooms)", 2_000, i -> {
+            Route route = navigator.route(from, targets[i & 1023]);
+            sink += route != null ? route.getLength() : -1;
+        });
+        Files.delete(worldFile);
+    }
+
+    private static void reset(Game game, WorldDefinition world, String roomName) throws Exception {
+        game.initialize(world);
+        game.getPlayer().setCurrentRoom(world.roomId(roomName), roomName);
+    }
+
+    // Runs `ops` operations per iteration after one warm-up iteration, and prints the median.
+    private void measure(String name, int ops, Operation operation) throws Exception {
+        long[] nanos = new long[iterations];
+        long[] bytes = new long[iterations];
+        for (int iteration = -1; iteration < iterations; iteration++) {
+            long allocated = allocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < ops; i++) operation.run(i);
+            long elapsed = System.nanoTime() - start;
+            if (iteration >= 0) {
+                nanos[iteration] = elapsed;
+                bytes[iteration] = allocatedBytes() - allocated;
+            }
+        }
+        Arrays.sort(nanos);
+        Arrays.sort(bytes);
+        double nanosPerOp = (double) nanos[iterations / 2] / ops;
+        long bytesPerOp = bytes[iterations / 2] / ops;
+        String time = nanosPerOp >= 1e6 ? String.format("%.1f ms", nanosPerOp / 1e6)
+                : nanosPerOp >= 1e3 ? String.format("%.2f us", nanosPerOp / 1e3)
+                : String.format("%.1f ns", nanosPerOp);
+        System.out.printf("%-34s %14s %10d B%n", name, time, bytesPerOp);
+    }
+
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean threads)
+            return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        return 0;
+    }
+}
@@ -0,0 +1,78 @@
+package com.textadventure.tools;
+
+import com.textadventure.engine.GameLoader;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Measures wall time, peak heap and retained heap of {@link GameLoader#loadGameData(String)} on
+ * a world file, generating a synthetic one first when asked to. Run with a fixed heap (e.g.
+ * {@code -Xmx4g}) so peak figures are comparable between runs.
+ */
+public class LoaderBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: LoaderBenchmark <world.json> [runs] [generateRooms]");
+            return;
+        }
+        Path world = Paths.get(args[0]);
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        if (args.length > 2) {
+            new WorldGenerator(Integer.parseInt(args[2]), 2, 42L).roomsFirst(true).write(world);
+        }
+        System.out.printf("World file: %s (%.1f MB)%n", world, Files.size(world) / 1e6);
+
+        for (int run = 1; run <= runs; run++) {
+            settleHeap();
+            long baseline = usedHeap();
+            resetPeaks();
+
+            long start = System.nanoTime();
+            GameLoader loader = new GameLoader();
+            loader.loadGameData(world.toString());
+            long elapsed = System.nanoTime() - start;
+
+            long peak = peakHeap();
+            settleHeap();
+            long retained = usedHeap() - baseline;
+            System.out.printf("run %d: %d rooms, %d items, %.0f ms, peak heap %.1f MB, retained %.1f MB%n",
+                    run, loader.getLoadedRooms().size(), loader.getLoadedItems().size(), elapsed / 1e6,
+                    (peak - baseline) / 1e6, retained / 1e6);
+        }
+    }
+
+    private static void settleHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+    }
+
+    private static long usedHeap() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) used += pool.getUsage().getUsed();
+        }
+        return used;
+    }
+
+    private static void resetPeaks() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+        }
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+}
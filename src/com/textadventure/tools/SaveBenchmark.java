@@ -0,0 +1,170 @@
+package com.textadventure.tools;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.textadventure.engine.GameLoader;
+import com.textadventure.engine.WorldDefinition;
+import com.textadventure.game.Game;
+import com.textadventure.game.WorldState;
+import com.textadventure.model.Item;
+import com.textadventure.model.Player;
+import com.textadventure.model.Room;
+import com.textadventure.utils.SaveState;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Compares the original full-world JSON save/restore against the snapshot path {@link Game} now
+ * uses (changed state only, binary, bulk restore) on a generated world. The legacy path is
+ * reproduced here as it was, including its per-item debug lines; those go to a discarding stream,
+ * so its figures exclude console I/O and are a lower bound.
+ */
+public class SaveBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int rooms = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        double changedFraction = args.length > 1 ? Double.parseDouble(args[1]) : 0.05;
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        Path dir = Files.createTempDirectory("save-bench");
+        Path worldFile = dir.resolve("world.json");
+        new WorldGenerator(rooms, 2, 42L).write(worldFile);
+        GameLoader loader = new GameLoader();
+        loader.loadGameData(worldFile.toString());
+        WorldDefinition world = WorldDefinition.from(loader);
+
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        Game game = new Game(discard);
+        game.initialize(world);
+        int changed = mutate(game, changedFraction);
+        System.out.printf("World: %d rooms, %d items; %d rooms changed%n", world.getRoomCount(), world.getItemCount(), changed);
+
+        Path legacyFile = dir.resolve("legacy.json");
+        long[] legacySave = new long[runs];
+        long[] legacyLoad = new long[runs];
+        long[] snapshotSave = new long[runs];
+        long[] snapshotLoad = new long[runs];
+        Path snapshotFile = null;
+        for (int run = 0; run < runs; run++) {
+            long start = System.nanoTime();
+            legacySave(world, game.getWorldState(), game.getPlayer(), legacyFile);
+            legacySave[run] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            legacyLoad(world, game.getWorldState(), game.getPlayer(), legacyFile, discard);
+            legacyLoad[run] = System.nanoTime() - start;
+
+            // A fresh file each run, so every save is a full checkpoint rather than a journal append.
+            snapshotFile = dir.resolve("snapshot-" + run + ".sav");
+            game.setSaveFileName(snapshotFile.toString());
+            start = System.nanoTime();
+            game.processCommand("save");
+            snapshotSave[run] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            game.processCommand("load");
+            snapshotLoad[run] = System.nanoTime() - start;
+        }
+
+        System.out.printf("legacy JSON : save %7.2f ms, restore %7.2f ms, %,d bytes%n",
+                median(legacySave), median(legacyLoad), Files.size(legacyFile));
+        System.out.printf("snapshot    : save %7.2f ms, restore %7.2f ms, %,d bytes%n",
+                median(snapshotSave), median(snapshotLoad), Files.size(snapshotFile));
+
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.toList()) Files.delete(file);
+        }
+        Files.delete(dir);
+    }
+
+    // Moves the first item of every n-th room into the next room and rewrites that room's description.
+    private static int mutate(Game game, double fraction) {
+        WorldDefinition world = game.getWorld();
+        WorldState state = game.getWorldState();
+        int step = Math.max(1, (int) Math.round(1 / Math.max(fraction, 1e-9)));
+        int changed = 0;
+        for (int id = 0; id + 1 < world.getRoomCount(); id += step) {
+            Room room = world.room(id);
+            List<Item> items = state.getItems(room);
+            if (!items.isEmpty()) {
+                Item item = items.get(0);
+                state.removeItem(room, item);
+                state.addItem(world.room(id + 1), item);
+            }
+            state.setDescription(room, "A disturbed room (" + id + ").");
+            changed++;
+        }
+        return changed;
+    }
+
+    private static void legacySave(WorldDefinition world, WorldState state, Player player, Path file) throws IOException {
+        SaveState save = new SaveState(
+            player.getCurrentRoomName(),
+            player.getInventory().stream().map(Item::getName).toList(),
+            new HashMap<>()
+        );
+        for (Room room : world.getRooms()) {
+            List<String> roomItems = state.getItems(room).stream().map(Item::getName).toList();
+            save.getRoomItemStates().put(room.getName(), roomItems);
+        }
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(save, writer);
+        }
+    }
+
+    private static void legacyLoad(WorldDefinition world, WorldState state, Player player, Path file, PrintStream out)
+            throws IOException {
+        SaveState loaded;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            loaded = new Gson().fromJson(reader, SaveState.class);
+        }
+        int roomId = world.roomId(loaded.getPlayerLocation());
+        if (roomId >= 0) {
+            player.setCurrentRoom(roomId, loaded.getPlayerLocation());
+            out.println("[Debug] Player location set to: " + loaded.getPlayerLocation());
+        }
+        player.clearInventory();
+        for (String itemName : loaded.getPlayerInventory()) {
+            Item item = world.getItem(itemName);
+            if (item != null) {
+                player.takeItem(item);
+                out.println("[Debug] Added '" + itemName + "' to player inventory.");
+            }
+        }
+        Map<String, List<String>> roomStates = loaded.getRoomItemStates();
+        for (Room room : world.getRooms()) {
+            List<String> names = roomStates.get(room.getName());
+            List<Item> restored = new ArrayList<>();
+            out.println("[Debug] Cleared items for room: " + room.getName());
+            if (names != null) {
+                for (String itemName : names) {
+                    Item item = world.getItem(itemName);
+                    if (item != null) {
+                        restored.add(item);
+                        out.println("[Debug] Added '" + itemName + "' back to room '" + room.getName() + "'.");
+                    }
+                }
+            }
+            state.setItems(room, restored);
+        }
+    }
+
+    private static double median(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2] / 1e6;
+    }
+}
@@ -0,0 +1,59 @@
+package com.textadventure.tools;
+
+import com.textadventure.engine.GameLoader;
+import com.textadventure.engine.ValidationReport;
+import com.textadventure.engine.WorldDefinition;
+import com.textadventure.engine.WorldImage;
+import com.textadventure.engine.WorldValidator;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads a world and prints a {@link ValidationReport}: broken references, reachable rooms and
+ * items, and, given a goal room, dead-end rooms and dead states. Exits with status 1 when the
+ * report has errors.
+ *
+ * <p>Usage: {@code ValidateWorld <world.json|world.twi> [goalRoom] [--state-limit N]}
+ */
+public class ValidateWorld {
+
+    public static void main(String[] args) throws Exception {
+        String worldPath = null;
+        String goalRoom = null;
+        int stateLimit = -1;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--state-limit")) {
+                stateLimit = Integer.parseInt(args[++i]);
+            } else if (worldPath == null) {
+                worldPath = args[i];
+            } else {
+                goalRoom = args[i];
+            }
+        }
+        if (worldPath == null) {
+            System.err.println("Usage: ValidateWorld <world.json|world.twi> [goalRoom] [--state-limit N]");
+            return;
+        }
+
+        long start = System.nanoTime();
+        WorldDefinition world;
+        Map<String, List<String>> unresolved = Map.of();
+        if (WorldImage.isImagePath(worldPath)) {
+            world = WorldDefinition.load(worldPath);
+        } else {
+            GameLoader loader = new GameLoader();
+            loader.loadGameData(worldPath);
+            unresolved = loader.getUnresolvedRoomItems();
+            world = WorldDefinition.from(loader);
+        }
+        System.out.printf("Loaded %d rooms, %d items in %.0f ms%n", world.getRoomCount(), world.getItemCount(),
+                (System.nanoTime() - start) / 1e6);
+
+        WorldValidator validator = new WorldValidator(world).goalRoom(goalRoom).unresolvedRoomItems(unresolved);
+        if (stateLimit > 0) validator.stateLimit(stateLimit);
+        ValidationReport report = validator.validate();
+        report.print(System.out);
+        if (report.hasErrors()) System.exit(1);
+    }
+}
@@ -0,0 +1,53 @@
+package com.textadventure.tools;
+
+import com.textadventure.engine.GameLoader;
+import com.textadventure.engine.WorldDefinition;
+import com.textadventure.engine.WorldImage;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles a JSON adventure into a binary {@link WorldImage}. The image can then be passed
+ * anywhere a world file is accepted, e.g. {@code Main data/adventure.twi}. Given several JSON
+ * files, it compiles them into one world in which each file's rooms form a region; a single file
+ * is split into regions of neighbouring rooms.
+ */
+public class WorldCompiler {
+
+    public static void main(String[] args) throws Exception {
+        List<String> sources = new ArrayList<>();
+        String output = null;
+        for (String arg : args) {
+            if (WorldImage.isImagePath(arg)) output = arg;
+            else sources.add(arg);
+        }
+        if (sources.isEmpty()) {
+            System.err.println("Usage: WorldCompiler <adventure.json>... [output" + WorldImage.FILE_EXTENSION + "]");
+            return;
+        }
+        Path target = Paths.get(output != null ? output : sources.get(0).replaceFirst("\\.json$", "") + WorldImage.FILE_EXTENSION);
+
+        long start = System.nanoTime();
+        GameLoader loader = new GameLoader();
+        Map<String, String> regions = Map.of();
+        if (sources.size() == 1) {
+            loader.loadGameData(sources.get(0));
+        } else {
+            loader.loadGameData(sources);
+            regions = loader.getRoomSources();
+        }
+        WorldDefinition world = WorldDefinition.from(loader);
+        long parsed = System.nanoTime();
+        WorldImage.write(world, regions, target);
+        long written = System.nanoTime();
+
+        System.out.printf("Compiled %d rooms and %d items into %s (%d bytes, %d regions): parse %.0f ms, write %.0f ms%n",
+                world.getRoomCount(), world.getItemNames().size(), target, Files.size(target),
+                WorldImage.open(target).getRegions().getRegionCount(), (parsed - start) / 1e6, (written - parsed) / 1e6);
+    }
+}
@@ -0,0 +1,166 @@
+package com.textadventure.tools;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Writes synthetic adventure files for load and performance testing. Rooms form a grid with
+ * north/south/east/west exits; some eastward exits are locked, with the matching key lying in the
+ * room just before the lock. Using the key on the lock clears the exit.
+ */
+public class WorldGenerator {
+
+    private final int roomCount;
+    private final int itemsPerRoom;
+    private final long seed;
+    private boolean roomsFirst;
+
+    public WorldGenerator(int roomCount, int itemsPerRoom, long seed) {
+        if (roomCount < 1)
+            throw new IllegalArgumentException("A world needs at least one room.");
+        if (itemsPerRoom < 0)
+            throw new IllegalArgumentException("Items per room cannot be negative.");
+        this.roomCount = roomCount;
+        this.itemsPerRoom = itemsPerRoom;
+        this.seed = seed;
+    }
+
+    // Writes the rooms array before the items array, to exercise forward item references.
+    public WorldGenerator roomsFirst(boolean roomsFirst) {
+        this.roomsFirst = roomsFirst;
+        return this;
+    }
+
+    public static String roomName(int index) { return "Room " + index; }
+    public static String itemName(int room, int slot) { return "Item " + room + "-" + slot; }
+    public static String keyName(int room) { return "Key " + room; }
+    public static String lockName(int room) { return "Lock " + room; }
+
+    public int getRoomCount() { return roomCount; }
+
+    public void write(Path target) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            write(writer);
+        }
+    }
+
+    public void write(Writer target) throws IOException {
+        JsonWriter json = new JsonWriter(target);
+        json.beginObject();
+        json.name("playerStart").value(roomName(0));
+        if (roomsFirst) {
+            writeRooms(json);
+            writeItems(json);
+        } else {
+            writeItems(json);
+            writeRooms(json);
+        }
+        json.endObject();
+        json.flush();
+    }
+
+    private int width() {
+        return Math.max(1, (int) Math.ceil(Math.sqrt(roomCount)));
+    }
+
+    private boolean isLocked(int room) {
+        return room % 7 == 3 && room + 1 < roomCount && (room + 1) % width() != 0;
+    }
+
+    private void writeItems(JsonWriter json) throws IOException {
+        Random random = new Random(seed);
+        json.name("items").beginArray();
+        for (int room = 0; room < roomCount; room++) {
+            for (int slot = 0; slot < itemsPerRoom; slot++) {
+                json.beginObject();
+                json.name("name").value(itemName(room, slot));
+                json.name("description").value("A generated object #" + random.nextInt(1_000_000) + " lying in room " + room + ".");
+                json.endObject();
+            }
+            if (isLocked(room)) {
+                json.beginObject();
+                json.name("name").value(keyName(room));
+                json.name("description").value("Opens the lock in " + roomName(room) + ".");
+                json.name("usability").beginObject();
+                json.name("target").value(lockName(room));
+                json.name("effectDescription").value("The lock clicks open.");
+                json.name("consumesItem").value(false);
+                json.name("removesTarget").value(lockName(room));
+                json.name("changesRoomDescriptionTo").value("An unlocked room. The way east is clear.");
+                json.name("modifiesExit").beginObject();
+                json.name("direction").value("east");
+                json.name("clearRequiresItem").value(true);
+                json.endObject();
+                json.endObject();
+                json.endObject();
+
+                json.beginObject();
+                json.name("name").value(lockName(room));
+                json.name("description").value("A heavy lock on the east door.");
+                json.endObject();
+            }
+        }
+        json.endArray();
+    }
+
+    private void writeRooms(JsonWriter json) throws IOException {
+        int width = width();
+        json.name("rooms").beginArray();
+        for (int room = 0; room < roomCount; room++) {
+            int column = room % width;
+            json.beginObject();
+            json.name("name").value(roomName(room));
+            json.name("description").value("Generated room " + room + " in row " + (room / width) + ", column " + column + ".");
+
+            json.name("exits").beginObject();
+            if (room - width >= 0) json.name("north").value(roomName(room - width));
+            if (room + width < roomCount) json.name("south").value(roomName(room + width));
+            if (column > 0) json.name("west").value(roomName(room - 1));
+            if (column + 1 < width && room + 1 < roomCount && !isLocked(room)) json.name("east").value(roomName(room + 1));
+            json.endObject();
+
+            if (isLocked(room)) {
+                json.name("exitData").beginObject();
+                json.name("east").beginObject();
+                json.name("targetRoom").value(roomName(room + 1));
+                json.name("conditions").beginObject();
+                json.name("requiresItem").value(keyName(room));
+                json.name("failMessage").value("The east door is locked.");
+                json.endObject();
+                json.endObject();
+                json.endObject();
+            }
+
+            json.name("items").beginArray();
+            for (int slot = 0; slot < itemsPerRoom; slot++) {
+                json.value(itemName(room, slot));
+            }
+            if (isLocked(room)) json.value(lockName(room));
+            if (isLocked(room + 1)) json.value(keyName(room + 1));
+            json.endArray();
+            json.endObject();
+        }
+        json.endArray();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: WorldGenerator <output.json> <rooms> [itemsPerRoom] [seed] [--rooms-first]");
+            return;
+        }
+        int itemsPerRoom = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42L;
+        boolean roomsFirst = args.length > 4 && args[4].equals("--rooms-first");
+        WorldGenerator generator = new WorldGenerator(Integer.parseInt(args[1]), itemsPerRoom, seed).roomsFirst(roomsFirst);
+        Path output = Paths.get(args[0]);
+        generator.write(output);
+        System.out.println("Wrote " + generator.getRoomCount() + " rooms to " + output + " (" + Files.size(output) + " bytes).");
+    }
+}
@@ -0,0 +1,223 @@
+package com.textadventure.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Level-gated logging, one logger per subsystem. Levels come from system properties:
+ * {@code -Dtextadventure.log.level=DEBUG} sets every subsystem and
+ * {@code -Dtextadventure.log.parser=TRACE} (etc.) overrides one. The default level is INFO.
+ *
+ * <p>Messages go to stderr, or to the file named by {@code textadventure.log.file}, through a
+ * background writer so callers never block on I/O ({@code -Dtextadventure.log.async=false}
+ * writes synchronously instead). At most {@code textadventure.log.queue} lines (8192 by default)
+ * wait for that writer; lines logged while it is full are dropped and counted, and the count is
+ * written with the next batch or flush. Hot paths should pass a {@link Supplier} or check
+ * {@link #isDebugEnabled()} first, so a disabled message costs no string building.
+ */
+public final class Log {
+
+    public enum Level { TRACE, DEBUG, INFO, WARN, ERROR, OFF }
+
+    private static final String PROPERTY_PREFIX = "textadventure.log.";
+    private static final int QUEUE_CAPACITY = Integer.getInteger(PROPERTY_PREFIX + "queue", 8192);
+    private static final Sink SINK = createSink();
+
+    public static final Log LOADER = new Log("Loader");
+    public static final Log PARSER = new Log("Parser");
+    public static final Log GAME = new Log("Game");
+    public static final Log PERSISTENCE = new Log("Persistence");
+    public static final Log SERVER = new Log("Server");
+
+    private final String name;
+    private volatile Level level;
+
+    private Log(String name) {
+        this.name = name;
+        this.level = configuredLevel(name);
+    }
+
+    public String getName() { return name; }
+    public Level getLevel() { return level; }
+
+    public void setLevel(Level level) {
+        if (level == null)
+            throw new IllegalArgumentException("Log level cannot be null.");
+        this.level = level;
+    }
+
+    public boolean isEnabled(Level messageLevel) { return messageLevel.ordinal() >= level.ordinal() && messageLevel != Level.OFF; }
+    public boolean isTraceEnabled() { return isEnabled(Level.TRACE); }
+    public boolean isDebugEnabled() { return isEnabled(Level.DEBUG); }
+
+    public void trace(Supplier<String> message) { if (isEnabled(Level.TRACE)) write(Level.TRACE, message.get(), null); }
+    public void debug(Supplier<String> message) { if (isEnabled(Level.DEBUG)) write(Level.DEBUG, message.get(), null); }
+    public void debug(String message) { if (isEnabled(Level.DEBUG)) write(Level.DEBUG, message, null); }
+    public void info(Supplier<String> message) { if (isEnabled(Level.INFO)) write(Level.INFO, message.get(), null); }
+    public void info(String message) { if (isEnabled(Level.INFO)) write(Level.INFO, message, null); }
+    public void warn(String message) { if (isEnabled(Level.WARN)) write(Level.WARN, message, null); }
+    public void error(String message) { if (isEnabled(Level.ERROR)) write(Level.ERROR, message, null); }
+    public void error(String message, Throwable cause) { if (isEnabled(Level.ERROR)) write(Level.ERROR, message, cause); }
+
+    // Blocks until every message logged so far has been written out, or reported as dropped.
+    public static void flush() {
+        SINK.flush();
+    }
+
+    private void write(Level messageLevel, String message, Throwable cause) {
+        StringBuilder line = new StringBuilder(message.length() + name.length() + 16)
+                .append('[').append(name).append(' ').append(messageLevel).append("] ").append(message);
+        if (cause != null) {
+            StringWriter trace = new StringWriter();
+            cause.printStackTrace(new PrintWriter(trace));
+            line.append(System.lineSeparator()).append(trace.toString().stripTrailing());
+        }
+        SINK.write(line.toString());
+    }
+
+    private static Level configuredLevel(String subsystem) {
+        String value = System.getProperty(PROPERTY_PREFIX + subsystem.toLowerCase(Locale.ROOT),
+                System.getProperty(PROPERTY_PREFIX + "level", "INFO"));
+        try {
+            return Level.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown log level '" + value + "' for " + subsystem + "; using INFO.");
+            return Level.INFO;
+        }
+    }
+
+    private static Sink createSink() {
+        Writer target;
+        String file = System.getProperty(PROPERTY_PREFIX + "file");
+        try {
+            target = file != null
+                    ? Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND)
+                    : new BufferedWriter(new OutputStreamWriter(System.err, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.err.println("Cannot open log file " + file + " (" + e.getMessage() + "); logging to stderr.");
+            target = new BufferedWriter(new OutputStreamWriter(System.err, StandardCharsets.UTF_8));
+        }
+        boolean async = Boolean.parseBoolean(System.getProperty(PROPERTY_PREFIX + "async", "true"));
+        Sink sink = new Sink(target, async, QUEUE_CAPACITY);
+        Runtime.getRuntime().addShutdownHook(new Thread(sink::flush, "log-flush"));
+        return sink;
+    }
+
+    /**
+     * Writes log lines on a daemon thread. Lines are queued without blocking and written in
+     * batches, with one flush of the underlying writer per batch. A full queue drops the line
+     * rather than block the caller, and the drops are reported as one line of their own.
+     */
+    static final class Sink implements Runnable {
+        private final Writer writer;
+        private final LinkedBlockingQueue<String> queue;
+        private final boolean async;
+        private final AtomicLong enqueued = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private long written;
+
+        Sink(Writer writer, boolean async, int capacity) {
+            this.writer = writer;
+            this.async = async;
+            this.queue = new LinkedBlockingQueue<>(Math.max(1, capacity));
+            if (async) {
+                Thread thread = new Thread(this, "log-writer");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+
+        void write(String line) {
+            if (!async) {
+                synchronized (this) {
+                    writeBatch(List.of(line));
+                }
+                return;
+            }
+            if (queue.offer(line)) enqueued.incrementAndGet();
+            else dropped.incrementAndGet();
+        }
+
+        private static String dropReport(long count) {
+            return "[Log WARN] " + count + " messages dropped; the log queue was full.";
+        }
+
+        @Override
+        public void run() {
+            List<String> batch = new ArrayList<>();
+            while (true) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    return;
+                }
+                queue.drainTo(batch);
+                int lines = batch.size();
+                long count = dropped.getAndSet(0);
+                if (count > 0) batch.add(dropReport(count));
+                writeBatch(batch);
+                synchronized (this) {
+                    written += lines;
+                    notifyAll();
+                }
+                batch.clear();
+            }
+        }
+
+        // Waits for the queue to be written, then for a report of any drops the batches did not carry.
+        synchronized void flush() {
+            if (!async) return;
+            long deadline = System.currentTimeMillis() + 2000;
+            if (!awaitWritten(enqueued.get(), deadline)) return;
+            long count = dropped.getAndSet(0);
+            if (count == 0) return;
+            if (queue.offer(dropReport(count))) {
+                awaitWritten(enqueued.incrementAndGet(), deadline);
+            } else {
+                dropped.addAndGet(count);
+            }
+        }
+
+        // False when the deadline passed or the wait was interrupted first.
+        private boolean awaitWritten(long target, long deadline) {
+            while (written < target) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) return false;
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void writeBatch(List<String> lines) {
+            try {
+                for (String line : lines) {
+                    writer.write(line);
+                    writer.write(System.lineSeparator());
+                }
+                writer.flush();
+            } catch (IOException e) {
+                // Logging must never break the game; drop the batch.
+            }
+        }
+    }
+}
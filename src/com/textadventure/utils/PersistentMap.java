@@ -0,0 +1,276 @@
+package com.textadventure.utils;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable hash map (a hash array mapped trie) whose {@link #plus} and {@link #minus} return a
+ * new map sharing everything but the path to the changed key with the old one: an update copies
+ * at most seven small nodes, and any number of versions cost memory only for what differs
+ * between them. Read through the usual {@link Map} methods; the mutating ones throw. Null keys
+ * are not allowed.
+ */
+public final class PersistentMap<K, V> extends AbstractMap<K, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final Object NOT_FOUND = new Object();
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() { return (PersistentMap<K, V>) EMPTY; }
+
+    public static <K, V> PersistentMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof PersistentMap) {
+            @SuppressWarnings("unchecked")
+            PersistentMap<K, V> persistent = (PersistentMap<K, V>) map;
+            return persistent;
+        }
+        PersistentMap<K, V> copy = empty();
+        for (Map.Entry<? extends K, ? extends V> e : map.entrySet()) copy = copy.plus(e.getKey(), e.getValue());
+        return copy;
+    }
+
+    // This map with the key mapped to the value; this map itself when it already was.
+    public PersistentMap<K, V> plus(K key, V value) {
+        Objects.requireNonNull(key, "key");
+        int hash = hash(key);
+        boolean[] added = new boolean[1];
+        Node next = root == null ? BitmapNode.EMPTY.put(hash, key, value, 0, added) : root.put(hash, key, value, 0, added);
+        return next == root ? this : new PersistentMap<>(next, added[0] ? size + 1 : size);
+    }
+
+    // This map without the key; this map itself when it had no such key.
+    public PersistentMap<K, V> minus(Object key) {
+        if (root == null || key == null) return this;
+        Node next = root.remove(hash(key), key, 0);
+        return next == root ? this : new PersistentMap<>(next, size - 1);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (root == null || key == null) return null;
+        Object value = root.find(hash(key), key, 0);
+        return value != NOT_FOUND ? (V) value : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return root != null && key != null && root.find(hash(key), key, 0) != NOT_FOUND;
+    }
+
+    @Override
+    public int size() { return size; }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (root != null) root.forEach((BiConsumer<Object, Object>) action);
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                List<Map.Entry<K, V>> entries = new ArrayList<>(size);
+                PersistentMap.this.forEach((key, value) -> entries.add(new SimpleImmutableEntry<>(key, value)));
+                return entries.iterator();
+            }
+
+            @Override
+            public int size() { return size; }
+        };
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private abstract static class Node {
+        abstract Object find(int hash, Object key, int shift);
+        // Returns this node when nothing changed; sets added[0] when the key was new.
+        abstract Node put(int hash, Object key, Object value, int shift, boolean[] added);
+        // Returns this node when the key was absent, null when the node is left empty.
+        abstract Node remove(int hash, Object key, int shift);
+        abstract void forEach(BiConsumer<Object, Object> action);
+    }
+
+    // Up to 32 slots picked by five bits of the hash; a slot holds a key and value, or null and a child node.
+    private static final class BitmapNode extends Node {
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        final int bitmap;
+        final Object[] array;
+
+        BitmapNode(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private int slot(int bit) { return 2 * Integer.bitCount(bitmap & (bit - 1)); }
+
+        @Override
+        Object find(int hash, Object key, int shift) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) return NOT_FOUND;
+            int at = slot(bit);
+            Object k = array[at];
+            if (k == null) return ((Node) array[at + 1]).find(hash, key, shift + BITS);
+            return key.equals(k) ? array[at + 1] : NOT_FOUND;
+        }
+
+        @Override
+        Node put(int hash, Object key, Object value, int shift, boolean[] added) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            int at = slot(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] next = new Object[array.length + 2];
+                System.arraycopy(array, 0, next, 0, at);
+                next[at] = key;
+                next[at + 1] = value;
+                System.arraycopy(array, at, next, at + 2, array.length - at);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, next);
+            }
+            Object k = array[at];
+            Object v = array[at + 1];
+            if (k == null) {
+                Node child = ((Node) v).put(hash, key, value, shift + BITS, added);
+                return child == v ? this : with(at + 1, null, child);
+            }
+            if (key.equals(k)) return v == value ? this : with(at + 1, k, value);
+            added[0] = true;
+            return with(at, null, pair(shift + BITS, hash(k), k, v, hash, key, value));
+        }
+
+        private BitmapNode with(int at, Object key, Object value) {
+            Object[] next = array.clone();
+            if ((at & 1) == 0) {
+                next[at] = key;
+                next[at + 1] = value;
+            } else {
+                next[at] = value;
+            }
+            return new BitmapNode(bitmap, next);
+        }
+
+        @Override
+        Node remove(int hash, Object key, int shift) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) return this;
+            int at = slot(bit);
+            Object k = array[at];
+            if (k == null) {
+                Node child = ((Node) array[at + 1]).remove(hash, key, shift + BITS);
+                if (child == array[at + 1]) return this;
+                if (child != null) return with(at + 1, null, child);
+            } else if (!key.equals(k)) {
+                return this;
+            }
+            if (bitmap == bit) return null;
+            Object[] next = new Object[array.length - 2];
+            System.arraycopy(array, 0, next, 0, at);
+            System.arraycopy(array, at + 2, next, at, array.length - at - 2);
+            return new BitmapNode(bitmap & ~bit, next);
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] == null) ((Node) array[i + 1]).forEach(action);
+                else action.accept(array[i], array[i + 1]);
+            }
+        }
+    }
+
+    // Keys whose full 32-bit hashes are equal.
+    private static final class CollisionNode extends Node {
+        final int hash;
+        final Object[] array;
+
+        CollisionNode(int hash, Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) if (key.equals(array[i])) return i;
+            return -1;
+        }
+
+        @Override
+        Object find(int hash, Object key, int shift) {
+            if (hash != this.hash) return NOT_FOUND;
+            int at = indexOf(key);
+            return at >= 0 ? array[at + 1] : NOT_FOUND;
+        }
+
+        @Override
+        Node put(int hash, Object key, Object value, int shift, boolean[] added) {
+            if (hash != this.hash) {
+                BitmapNode parent = new BitmapNode(1 << ((this.hash >>> shift) & MASK), new Object[] { null, this });
+                return parent.put(hash, key, value, shift, added);
+            }
+            int at = indexOf(key);
+            if (at >= 0) {
+                if (array[at + 1] == value) return this;
+                Object[] next = array.clone();
+                next[at + 1] = value;
+                return new CollisionNode(hash, next);
+            }
+            Object[] next = Arrays.copyOf(array, array.length + 2);
+            next[array.length] = key;
+            next[array.length + 1] = value;
+            added[0] = true;
+            return new CollisionNode(hash, next);
+        }
+
+        @Override
+        Node remove(int hash, Object key, int shift) {
+            int at = hash == this.hash ? indexOf(key) : -1;
+            if (at < 0) return this;
+            if (array.length == 2) return null;
+            Object[] next = new Object[array.length - 2];
+            System.arraycopy(array, 0, next, 0, at);
+            System.arraycopy(array, at + 2, next, at, array.length - at - 2);
+            return new CollisionNode(hash, next);
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) action.accept(array[i], array[i + 1]);
+        }
+    }
+
+    // Smallest subtree holding two different keys that collided at the level above.
+    private static Node pair(int shift, int hash1, Object key1, Object value1, int hash2, Object key2, Object value2) {
+        if (hash1 == hash2) return new CollisionNode(hash1, new Object[] { key1, value1, key2, value2 });
+        int index1 = (hash1 >>> shift) & MASK;
+        int index2 = (hash2 >>> shift) & MASK;
+        if (index1 == index2)
+            return new BitmapNode(1 << index1, new Object[] { null, pair(shift + BITS, hash1, key1, value1, hash2, key2, value2) });
+        Object[] array = index1 < index2
+                ? new Object[] { key1, value1, key2, value2 }
+                : new Object[] { key2, value2, key1, value1 };
+        return new BitmapNode((1 << index1) | (1 << index2), array);
+    }
+}
@@ -0,0 +1,145 @@
+package com.textadventure.utils;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Immutable indexed sequence (a 32-way trie with a separate tail) whose {@link #plus} and
+ * {@link #with} return a new vector sharing everything but the path to the changed slot with the
+ * old one, the counterpart of {@link PersistentMap} for positions. Appending mostly copies the
+ * tail of at most 32 slots; replacing a slot copies one node per level, at most four for a
+ * million elements. Null elements are allowed.
+ */
+public final class PersistentVector<T> implements Iterable<T> {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final Object[] NO_SLOTS = new Object[0];
+    private static final PersistentVector<?> EMPTY = new PersistentVector<>(0, BITS, new Object[WIDTH], NO_SLOTS);
+
+    private final int size;
+    private final int shift;
+    private final Object[] root;
+    // The last 1 to 32 elements, kept out of the trie so appends copy only this array.
+    private final Object[] tail;
+
+    private PersistentVector(int size, int shift, Object[] root, Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentVector<T> empty() { return (PersistentVector<T>) EMPTY; }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        Objects.checkIndex(index, size);
+        return (T) leafFor(index)[index & MASK];
+    }
+
+    // This vector with the value appended.
+    public PersistentVector<T> plus(T value) {
+        int tailSize = size - tailOffset();
+        if (tailSize < WIDTH) {
+            Object[] nextTail = Arrays.copyOf(tail, tailSize + 1);
+            nextTail[tailSize] = value;
+            return new PersistentVector<>(size + 1, shift, root, nextTail);
+        }
+        Object[] nextRoot;
+        int nextShift = shift;
+        if ((size >>> BITS) > (1 << shift)) {
+            nextRoot = new Object[WIDTH];
+            nextRoot[0] = root;
+            nextRoot[1] = newPath(shift, tail);
+            nextShift += BITS;
+        } else {
+            nextRoot = pushTail(shift, root, tail);
+        }
+        return new PersistentVector<>(size + 1, nextShift, nextRoot, new Object[] {value});
+    }
+
+    // This vector with the slot at index replaced; this vector itself when it already held the value.
+    public PersistentVector<T> with(int index, T value) {
+        Objects.checkIndex(index, size);
+        if (leafFor(index)[index & MASK] == value) return this;
+        if (index >= tailOffset()) {
+            Object[] nextTail = tail.clone();
+            nextTail[index & MASK] = value;
+            return new PersistentVector<>(size, shift, root, nextTail);
+        }
+        return new PersistentVector<>(size, shift, assoc(shift, root, index, value), tail);
+    }
+
+    // True when both vectors keep the slot at index in the same leaf, i.e. neither copied it from the other.
+    public boolean sharesLeaf(PersistentVector<?> other, int index) {
+        return index < size && index < other.size && leafFor(index) == other.leafFor(index);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private int next;
+            private Object[] leaf;
+
+            @Override
+            public boolean hasNext() { return next < size; }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (next >= size) throw new NoSuchElementException();
+                if ((next & MASK) == 0 || leaf == null) leaf = leafFor(next);
+                return (T) leaf[next++ & MASK];
+            }
+        };
+    }
+
+    private int tailOffset() {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    private Object[] leafFor(int index) {
+        if (index >= tailOffset()) return tail;
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) node = (Object[]) node[(index >>> level) & MASK];
+        return node;
+    }
+
+    private Object[] pushTail(int level, Object[] parent, Object[] leaf) {
+        int at = ((size - 1) >>> level) & MASK;
+        Object[] copy = parent.clone();
+        if (level == BITS) {
+            copy[at] = leaf;
+        } else {
+            Object[] child = (Object[]) parent[at];
+            copy[at] = child != null ? pushTail(level - BITS, child, leaf) : newPath(level - BITS, leaf);
+        }
+        return copy;
+    }
+
+    private static Object[] newPath(int level, Object[] leaf) {
+        if (level == 0) return leaf;
+        Object[] node = new Object[WIDTH];
+        node[0] = newPath(level - BITS, leaf);
+        return node;
+    }
+
+    private static Object[] assoc(int level, Object[] node, int index, Object value) {
+        Object[] copy = node.clone();
+        if (level == 0) {
+            copy[index & MASK] = value;
+        } else {
+            int at = (index >>> level) & MASK;
+            copy[at] = assoc(level - BITS, (Object[]) node[at], index, value);
+        }
+        return copy;
+    }
+}
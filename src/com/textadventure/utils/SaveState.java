@@ -7,6 +7,13 @@ public class SaveState {
     private String playerLocation;
     private List<String> playerInventory;
     private Map<String, List<String>> roomItemStates;
+    private Map<String, String> roomDescriptions;
+    private Map<String, List<String>> unlockedExits;
+    private Map<String, Integer> counters;
+    // Exit fail messages changed in play, by room and then direction.
+    private Map<String, Map<String, String>> exitMessages;
+    // Identifies the journal that extends this snapshot; 0 for saves written without a journal.
+    private long journalGeneration;
 
     public SaveState(String playerLocation, List<String> playerInventory, Map<String, List<String>> roomItemStates) {
         this.playerLocation = playerLocation;
@@ -14,9 +21,25 @@ public class SaveState {
         this.roomItemStates = roomItemStates;
     }
 
+    public SaveState(String playerLocation, List<String> playerInventory, Map<String, List<String>> roomItemStates,
+            Map<String, String> roomDescriptions, Map<String, List<String>> unlockedExits, Map<String, Integer> counters) {
+        this(playerLocation, playerInventory, roomItemStates);
+        this.roomDescriptions = roomDescriptions;
+        this.unlockedExits = unlockedExits;
+        this.counters = counters;
+    }
+
     public String getPlayerLocation() { return playerLocation; }
     public List<String> getPlayerInventory() { return playerInventory; }
     public Map<String, List<String>> getRoomItemStates() { return roomItemStates; }
+    public Map<String, String> getRoomDescriptions() { return roomDescriptions; }
+    public Map<String, List<String>> getUnlockedExits() { return unlockedExits; }
+    public Map<String, Integer> getCounters() { return counters; }
+    public Map<String, Map<String, String>> getExitMessages() { return exitMessages; }
+    public long getJournalGeneration() { return journalGeneration; }
+
+    public void setJournalGeneration(long journalGeneration) { this.journalGeneration = journalGeneration; }
+    public void setExitMessages(Map<String, Map<String, String>> exitMessages) { this.exitMessages = exitMessages; }
 
     public SaveState() {}
-}
\ No newline at end of file
+}
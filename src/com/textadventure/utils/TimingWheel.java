@@ -0,0 +1,143 @@
+package com.textadventure.utils;
+
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel over an integer clock. Each of its {@link #LEVELS} wheels has 64
+ * slots; level {@code n} slots span {@code 64^n} ticks. A timer goes into the lowest level whose
+ * span covers its delay and moves down a level each time the clock reaches its slot, so
+ * scheduling, cancelling and firing are O(1) however many timers are pending.
+ *
+ * <p>Timers due on the same tick fire in the order they reached the bottom wheel, which depends
+ * only on the order they were scheduled in: the same calls always fire the same timers in the
+ * same order. Not thread-safe.
+ */
+public final class TimingWheel<T> {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    public static final int LEVELS = 5;
+
+    /** A scheduled timer; pass it to {@link #cancel} to take it back before it fires. */
+    public static final class Timer<T> {
+        private final int due;
+        private final T payload;
+        private Timer<T> prev;
+        private Timer<T> next;
+        // Slot the timer is linked into, as level * SLOTS + index; -1 once fired or cancelled.
+        private int slot = -1;
+
+        private Timer(int due, T payload) {
+            this.due = due;
+            this.payload = payload;
+        }
+
+        public int getDue() { return due; }
+        public T getPayload() { return payload; }
+        public boolean isPending() { return slot >= 0; }
+    }
+
+    private final Timer<T>[] heads;
+    private final Timer<T>[] tails;
+    private int now;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(int now) {
+        this.heads = (Timer<T>[]) new Timer<?>[LEVELS * SLOTS];
+        this.tails = (Timer<T>[]) new Timer<?>[LEVELS * SLOTS];
+        this.now = now;
+    }
+
+    public int now() { return now; }
+    public int size() { return size; }
+
+    // Timers due at or before the current tick fire on the next advance.
+    public Timer<T> schedule(int due, T payload) {
+        Timer<T> timer = new Timer<>(Math.max(due, now + 1), payload);
+        link(timer);
+        size++;
+        return timer;
+    }
+
+    public boolean cancel(Timer<T> timer) {
+        if (timer == null || timer.slot < 0) return false;
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    // Moves the clock one tick on and fires every timer due at the new tick.
+    public void advance(Consumer<T> fire) {
+        now++;
+        int level = 0;
+        while (level + 1 < LEVELS && (now & ((1 << (BITS * (level + 1))) - 1)) == 0) level++;
+        // Higher levels first, so their timers land in the lower slots cascaded next.
+        for (; level > 0; level--) cascade(level * SLOTS + ((now >>> (BITS * level)) & MASK));
+        int slot = now & MASK;
+        while (heads[slot] != null) {
+            Timer<T> timer = heads[slot];
+            unlink(timer);
+            size--;
+            fire.accept(timer.payload);
+        }
+    }
+
+    // Every pending timer with its due tick, in firing order within each slot.
+    public void forEach(BiConsumer<Integer, T> action) {
+        if (size == 0) return;
+        for (int slot = 0; slot < heads.length; slot++) {
+            for (Timer<T> timer = heads[slot]; timer != null; timer = timer.next) action.accept(timer.due, timer.payload);
+        }
+    }
+
+    // Drops every pending timer and sets the clock, e.g. before rebuilding the wheel for another state.
+    public void clear(int now) {
+        if (size > 0) {
+            for (int slot = 0; slot < heads.length; slot++) {
+                for (Timer<T> timer = heads[slot]; timer != null; timer = timer.next) timer.slot = -1;
+                heads[slot] = null;
+                tails[slot] = null;
+            }
+        }
+        this.now = now;
+        this.size = 0;
+    }
+
+    private void cascade(int slot) {
+        Timer<T> timer = heads[slot];
+        heads[slot] = null;
+        tails[slot] = null;
+        while (timer != null) {
+            Timer<T> next = timer.next;
+            link(timer);
+            timer = next;
+        }
+    }
+
+    private void link(Timer<T> timer) {
+        long delay = (long) timer.due - now;
+        int level = 0;
+        while (level + 1 < LEVELS && delay >= 1L << (BITS * (level + 1))) level++;
+        int slot = level * SLOTS + ((timer.due >>> (BITS * level)) & MASK);
+        timer.slot = slot;
+        timer.next = null;
+        timer.prev = tails[slot];
+        if (tails[slot] != null) tails[slot].next = timer;
+        else heads[slot] = timer;
+        tails[slot] = timer;
+    }
+
+    private void unlink(Timer<T> timer) {
+        int slot = timer.slot;
+        if (timer.prev != null) timer.prev.next = timer.next;
+        else heads[slot] = timer.next;
+        if (timer.next != null) timer.next.prev = timer.prev;
+        else tails[slot] = timer.prev;
+        timer.prev = null;
+        timer.next = null;
+        timer.slot = -1;
+    }
+}
@@ -0,0 +1,81 @@
+package com.textadventure.engine;
+
+import com.textadventure.model.Item;
+import com.textadventure.model.ItemContainer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ItemNameIndexTest {
+
+    private static final List<String> NAMES = List.of(
+            "Key Card", "Keyring", "Sledgehammer", "Lantern", "Rusty Key", "Coin");
+    private final ItemNameIndex index = new ItemNameIndex(NAMES);
+
+    private static ItemContainer scope(String... names) {
+        ItemContainer items = new ItemContainer();
+        for (String name : names) items.add(new Item(name, name + "."));
+        return items;
+    }
+
+    private static List<String> names(List<Item> items) {
+        return items.stream().map(Item::getName).toList();
+    }
+
+    @Test
+    void anExactNameWinsOverLongerNamesItPrefixes() {
+        ItemContainer room = scope("Key Card", "Keyring", "Rusty Key");
+        assertEquals(List.of("Keyring"), names(index.resolve("KEYRING", room)));
+        assertEquals(List.of("Key Card"), names(index.resolve("  key card ", room)));
+    }
+
+    @Test
+    void everyTypedWordMustStartAWordOfTheName() {
+        ItemContainer room = scope("Key Card", "Keyring", "Rusty Key", "Coin");
+        assertEquals(List.of("Key Card"), names(index.resolve("k c", room)));
+        assertEquals(List.of("Rusty Key"), names(index.resolve("rus k", room)));
+        assertEquals(List.of(), names(index.resolve("card x", room)));
+    }
+
+    @Test
+    void aPrefixOfSeveralNamesInScopeIsAmbiguous() {
+        ItemContainer room = scope("Coin", "Keyring");
+        ItemContainer inventory = scope("Key Card");
+        assertEquals(List.of("Keyring", "Key Card"), names(index.resolve("key", room, inventory)));
+        // Out of scope names do not count.
+        assertEquals(List.of("Keyring"), names(index.resolve("key", room)));
+    }
+
+    @Test
+    void aSubstringMatchesWhenNoWordStartsWithIt() {
+        ItemContainer room = scope("Sledgehammer", "Lantern");
+        assertEquals(List.of("Sledgehammer"), names(index.resolve("hammer", room)));
+        assertEquals(List.of("Lantern"), names(index.resolve("ter", room)));
+    }
+
+    @Test
+    void aMisspellingResolvesByTheTrigramsItShares() {
+        ItemContainer room = scope("Sledgehammer", "Lantern", "Coin");
+        assertEquals(List.of("Sledgehammer"), names(index.resolve("sledgehamer", room)));
+        assertEquals(List.of("Lantern"), names(index.resolve("lanterm", room)));
+        assertEquals(List.of(), names(index.resolve("xylophone", room)));
+        assertEquals(List.of(), names(index.resolve("sledgehamer", scope("Coin"))));
+    }
+
+    @Test
+    void aScopeSmallerThanThePostingsGivesTheSameAnswers() {
+        List<String> many = new ArrayList<>();
+        for (int i = 0; i < 500; i++) many.add("Item " + i);
+        many.add("Sledgehammer");
+        ItemNameIndex large = new ItemNameIndex(many);
+        ItemContainer room = scope("Item 7", "Item 70", "Item 123", "Sledgehammer");
+
+        assertEquals(List.of("Item 7", "Item 70"), names(large.resolve("it 7", room)));
+        assertEquals(List.of("Item 123"), names(large.resolve("123", room)));
+        assertEquals(List.of("Item 123"), names(large.resolve("tem 12", room)));
+        assertEquals(List.of("Sledgehammer"), names(large.resolve("sledgehamer", room)));
+    }
+}
@@ -0,0 +1,150 @@
+package com.textadventure.engine;
+
+import com.textadventure.model.Condition;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NavigatorTest {
+
+    private static final String[] DIRECTIONS = { "north", "south", "east", "west" };
+
+    // Seeded random world: up to four exits a room, some to missing rooms, about a fifth of them gated.
+    private static WorldGraph randomWorld(int rooms, long seed) {
+        Random random = new Random(seed);
+        WorldGraph.Builder builder = new WorldGraph.Builder(rooms);
+        for (int room = 0; room < rooms; room++) {
+            builder.beginRoom(room);
+            int exits = 1 + random.nextInt(DIRECTIONS.length);
+            for (int i = 0; i < exits; i++) {
+                int target = random.nextInt(20) == 0 ? -1 : random.nextInt(rooms);
+                builder.addExit(DIRECTIONS[i], target, random.nextInt(5) == 0 ? Condition.NEVER : null);
+            }
+        }
+        return builder.build();
+    }
+
+    // Breadth-first hops over the passable exits; -1 when unreachable.
+    private static int hops(WorldGraph graph, boolean[] open, int from, int to) {
+        int[] hops = new int[graph.getRoomCount()];
+        Arrays.fill(hops, -1);
+        hops[from] = 0;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(from);
+        while (!queue.isEmpty()) {
+            int room = queue.poll();
+            for (int exit = graph.exitStart(room); exit < graph.exitEnd(room); exit++) {
+                int target = graph.exitTarget(exit);
+                if (target < 0 || hops[target] >= 0 || (graph.isGated(exit) && !open[exit])) continue;
+                hops[target] = hops[room] + 1;
+                queue.add(target);
+            }
+        }
+        return hops[to];
+    }
+
+    private static void assertPassable(WorldGraph graph, boolean[] open, Route route) {
+        int room = route.getFrom();
+        for (int exit : route.getExits()) {
+            assertEquals(room, graph.exitRoom(exit));
+            assertTrue(!graph.isGated(exit) || open[exit], "route takes closed exit " + exit);
+            room = graph.exitTarget(exit);
+        }
+        assertEquals(route.getTo(), room);
+    }
+
+    @Test
+    void theAllPairsAndLandmarkTiersFindRoutesOfTheSameLength() {
+        WorldGraph graph = randomWorld(80, 7);
+        NavigationIndex tables = new NavigationIndex(graph, 1_000);
+        NavigationIndex landmarks = new NavigationIndex(graph, 0);
+        assertTrue(tables.hasAllPairsTables());
+        assertFalse(landmarks.hasAllPairsTables());
+        assertTrue(landmarks.getLandmarkCount() > 0);
+
+        Random random = new Random(11);
+        boolean[] open = new boolean[graph.getExitCount()];
+        for (int round = 0; round < 4; round++) {
+            for (int exit = 0; exit < open.length; exit++) open[exit] = random.nextInt(3) > round % 3;
+            Navigator byTable = tables.navigator(exit -> open[exit]);
+            Navigator bySearch = landmarks.navigator(exit -> open[exit]);
+            for (int from = 0; from < graph.getRoomCount(); from++) {
+                for (int to = 0; to < graph.getRoomCount(); to++) {
+                    int expected = hops(graph, open, from, to);
+                    Route table = byTable.route(from, to);
+                    Route search = bySearch.route(from, to);
+                    if (expected < 0) {
+                        assertNull(table, from + " to " + to);
+                        assertNull(search, from + " to " + to);
+                        continue;
+                    }
+                    assertNotNull(table, from + " to " + to);
+                    assertNotNull(search, from + " to " + to);
+                    assertEquals(expected, table.getLength(), from + " to " + to);
+                    assertEquals(expected, search.getLength(), from + " to " + to);
+                    assertPassable(graph, open, table);
+                    assertPassable(graph, open, search);
+                }
+            }
+        }
+    }
+
+    // Hall -north(gated)-> Vault; Hall -east-> Corridor -east-> Annex -north-> Vault.
+    private static WorldGraph gatedShortcut() {
+        return new WorldGraph.Builder(4)
+                .beginRoom(0).addExit("north", 1, Condition.NEVER).addExit("east", 2, null)
+                .beginRoom(1).addExit("south", 0, null)
+                .beginRoom(2).addExit("east", 3, null)
+                .beginRoom(3).addExit("north", 1, null)
+                .build();
+    }
+
+    @Test
+    void anOpenedExitIsUsedWithoutRecheckingEveryGate() {
+        WorldGraph graph = gatedShortcut();
+        int gate = graph.findExit(0, graph.directionId("north"));
+        boolean[] open = new boolean[graph.getExitCount()];
+        int[] checks = new int[1];
+        Navigator navigator = new NavigationIndex(graph).navigator(exit -> {
+            checks[0]++;
+            return open[exit];
+        });
+
+        assertEquals(3, navigator.route(0, 1).getLength());
+        assertEquals(1, checks[0]);
+
+        open[gate] = true;
+        navigator.exitOpened(gate);
+        assertEquals(1, navigator.route(0, 1).getLength());
+        assertEquals(1, checks[0]);
+    }
+
+    @Test
+    void gatesAreRecheckedOnlyAfterTheyChanged() {
+        WorldGraph graph = gatedShortcut();
+        int gate = graph.findExit(0, graph.directionId("north"));
+        boolean[] open = new boolean[graph.getExitCount()];
+        open[gate] = true;
+        Navigator navigator = new NavigationIndex(graph).navigator(exit -> open[exit]);
+        assertEquals(1, navigator.route(0, 1).getLength());
+
+        // Closing the gate (the key was dropped) is not seen until the game says gates changed.
+        open[gate] = false;
+        assertEquals(1, navigator.route(0, 1).getLength());
+        navigator.gatesChanged();
+        assertEquals(3, navigator.route(0, 1).getLength());
+
+        Navigator search = new NavigationIndex(graph, 0).navigator(exit -> open[exit]);
+        assertEquals(3, search.route(0, 1).getLength());
+        open[gate] = true;
+        assertEquals(1, search.route(0, 1).getLength());
+    }
+}
@@ -0,0 +1,34 @@
+package com.textadventure.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VerbTableTest {
+
+    @Test
+    void internSelectsTheVerbByItsName() {
+        VerbTable verbs = new VerbTable();
+        int id = verbs.intern("Dance");
+        assertEquals(id, verbs.intern("dance"));
+        assertEquals(id, verbs.lookup("DANCE"));
+        assertEquals(id, verbs.lookup("dance".toCharArray(), 0, 5));
+        assertEquals("dance", verbs.name(id));
+    }
+
+    @Test
+    void rejectedWordsLeaveTheTableUnchanged() {
+        VerbTable verbs = new VerbTable();
+        int size = verbs.size();
+        assertThrows(IllegalArgumentException.class, () -> verbs.intern("look-around"));
+        assertThrows(IllegalArgumentException.class, () -> verbs.intern(""));
+        assertEquals(size, verbs.size());
+        assertEquals(-1, verbs.lookup("look-around"));
+
+        int id = verbs.intern("dance");
+        assertThrows(IllegalArgumentException.class, () -> verbs.alias("jig2", id));
+        assertEquals(-1, verbs.lookup("jig2"));
+        assertEquals(size + 1, verbs.size());
+    }
+}
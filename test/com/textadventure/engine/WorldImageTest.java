@@ -0,0 +1,153 @@
+package com.textadventure.engine;
+
+import com.textadventure.model.Conditions;
+import com.textadventure.model.ConditionalDescription;
+import com.textadventure.model.Effect;
+import com.textadventure.model.ExitData;
+import com.textadventure.model.ExitModification;
+import com.textadventure.model.Item;
+import com.textadventure.model.Room;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorldImageTest {
+
+    private static final String WORLD = """
+            {
+              "playerStart": "Hall",
+              "items": [
+                {"name": "Key Card", "description": "A key card.",
+                 "usability": {"target": "Reader", "effectDescription": "The reader beeps.", "consumesItem": true,
+                   "modifiesExit": {"direction": "north", "clearRequiresItem": true, "setFailMessage": "Shut again.", "relocksAfterTurns": 3},
+                   "incrementsCounter": "beeps", "effects": [{"type": "imageTestChime", "subject": "bell", "text": "Ding.", "value": 2}]}},
+                {"name": "Reader", "description": "A card reader."},
+                {"name": "Lamp", "description": "A lamp.",
+                 "usability": {"target": "Shade", "removesTarget": "Shade", "addsTarget": "Light", "changesRoomDescriptionTo": "A lit hall.",
+                   "addsItemToInventory": "Light"}},
+                {"name": "Shade", "description": "A shade."},
+                {"name": "Light", "description": "Some light."}
+              ],
+              "rooms": [
+                {"name": "Hall", "description": "A hall.", "exits": {"east": "Annex"},
+                 "exitData": {"north": {"targetRoom": "Vault", "conditions": {"requiresItem": ["Key Card", "Lamp"],
+                   "forbidsItem": ["Shade"], "requiresCounter": {"beeps": 1}, "failMessage": "Locked."}}},
+                 "items": ["Key Card", "Reader", "Lamp", "Shade"],
+                 "conditionalDescriptions": [{"conditions": {"requiresAnyItem": ["Light"]}, "description": "A bright hall."}]},
+                {"name": "Annex", "description": "An annex.", "exits": {"west": "Hall", "up": "Nowhere"}, "items": ["Light"]},
+                {"name": "Vault", "description": "A vault.", "exits": {"south": "Hall"},
+                 "exitData": {"east": {"targetRoom": "Annex", "conditions": {"requiresItemInRoom": ["Reader"]}}}, "items": []}
+              ]
+            }
+            """;
+
+    @TempDir
+    Path dir;
+
+    private WorldDefinition compileAndOpen(WorldDefinition source) throws Exception {
+        Path image = dir.resolve("world" + WorldImage.FILE_EXTENSION);
+        WorldImage.write(source, image);
+        return WorldDefinition.load(image.toString());
+    }
+
+    @Test
+    void aCompiledWorldMaterializesTheSameRoomsAndItems() throws Exception {
+        Effect.declare("imageTestChime", (context, step) -> true);
+        Path file = dir.resolve("world.json");
+        Files.writeString(file, WORLD);
+        WorldDefinition source = WorldDefinition.load(file.toString());
+        WorldDefinition image = compileAndOpen(source);
+
+        assertNotNull(image.getRegions());
+        assertEquals(3, image.getRoomCount());
+        assertEquals(describe(source), describe(image));
+        assertEquals(graph(source), graph(image));
+        assertTrue(graph(image).contains("Hall north -> Vault gated"), graph(image).toString());
+        assertTrue(graph(image).contains("Annex up -> -"), graph(image).toString());
+        assertSame(image.getRoom("Vault"), image.getRoom("Vault"));
+        assertSame(image.getItem("Lamp"), image.getItem("Lamp"));
+        assertNull(image.getRoom("Nowhere"));
+        assertNull(image.getItem("Nothing"));
+    }
+
+    @Test
+    void theBundledWorldSurvivesTheRoundTrip() throws Exception {
+        WorldDefinition source = WorldDefinition.load("data/adventure.json");
+        WorldDefinition image = compileAndOpen(source);
+        assertEquals(describe(source), describe(image));
+        assertEquals(graph(source), graph(image));
+    }
+
+    // Everything a world's rooms and items say, keyed by name so ids and table order do not matter.
+    private static Map<String, String> describe(WorldDefinition world) {
+        Map<String, String> parts = new TreeMap<>();
+        parts.put("start", world.getStartRoomName());
+        for (String name : world.getRoomNames()) {
+            Room room = world.getRoom(name);
+            List<String> lines = new ArrayList<>();
+            lines.add(room.getDescription());
+            lines.add(new TreeMap<>(room.getExits()).toString());
+            for (Map.Entry<String, ExitData> exit : new TreeMap<>(room.getExit()).entrySet())
+                lines.add(exit.getKey() + " -> " + exit.getValue().getTargetRoom() + " " + conditions(exit.getValue().getConditions()));
+            lines.add(room.getItems().stream().map(Item::getName).toList().toString());
+            for (ConditionalDescription variant : room.getConditionalDescriptions())
+                lines.add(conditions(variant.getConditions()) + " " + variant.getDescription());
+            parts.put("room " + name, String.join("\n", lines));
+        }
+        for (String name : world.getItemNames()) {
+            Item item = world.getItem(name);
+            String text = item.getDescription();
+            Item.Usability use = item.getUsability();
+            if (use != null) {
+                ExitModification exit = use.getModifiesExit();
+                text += "\n" + use.getTarget() + "|" + use.getEffectDescription() + "|" + use.isConsumesItem()
+                        + "|" + use.getUnlocksExit() + "|" + use.getRemovesTarget() + "|" + use.getAddsTarget()
+                        + "|" + use.getChangesRoomDescriptionTo() + "|" + use.getAddsItemToInventory()
+                        + "|" + use.getIncrementsCounter()
+                        + "|" + (exit == null ? null : exit.getDirection() + "," + exit.isClearRequiresItem()
+                                + "," + exit.getSetFailMessage() + "," + exit.getRelocksAfterTurns())
+                        + "\n" + Arrays.toString(use.getPipeline());
+            }
+            parts.put("item " + name, text);
+        }
+        return parts;
+    }
+
+    private static String conditions(Conditions conditions) {
+        if (conditions == null) return "-";
+        Object requires = conditions.getRequiresItem();
+        return (requires instanceof String single ? List.of(single) : requires) + "/" + conditions.getRequiresAnyItem()
+                + "/" + conditions.getForbidsItem() + "/" + conditions.getRequiresItemInRoom()
+                + "/" + (conditions.getRequiresCounter() == null ? null : new TreeMap<>(conditions.getRequiresCounter()))
+                + "/" + conditions.getFailMessage();
+    }
+
+    // Each room's exits in the compiled graph, by room and direction name.
+    private static TreeSet<String> graph(WorldDefinition world) {
+        WorldGraph graph = world.getGraph();
+        TreeSet<String> edges = new TreeSet<>();
+        for (String name : world.getRoomNames()) {
+            int room = world.roomId(name);
+            for (int exit = graph.exitStart(room); exit < graph.exitEnd(room); exit++) {
+                int target = graph.exitTarget(exit);
+                edges.add(name + " " + graph.directionName(graph.exitDirection(exit)) + " -> "
+                        + (target < 0 ? "-" : world.room(target).getName()) + (graph.isGated(exit) ? " gated" : ""));
+            }
+        }
+        return edges;
+    }
+}
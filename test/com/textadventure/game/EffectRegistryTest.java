@@ -0,0 +1,118 @@
+package com.textadventure.game;
+
+import com.textadventure.engine.GameLoader.GameDataException;
+import com.textadventure.engine.WorldDefinition;
+import com.textadventure.model.Effect;
+import com.textadventure.persistence.StateDelta;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EffectRegistryTest {
+
+    private static final String WORLD = """
+            {
+              "playerStart": "Hall",
+              "items": [
+                {"name": "Bell", "description": "A bell.",
+                 "usability": {"target": "Rope", "effects": [{"type": "%s", "text": "Ding."}]}},
+                {"name": "Rope", "description": "A rope."}
+              ],
+              "rooms": [
+                {"name": "Hall", "description": "A hall.", "exits": {}, "items": ["Bell", "Rope"]}
+              ]
+            }
+            """;
+
+    @TempDir
+    Path dir;
+
+    private Path world(String effectType) throws Exception {
+        Path file = dir.resolve(effectType + ".json");
+        Files.writeString(file, WORLD.formatted(effectType));
+        return file;
+    }
+
+    @Test
+    void unknownEffectTypeFailsToLoad() throws Exception {
+        Path file = world("mystery");
+        GameDataException e = assertThrows(GameDataException.class, () -> WorldDefinition.load(file.toString()));
+        assertTrue(e.getMessage().contains("'mystery'"), e.getMessage());
+        assertEquals(-1, Effect.typeId("mystery"));
+    }
+
+    @Test
+    void stepsAreBoundToTheirHandlerWhenTheWorldLoads() throws Exception {
+        EffectHandler ring = (use, effect) -> {
+            use.println(effect.getText());
+            return true;
+        };
+        EffectRegistry.register("ring", ring);
+        WorldDefinition world = WorldDefinition.load(world("ring").toString());
+        Effect[] pipeline = world.getItem("Bell").getUsability().getPipeline();
+        assertEquals(1, pipeline.length);
+        assertSame(ring, pipeline[0].getHandler());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Game game = new Game(new PrintStream(output, true, StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+        game.initialize(world);
+        game.processCommand("take bell");
+        game.processCommand("use bell on rope");
+        assertTrue(output.toString(StandardCharsets.UTF_8).contains("Ding."), output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void aScheduledChangeIsMadeOnceAcrossSaveLoadAndRewind() throws Exception {
+        EffectRegistry.register("chime", (use, effect) -> {
+            use.schedule(StateDelta.counterSet("chimes", use.getWorldState().getCounter("chimes") + 1), 2);
+            return true;
+        });
+        Game game = new Game(new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+        game.initialize(WorldDefinition.load(world("chime").toString()));
+        game.setSaveFileName(dir.resolve("chime.sav").toString());
+        game.processCommand("take bell");
+        game.processCommand("use bell on rope");
+        int scheduled = game.getEventCount();
+        assertEquals(1, game.getPendingTimedChanges());
+        game.processCommand("save");
+
+        game.processCommand("look");
+        assertEquals(0, game.getWorldState().getCounter("chimes"));
+        game.processCommand("look");
+        assertEquals(1, game.getWorldState().getCounter("chimes"));
+        assertEquals(0, game.getPendingTimedChanges());
+        int fired = game.getEventCount();
+
+        game.rewind(fired);
+        assertEquals(0, game.getPendingTimedChanges());
+        game.processCommand("look");
+        game.processCommand("look");
+        assertEquals(1, game.getWorldState().getCounter("chimes"));
+
+        game.rewind(scheduled);
+        assertEquals(0, game.getWorldState().getCounter("chimes"));
+        assertEquals(1, game.getPendingTimedChanges());
+        game.processCommand("look");
+        game.processCommand("look");
+        game.processCommand("look");
+        assertEquals(1, game.getWorldState().getCounter("chimes"));
+
+        game.processCommand("load");
+        assertEquals(0, game.getWorldState().getCounter("chimes"));
+        assertEquals(1, game.getPendingTimedChanges());
+        game.processCommand("look");
+        game.processCommand("look");
+        game.processCommand("look");
+        assertEquals(1, game.getWorldState().getCounter("chimes"));
+    }
+}
@@ -0,0 +1,129 @@
+package com.textadventure.game;
+
+import com.textadventure.engine.WorldDefinition;
+import com.textadventure.model.Player;
+import com.textadventure.persistence.StateDelta;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameHistoryTest {
+
+    private static final String WORLD = """
+            {
+              "playerStart": "Hall",
+              "items": [{"name": "Coin", "description": "A coin."}],
+              "rooms": [
+                {"name": "Hall", "description": "A hall.", "exits": {"north": "Vault", "east": "Vault"}, "items": ["Coin"]},
+                {"name": "Vault", "description": "A vault.", "exits": {"south": "Hall"}, "items": []}
+              ]
+            }
+            """;
+    private static final int LIMIT = GameHistory.CHECKPOINT_INTERVAL;
+
+    @TempDir
+    Path dir;
+    private WorldDefinition world;
+    private final Player player = new Player();
+    private WorldState state;
+    private final WorldClock clock = new WorldClock(delta -> {});
+
+    @BeforeEach
+    void loadWorld() throws Exception {
+        Path file = dir.resolve("world.json");
+        Files.writeString(file, WORLD);
+        world = WorldDefinition.load(file.toString());
+        state = new WorldState(world);
+    }
+
+    // One event per turn, at tick = event number + 1.
+    private void play(GameHistory history, int from, int to) {
+        for (int event = from; event < to; event++) {
+            history.append(StateDelta.counterSet("steps", event), event + 1);
+            history.turnEnded(player, state, event + 1, true);
+        }
+    }
+
+    @Test
+    void theLogKeepsABoundedWindowStartingAtACheckpoint() {
+        GameHistory history = new GameHistory(world, player, state, clock, LIMIT);
+        play(history, 0, 5_000);
+
+        assertEquals(5_000, history.size());
+        int first = history.first();
+        assertTrue(first > 0 && history.size() - first <= LIMIT + GameHistory.CHECKPOINT_INTERVAL,
+                "kept events " + first + " to " + history.size());
+        assertEquals(first, history.checkpointAt(first).event);
+        assertEquals(first, history.checkpointAt(0).event);
+        assertEquals(first + 1, history.tickAt(first + 1));
+        assertEquals(StateDelta.counterSet("steps", first).toString(), history.event(first).toString());
+        assertThrows(IndexOutOfBoundsException.class, () -> history.event(first - 1));
+        assertTrue(history.getLog().getEventBytes() <= (long) (LIMIT + GameHistory.CHECKPOINT_INTERVAL) * 12);
+    }
+
+    @Test
+    void undoStopsAtTheOldestKeptEvent() {
+        GameHistory history = new GameHistory(world, player, state, clock, LIMIT);
+        play(history, 0, 5_000);
+        int undone = 0;
+        GameHistory.Checkpoint previous;
+        while ((previous = history.undo()) != null) {
+            assertTrue(previous.event >= history.first());
+            undone++;
+        }
+        assertTrue(undone > 0);
+    }
+
+    @Test
+    void relocksPendingBeforeTheDiscardedEventsSurviveIt() {
+        GameHistory history = new GameHistory(world, player, state, clock, LIMIT);
+        history.append(StateDelta.exitLockScheduled("Hall", "north", 100_000), 1);
+        history.append(StateDelta.exitLockScheduled("Hall", "east", 30), 1);
+        history.turnEnded(player, state, 1, true);
+        play(history, 2, 29);
+        history.append(StateDelta.exitLocked("Hall", "east"), 30);
+        history.turnEnded(player, state, 30, true);
+        play(history, 30, 5_000);
+        assertTrue(history.first() > 30);
+
+        WorldClock restored = new WorldClock(delta -> {});
+        history.restoreClock(restored, history.size(), 5_000);
+        assertEquals(5_000, restored.tick());
+        assertEquals(List.of(StateDelta.exitLockScheduled("Hall", "north", 100_000).toString()),
+                restored.scheduledEvents().stream().map(StateDelta::toString).toList());
+    }
+
+    @Test
+    void rewindAcceptsOnlyKeptEvents() throws Exception {
+        Path file = dir.resolve("world.json");
+        Game game = new Game(new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+        game.initialize(WorldDefinition.load(file.toString()));
+        game.processCommand("take coin");
+        assertEquals(0, game.getFirstKeptEvent());
+        game.rewind(0);
+        assertEquals(0, game.getEventCount());
+        assertThrows(IllegalArgumentException.class, () -> game.rewind(-1));
+    }
+
+    @Test
+    void aSharedGameKeepsNoLog() throws Exception {
+        Game game = new Game(new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+        game.joinSharedWorld(new SharedWorld(world), "Ada");
+        game.processCommand("take coin");
+        assertEquals(0, game.getEventCount());
+        assertNull(game.getEventLog());
+        assertThrows(IllegalStateException.class, () -> game.rewind(0));
+    }
+}
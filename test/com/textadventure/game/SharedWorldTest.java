@@ -0,0 +1,178 @@
+package com.textadventure.game;
+
+import com.textadventure.engine.WorldDefinition;
+import com.textadventure.model.Effect;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SharedWorldTest {
+
+    private static final String WORLD = """
+            {
+              "playerStart": "Hall",
+              "items": [
+                {"name": "Key", "description": "A key.",
+                 "usability": {"target": "Lock", "effectDescription": "The lock clicks.", "removesTarget": "Lock",
+                   "addsItemToInventory": "Gem", "incrementsCounter": "opened"}},
+                {"name": "Lock", "description": "A lock."},
+                {"name": "Gem", "description": "A gem."}
+              ],
+              "rooms": [
+                {"name": "Hall", "description": "A hall.", "exits": {}, "items": ["Lock"]}
+              ]
+            }
+            """;
+
+    @TempDir
+    static Path dir;
+    private static WorldDefinition world;
+
+    @BeforeAll
+    static void loadWorld() throws Exception {
+        Path file = dir.resolve("lock.json");
+        Files.writeString(file, WORLD);
+        world = WorldDefinition.load(file.toString());
+    }
+
+    private static Game player(SharedWorld shared, String name, ByteArrayOutputStream output) throws Exception {
+        Game game = new Game(new PrintStream(output, true, StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+        game.joinSharedWorld(shared, name);
+        game.getPlayer().takeItem(world.getItem("Key"));
+        return game;
+    }
+
+    private static void assertEffectsRanOnce(SharedWorld shared, Game first, Game second, String output) {
+        assertEquals(1, shared.getCounter("opened"), output);
+        int gems = (first.getPlayer().findInventoryItem("gem") != null ? 1 : 0)
+                + (second.getPlayer().findInventoryItem("gem") != null ? 1 : 0);
+        assertEquals(1, gems, output);
+        assertEquals(1, output.split("The lock clicks\\.", -1).length - 1, output);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // The second player has found the lock but not yet removed it when the first one takes it away.
+    @Test
+    void targetTakenAfterItWasFoundStopsTheEffects() throws Exception {
+        SharedWorld shared = new SharedWorld(world);
+        ByteArrayOutputStream firstOutput = new ByteArrayOutputStream();
+        ByteArrayOutputStream secondOutput = new ByteArrayOutputStream();
+        Game first = player(shared, "Ada", firstOutput);
+        Game second = player(shared, "Grace", secondOutput);
+        CountDownLatch secondFoundLock = new CountDownLatch(1);
+        CountDownLatch firstUsedKey = new CountDownLatch(1);
+        // Handlers are shared by every game, so only the second player's removal waits.
+        EffectHandler removeTarget = EffectRegistry.handler(Effect.REMOVE_TARGET);
+        EffectRegistry.register(Effect.REMOVE_TARGET, (use, effect) -> {
+            if (use.getGame() == second) {
+                secondFoundLock.countDown();
+                await(firstUsedKey);
+            }
+            return removeTarget.apply(use, effect);
+        });
+
+        ExecutorService thread = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> secondUse = thread.submit(() -> second.processCommand("use key on lock"));
+            await(secondFoundLock);
+            first.processCommand("use key on lock");
+            firstUsedKey.countDown();
+            secondUse.get();
+        } finally {
+            thread.shutdown();
+            EffectRegistry.register(Effect.REMOVE_TARGET, removeTarget);
+        }
+
+        String output = firstOutput.toString(StandardCharsets.UTF_8) + secondOutput.toString(StandardCharsets.UTF_8);
+        assertEffectsRanOnce(shared, first, second, output);
+        assertTrue(secondOutput.toString(StandardCharsets.UTF_8).contains("The Lock is gone."), output);
+    }
+
+    @Test
+    void noticesReachAPlayerOnItsOwnThreadWithItsNextTurn() throws Exception {
+        SharedWorld shared = new SharedWorld(world);
+        ByteArrayOutputStream listened = new ByteArrayOutputStream();
+        Set<Thread> writers = new HashSet<>();
+        OutputStream recording = new OutputStream() {
+            @Override
+            public void write(int b) {
+                writers.add(Thread.currentThread());
+                listened.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                writers.add(Thread.currentThread());
+                listened.write(b, off, len);
+            }
+        };
+        Game listener = new Game(new PrintStream(recording, true, StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+        listener.joinSharedWorld(shared, "Ada");
+        Game actor = player(shared, "Grace", new ByteArrayOutputStream());
+        listened.reset();
+
+        ExecutorService thread = Executors.newSingleThreadExecutor();
+        try {
+            thread.submit(() -> actor.processCommand("take lock")).get();
+        } finally {
+            thread.shutdown();
+        }
+        assertEquals(0, listened.size());
+
+        listener.processCommand("inventory");
+        String output = listened.toString(StandardCharsets.UTF_8);
+        String newline = System.lineSeparator();
+        assertTrue(output.startsWith("Grace appears." + newline + "Grace takes the Lock." + newline), output);
+        assertEquals(Set.of(Thread.currentThread()), writers);
+    }
+
+    @Test
+    void usingTheSameTargetAtOnceRunsTheEffectsOnce() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 200; round++) {
+                SharedWorld shared = new SharedWorld(world);
+                ByteArrayOutputStream firstOutput = new ByteArrayOutputStream();
+                ByteArrayOutputStream secondOutput = new ByteArrayOutputStream();
+                Game first = player(shared, "Ada", firstOutput);
+                Game second = player(shared, "Grace", secondOutput);
+                CyclicBarrier start = new CyclicBarrier(2);
+                Future<?> a = threads.submit(() -> { start.await(); first.processCommand("use key on lock"); return null; });
+                Future<?> b = threads.submit(() -> { start.await(); second.processCommand("use key on lock"); return null; });
+                a.get();
+                b.get();
+
+                assertEffectsRanOnce(shared, first, second,
+                        firstOutput.toString(StandardCharsets.UTF_8) + secondOutput.toString(StandardCharsets.UTF_8));
+                first.close();
+                second.close();
+            }
+        } finally {
+            threads.shutdown();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.textadventure.game;
+
+import com.textadventure.engine.WorldDefinition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimedChangeTest {
+
+    private static final String WORLD = """
+            {
+              "playerStart": "Hall",
+              "items": [
+                {"name": "Key", "description": "A key.",
+                 "usability": {"target": "Lock", "effectDescription": "The lock clicks.",
+                   "modifiesExit": {"direction": "north", "clearRequiresItem": true, "relocksAfterTurns": 2}}},
+                {"name": "Lock", "description": "A lock."},
+                {"name": "Badge", "description": "A badge."},
+                {"name": "Coin", "description": "A coin."}
+              ],
+              "rooms": [
+                {"name": "Hall", "description": "A hall.", "exits": {},
+                 "exitData": {"north": {"targetRoom": "Vault", "conditions": {"requiresItem": "Badge", "failMessage": "Locked."}}},
+                 "items": ["Key", "Lock", "Coin"]},
+                {"name": "Vault", "description": "A vault.", "exits": {"south": "Hall"}, "items": []}
+              ]
+            }
+            """;
+
+    @TempDir
+    Path dir;
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private Game game;
+
+    @BeforeEach
+    void startGame() throws Exception {
+        Path file = dir.resolve("relock.json");
+        Files.writeString(file, WORLD);
+        game = new Game(new PrintStream(output, true, StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+        game.initialize(WorldDefinition.load(file.toString()));
+        game.setSaveFileName(dir.resolve("relock.sav").toString());
+    }
+
+    private String run(String command) {
+        output.reset();
+        game.processCommand(command);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private boolean northOpen() {
+        return game.getWorldState().isExitRequirementCleared(game.getCurrentRoom(), "north");
+    }
+
+    @Test
+    void undoAndRedoDoNotFireTimersOrLoseTheRedoLevel() {
+        run("take key");
+        run("use key on lock");
+        assertTrue(northOpen());
+        run("take coin");
+        assertEquals(3, game.getTick());
+        assertEquals(1, game.getPendingTimedChanges());
+
+        // The relock is due on the next tick; an undo must not get there.
+        run("undo");
+        assertEquals(2, game.getTick());
+        assertTrue(northOpen());
+        assertEquals(1, game.getPendingTimedChanges());
+
+        assertTrue(run("redo").contains("Redone."));
+        assertEquals(3, game.getTick());
+        assertNotNull(game.getPlayer().findInventoryItem("coin"));
+        assertTrue(northOpen());
+
+        assertTrue(run("look").contains("The exit to the north closes again."));
+        assertFalse(northOpen());
+        assertEquals(0, game.getPendingTimedChanges());
+    }
+
+    @Test
+    void saveAndLoadAreNotTurns() {
+        run("take key");
+        run("use key on lock");
+        run("save");
+        run("load");
+        run("save");
+        assertEquals(2, game.getTick());
+        assertTrue(northOpen());
+
+        assertTrue(run("undo").contains("Nothing to undo."));
+        assertFalse(run("look").contains("closes again"));
+        assertTrue(run("look").contains("The exit to the north closes again."));
+    }
+}
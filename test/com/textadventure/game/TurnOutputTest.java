@@ -0,0 +1,47 @@
+package com.textadventure.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TurnOutputTest {
+
+    private final ByteArrayOutputStream sink = new ByteArrayOutputStream();
+    private final TurnOutput output = new TurnOutput(sink, StandardCharsets.UTF_8);
+
+    private List<String> written() {
+        List<String> lines = sink.toString(StandardCharsets.UTF_8).lines().toList();
+        sink.reset();
+        return lines;
+    }
+
+    @Test
+    void noticesGoAheadOfTheTurnTheyWaitedFor() {
+        output.stream().println("You see a hall.");
+        output.notice("Ada takes the Coin.");
+        output.flush();
+        assertEquals(List.of("Ada takes the Coin.", "You see a hall."), written());
+
+        output.flush();
+        assertEquals(List.of(), written());
+    }
+
+    @Test
+    void onlyTheLatestNoticesAreKeptAndTheRestAreCounted() {
+        for (int i = 0; i < TurnOutput.NOTICE_LIMIT + 5; i++) output.notice("Notice " + i);
+        output.flush();
+        List<String> lines = written();
+        assertEquals(TurnOutput.NOTICE_LIMIT + 1, lines.size());
+        assertEquals("(5 earlier messages were missed.)", lines.get(0));
+        assertEquals("Notice 5", lines.get(1));
+        assertEquals("Notice " + (TurnOutput.NOTICE_LIMIT + 4), lines.get(lines.size() - 1));
+
+        output.notice("Bo drops the Key.");
+        output.flush();
+        assertEquals(List.of("Bo drops the Key."), written());
+    }
+}
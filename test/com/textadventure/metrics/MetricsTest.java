@@ -0,0 +1,39 @@
+package com.textadventure.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsTest {
+
+    @Test
+    void bucketCountsAreCumulativeAndNeverCountAStraddlingBucketEarly() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 100; i++) histogram.record(2_000);
+        histogram.record(3_000_000);
+        histogram.record(999);
+
+        long[] cumulative = histogram.snapshot().countsAtOrBelow(new long[] { 999, 1_000, 5_000, 1_000_000, 10_000_000 });
+        // 999 ns shares a bucket with values above 1 µs, so it is counted in the next bound up.
+        assertArrayEquals(new long[] { 0, 0, 101, 101, 102 }, cumulative);
+    }
+
+    @Test
+    void latenciesAreExportedAsHistogramsWithoutLifetimeQuantiles() {
+        Metrics.VerbMetrics verb = Metrics.verb("histogramtest");
+        verb.record(Metrics.Outcome.SUCCESS, 2_000);
+        verb.record(Metrics.Outcome.SUCCESS, 3_000_000);
+
+        String text = MetricsExporter.render();
+        assertTrue(text.contains("# TYPE textadventure_command_latency_seconds histogram\n"), text);
+        assertTrue(text.contains("textadventure_command_latency_seconds_bucket{verb=\"histogramtest\",le=\"0.000001\"} 0\n"), text);
+        assertTrue(text.contains("textadventure_command_latency_seconds_bucket{verb=\"histogramtest\",le=\"0.000005\"} 1\n"), text);
+        assertTrue(text.contains("textadventure_command_latency_seconds_bucket{verb=\"histogramtest\",le=\"0.005\"} 2\n"), text);
+        assertTrue(text.contains("textadventure_command_latency_seconds_bucket{verb=\"histogramtest\",le=\"+Inf\"} 2\n"), text);
+        assertTrue(text.contains("textadventure_command_latency_seconds_count{verb=\"histogramtest\"} 2\n"), text);
+        assertTrue(text.contains("textadventure_command_latency_max_seconds{verb=\"histogramtest\"} 0.003000000\n"), text);
+        assertFalse(text.contains("quantile="), text);
+    }
+}
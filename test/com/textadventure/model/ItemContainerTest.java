@@ -0,0 +1,96 @@
+package com.textadventure.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ItemContainerTest {
+
+    private static Item item(String name, int id) {
+        Item item = new Item(name, name + ".");
+        item.assignId(id);
+        return item;
+    }
+
+    @Test
+    void keepsOrderAndFindsTheEarliestOfSharedNames() {
+        Item first = item("Coin", 1);
+        Item second = item("coin", 2);
+        Item lamp = item("Lamp", 3);
+        ItemContainer items = new ItemContainer(true);
+        items.add(first);
+        items.add(lamp);
+        items.add(second);
+
+        assertSame(first, items.find("COIN"));
+        assertEquals(2, items.countNamed("coin"));
+        assertTrue(items.remove(first));
+        assertFalse(items.remove(first));
+        assertSame(second, items.find("coin"));
+        assertEquals(List.of(lamp, second), items.asList());
+        assertEquals("Lamp, coin", items.getNameList());
+        assertFalse(items.hasItemId(1));
+        assertTrue(items.hasItemId(2));
+    }
+
+    @Test
+    void compactsAfterManyRemovals() {
+        ItemContainer items = new ItemContainer(true);
+        Item[] all = new Item[200];
+        for (int i = 0; i < all.length; i++) items.add(all[i] = item("Item " + i, i));
+        for (int i = 0; i < 190; i++) items.remove(all[i]);
+
+        assertEquals(10, items.size());
+        assertTrue(items.slots().size() < 200);
+        assertSame(all[195], items.find("item 195"));
+        assertEquals(all[190], items.asList().get(0));
+        assertTrue(items.hasItemId(199));
+        assertFalse(items.hasItemId(100));
+    }
+
+    @Test
+    void historyLevelsShareUnchangedStructure() {
+        ItemContainer level1 = new ItemContainer(true);
+        Item[] all = new Item[300];
+        for (int i = 0; i < all.length; i++) level1.add(all[i] = item("Item " + i, i));
+        ItemContainer level2 = level1.minus(all[150]);
+        ItemContainer level3 = level2.plus(item("Gem", 300));
+
+        assertEquals(300, level1.size());
+        assertSame(all[150], level1.find("item 150"));
+        assertTrue(level1.hasItemId(150));
+        assertNull(level2.find("item 150"));
+        assertFalse(level2.hasItemId(150));
+        assertEquals(300, level3.size());
+
+        assertFalse(level2.slots().sharesLeaf(level1.slots(), 150));
+        for (int position : new int[] {0, 64, 127, 200, 299})
+            assertTrue(level2.slots().sharesLeaf(level1.slots(), position));
+        // Appending copies only the tail leaf.
+        for (int position : new int[] {0, 150, 200})
+            assertTrue(level3.slots().sharesLeaf(level2.slots(), position));
+        assertFalse(level3.slots().sharesLeaf(level2.slots(), 299));
+        assertSame(level2, level2.minus(all[150]));
+    }
+
+    @Test
+    void playerInventoryVersionsShareStructure() {
+        Player player = new Player();
+        Item[] all = new Item[100];
+        for (int i = 0; i < all.length; i++) player.takeItem(all[i] = item("Item " + i, i));
+        ItemContainer before = player.getInventoryContainer();
+        assertTrue(player.dropItem(all[99]));
+        assertFalse(player.dropItem(all[99]));
+
+        ItemContainer after = player.getInventoryContainer();
+        assertSame(all[99], before.find("item 99"));
+        assertNull(after.find("item 99"));
+        assertTrue(after.slots().sharesLeaf(before.slots(), 0));
+    }
+}
@@ -0,0 +1,186 @@
+package com.textadventure.persistence;
+
+import com.textadventure.engine.WorldDefinition;
+import com.textadventure.utils.SaveState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SaveJournalTest {
+
+    private static final String WORLD = """
+            {
+              "playerStart": "Hall",
+              "items": [
+                {"name": "Key", "description": "A key."},
+                {"name": "Coin", "description": "A coin."}
+              ],
+              "rooms": [
+                {"name": "Hall", "description": "A hall.", "exits": {"north": "Vault"}, "items": ["Key", "Coin"]},
+                {"name": "Vault", "description": "A vault.", "exits": {"south": "Hall"}, "items": []}
+              ]
+            }
+            """;
+
+    private static final List<StateDelta> FIRST = List.of(
+            StateDelta.roomItemRemoved("Hall", "Key"), StateDelta.inventoryAdded("Key"));
+    private static final List<StateDelta> SECOND = List.of(
+            StateDelta.playerMoved("Vault"), StateDelta.counterSet("steps", 3));
+
+    @TempDir
+    Path dir;
+    private WorldDefinition world;
+    private Path save;
+
+    @BeforeEach
+    void loadWorld() throws Exception {
+        Path file = dir.resolve("world.json");
+        Files.writeString(file, WORLD);
+        world = WorldDefinition.load(file.toString());
+        save = dir.resolve("game.sav");
+    }
+
+    private static SaveState state(String room) {
+        return new SaveState(room, List.of(), Map.of());
+    }
+
+    private SaveJournal.Recovery recover() throws IOException {
+        return new SaveJournal(save).recover(world);
+    }
+
+    private static List<String> strings(List<StateDelta> deltas) {
+        return deltas.stream().map(StateDelta::toString).toList();
+    }
+
+    private static List<String> strings(List<StateDelta> first, List<StateDelta> second) {
+        List<String> all = new ArrayList<>(strings(first));
+        all.addAll(strings(second));
+        return all;
+    }
+
+    @Test
+    void checkpointAndAppendsRecoverInOrder() throws Exception {
+        SaveJournal journal = new SaveJournal(save);
+        journal.checkpoint(state("Hall"));
+        journal.append(FIRST);
+        journal.append(SECOND);
+        assertEquals(4, journal.getJournalRecordCount());
+
+        SaveJournal.Recovery recovery = recover();
+        assertEquals("Hall", recovery.getSnapshot().getPlayerRoom());
+        assertEquals(strings(FIRST, SECOND), strings(recovery.getDeltas()));
+        assertFalse(recovery.hasTornTail());
+    }
+
+    @Test
+    void aScheduledChangeRoundTripsWithTheChangeItCarries() throws Exception {
+        List<StateDelta> timed = List.of(
+                StateDelta.changeScheduled(StateDelta.exitMessageChanged("Hall", "north", "Shut."), 9),
+                StateDelta.changeScheduled(StateDelta.roomItemAdded("Vault", "Coin"), 12));
+        SaveJournal journal = new SaveJournal(save);
+        journal.checkpoint(state("Hall"));
+        journal.append(timed);
+
+        assertEquals(strings(timed), strings(recover().getDeltas()));
+    }
+
+    @Test
+    void aNewCheckpointStartsAnEmptyJournal() throws Exception {
+        SaveJournal journal = new SaveJournal(save);
+        journal.checkpoint(state("Hall"));
+        journal.append(FIRST);
+        journal.checkpoint(state("Vault"));
+        journal.append(SECOND);
+
+        SaveJournal.Recovery recovery = recover();
+        assertEquals("Vault", recovery.getSnapshot().getPlayerRoom());
+        assertEquals(strings(SECOND), strings(recovery.getDeltas()));
+    }
+
+    @Test
+    void aTornTailIsSkippedAndOverwrittenByTheNextAppend() throws Exception {
+        SaveJournal journal = new SaveJournal(save);
+        journal.checkpoint(state("Hall"));
+        journal.append(FIRST);
+        journal.append(SECOND);
+        byte[] bytes = Files.readAllBytes(journal.getJournalPath());
+        Files.write(journal.getJournalPath(), Arrays.copyOf(bytes, bytes.length - 3));
+
+        SaveJournal resumed = new SaveJournal(save);
+        SaveJournal.Recovery recovery = resumed.recover(world);
+        assertTrue(recovery.hasTornTail());
+        assertEquals(strings(FIRST, SECOND.subList(0, 1)), strings(recovery.getDeltas()));
+
+        // The next save's records follow the last good one, so nothing after the tear survives.
+        resumed.append(List.of(StateDelta.clockSet(7)));
+        recovery = recover();
+        assertFalse(recovery.hasTornTail());
+        assertEquals(strings(FIRST, List.of(SECOND.get(0), StateDelta.clockSet(7))), strings(recovery.getDeltas()));
+    }
+
+    @Test
+    void recoveryStopsAtTheFirstRecordWhoseChecksumFails() throws Exception {
+        SaveJournal journal = new SaveJournal(save);
+        journal.checkpoint(state("Hall"));
+        journal.append(FIRST);
+        long firstBatchEnd = Files.size(journal.getJournalPath());
+        journal.append(SECOND);
+        byte[] bytes = Files.readAllBytes(journal.getJournalPath());
+        // First payload byte of the second batch, past its length and checksum.
+        int corrupt = (int) firstBatchEnd + 8;
+        bytes[corrupt] ^= 0x5A;
+        Files.write(journal.getJournalPath(), bytes);
+
+        SaveJournal.Recovery recovery = recover();
+        assertTrue(recovery.hasTornTail());
+        assertEquals(strings(FIRST), strings(recovery.getDeltas()));
+    }
+
+    @Test
+    void aJournalFromAnotherSnapshotIsIgnored() throws Exception {
+        SaveJournal journal = new SaveJournal(save);
+        journal.checkpoint(state("Hall"));
+        journal.append(FIRST);
+        byte[] oldJournal = Files.readAllBytes(journal.getJournalPath());
+        journal.checkpoint(state("Vault"));
+        Files.write(journal.getJournalPath(), oldJournal);
+
+        SaveJournal resumed = new SaveJournal(save);
+        SaveJournal.Recovery recovery = resumed.recover(world);
+        assertEquals("Vault", recovery.getSnapshot().getPlayerRoom());
+        assertTrue(recovery.getDeltas().isEmpty());
+        assertFalse(resumed.isAttached());
+        assertThrows(IllegalStateException.class, () -> resumed.append(SECOND));
+    }
+
+    @Test
+    void aFailedJournalReplacementLeavesTheJournalDetached() throws Exception {
+        SaveJournal journal = new SaveJournal(save);
+        journal.checkpoint(state("Hall"));
+        journal.append(FIRST);
+        // A directory where the fresh journal's temporary file should go makes that step fail.
+        Files.createDirectory(dir.resolve("game.sav.journal.tmp"));
+
+        assertThrows(IOException.class, () -> journal.checkpoint(state("Vault")));
+        assertFalse(journal.isAttached());
+        assertThrows(IllegalStateException.class, () -> journal.append(SECOND));
+
+        // The new snapshot is on disk; the old journal no longer belongs to it.
+        SaveJournal.Recovery recovery = recover();
+        assertEquals("Vault", recovery.getSnapshot().getPlayerRoom());
+        assertTrue(recovery.getDeltas().isEmpty());
+    }
+}
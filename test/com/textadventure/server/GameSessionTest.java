@@ -0,0 +1,81 @@
+package com.textadventure.server;
+
+import com.textadventure.engine.WorldDefinition;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameSessionTest {
+
+    private static WorldDefinition world;
+    @TempDir
+    Path saves;
+
+    @BeforeAll
+    static void loadWorld() throws Exception {
+        world = WorldDefinition.load("data/adventure.json");
+    }
+
+    private String play(Set<String> playersOnline, String input) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new GameSession(1, world, playersOnline,
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output).saveDirectory(saves).run();
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void playerNamesMustBeSafeInFileNames() {
+        assertTrue(GameSession.isValidPlayerName("Ada_Lovelace-2"));
+        assertFalse(GameSession.isValidPlayerName("../savegame"));
+        assertFalse(GameSession.isValidPlayerName("a b"));
+        assertFalse(GameSession.isValidPlayerName(""));
+        assertFalse(GameSession.isValidPlayerName("x".repeat(25)));
+    }
+
+    @Test
+    void asksAgainUntilTheNameIsValidAndFree() {
+        Set<String> playersOnline = ConcurrentHashMap.newKeySet();
+        playersOnline.add("ada");
+        String output = play(playersOnline, "../etc/passwd\nADA\nGrace\nlook\n");
+
+        assertTrue(output.contains("Names are 1 to 24 letters"));
+        assertTrue(output.contains("Someone called ADA is already playing."));
+        assertTrue(output.contains("Welcome to the Text Adventure Engine!"));
+        // The name is released when the session ends.
+        assertEquals(Set.of("ada"), playersOnline);
+    }
+
+    @Test
+    void aReturningPlayerMustGiveTheSaveKey() throws Exception {
+        Set<String> playersOnline = ConcurrentHashMap.newKeySet();
+        String first = play(playersOnline, "Ada\nsave\n");
+        Matcher given = Pattern.compile("Your save key is ([0-9a-f]+)\\.").matcher(first);
+        assertTrue(given.find(), first);
+        assertTrue(Files.exists(saves.resolve("savegame-ada.sav")));
+        assertFalse(Files.readString(saves.resolve("savegame-ada.sav.key")).contains(given.group(1)));
+
+        String impostor = play(playersOnline, "ada\nguess\nADA\nguess\nAda\nguess\nlook\n");
+        assertTrue(impostor.contains("That is not the save key for ada."), impostor);
+        assertTrue(impostor.contains("Too many wrong save keys."), impostor);
+        assertFalse(impostor.contains("Welcome"), impostor);
+        assertTrue(playersOnline.isEmpty());
+
+        String back = play(playersOnline, "ADA\n" + given.group(1).toUpperCase() + "\nload\n");
+        assertTrue(back.contains("Game loaded successfully!"), back);
+        assertFalse(back.contains("Your save key is"), back);
+    }
+}
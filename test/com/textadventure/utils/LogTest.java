@@ -0,0 +1,48 @@
+package com.textadventure.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogTest {
+
+    // Holds the writer thread inside its first write until released.
+    private static final class StalledWriter extends StringWriter {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void write(String text) {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.write(text);
+        }
+    }
+
+    @Test
+    void aFullQueueDropsLinesAndTheFlushReportsHowMany() throws Exception {
+        StalledWriter target = new StalledWriter();
+        Log.Sink sink = new Log.Sink(target, true, 2);
+        sink.write("first");
+        assertTrue(target.entered.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 5; i++) sink.write("line " + i);
+        target.release.countDown();
+        sink.flush();
+
+        String[] lines = target.toString().split(System.lineSeparator());
+        assertEquals("first", lines[0]);
+        assertEquals("line 0", lines[1]);
+        assertEquals("line 1", lines[2]);
+        assertEquals("[Log WARN] 3 messages dropped; the log queue was full.", lines[3]);
+        assertEquals(4, lines.length);
+    }
+}
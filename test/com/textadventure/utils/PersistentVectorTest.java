@@ -0,0 +1,43 @@
+package com.textadventure.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PersistentVectorTest {
+
+    @Test
+    void appendsAcrossTrieLevels() {
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        for (int i = 0; i < 40_000; i++) vector = vector.plus(i);
+        assertEquals(40_000, vector.size());
+        for (int i = 0; i < 40_000; i += 97) assertEquals(i, vector.get(i));
+        List<Integer> iterated = new ArrayList<>();
+        vector.forEach(iterated::add);
+        assertEquals(40_000, iterated.size());
+        assertEquals(39_999, iterated.get(39_999));
+        assertThrows(IndexOutOfBoundsException.class, () -> PersistentVector.empty().get(0));
+    }
+
+    @Test
+    void withLeavesTheOldVersionAndOtherLeavesAlone() {
+        PersistentVector<Integer> before = PersistentVector.empty();
+        for (int i = 0; i < 5_000; i++) before = before.plus(i);
+        PersistentVector<Integer> after = before.with(2_500, null);
+
+        assertNull(after.get(2_500));
+        assertEquals(2_500, before.get(2_500));
+        assertFalse(after.sharesLeaf(before, 2_500));
+        assertTrue(after.sharesLeaf(before, 0));
+        assertTrue(after.sharesLeaf(before, 4_999));
+        assertSame(after, after.with(2_500, null));
+    }
+}